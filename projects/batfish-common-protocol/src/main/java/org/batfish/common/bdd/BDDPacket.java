@@ -105,7 +105,16 @@ public class BDDPacket {
    * various attributes of a control plane advertisement.
    */
   public BDDPacket() {
-    _factory = JFactory.init(JFACTORY_INITIAL_NODE_TABLE_SIZE, JFACTORY_INITIAL_NODE_CACHE_SIZE);
+    this(JFactory.init(JFACTORY_INITIAL_NODE_TABLE_SIZE, JFACTORY_INITIAL_NODE_CACHE_SIZE));
+  }
+
+  /**
+   * Creates the packet variables in {@code factory}, which must be a freshly initialized factory.
+   * Use a factory that {@link BDDFactory#isThreadSafe() supports concurrent use}, such as one from
+   * {@link JFactory#initConcurrent(int, int)}, to let analyses work on the BDDs in parallel.
+   */
+  public BDDPacket(BDDFactory factory) {
+    _factory = factory;
     _factory.setCacheRatio(JFACTORY_CACHE_RATIO);
     // Do not impose a maximum node table increase
     _factory.setMaxIncrease(0);
@@ -437,15 +446,18 @@ public class BDDPacket {
     long bits = pfx.getStartIp().asLong();
     int[] vars = new int[len];
     BDD[] vals = new BDD[len];
-    _pairing.reset();
     for (int i = 0; i < len; i++) {
       int var = _dstIp.getBitvec()[i].var(); // dstIpIndex + i;
       BDD subst = Ip.getBitAtPosition(bits, i) ? _factory.one() : _factory.zero();
       vars[i] = var;
       vals[i] = subst;
     }
-    _pairing.set(vars, vals);
-    return bdd.veccompose(_pairing);
+    // the pairing is shared, and the factory may be used from several threads
+    synchronized (_pairing) {
+      _pairing.reset();
+      _pairing.set(vars, vals);
+      return bdd.veccompose(_pairing);
+    }
   }
 
   public BDD restrict(BDD bdd, List<Prefix> prefixes) {
@@ -3,6 +3,8 @@ package org.batfish.common.bdd;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.stream.Stream;
 import net.sf.javabdd.BDD;
 import net.sf.javabdd.BDDFactory;
@@ -45,6 +47,35 @@ public class BDDUtils {
     return true;
   }
 
+  /**
+   * Copies {@code bdd} from its factory into {@code target}, which must define all variables that
+   * {@code bdd} uses. This allows combining BDDs built concurrently on separate factories.
+   */
+  public static BDD transfer(BDD bdd, BDDFactory target) {
+    return transfer(bdd, target, new HashMap<>());
+  }
+
+  /**
+   * Like {@link #transfer(BDD, BDDFactory)}, but shares {@code memo} (a map from source BDDs to
+   * their copies in {@code target}) across calls, so that nodes shared by several BDDs from the
+   * same factory are copied once.
+   */
+  public static BDD transfer(BDD bdd, BDDFactory target, Map<BDD, BDD> memo) {
+    if (bdd.isZero()) {
+      return target.zero();
+    } else if (bdd.isOne()) {
+      return target.one();
+    }
+    BDD result = memo.get(bdd);
+    if (result == null) {
+      BDD high = transfer(bdd.high(), target, memo);
+      BDD low = transfer(bdd.low(), target, memo);
+      result = target.ithVar(bdd.var()).ite(high, low);
+      memo.put(bdd, result);
+    }
+    return result;
+  }
+
   /**
    * Swap the constraints on multiple {@link BDDInteger BDDIntegers} in a {@link BDD}. Usage:
    * swap(bdd, a1, a2, b1, b2, ...). Swaps a1 and a2, b1 and b2, etc.
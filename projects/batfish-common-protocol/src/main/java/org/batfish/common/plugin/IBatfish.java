@@ -20,7 +20,6 @@ import org.batfish.datamodel.BgpAdvertisement;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.DataPlane;
 import org.batfish.datamodel.Flow;
-import org.batfish.datamodel.answers.AnswerElement;
 import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
 import org.batfish.datamodel.answers.DataPlaneAnswerElement;
 import org.batfish.datamodel.answers.InitInfoAnswerElement;
@@ -29,6 +28,7 @@ import org.batfish.datamodel.answers.ParseVendorConfigurationAnswerElement;
 import org.batfish.datamodel.collections.BgpAdvertisementsByVrf;
 import org.batfish.datamodel.flow.Trace;
 import org.batfish.datamodel.pojo.Environment;
+import org.batfish.datamodel.questions.InvalidReachabilityParametersException;
 import org.batfish.datamodel.questions.Question;
 import org.batfish.grammar.BgpTableFormat;
 import org.batfish.identifiers.NetworkId;
@@ -92,6 +92,16 @@ public interface IBatfish extends IPluginConsumer {
   @Nonnull
   NetworkSnapshot getReferenceSnapshot();
 
+  /**
+   * Returns the snapshot that {@code snapshot} was forked from, if it has a computed data plane.
+   * Otherwise, returns {@code null}.
+   *
+   * <p>The returned snapshot is registered with this instance, so that its data plane,
+   * configurations, and topologies can be loaded like those of the current snapshots.
+   */
+  @Nullable
+  NetworkSnapshot registerParentSnapshot(NetworkSnapshot snapshot);
+
   NodeRolesData getNodeRolesData();
 
   Optional<NodeRoleDimension> getNodeRoleDimension(String roleDimension);
@@ -170,7 +180,16 @@ public interface IBatfish extends IPluginConsumer {
   /** Return a {@link SpecifierContext} for a given {@link NetworkSnapshot} */
   SpecifierContext specifierContext(NetworkSnapshot networkSnapshot);
 
-  AnswerElement standard(NetworkSnapshot snapshot, ReachabilityParameters reachabilityParameters);
+  /**
+   * Returns an example flow from each ingress location that satisfies {@code
+   * reachabilityParameters}.
+   *
+   * @throws InvalidReachabilityParametersException if {@code reachabilityParameters} cannot be
+   *     resolved in {@code snapshot}
+   */
+  Set<Flow> bddSingleReachabilityFlows(
+      NetworkSnapshot snapshot, ReachabilityParameters reachabilityParameters)
+      throws InvalidReachabilityParametersException;
 
   Set<Flow> bddLoopDetection(NetworkSnapshot snapshot);
 
@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.function.BiConsumer;
 import org.batfish.common.util.CollectionUtil;
 import org.batfish.datamodel.Flow;
 import org.batfish.datamodel.flow.FirewallSessionTraceInfo;
@@ -35,6 +36,20 @@ public interface TracerouteEngine {
                 .collect(ImmutableList.toImmutableList()));
   }
 
+  /**
+   * Builds the {@link Trace}s for a {@link Set} of {@link Flow}s, passing each flow and its traces
+   * to {@code consumer} as soon as they are built rather than collecting them. This lets callers
+   * bound memory usage by summarizing or pruning the traces of each flow as they arrive.
+   *
+   * @param flows {@link Set} of {@link Flow} for which {@link Trace}s are to be found
+   * @param ignoreFilters if true, will ignore ACLs
+   * @param consumer called once for each flow, possibly concurrently and in any order of flows
+   */
+  default void computeTraces(
+      Set<Flow> flows, boolean ignoreFilters, BiConsumer<Flow, List<Trace>> consumer) {
+    computeTraces(flows, ignoreFilters).forEach(consumer);
+  }
+
   /**
    * Computes {@link Trace Traces} with reverse-direction {@link Flow Flows} for a {@link Set} of
    * forward {@link Flow Flows}.
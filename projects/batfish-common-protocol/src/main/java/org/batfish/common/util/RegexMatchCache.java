@@ -0,0 +1,71 @@
+package org.batfish.common.util;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import java.util.function.BiPredicate;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Memoizes results of matching regex-based expressions, such as AS-path access lists and community
+ * regexes, against the values they are applied to.
+ *
+ * <p>Results are keyed on the expression and the matched value, both compared with {@code equals}.
+ * So equal expressions share results, e.g. the same community regex used by many policies or by
+ * several snapshots of a network.
+ */
+@ParametersAreNonnullByDefault
+public final class RegexMatchCache {
+
+  /**
+   * Returns whether {@code expr} matches {@code value}. On a cache miss, the result is computed by
+   * {@code matcher}, which should only depend on its arguments. Expressions that are equal must
+   * match the same values, so {@code expr} should be the content the result depends on, such as a
+   * regex and its rendering, rather than an object carrying unrelated state.
+   */
+  public static <E, V> boolean matches(E expr, V value, BiPredicate<E, V> matcher) {
+    return CACHE.getUnchecked(new MatchKey<>(expr, value, matcher));
+  }
+
+  private static final class MatchKey<E, V> {
+    private final @Nonnull E _expr;
+    private final @Nonnull V _value;
+    /** Computes the result on a cache miss; not part of the key. */
+    private final @Nonnull BiPredicate<E, V> _matcher;
+
+    private MatchKey(E expr, V value, BiPredicate<E, V> matcher) {
+      _expr = expr;
+      _value = value;
+      _matcher = matcher;
+    }
+
+    private boolean match() {
+      return _matcher.test(_expr, _value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == this) {
+        return true;
+      } else if (!(o instanceof MatchKey)) {
+        return false;
+      }
+      MatchKey<?, ?> other = (MatchKey<?, ?>) o;
+      return _expr.equals(other._expr) && _value.equals(other._value);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * _expr.hashCode() + _value.hashCode();
+    }
+  }
+
+  // Shared by all expressions, so that full BGP tables cannot grow the cache without bound.
+  // Maximum size 2^20: each entry is a key, a boxed boolean, and references to existing objects.
+  // Entries only retain small expressions, never the configurations or data planes that use them.
+  private static final LoadingCache<MatchKey<?, ?>, Boolean> CACHE =
+      CacheBuilder.newBuilder().maximumSize(1 << 20).build(CacheLoader.from(MatchKey::match));
+
+  private RegexMatchCache() {}
+}
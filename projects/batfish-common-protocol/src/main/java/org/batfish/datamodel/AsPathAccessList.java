@@ -5,32 +5,23 @@ import static com.google.common.base.MoreObjects.firstNonNull;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
-import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import org.batfish.common.util.PatternProvider;
+import org.batfish.common.util.RegexMatchCache;
 
 /** An AsPathAccessList is used to filter e/iBGP routes according to their AS-path attribute. */
 public final class AsPathAccessList implements Serializable {
   private static final String PROP_LINES = "lines";
   private static final String PROP_NAME = "name";
 
-  private transient Set<AsPath> _deniedCache;
-
   @Nonnull private final List<AsPathAccessListLine> _lines;
 
   private final String _name;
 
-  private transient Set<AsPath> _permittedCache;
-
   @JsonCreator
   public AsPathAccessList(
       @Nullable @JsonProperty(PROP_NAME) String name,
@@ -68,39 +59,22 @@ public final class AsPathAccessList implements Serializable {
     return _name;
   }
 
-  private boolean newPermits(AsPath asPath) {
-    boolean accept = false;
-    for (AsPathAccessListLine line : _lines) {
-      String regex = line.getRegex();
-      Pattern p = Pattern.compile(regex);
-      String asPathString = asPath.getAsPathString();
-      Matcher matcher = p.matcher(asPathString);
-      boolean match = matcher.find();
-      if (match) {
-        accept = line.getAction() == LineAction.PERMIT;
-        break;
+  private static boolean newPermits(List<AsPathAccessListLine> lines, AsPath asPath) {
+    String asPathString = asPath.getAsPathString();
+    for (AsPathAccessListLine line : lines) {
+      if (PatternProvider.fromString(line.getRegex()).matcher(asPathString).find()) {
+        return line.getAction() == LineAction.PERMIT;
       }
     }
-    if (accept) {
-      _permittedCache.add(asPath);
-    } else {
-      _deniedCache.add(asPath);
-    }
-    return accept;
+    return false;
   }
 
+  /**
+   * Returns {@code true} iff the first line whose regex matches the string form of {@code asPath}
+   * permits it. Paths matched by no line are denied.
+   */
   public boolean permits(AsPath asPath) {
-    if (_deniedCache.contains(asPath)) {
-      return false;
-    } else if (_permittedCache.contains(asPath)) {
-      return true;
-    }
-    return newPermits(asPath);
-  }
-
-  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
-    in.defaultReadObject();
-    _deniedCache = Collections.newSetFromMap(new ConcurrentHashMap<>());
-    _permittedCache = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    // Keyed on the lines, so that lists with different names but the same lines share results.
+    return RegexMatchCache.matches(_lines, asPath, AsPathAccessList::newPermits);
   }
 }
@@ -0,0 +1,267 @@
+package org.batfish.datamodel;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import java.io.Serializable;
+import java.util.Set;
+import java.util.SortedSet;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.bgp.community.Community;
+import org.batfish.datamodel.bgp.community.ExtendedCommunity;
+import org.batfish.datamodel.bgp.community.StandardCommunity;
+
+/**
+ * The path attributes of a {@link BgpRoute}, i.e., the attributes that do not depend on the route's
+ * network or on how it is forwarded. Routes for many networks, learned over the same session or
+ * processed by the same policies, share the same attributes.
+ *
+ * <p>Attributes are interned, so routes with equal attributes share a single instance instead of
+ * each carrying a copy of every attribute.
+ */
+@ParametersAreNonnullByDefault
+final class BgpRouteAttributes implements Serializable {
+
+  // Soft values: let it be garbage collected in times of pressure.
+  // Maximum size 2^20: Just some upper bound on cache size, well less than GiB.
+  private static final LoadingCache<BgpRouteAttributes, BgpRouteAttributes> CACHE =
+      CacheBuilder.newBuilder().softValues().maximumSize(1 << 20).build(CacheLoader.from(x -> x));
+
+  // Soft values: let it be garbage collected in times of pressure.
+  // Maximum size 2^16: Just some upper bound on cache size, well less than GiB.
+  //   (8 bytes seems smallest possible entry (set(long)), would be 1 MiB total).
+  private static final LoadingCache<SortedSet<Community>, SortedSet<Community>> COMMUNITY_CACHE =
+      CacheBuilder.newBuilder()
+          .softValues()
+          .maximumSize(1 << 16)
+          .build(CacheLoader.from(ImmutableSortedSet::copyOf));
+  // Soft values: let it be garbage collected in times of pressure.
+  // Maximum size 2^16: Just some upper bound on cache size, well less than GiB.
+  //   (8 bytes seems smallest possible entry (set(long)), would be 1 MiB total).
+  private static final LoadingCache<SortedSet<Long>, SortedSet<Long>> CLUSTER_CACHE =
+      CacheBuilder.newBuilder()
+          .softValues()
+          .maximumSize(1 << 16)
+          .build(CacheLoader.from(ImmutableSortedSet::copyOf));
+
+  @Nonnull private final AsPath _asPath;
+  @Nonnull private final SortedSet<Long> _clusterList;
+  @Nonnull private final SortedSet<Community> _communities;
+  private final boolean _discard;
+  private final long _localPreference;
+  private final long _med;
+  @Nonnull private final Ip _originatorIp;
+  @Nonnull private final OriginType _originType;
+  private final boolean _receivedFromRouteReflectorClient;
+  @Nullable private final RoutingProtocol _srcProtocol;
+  /* NOTE: Cisco-only attribute */
+  private final int _weight;
+
+  // Cached values, computed on first use
+  @Nullable private transient Set<StandardCommunity> _standardCommunities;
+  @Nullable private transient Set<ExtendedCommunity> _extendedCommunities;
+
+  /* Cache the hashcode */
+  private transient int _hashCode = 0;
+
+  private BgpRouteAttributes(
+      AsPath asPath,
+      SortedSet<Long> clusterList,
+      SortedSet<Community> communities,
+      boolean discard,
+      long localPreference,
+      long med,
+      Ip originatorIp,
+      OriginType originType,
+      boolean receivedFromRouteReflectorClient,
+      @Nullable RoutingProtocol srcProtocol,
+      int weight) {
+    _asPath = asPath;
+    _clusterList = clusterList;
+    _communities = communities;
+    _discard = discard;
+    _localPreference = localPreference;
+    _med = med;
+    _originatorIp = originatorIp;
+    _originType = originType;
+    _receivedFromRouteReflectorClient = receivedFromRouteReflectorClient;
+    _srcProtocol = srcProtocol;
+    _weight = weight;
+  }
+
+  /** Return the interned attributes with the given values. */
+  @Nonnull
+  static BgpRouteAttributes create(
+      @Nullable AsPath asPath,
+      @Nullable SortedSet<Long> clusterList,
+      @Nullable SortedSet<Community> communities,
+      boolean discard,
+      long localPreference,
+      long med,
+      Ip originatorIp,
+      OriginType originType,
+      boolean receivedFromRouteReflectorClient,
+      @Nullable RoutingProtocol srcProtocol,
+      int weight) {
+    return CACHE.getUnchecked(
+        new BgpRouteAttributes(
+            asPath == null ? AsPath.empty() : asPath,
+            clusterList == null ? ImmutableSortedSet.of() : CLUSTER_CACHE.getUnchecked(clusterList),
+            communities == null
+                ? ImmutableSortedSet.of()
+                : COMMUNITY_CACHE.getUnchecked(communities),
+            discard,
+            localPreference,
+            med,
+            originatorIp,
+            originType,
+            receivedFromRouteReflectorClient,
+            srcProtocol,
+            weight));
+  }
+
+  @Nonnull
+  AsPath getAsPath() {
+    return _asPath;
+  }
+
+  @Nonnull
+  SortedSet<Long> getClusterList() {
+    return _clusterList;
+  }
+
+  @Nonnull
+  SortedSet<Community> getCommunities() {
+    return _communities;
+  }
+
+  @Nonnull
+  Set<StandardCommunity> getStandardCommunities() {
+    Set<StandardCommunity> standardCommunities = _standardCommunities;
+    if (standardCommunities == null) {
+      standardCommunities =
+          _communities.stream()
+              .filter(StandardCommunity.class::isInstance)
+              .map(StandardCommunity.class::cast)
+              .collect(ImmutableSet.toImmutableSet());
+      _standardCommunities = standardCommunities;
+    }
+    return standardCommunities;
+  }
+
+  @Nonnull
+  Set<ExtendedCommunity> getExtendedCommunities() {
+    Set<ExtendedCommunity> extendedCommunities = _extendedCommunities;
+    if (extendedCommunities == null) {
+      extendedCommunities =
+          _communities.stream()
+              .filter(ExtendedCommunity.class::isInstance)
+              .map(ExtendedCommunity.class::cast)
+              .collect(ImmutableSet.toImmutableSet());
+      _extendedCommunities = extendedCommunities;
+    }
+    return extendedCommunities;
+  }
+
+  boolean getDiscard() {
+    return _discard;
+  }
+
+  long getLocalPreference() {
+    return _localPreference;
+  }
+
+  long getMed() {
+    return _med;
+  }
+
+  @Nonnull
+  Ip getOriginatorIp() {
+    return _originatorIp;
+  }
+
+  @Nonnull
+  OriginType getOriginType() {
+    return _originType;
+  }
+
+  boolean getReceivedFromRouteReflectorClient() {
+    return _receivedFromRouteReflectorClient;
+  }
+
+  @Nullable
+  RoutingProtocol getSrcProtocol() {
+    return _srcProtocol;
+  }
+
+  int getWeight() {
+    return _weight;
+  }
+
+  @Override
+  public boolean equals(@Nullable Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof BgpRouteAttributes)) {
+      return false;
+    }
+    BgpRouteAttributes other = (BgpRouteAttributes) o;
+    return hashCode() == other.hashCode()
+        && _originatorIp.equals(other._originatorIp)
+        && _discard == other._discard
+        && _localPreference == other._localPreference
+        && _med == other._med
+        && _originType == other._originType
+        && _receivedFromRouteReflectorClient == other._receivedFromRouteReflectorClient
+        && _srcProtocol == other._srcProtocol
+        && _weight == other._weight
+        && _asPath.equals(other._asPath)
+        && _clusterList.equals(other._clusterList)
+        && _communities.equals(other._communities);
+  }
+
+  @Override
+  public int hashCode() {
+    int h = _hashCode;
+    if (h == 0) {
+      h = _asPath.hashCode();
+      h = h * 31 + _clusterList.hashCode();
+      h = h * 31 + _communities.hashCode();
+      h = h * 31 + Boolean.hashCode(_discard);
+      h = h * 31 + Long.hashCode(_localPreference);
+      h = h * 31 + Long.hashCode(_med);
+      h = h * 31 + _originatorIp.hashCode();
+      h = h * 31 + _originType.ordinal();
+      h = h * 31 + Boolean.hashCode(_receivedFromRouteReflectorClient);
+      h = h * 31 + (_srcProtocol == null ? 0 : _srcProtocol.ordinal());
+      h = h * 31 + _weight;
+
+      _hashCode = h;
+    }
+    return h;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .omitNullValues()
+        .add("_asPath", _asPath)
+        .add("_clusterList", _clusterList)
+        .add("_communities", _communities)
+        .add("_discard", _discard)
+        .add("_localPreference", _localPreference)
+        .add("_med", _med)
+        .add("_originatorIp", _originatorIp)
+        .add("_originType", _originType)
+        .add("_receivedFromRouteReflectorClient", _receivedFromRouteReflectorClient)
+        .add("_srcProtocol", _srcProtocol)
+        .add("_weight", _weight)
+        .toString();
+  }
+}
@@ -13,6 +13,15 @@ public interface Fib extends Serializable {
   @Nonnull
   Set<FibEntry> get(Ip ip);
 
+  /**
+   * Like {@link #get(Ip)}, but takes the IP {@link Ip#asLong() as a long}. Implementations should
+   * avoid allocating in this method, since it is called for every hop of every traceroute.
+   */
+  @Nonnull
+  default Set<FibEntry> longestPrefixMatch(long ip) {
+    return get(Ip.create(ip));
+  }
+
   /** Return the set of all entries */
   @Nonnull
   Set<FibEntry> allEntries();
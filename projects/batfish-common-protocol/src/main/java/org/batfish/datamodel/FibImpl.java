@@ -9,6 +9,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSet.Builder;
 import com.google.common.collect.ImmutableSortedSet;
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -89,6 +90,9 @@ public final class FibImpl implements Fib {
 
   private transient Supplier<Set<FibEntry>> _entries;
 
+  /** Index of {@link #_root} used for lookups, since these are performance critical */
+  private transient Supplier<LongestPrefixMatchIndex<FibEntry>> _lpmIndex;
+
   public FibImpl(@Nonnull GenericRib<? extends AbstractRouteDecorator> rib) {
     _root = new PrefixTrieMultiMap<>(Prefix.ZERO);
     rib.getRoutes()
@@ -102,12 +106,19 @@ public final class FibImpl implements Fib {
 
   private void initSuppliers() {
     _entries = Suppliers.memoize(this::computeEntries);
+    _lpmIndex = Suppliers.memoize(this::computeLpmIndex);
   }
 
   private Set<FibEntry> computeEntries() {
     return _root.getAllElements();
   }
 
+  private LongestPrefixMatchIndex<FibEntry> computeLpmIndex() {
+    Map<Prefix, Set<FibEntry>> entriesByPrefix = new HashMap<>();
+    _root.traverseEntries(entriesByPrefix::put);
+    return LongestPrefixMatchIndex.create(entriesByPrefix);
+  }
+
   @Nonnull
   @Override
   public Set<FibEntry> allEntries() {
@@ -276,7 +287,13 @@ public final class FibImpl implements Fib {
   @Nonnull
   @Override
   public Set<FibEntry> get(Ip ip) {
-    return _root.longestPrefixMatch(ip);
+    return longestPrefixMatch(ip.asLong());
+  }
+
+  @Nonnull
+  @Override
+  public Set<FibEntry> longestPrefixMatch(long ip) {
+    return _lpmIndex.get().longestPrefixMatch(ip);
   }
 
   @Nonnull
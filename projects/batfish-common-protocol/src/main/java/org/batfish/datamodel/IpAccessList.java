@@ -14,7 +14,7 @@ import java.util.Objects;
 import java.util.function.Supplier;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import org.batfish.datamodel.acl.AclLineEvaluator;
+import org.batfish.datamodel.IpAccessListCompiler.CompiledAcl;
 
 /** An access-list used to filter IPV4 packets */
 public class IpAccessList implements Serializable {
@@ -102,6 +102,9 @@ public class IpAccessList implements Serializable {
   private final String _sourceName;
   private final String _sourceType;
 
+  /** The compiled form of this ACL, built on first use. */
+  private transient volatile CompiledAcl _compiled;
+
   @JsonCreator
   private static IpAccessList jsonCreator(
       @Nullable @JsonProperty(PROP_NAME) String name,
@@ -139,20 +142,31 @@ public class IpAccessList implements Serializable {
     return Objects.hash(_name, _lines);
   }
 
+  /**
+   * Returns the action of the first line matching {@code flow}, or deny if no line matches.
+   * References to other ACLs and named IP spaces are resolved in {@code availableAcls} and {@code
+   * namedIpSpaces}.
+   */
   public FilterResult filter(
       Flow flow,
       String srcInterface,
       Map<String, IpAccessList> availableAcls,
       Map<String, IpSpace> namedIpSpaces) {
-    AclLineEvaluator lineEvaluator =
-        new AclLineEvaluator(flow, srcInterface, availableAcls, namedIpSpaces);
-    for (int i = 0; i < _lines.size(); i++) {
-      LineAction action = lineEvaluator.visit(_lines.get(i));
-      if (action != null) {
-        return new FilterResult(i, action);
-      }
+    return getCompiled(availableAcls, namedIpSpaces).filter(flow, srcInterface);
+  }
+
+  /**
+   * Returns this ACL compiled against the given definitions, reusing the last compiled form if it
+   * was compiled against the same definitions.
+   */
+  private @Nonnull CompiledAcl getCompiled(
+      Map<String, IpAccessList> availableAcls, Map<String, IpSpace> namedIpSpaces) {
+    CompiledAcl compiled = _compiled;
+    if (compiled == null || !compiled.isCompiledFor(availableAcls, namedIpSpaces)) {
+      compiled = IpAccessListCompiler.compile(this, availableAcls, namedIpSpaces);
+      _compiled = compiled;
     }
-    return new FilterResult(null, LineAction.DENY);
+    return compiled;
   }
 
   @JsonProperty(PROP_NAME)
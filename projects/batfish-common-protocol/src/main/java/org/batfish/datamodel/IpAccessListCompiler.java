@@ -0,0 +1,577 @@
+package org.batfish.datamodel;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.function.ToIntFunction;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.acl.AclLineEvaluator;
+import org.batfish.datamodel.acl.AclLineMatchExpr;
+import org.batfish.datamodel.acl.AndMatchExpr;
+import org.batfish.datamodel.acl.DeniedByAcl;
+import org.batfish.datamodel.acl.Evaluator;
+import org.batfish.datamodel.acl.FalseExpr;
+import org.batfish.datamodel.acl.GenericAclLineMatchExprVisitor;
+import org.batfish.datamodel.acl.GenericAclLineVisitor;
+import org.batfish.datamodel.acl.MatchHeaderSpace;
+import org.batfish.datamodel.acl.MatchSrcInterface;
+import org.batfish.datamodel.acl.NotMatchExpr;
+import org.batfish.datamodel.acl.OrMatchExpr;
+import org.batfish.datamodel.acl.OriginatingFromDevice;
+import org.batfish.datamodel.acl.PermittedByAcl;
+import org.batfish.datamodel.acl.TrueExpr;
+import org.batfish.datamodel.visitors.GenericIpSpaceVisitor;
+
+/**
+ * Compiles an {@link IpAccessList} into a structure that filters concrete {@link Flow flows}
+ * without re-walking the ACL's match expressions.
+ *
+ * <p>While compiling, each {@link HeaderSpace} is reduced to checks of only its constrained
+ * fields. Port, packet length, fragment offset, ICMP, DSCP, and ECN constraints become sorted
+ * disjoint intervals searched by binary search, and IP protocol constraints become {@link EnumSet
+ * bitmaps}. IP spaces become predicates on the IP address; sets of prefixes become sorted disjoint
+ * intervals too. References to other ACLs and to named IP spaces are resolved by name when a flow
+ * is filtered, so later changes to the definitions are honored. Compiled ACLs have exactly the
+ * semantics of evaluating each line with {@link AclLineEvaluator}.
+ */
+@ParametersAreNonnullByDefault
+final class IpAccessListCompiler
+    implements GenericAclLineVisitor<IpAccessListCompiler.CompiledLine>,
+        GenericAclLineMatchExprVisitor<IpAccessListCompiler.FlowPredicate> {
+
+  /** An {@link IpAccessList} compiled against given ACL and named IP space definitions. */
+  static final class CompiledAcl {
+    private final @Nonnull Map<String, IpAccessList> _availableAcls;
+    private final @Nonnull Map<String, IpSpace> _namedIpSpaces;
+    private final @Nonnull CompiledLine[] _lines;
+
+    private CompiledAcl(
+        Map<String, IpAccessList> availableAcls,
+        Map<String, IpSpace> namedIpSpaces,
+        CompiledLine[] lines) {
+      _availableAcls = availableAcls;
+      _namedIpSpaces = namedIpSpaces;
+      _lines = lines;
+    }
+
+    /** Returns the result of the first line matching {@code flow}, or deny if none matches. */
+    @Nonnull
+    FilterResult filter(Flow flow, @Nullable String srcInterface) {
+      for (int i = 0; i < _lines.length; i++) {
+        LineAction action = _lines[i].apply(flow, srcInterface);
+        if (action != null) {
+          return new FilterResult(i, action);
+        }
+      }
+      return new FilterResult(null, LineAction.DENY);
+    }
+
+    /** Returns whether this was compiled against the given definitions. */
+    boolean isCompiledFor(
+        Map<String, IpAccessList> availableAcls, Map<String, IpSpace> namedIpSpaces) {
+      return sameDefinitions(_availableAcls, availableAcls)
+          && sameDefinitions(_namedIpSpaces, namedIpSpaces);
+    }
+
+    private static boolean sameDefinitions(Map<String, ?> compiledFor, Map<String, ?> requested) {
+      return compiledFor == requested || (compiledFor.isEmpty() && requested.isEmpty());
+    }
+  }
+
+  /** A compiled {@link AclLine}: returns its action on a flow, or {@code null} if not matched. */
+  @FunctionalInterface
+  interface CompiledLine {
+    @Nullable
+    LineAction apply(Flow flow, @Nullable String srcInterface);
+  }
+
+  /** A compiled {@link AclLineMatchExpr}. */
+  @FunctionalInterface
+  interface FlowPredicate {
+    boolean test(Flow flow, @Nullable String srcInterface);
+  }
+
+  /** A compiled {@link IpSpace}. */
+  @FunctionalInterface
+  private interface IpPredicate {
+    boolean test(Ip ip);
+  }
+
+  /**
+   * Returns {@code acl} compiled against {@code availableAcls} and {@code namedIpSpaces}, which are
+   * used to resolve references while filtering.
+   */
+  static @Nonnull CompiledAcl compile(
+      IpAccessList acl,
+      Map<String, IpAccessList> availableAcls,
+      Map<String, IpSpace> namedIpSpaces) {
+    IpAccessListCompiler compiler = new IpAccessListCompiler(availableAcls, namedIpSpaces);
+    CompiledLine[] lines =
+        acl.getLines().stream().map(compiler::visit).toArray(CompiledLine[]::new);
+    return new CompiledAcl(availableAcls, namedIpSpaces, lines);
+  }
+
+  private final @Nonnull Map<String, IpAccessList> _availableAcls;
+  private final @Nonnull Map<String, IpSpace> _namedIpSpaces;
+  private final @Nonnull IpSpaceCompiler _ipSpaceCompiler;
+
+  private IpAccessListCompiler(
+      Map<String, IpAccessList> availableAcls, Map<String, IpSpace> namedIpSpaces) {
+    _availableAcls = availableAcls;
+    _namedIpSpaces = namedIpSpaces;
+    _ipSpaceCompiler = new IpSpaceCompiler(namedIpSpaces);
+  }
+
+  @Override
+  public CompiledLine visitAclAclLine(AclAclLine aclAclLine) {
+    String aclName = aclAclLine.getAclName();
+    return (flow, srcInterface) -> {
+      IpAccessList referencedAcl = _availableAcls.get(aclName);
+      if (referencedAcl == null) {
+        return new AclLineEvaluator(flow, srcInterface, _availableAcls, _namedIpSpaces)
+            .visit(aclAclLine);
+      }
+      FilterResult referencedAclResult =
+          referencedAcl.filter(flow, srcInterface, _availableAcls, _namedIpSpaces);
+      return referencedAclResult.getMatchLine() == null ? null : referencedAclResult.getAction();
+    };
+  }
+
+  @Override
+  public CompiledLine visitExprAclLine(ExprAclLine exprAclLine) {
+    FlowPredicate matchCondition = visit(exprAclLine.getMatchCondition());
+    LineAction action = exprAclLine.getAction();
+    return (flow, srcInterface) -> matchCondition.test(flow, srcInterface) ? action : null;
+  }
+
+  @Override
+  public FlowPredicate visitAndMatchExpr(AndMatchExpr andMatchExpr) {
+    FlowPredicate[] conjuncts = visitAll(andMatchExpr.getConjuncts());
+    return (flow, srcInterface) -> {
+      for (FlowPredicate conjunct : conjuncts) {
+        if (!conjunct.test(flow, srcInterface)) {
+          return false;
+        }
+      }
+      return true;
+    };
+  }
+
+  @Override
+  public FlowPredicate visitDeniedByAcl(DeniedByAcl deniedByAcl) {
+    return compileAclReference(deniedByAcl, deniedByAcl.getAclName(), LineAction.DENY);
+  }
+
+  @Override
+  public FlowPredicate visitFalseExpr(FalseExpr falseExpr) {
+    return (flow, srcInterface) -> false;
+  }
+
+  @Override
+  public FlowPredicate visitMatchHeaderSpace(MatchHeaderSpace matchHeaderSpace) {
+    FlowPredicate[] checks = compileHeaderSpace(matchHeaderSpace.getHeaderspace());
+    return (flow, srcInterface) -> {
+      for (FlowPredicate check : checks) {
+        if (!check.test(flow, srcInterface)) {
+          return false;
+        }
+      }
+      return true;
+    };
+  }
+
+  @Override
+  public FlowPredicate visitMatchSrcInterface(MatchSrcInterface matchSrcInterface) {
+    Set<String> srcInterfaces = matchSrcInterface.getSrcInterfaces();
+    return (flow, srcInterface) -> srcInterfaces.contains(srcInterface);
+  }
+
+  @Override
+  public FlowPredicate visitNotMatchExpr(NotMatchExpr notMatchExpr) {
+    FlowPredicate operand = visit(notMatchExpr.getOperand());
+    return (flow, srcInterface) -> !operand.test(flow, srcInterface);
+  }
+
+  @Override
+  public FlowPredicate visitOriginatingFromDevice(OriginatingFromDevice originatingFromDevice) {
+    return (flow, srcInterface) -> srcInterface == null;
+  }
+
+  @Override
+  public FlowPredicate visitOrMatchExpr(OrMatchExpr orMatchExpr) {
+    FlowPredicate[] disjuncts = visitAll(orMatchExpr.getDisjuncts());
+    return (flow, srcInterface) -> {
+      for (FlowPredicate disjunct : disjuncts) {
+        if (disjunct.test(flow, srcInterface)) {
+          return true;
+        }
+      }
+      return false;
+    };
+  }
+
+  @Override
+  public FlowPredicate visitPermittedByAcl(PermittedByAcl permittedByAcl) {
+    return compileAclReference(permittedByAcl, permittedByAcl.getAclName(), LineAction.PERMIT);
+  }
+
+  @Override
+  public FlowPredicate visitTrueExpr(TrueExpr trueExpr) {
+    return (flow, srcInterface) -> true;
+  }
+
+  private @Nonnull FlowPredicate[] visitAll(List<AclLineMatchExpr> exprs) {
+    return exprs.stream().map(this::visit).toArray(FlowPredicate[]::new);
+  }
+
+  /**
+   * Compiles a {@link PermittedByAcl} or {@link DeniedByAcl}, which holds if the referenced ACL
+   * takes {@code action} on the flow.
+   */
+  private @Nonnull FlowPredicate compileAclReference(
+      AclLineMatchExpr expr, String aclName, LineAction action) {
+    return (flow, srcInterface) -> {
+      IpAccessList referencedAcl = _availableAcls.get(aclName);
+      if (referencedAcl == null) {
+        return Evaluator.matches(expr, flow, srcInterface, _availableAcls, _namedIpSpaces);
+      }
+      return referencedAcl.filter(flow, srcInterface, _availableAcls, _namedIpSpaces).getAction()
+          == action;
+    };
+  }
+
+  /**
+   * Returns the checks a flow must pass to match {@code headerSpace}, one per constrained field,
+   * equivalent to {@link HeaderSpace#matches(Flow, Map)}.
+   */
+  private @Nonnull FlowPredicate[] compileHeaderSpace(HeaderSpace headerSpace) {
+    List<FlowPredicate> checks = new ArrayList<>();
+    addIntChecks(checks, headerSpace.getDscps(), headerSpace.getNotDscps(), Flow::getDscp);
+    addIpChecks(checks, headerSpace.getDstIps(), headerSpace.getNotDstIps(), Flow::getDstIp);
+    addRangeChecks(
+        checks, headerSpace.getDstPorts(), headerSpace.getNotDstPorts(), Flow::getDstPort);
+    addIntChecks(checks, headerSpace.getEcns(), headerSpace.getNotEcns(), Flow::getEcn);
+    addRangeChecks(
+        checks,
+        headerSpace.getFragmentOffsets(),
+        headerSpace.getNotFragmentOffsets(),
+        Flow::getFragmentOffset);
+    // ICMP constraints do not apply to flows without ICMP fields, and the negated ICMP constraints
+    // are checked against the fragment offset, as in HeaderSpace#matches.
+    if (!headerSpace.getIcmpCodes().isEmpty()) {
+      Ranges icmpCodes = Ranges.of(headerSpace.getIcmpCodes());
+      checks.add(
+          (flow, srcInterface) ->
+              flow.getIcmpCode() == null || icmpCodes.contains(flow.getIcmpCode()));
+    }
+    addRangeChecks(
+        checks, headerSpace.getNotIcmpCodes(), Flow::getFragmentOffset, /* negated= */ true);
+    if (!headerSpace.getIcmpTypes().isEmpty()) {
+      Ranges icmpTypes = Ranges.of(headerSpace.getIcmpTypes());
+      checks.add(
+          (flow, srcInterface) ->
+              flow.getIcmpType() == null || icmpTypes.contains(flow.getIcmpType()));
+    }
+    addRangeChecks(
+        checks, headerSpace.getNotIcmpTypes(), Flow::getFragmentOffset, /* negated= */ true);
+    if (!headerSpace.getIpProtocols().isEmpty()) {
+      EnumSet<IpProtocol> ipProtocols = EnumSet.copyOf(headerSpace.getIpProtocols());
+      checks.add((flow, srcInterface) -> containsProtocol(ipProtocols, flow.getIpProtocol()));
+    }
+    if (!headerSpace.getNotIpProtocols().isEmpty()) {
+      EnumSet<IpProtocol> notIpProtocols = EnumSet.copyOf(headerSpace.getNotIpProtocols());
+      checks.add((flow, srcInterface) -> !containsProtocol(notIpProtocols, flow.getIpProtocol()));
+    }
+    addRangeChecks(
+        checks,
+        headerSpace.getPacketLengths(),
+        headerSpace.getNotPacketLengths(),
+        Flow::getPacketLength);
+    if (headerSpace.getSrcOrDstIps() != null) {
+      IpPredicate srcOrDstIps = _ipSpaceCompiler.visit(headerSpace.getSrcOrDstIps());
+      checks.add(
+          (flow, srcInterface) ->
+              srcOrDstIps.test(flow.getSrcIp()) || srcOrDstIps.test(flow.getDstIp()));
+    }
+    if (!headerSpace.getSrcOrDstPorts().isEmpty()) {
+      Ranges srcOrDstPorts = Ranges.of(headerSpace.getSrcOrDstPorts());
+      checks.add(
+          (flow, srcInterface) ->
+              srcOrDstPorts.contains(flow.getSrcPort())
+                  || srcOrDstPorts.contains(flow.getDstPort()));
+    }
+    addIpChecks(checks, headerSpace.getSrcIps(), headerSpace.getNotSrcIps(), Flow::getSrcIp);
+    addRangeChecks(
+        checks, headerSpace.getSrcPorts(), headerSpace.getNotSrcPorts(), Flow::getSrcPort);
+    if (!headerSpace.getTcpFlags().isEmpty()) {
+      TcpFlagsMatchConditions[] tcpFlags =
+          headerSpace.getTcpFlags().toArray(new TcpFlagsMatchConditions[0]);
+      checks.add(
+          (flow, srcInterface) -> {
+            for (TcpFlagsMatchConditions conditions : tcpFlags) {
+              if (conditions.match(flow)) {
+                return true;
+              }
+            }
+            return false;
+          });
+    }
+    return checks.toArray(new FlowPredicate[0]);
+  }
+
+  private static boolean containsProtocol(
+      EnumSet<IpProtocol> ipProtocols, @Nullable IpProtocol ipProtocol) {
+    return ipProtocol != null && ipProtocols.contains(ipProtocol);
+  }
+
+  /** A function from a flow to one of its nullable integer fields. */
+  @FunctionalInterface
+  private interface IntegerField {
+    @Nullable
+    Integer get(Flow flow);
+  }
+
+  /** A function from a flow to one of its IP fields. */
+  @FunctionalInterface
+  private interface IpField {
+    @Nonnull
+    Ip get(Flow flow);
+  }
+
+  private static void addIntChecks(
+      List<FlowPredicate> checks,
+      SortedSet<Integer> values,
+      SortedSet<Integer> notValues,
+      ToIntFunction<Flow> field) {
+    if (!values.isEmpty()) {
+      Ranges ranges = Ranges.ofValues(values);
+      checks.add((flow, srcInterface) -> ranges.contains(field.applyAsInt(flow)));
+    }
+    if (!notValues.isEmpty()) {
+      Ranges notRanges = Ranges.ofValues(notValues);
+      checks.add((flow, srcInterface) -> !notRanges.contains(field.applyAsInt(flow)));
+    }
+  }
+
+  private static void addRangeChecks(
+      List<FlowPredicate> checks,
+      SortedSet<SubRange> ranges,
+      SortedSet<SubRange> notRanges,
+      IntegerField field) {
+    addRangeChecks(checks, ranges, field, /* negated= */ false);
+    addRangeChecks(checks, notRanges, field, /* negated= */ true);
+  }
+
+  private static void addRangeChecks(
+      List<FlowPredicate> checks,
+      SortedSet<SubRange> subRanges,
+      IntegerField field,
+      boolean negated) {
+    if (subRanges.isEmpty()) {
+      return;
+    }
+    Ranges ranges = Ranges.of(subRanges);
+    checks.add((flow, srcInterface) -> ranges.contains(field.get(flow)) != negated);
+  }
+
+  private void addIpChecks(
+      List<FlowPredicate> checks,
+      @Nullable IpSpace ipSpace,
+      @Nullable IpSpace notIpSpace,
+      IpField field) {
+    if (ipSpace != null) {
+      IpPredicate ips = _ipSpaceCompiler.visit(ipSpace);
+      checks.add((flow, srcInterface) -> ips.test(field.get(flow)));
+    }
+    if (notIpSpace != null) {
+      IpPredicate notIps = _ipSpaceCompiler.visit(notIpSpace);
+      checks.add((flow, srcInterface) -> !notIps.test(field.get(flow)));
+    }
+  }
+
+  /** Sorted, disjoint, non-adjacent closed intervals of integers. */
+  private static final class Ranges {
+    private final @Nonnull long[] _starts;
+    private final @Nonnull long[] _ends;
+
+    private Ranges(long[] starts, long[] ends) {
+      _starts = starts;
+      _ends = ends;
+    }
+
+    /** Returns the union of {@code subRanges}. */
+    private static @Nonnull Ranges of(Collection<SubRange> subRanges) {
+      long[][] intervals =
+          subRanges.stream()
+              .filter(subRange -> subRange.getStart() <= subRange.getEnd())
+              .map(subRange -> new long[] {subRange.getStart(), subRange.getEnd()})
+              .toArray(long[][]::new);
+      return union(intervals);
+    }
+
+    /** Returns the set of {@code values}. */
+    private static @Nonnull Ranges ofValues(Collection<Integer> values) {
+      return union(values.stream().map(v -> new long[] {v, v}).toArray(long[][]::new));
+    }
+
+    /** Returns the union of {@code intervals}, given as pairs of start and end. */
+    private static @Nonnull Ranges union(long[][] intervals) {
+      Arrays.sort(intervals, (a, b) -> Long.compare(a[0], b[0]));
+      long[] starts = new long[intervals.length];
+      long[] ends = new long[intervals.length];
+      int size = 0;
+      for (long[] interval : intervals) {
+        if (size > 0 && interval[0] <= ends[size - 1] + 1) {
+          ends[size - 1] = Math.max(ends[size - 1], interval[1]);
+        } else {
+          starts[size] = interval[0];
+          ends[size] = interval[1];
+          size++;
+        }
+      }
+      return new Ranges(Arrays.copyOf(starts, size), Arrays.copyOf(ends, size));
+    }
+
+    private boolean contains(@Nullable Integer value) {
+      return value != null && contains(value.longValue());
+    }
+
+    private boolean contains(long value) {
+      int index = Arrays.binarySearch(_starts, value);
+      if (index >= 0) {
+        return true;
+      }
+      // index of the last interval starting before value
+      int before = -index - 2;
+      return before >= 0 && value <= _ends[before];
+    }
+  }
+
+  /** Compiles {@link IpSpace IP spaces} to {@link IpPredicate IP predicates}. */
+  private static final class IpSpaceCompiler implements GenericIpSpaceVisitor<IpPredicate> {
+    private final @Nonnull Map<String, IpSpace> _namedIpSpaces;
+
+    private IpSpaceCompiler(Map<String, IpSpace> namedIpSpaces) {
+      _namedIpSpaces = namedIpSpaces;
+    }
+
+    @Override
+    public IpPredicate castToGenericIpSpaceVisitorReturnType(Object o) {
+      return (IpPredicate) o;
+    }
+
+    @Override
+    public IpPredicate visitAclIpSpace(AclIpSpace aclIpSpace) {
+      List<AclIpSpaceLine> lines = aclIpSpace.getLines();
+      IpPredicate[] lineIpSpaces =
+          lines.stream().map(line -> visit(line.getIpSpace())).toArray(IpPredicate[]::new);
+      boolean[] linePermits = new boolean[lines.size()];
+      for (int i = 0; i < linePermits.length; i++) {
+        linePermits[i] = lines.get(i).getAction() == LineAction.PERMIT;
+      }
+      return ip -> {
+        for (int i = 0; i < lineIpSpaces.length; i++) {
+          if (lineIpSpaces[i].test(ip)) {
+            return linePermits[i];
+          }
+        }
+        return false;
+      };
+    }
+
+    @Override
+    public IpPredicate visitEmptyIpSpace(EmptyIpSpace emptyIpSpace) {
+      return ip -> false;
+    }
+
+    @Override
+    public IpPredicate visitIpIpSpace(IpIpSpace ipIpSpace) {
+      Ip space = ipIpSpace.getIp();
+      return space::equals;
+    }
+
+    @Override
+    public IpPredicate visitIpSpaceReference(IpSpaceReference ipSpaceReference) {
+      String name = ipSpaceReference.getName();
+      IpSpace referenced = _namedIpSpaces.get(name);
+      if (referenced == null) {
+        return ip -> {
+          IpSpace current = _namedIpSpaces.get(name);
+          return current != null && current.containsIp(ip, _namedIpSpaces);
+        };
+      }
+      // compiled on first use, so that cyclic references do not recurse while compiling
+      Supplier<IpPredicate> compiledReferenced = Suppliers.memoize(() -> visit(referenced));
+      return ip -> {
+        IpSpace current = _namedIpSpaces.get(name);
+        if (current == referenced) {
+          return compiledReferenced.get().test(ip);
+        }
+        return current != null && current.containsIp(ip, _namedIpSpaces);
+      };
+    }
+
+    @Override
+    public IpPredicate visitIpWildcardIpSpace(IpWildcardIpSpace ipWildcardIpSpace) {
+      return ipWildcardIpSpace.getIpWildcard()::containsIp;
+    }
+
+    @Override
+    public IpPredicate visitIpWildcardSetIpSpace(IpWildcardSetIpSpace ipWildcardSetIpSpace) {
+      IpPredicate blacklist = compileIpWildcards(ipWildcardSetIpSpace.getBlacklist());
+      IpPredicate whitelist = compileIpWildcards(ipWildcardSetIpSpace.getWhitelist());
+      return ip -> !blacklist.test(ip) && whitelist.test(ip);
+    }
+
+    @Override
+    public IpPredicate visitPrefixIpSpace(PrefixIpSpace prefixIpSpace) {
+      return prefixIpSpace.getPrefix()::containsIp;
+    }
+
+    @Override
+    public IpPredicate visitUniverseIpSpace(UniverseIpSpace universeIpSpace) {
+      return ip -> true;
+    }
+
+    /**
+     * Returns a predicate for the union of {@code ipWildcards}: intervals searched by binary search
+     * if all are prefixes, otherwise a scan of the wildcards.
+     */
+    private static @Nonnull IpPredicate compileIpWildcards(Collection<IpWildcard> ipWildcards) {
+      if (ipWildcards.isEmpty()) {
+        return ip -> false;
+      }
+      if (ipWildcards.stream().allMatch(IpWildcard::isPrefix)) {
+        Ranges ranges =
+            Ranges.union(
+                ipWildcards.stream()
+                    .map(
+                        w -> {
+                          long start = w.getIp().asLong() & ~w.getWildcardMask();
+                          return new long[] {start, start | w.getWildcardMask()};
+                        })
+                    .toArray(long[][]::new));
+        return ip -> ranges.contains(ip.asLong());
+      }
+      List<IpWildcard> wildcards = ImmutableList.copyOf(ipWildcards);
+      return ip -> {
+        for (IpWildcard wildcard : wildcards) {
+          if (wildcard.containsIp(ip)) {
+            return true;
+          }
+        }
+        return false;
+      };
+    }
+  }
+}
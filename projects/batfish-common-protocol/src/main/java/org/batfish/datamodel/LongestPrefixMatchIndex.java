@@ -0,0 +1,145 @@
+package org.batfish.datamodel;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * An immutable longest-prefix-match index over IPv4 addresses, backed by primitive arrays.
+ *
+ * <p>The address space is partitioned into maximal ranges of addresses that have the same longest
+ * matching prefix. The ranges are stored as a sorted array of start addresses, with a parallel
+ * array of indices into the elements of each prefix. A lookup is a binary search over the start
+ * addresses, and does not allocate.
+ */
+@ParametersAreNonnullByDefault
+final class LongestPrefixMatchIndex<T> {
+
+  /** Range value for addresses that do not match any prefix. */
+  private static final int NO_MATCH = -1;
+
+  /** Sorted start addresses of the ranges. The first range always starts at 0.0.0.0. */
+  private final @Nonnull long[] _rangeStarts;
+
+  /** For each range, the index in {@link #_elements} of its longest match, or {@link #NO_MATCH}. */
+  private final @Nonnull int[] _rangeValues;
+
+  private final @Nonnull ImmutableList<Set<T>> _elements;
+
+  private LongestPrefixMatchIndex(
+      long[] rangeStarts, int[] rangeValues, ImmutableList<Set<T>> elements) {
+    _rangeStarts = rangeStarts;
+    _rangeValues = rangeValues;
+    _elements = elements;
+  }
+
+  /**
+   * Create an index of the given prefixes. Prefixes whose element sets are empty are treated as
+   * absent.
+   */
+  static @Nonnull <T> LongestPrefixMatchIndex<T> create(Map<Prefix, Set<T>> elementsByPrefix) {
+    // Sorting by start address and then length visits each prefix after all prefixes containing it.
+    Prefix[] prefixes =
+        elementsByPrefix.entrySet().stream()
+            .filter(entry -> !entry.getValue().isEmpty())
+            .map(Map.Entry::getKey)
+            .sorted()
+            .toArray(Prefix[]::new);
+    ImmutableList.Builder<Set<T>> elements = ImmutableList.builderWithExpectedSize(prefixes.length);
+    for (Prefix prefix : prefixes) {
+      elements.add(ImmutableSet.copyOf(elementsByPrefix.get(prefix)));
+    }
+
+    // Each prefix starts at most one range at its start address and one after its end address.
+    RangesBuilder ranges = new RangesBuilder(2 * prefixes.length + 1);
+    // Indices of the prefixes containing the current address, innermost on top.
+    Deque<Integer> enclosing = new ArrayDeque<>();
+    for (int i = 0; i < prefixes.length; i++) {
+      long start = prefixes[i].getStartIp().asLong();
+      while (!enclosing.isEmpty() && endOf(prefixes[enclosing.peek()]) < start) {
+        long resume = endOf(prefixes[enclosing.pop()]) + 1;
+        ranges.add(resume, enclosing.isEmpty() ? NO_MATCH : enclosing.peek());
+      }
+      ranges.add(start, i);
+      enclosing.push(i);
+    }
+    while (!enclosing.isEmpty()) {
+      long resume = endOf(prefixes[enclosing.pop()]) + 1;
+      if (resume <= Ip.MAX.asLong()) {
+        ranges.add(resume, enclosing.isEmpty() ? NO_MATCH : enclosing.peek());
+      }
+    }
+    return new LongestPrefixMatchIndex<>(
+        ranges.getRangeStarts(), ranges.getRangeValues(), elements.build());
+  }
+
+  private static long endOf(Prefix prefix) {
+    return prefix.getEndIp().asLong();
+  }
+
+  /**
+   * Return the elements of the longest prefix containing {@code ip} (an IP address {@link
+   * Ip#asLong() as a long}), or an empty set if there is none.
+   */
+  @Nonnull
+  Set<T> longestPrefixMatch(long ip) {
+    int range = Arrays.binarySearch(_rangeStarts, ip);
+    if (range < 0) {
+      // not a range start, so it's in the range before the insertion point
+      range = -range - 2;
+    }
+    int value = _rangeValues[range];
+    return value == NO_MATCH ? ImmutableSet.of() : _elements.get(value);
+  }
+
+  @VisibleForTesting
+  int getNumRanges() {
+    return _rangeStarts.length;
+  }
+
+  /** Accumulates ranges in order of start address, merging adjacent ranges with equal values. */
+  private static final class RangesBuilder {
+    private final long[] _starts;
+    private final int[] _values;
+    private int _size;
+
+    private RangesBuilder(int capacity) {
+      _starts = new long[capacity];
+      _values = new int[capacity];
+      _starts[0] = 0L;
+      _values[0] = NO_MATCH;
+      _size = 1;
+    }
+
+    private void add(long start, int value) {
+      int last = _size - 1;
+      if (_starts[last] == start) {
+        // the previous range is empty, so replace it
+        if (last > 0 && _values[last - 1] == value) {
+          _size--;
+        } else {
+          _values[last] = value;
+        }
+      } else if (_values[last] != value) {
+        _starts[_size] = start;
+        _values[_size] = value;
+        _size++;
+      }
+    }
+
+    private long[] getRangeStarts() {
+      return Arrays.copyOf(_starts, _size);
+    }
+
+    private int[] getRangeValues() {
+      return Arrays.copyOf(_values, _size);
+    }
+  }
+}
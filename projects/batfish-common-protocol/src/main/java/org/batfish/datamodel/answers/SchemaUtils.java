@@ -5,6 +5,7 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.base.Throwables;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -79,9 +80,13 @@ public final class SchemaUtils {
   /**
    * Checks if {@code object} can be cast to {@code schema}.
    *
-   * <p>The function operates by converting the object to Json and then converting it back.
+   * <p>Objects that are already instances of the schema's type are accepted directly. Otherwise,
+   * the function operates by converting the object to Json and then converting it back.
    */
-  public static boolean isValidObject(Object object, Schema schema) {
+  public static boolean isValidObject(@Nullable Object object, Schema schema) {
+    if (isInstance(object, schema)) {
+      return true;
+    }
     JsonNode jsonNode = BatfishObjectMapper.mapper().valueToTree(object);
     try {
       convertType(jsonNode, schema);
@@ -90,4 +95,22 @@ public final class SchemaUtils {
     }
     return true;
   }
+
+  /** Checks if {@code object} is null or an instance of {@code schema}'s type. */
+  private static boolean isInstance(@Nullable Object object, Schema schema) {
+    if (object == null) {
+      return true;
+    }
+    switch (schema.getType()) {
+      case BASE:
+        return schema.getBaseType().isInstance(object);
+      case LIST:
+      case SET:
+        return object instanceof Collection
+            && ((Collection<?>) object)
+                .stream().allMatch(element -> isInstance(element, schema.getInnerSchema()));
+      default:
+        return false;
+    }
+  }
 }
@@ -1,6 +1,7 @@
 package org.batfish.datamodel.routing_policy;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
+import static java.util.Collections.unmodifiableMap;
 import static org.batfish.common.util.CollectionUtil.toImmutableMap;
 import static org.batfish.datamodel.Route.UNSET_ROUTE_NEXT_HOP_IP;
 
@@ -36,22 +37,24 @@ public class Environment {
    */
   public static Builder builder(@Nonnull Configuration c) {
     ConfigurationFormat format = c.getConfigurationFormat();
-    return new Builder()
-        .setAsPathAccessLists(c.getAsPathAccessLists())
-        .setCommunityLists(c.getCommunityLists())
-        .setCommunityMatchExprs(c.getCommunityMatchExprs())
-        .setCommunitySetExprs(c.getCommunitySetExprs())
-        .setCommunitySetMatchExprs(c.getCommunitySetMatchExprs())
-        .setCommunitySets(c.getCommunitySets())
-        .setIpAccessLists(c.getIpAccessLists())
-        .setIp6AccessLists(c.getIp6AccessLists())
-        .setRouteFilterLists(c.getRouteFilterLists())
-        .setRoute6FilterLists(c.getRoute6FilterLists())
-        .setRoutingPolicies(c.getRoutingPolicies())
-        .setUseOutputAttributes(
-            format == ConfigurationFormat.JUNIPER
-                || format == ConfigurationFormat.JUNIPER_SWITCH
-                || format == ConfigurationFormat.FLAT_JUNIPER);
+    // An Environment is built for every route a policy processes, so share read-only views of the
+    // configuration's maps rather than copying each of them every time.
+    Builder builder = new Builder();
+    builder._asPathAccessLists = unmodifiableMap(c.getAsPathAccessLists());
+    builder._communityLists = unmodifiableMap(c.getCommunityLists());
+    builder._communityMatchExprs = unmodifiableMap(c.getCommunityMatchExprs());
+    builder._communitySetExprs = unmodifiableMap(c.getCommunitySetExprs());
+    builder._communitySetMatchExprs = unmodifiableMap(c.getCommunitySetMatchExprs());
+    builder._communitySets = unmodifiableMap(c.getCommunitySets());
+    builder._ipAccessLists = unmodifiableMap(c.getIpAccessLists());
+    builder._ip6AccessLists = unmodifiableMap(c.getIp6AccessLists());
+    builder._routeFilterLists = unmodifiableMap(c.getRouteFilterLists());
+    builder._route6FilterLists = unmodifiableMap(c.getRoute6FilterLists());
+    builder._routingPolicies = unmodifiableMap(c.getRoutingPolicies());
+    return builder.setUseOutputAttributes(
+        format == ConfigurationFormat.JUNIPER
+            || format == ConfigurationFormat.JUNIPER_SWITCH
+            || format == ConfigurationFormat.FLAT_JUNIPER);
   }
 
   public enum Direction {
@@ -61,6 +64,7 @@ public class Environment {
 
   private final Map<String, AsPathAccessList> _asPathAccessLists;
   @Nullable private final BgpSessionProperties _bgpSessionProperties;
+  private boolean _bgpSessionPropertiesRead;
   private boolean _buffered;
   private boolean _callExprContext;
   private boolean _callStatementContext;
@@ -163,9 +167,18 @@ public class Environment {
    */
   @Nullable
   public BgpSessionProperties getBgpSessionProperties() {
+    _bgpSessionPropertiesRead = true;
     return _bgpSessionProperties;
   }
 
+  /**
+   * Whether {@link #getBgpSessionProperties()} has been called, i.e. whether the policy evaluated
+   * so far could have depended on the BGP session.
+   */
+  public boolean getBgpSessionPropertiesRead() {
+    return _bgpSessionPropertiesRead;
+  }
+
   public boolean getBuffered() {
     return _buffered;
   }
@@ -82,11 +82,33 @@ public class RoutingPolicy implements Serializable {
     }
   }
 
+  /** Outcome of {@link #processBgpRouteTrackingSession}. */
+  public static final class BgpRouteProcessingResult {
+    private final boolean _accepted;
+    private final boolean _sessionPropertiesRead;
+
+    private BgpRouteProcessingResult(boolean accepted, boolean sessionPropertiesRead) {
+      _accepted = accepted;
+      _sessionPropertiesRead = sessionPropertiesRead;
+    }
+
+    /** Whether the policy accepted the route. */
+    public boolean getAccepted() {
+      return _accepted;
+    }
+
+    /** Whether the policy read the BGP session properties while processing the route. */
+    public boolean getSessionPropertiesRead() {
+      return _sessionPropertiesRead;
+    }
+  }
+
   private static final String PROP_NAME = "name";
   private static final String PROP_STATEMENTS = "statements";
 
   @Nonnull private final String _name;
   @Nullable private Configuration _owner;
+  @Nullable private transient volatile RoutingPolicyCompiler.Compiled _compiled;
   @Nullable private transient Set<String> _sources;
   @Nonnull private List<Statement> _statements;
 
@@ -188,6 +210,20 @@ public class RoutingPolicy implements Serializable {
     return _statements;
   }
 
+  /**
+   * Returns the compiled form of this policy, compiling it on first use. Compiled policies are used
+   * by {@link #process} and by calls from other compiled policies.
+   */
+  @Nonnull
+  RoutingPolicyCompiler.Compiled getCompiled() {
+    RoutingPolicyCompiler.Compiled compiled = _compiled;
+    if (compiled == null) {
+      compiled = RoutingPolicyCompiler.compile(this);
+      _compiled = compiled;
+    }
+    return compiled;
+  }
+
   /** @return True if the policy accepts the route. */
   public boolean process(
       AbstractRouteDecorator inputRoute,
@@ -223,6 +259,23 @@ public class RoutingPolicy implements Serializable {
     return process(inputRoute, outputRoute, sessionProperties, null, direction);
   }
 
+  /**
+   * Process a given {@code inputRoute} through this BGP routing policy, exactly as {@link
+   * #processBgpRoute} does, and also report whether the policy read {@code sessionProperties}.
+   * When it did not, the policy has the same outcome for the same routes on any session.
+   */
+  public @Nonnull BgpRouteProcessingResult processBgpRouteTrackingSession(
+      AbstractRouteDecorator inputRoute,
+      BgpRoute.Builder<?, ?> outputRoute,
+      BgpSessionProperties sessionProperties,
+      Direction direction) {
+    checkState(_owner != null, "Cannot evaluate routing policy without a Configuration");
+    Environment environment =
+        newEnvironment(inputRoute, outputRoute, sessionProperties, null, direction);
+    return new BgpRouteProcessingResult(
+        accepts(environment), environment.getBgpSessionPropertiesRead());
+  }
+
   private boolean process(
       AbstractRouteDecorator inputRoute,
       AbstractRouteBuilder<?, ?> outputRoute,
@@ -230,21 +283,35 @@ public class RoutingPolicy implements Serializable {
       @Nullable EigrpProcess eigrpProcess,
       Direction direction) {
     checkState(_owner != null, "Cannot evaluate routing policy without a Configuration");
-    Environment environment =
-        Environment.builder(_owner)
-            .setBgpSessionProperties(bgpSessionProperties)
-            .setOriginalRoute(inputRoute)
-            .setOutputRoute(outputRoute)
-            .setDirection(direction)
-            .setEigrpProcess(eigrpProcess)
-            .build();
-    Result result = call(environment);
+    return accepts(
+        newEnvironment(inputRoute, outputRoute, bgpSessionProperties, eigrpProcess, direction));
+  }
+
+  private @Nonnull Environment newEnvironment(
+      AbstractRouteDecorator inputRoute,
+      AbstractRouteBuilder<?, ?> outputRoute,
+      @Nullable BgpSessionProperties bgpSessionProperties,
+      @Nullable EigrpProcess eigrpProcess,
+      Direction direction) {
+    assert _owner != null;
+    return Environment.builder(_owner)
+        .setBgpSessionProperties(bgpSessionProperties)
+        .setOriginalRoute(inputRoute)
+        .setOutputRoute(outputRoute)
+        .setDirection(direction)
+        .setEigrpProcess(eigrpProcess)
+        .build();
+  }
+
+  private boolean accepts(Environment environment) {
+    Result result = getCompiled().apply(environment);
     return result.getBooleanValue() && !(Boolean.TRUE.equals(environment.getSuppressed()));
   }
 
   @JsonProperty(PROP_STATEMENTS)
   public void setStatements(@Nullable List<Statement> statements) {
     _statements = firstNonNull(statements, ImmutableList.of());
+    _compiled = null;
   }
 
   public RoutingPolicy simplify() {
@@ -0,0 +1,216 @@
+package org.batfish.datamodel.routing_policy;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.bgp.community.Community;
+import org.batfish.datamodel.routing_policy.expr.BooleanExpr;
+import org.batfish.datamodel.routing_policy.expr.BooleanExprs;
+import org.batfish.datamodel.routing_policy.expr.CallExpr;
+import org.batfish.datamodel.routing_policy.expr.Conjunction;
+import org.batfish.datamodel.routing_policy.expr.Disjunction;
+import org.batfish.datamodel.routing_policy.expr.LiteralCommunitySet;
+import org.batfish.datamodel.routing_policy.expr.MatchCommunitySet;
+import org.batfish.datamodel.routing_policy.expr.Not;
+import org.batfish.datamodel.routing_policy.statement.CallStatement;
+import org.batfish.datamodel.routing_policy.statement.Comment;
+import org.batfish.datamodel.routing_policy.statement.If;
+import org.batfish.datamodel.routing_policy.statement.Statement;
+
+/**
+ * Lowers the statements of a {@link RoutingPolicy} into a tree of closures, so that repeated
+ * evaluation does not re-walk the policy AST.
+ *
+ * <p>While compiling, comments are dropped, and the branch taken by an {@link If} with a constant
+ * guard is spliced into the enclosing statement list. Control flow ({@link If}, {@link
+ * Conjunction}, {@link Disjunction}, {@link Not}) is compiled directly. Calls to other policies
+ * ({@link CallStatement}, {@link CallExpr}) run the compiled form of the callee. A {@link
+ * MatchCommunitySet} of a {@link LiteralCommunitySet} looks communities up in a hash set, rather
+ * than in the sorted set of the literal, whose comparisons are slow. All other statements and
+ * expressions are leaves that run their own {@code execute} or {@code evaluate}. Compiled policies
+ * have exactly the semantics of {@link RoutingPolicy#call(Environment)}.
+ */
+@ParametersAreNonnullByDefault
+final class RoutingPolicyCompiler {
+
+  /** A compiled statement, boolean expression, or policy body. */
+  @FunctionalInterface
+  interface Compiled {
+    @Nonnull
+    Result apply(Environment environment);
+  }
+
+  /** Returns the compiled body of {@code policy}, equivalent to {@link RoutingPolicy#call}. */
+  static @Nonnull Compiled compile(RoutingPolicy policy) {
+    Compiled[] body = compileStatements(policy.getStatements());
+    return environment -> {
+      for (Compiled statement : body) {
+        Result result = statement.apply(environment);
+        if (result.getExit()) {
+          return result;
+        }
+        if (result.getReturn()) {
+          return result.toBuilder().setReturn(false).build();
+        }
+      }
+      return Result.builder()
+          .setFallThrough(true)
+          .setBooleanValue(environment.getDefaultAction())
+          .build();
+    };
+  }
+
+  private static @Nonnull Compiled[] compileStatements(List<Statement> statements) {
+    List<Compiled> compiled = new ArrayList<>(statements.size());
+    statements.forEach(statement -> addStatement(statement, compiled));
+    return compiled.toArray(new Compiled[0]);
+  }
+
+  /**
+   * Appends the compiled form of {@code statement} to {@code compiled}. A statement may compile to
+   * no closures (comments) or to several (a constant-guarded {@link If} whose taken branch is
+   * spliced in). Splicing is sound because every statement list stops at the first result that
+   * exits or returns, and otherwise ignores the results of its statements.
+   */
+  private static void addStatement(Statement statement, List<Compiled> compiled) {
+    if (statement instanceof Comment) {
+      return;
+    } else if (statement instanceof If) {
+      If ifStatement = (If) statement;
+      BooleanExpr guard = ifStatement.getGuard();
+      if (guard == null) {
+        compiled.add(statement::execute);
+      } else if (guard.equals(BooleanExprs.TRUE)) {
+        ifStatement.getTrueStatements().forEach(s -> addStatement(s, compiled));
+      } else if (guard.equals(BooleanExprs.FALSE)) {
+        ifStatement.getFalseStatements().forEach(s -> addStatement(s, compiled));
+      } else {
+        compiled.add(compileIf(ifStatement));
+      }
+    } else if (statement instanceof CallStatement) {
+      compiled.add(compileCallStatement((CallStatement) statement));
+    } else {
+      compiled.add(statement::execute);
+    }
+  }
+
+  private static @Nonnull Compiled compileIf(If ifStatement) {
+    Compiled guard = compileBooleanExpr(ifStatement.getGuard());
+    Compiled[] trueStatements = compileStatements(ifStatement.getTrueStatements());
+    Compiled[] falseStatements = compileStatements(ifStatement.getFalseStatements());
+    return environment -> {
+      Result exprResult = guard.apply(environment);
+      if (exprResult.getExit()) {
+        return exprResult;
+      }
+      for (Compiled statement : exprResult.getBooleanValue() ? trueStatements : falseStatements) {
+        Result result = statement.apply(environment);
+        if (result.getExit() || result.getReturn()) {
+          return result;
+        }
+      }
+      return Result.builder().setFallThrough(true).build();
+    };
+  }
+
+  private static @Nonnull Compiled compileCallStatement(CallStatement callStatement) {
+    String calledPolicyName = callStatement.getCalledPolicyName();
+    return environment -> {
+      RoutingPolicy policy = environment.getRoutingPolicies().get(calledPolicyName);
+      if (policy == null) {
+        return callStatement.execute(environment);
+      }
+      boolean oldCallStatementContext = environment.getCallStatementContext();
+      environment.setCallStatementContext(true);
+      Result policyResult = policy.getCompiled().apply(environment);
+      environment.setCallStatementContext(oldCallStatementContext);
+      return policyResult.toBuilder().setReturn(false).build();
+    };
+  }
+
+  private static @Nonnull Compiled compileBooleanExpr(BooleanExpr expr) {
+    if (expr instanceof Conjunction) {
+      Compiled[] conjuncts = compileBooleanExprs(((Conjunction) expr).getConjuncts());
+      return environment -> {
+        for (Compiled conjunct : conjuncts) {
+          Result conjunctResult = conjunct.apply(environment);
+          if (conjunctResult.getExit()) {
+            return conjunctResult;
+          } else if (!conjunctResult.getBooleanValue()) {
+            return conjunctResult.toBuilder().setReturn(false).build();
+          }
+        }
+        return new Result(true);
+      };
+    } else if (expr instanceof Disjunction) {
+      Compiled[] disjuncts = compileBooleanExprs(((Disjunction) expr).getDisjuncts());
+      return environment -> {
+        for (Compiled disjunct : disjuncts) {
+          Result disjunctResult = disjunct.apply(environment);
+          if (disjunctResult.getExit()) {
+            return disjunctResult;
+          } else if (disjunctResult.getBooleanValue()) {
+            return disjunctResult.toBuilder().setReturn(false).build();
+          }
+        }
+        return new Result(false);
+      };
+    } else if (expr instanceof Not) {
+      Compiled negated = compileBooleanExpr(((Not) expr).getExpr());
+      return environment -> {
+        Result result = negated.apply(environment);
+        return result.getExit() ? result : new Result(!result.getBooleanValue());
+      };
+    } else if (expr instanceof CallExpr) {
+      return compileCallExpr((CallExpr) expr);
+    } else if (expr instanceof MatchCommunitySet
+        && ((MatchCommunitySet) expr).getExpr() instanceof LiteralCommunitySet) {
+      return compileMatchLiteralCommunitySet(
+          (LiteralCommunitySet) ((MatchCommunitySet) expr).getExpr());
+    }
+    return expr::evaluate;
+  }
+
+  private static @Nonnull Compiled[] compileBooleanExprs(List<BooleanExpr> exprs) {
+    return exprs.stream().map(RoutingPolicyCompiler::compileBooleanExpr).toArray(Compiled[]::new);
+  }
+
+  private static @Nonnull Compiled compileCallExpr(CallExpr callExpr) {
+    String calledPolicyName = callExpr.getCalledPolicyName();
+    return environment -> {
+      RoutingPolicy policy = environment.getRoutingPolicies().get(calledPolicyName);
+      if (policy == null) {
+        return callExpr.evaluate(environment);
+      }
+      boolean oldCallExprContext = environment.getCallExprContext();
+      boolean oldLocalDefaultAction = environment.getLocalDefaultAction();
+      environment.setCallExprContext(true);
+      Result policyResult = policy.getCompiled().apply(environment);
+      environment.setCallExprContext(oldCallExprContext);
+      environment.setLocalDefaultAction(oldLocalDefaultAction);
+      return policyResult.toBuilder().setReturn(false).build();
+    };
+  }
+
+  private static @Nonnull Compiled compileMatchLiteralCommunitySet(LiteralCommunitySet literal) {
+    Set<Community> communities = ImmutableSet.copyOf(literal.getCommunities());
+    return environment -> {
+      SortedSet<Community> inputCommunities = MatchCommunitySet.getInputCommunities(environment);
+      if (inputCommunities == null) {
+        return new Result(false);
+      }
+      for (Community community : inputCommunities) {
+        if (communities.contains(community)) {
+          return new Result(true);
+        }
+      }
+      return new Result(false);
+    };
+  }
+
+  private RoutingPolicyCompiler() {}
+}
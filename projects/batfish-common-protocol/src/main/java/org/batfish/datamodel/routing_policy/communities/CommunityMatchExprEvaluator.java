@@ -1,7 +1,6 @@
 package org.batfish.datamodel.routing_policy.communities;
 
 import javax.annotation.Nonnull;
-import org.batfish.common.util.PatternProvider;
 import org.batfish.datamodel.LineAction;
 import org.batfish.datamodel.bgp.community.Community;
 import org.batfish.datamodel.bgp.community.ExtendedCommunity;
@@ -87,12 +86,7 @@ public final class CommunityMatchExprEvaluator
   @Override
   public @Nonnull Boolean visitCommunityMatchRegex(
       CommunityMatchRegex communityMatchRegex, Community arg) {
-    return PatternProvider.fromString(communityMatchRegex.getRegex())
-        .matcher(
-            communityMatchRegex
-                .getCommunityRendering()
-                .accept(CommunityToRegexInputString.instance(), arg))
-        .find();
+    return communityMatchRegex.matches(arg);
   }
 
   @Override
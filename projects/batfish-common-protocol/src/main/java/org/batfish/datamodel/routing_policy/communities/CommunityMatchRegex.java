@@ -7,6 +7,8 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.Objects;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import org.batfish.common.util.PatternProvider;
+import org.batfish.common.util.RegexMatchCache;
 import org.batfish.datamodel.bgp.community.Community;
 
 /**
@@ -29,6 +31,19 @@ public final class CommunityMatchRegex extends CommunityMatchExpr {
     return _regex;
   }
 
+  /**
+   * Returns {@code true} iff the regex is found in the rendering of {@code community}. Results
+   * are memoized for all equal expressions.
+   */
+  boolean matches(Community community) {
+    return RegexMatchCache.matches(this, community, CommunityMatchRegex::find);
+  }
+
+  private boolean find(Community community) {
+    String input = _communityRendering.accept(CommunityToRegexInputString.instance(), community);
+    return PatternProvider.fromString(_regex).matcher(input).find();
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
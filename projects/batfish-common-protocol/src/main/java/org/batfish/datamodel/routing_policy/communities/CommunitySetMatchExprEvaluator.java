@@ -1,7 +1,6 @@
 package org.batfish.datamodel.routing_policy.communities;
 
 import javax.annotation.Nonnull;
-import org.batfish.common.util.PatternProvider;
 import org.batfish.datamodel.LineAction;
 
 /** A visitor for evaluating a {@link CommunitySetMatchExpr} under a {@link CommunityContext}. */
@@ -47,12 +46,7 @@ public final class CommunitySetMatchExprEvaluator
   @Override
   public @Nonnull Boolean visitCommunitySetMatchRegex(
       CommunitySetMatchRegex communitySetMatchRegex, CommunitySet arg) {
-    return PatternProvider.fromString(communitySetMatchRegex.getRegex())
-        .matcher(
-            communitySetMatchRegex
-                .getCommunitySetRendering()
-                .accept(CommunitySetToRegexInputString.instance(), arg))
-        .find();
+    return communitySetMatchRegex.matches(arg);
   }
 
   @Override
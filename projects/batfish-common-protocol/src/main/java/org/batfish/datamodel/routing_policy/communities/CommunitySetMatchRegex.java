@@ -7,6 +7,8 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.Objects;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import org.batfish.common.util.PatternProvider;
+import org.batfish.common.util.RegexMatchCache;
 
 /**
  * Matches a {@link CommunitySet} if it is matched by the provided regex using the provided
@@ -29,6 +31,20 @@ public final class CommunitySetMatchRegex extends CommunitySetMatchExpr {
     return _regex;
   }
 
+  /**
+   * Returns {@code true} iff the regex is found in the rendering of {@code communitySet}. Results
+   * are memoized for all equal expressions.
+   */
+  boolean matches(CommunitySet communitySet) {
+    return RegexMatchCache.matches(this, communitySet, CommunitySetMatchRegex::find);
+  }
+
+  private boolean find(CommunitySet communitySet) {
+    String input =
+        _communitySetRendering.accept(CommunitySetToRegexInputString.instance(), communitySet);
+    return PatternProvider.fromString(_regex).matcher(input).find();
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.Objects;
 import java.util.SortedSet;
+import javax.annotation.Nullable;
 import org.batfish.datamodel.BgpRoute;
 import org.batfish.datamodel.bgp.community.Community;
 import org.batfish.datamodel.routing_policy.Environment;
@@ -37,21 +38,29 @@ public final class MatchCommunitySet extends BooleanExpr {
 
   @Override
   public Result evaluate(Environment environment) {
-    SortedSet<Community> inputCommunities = null;
+    SortedSet<Community> inputCommunities = getInputCommunities(environment);
+    return inputCommunities == null
+        ? new Result(false)
+        : new Result(_expr.matchAnyCommunity(environment, inputCommunities));
+  }
+
+  /**
+   * Returns the communities of the BGP route that {@code environment} matches against, or {@code
+   * null} if it does not match against a BGP route.
+   */
+  public static @Nullable SortedSet<Community> getInputCommunities(Environment environment) {
     if (environment.getUseOutputAttributes()
         && environment.getOutputRoute() instanceof BgpRoute.Builder<?, ?>) {
       BgpRoute.Builder<?, ?> bgpRouteBuilder =
           (BgpRoute.Builder<?, ?>) environment.getOutputRoute();
-      inputCommunities = bgpRouteBuilder.getCommunities();
+      return bgpRouteBuilder.getCommunities();
     } else if (environment.getReadFromIntermediateBgpAttributes()) {
-      inputCommunities = environment.getIntermediateBgpAttributes().getCommunities();
+      return environment.getIntermediateBgpAttributes().getCommunities();
     } else if (environment.getOriginalRoute() instanceof BgpRoute) {
       BgpRoute<?, ?> bgpRoute = (BgpRoute<?, ?>) environment.getOriginalRoute();
-      inputCommunities = bgpRoute.getCommunities();
+      return bgpRoute.getCommunities();
     }
-    return inputCommunities == null
-        ? new Result(false)
-        : new Result(_expr.matchAnyCommunity(environment, inputCommunities));
+    return null;
   }
 
   @JsonProperty(PROP_EXPR)
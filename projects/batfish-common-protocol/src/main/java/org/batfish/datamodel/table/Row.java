@@ -1,6 +1,5 @@
 package org.batfish.datamodel.table;
 
-import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
@@ -10,15 +9,23 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -36,31 +43,66 @@ import org.batfish.datamodel.Prefix;
 import org.batfish.datamodel.acl.AclTrace;
 import org.batfish.datamodel.answers.Issue;
 import org.batfish.datamodel.answers.Schema;
+import org.batfish.datamodel.answers.Schema.Type;
 import org.batfish.datamodel.answers.SchemaUtils;
 import org.batfish.datamodel.answers.SelfDescribingObject;
 import org.batfish.datamodel.collections.FileLines;
 import org.batfish.datamodel.collections.NodeInterfacePair;
 import org.batfish.datamodel.flow.Trace;
 import org.batfish.datamodel.pojo.Node;
+import org.batfish.datamodel.questions.BgpRoute;
+import org.batfish.datamodel.questions.BgpRouteDiffs;
 import org.batfish.datamodel.questions.Exclusion;
 
 /**
  * Represents one row of the table answer. Each row is basically a map of key value pairs, where the
- * key is the column name and the value (currently) is JsonNode.
+ * key is the column name.
+ *
+ * <p>Values of immutable types are kept as the objects they were built with, and only converted to
+ * JSON when the JSON representation of the row is needed (e.g., when the row is serialized). Other
+ * values are copied into the row as JSON. Rows with the same columns share a single list of column
+ * names. Rows deserialized from JSON hold a {@link JsonNode} per column.
  */
 @ParametersAreNonnullByDefault
 public class Row implements Comparable<Row>, Serializable {
 
+  // Soft values: let it be garbage collected in times of pressure.
+  // Maximum size 2^12: Just some upper bound on the number of distinct table layouts.
+  private static final LoadingCache<List<String>, List<String>> COLUMNS_CACHE =
+      CacheBuilder.newBuilder().softValues().maximumSize(1 << 12).build(CacheLoader.from(x -> x));
+
+  /** Types whose instances cannot be modified, and so can be retained by a row as they are */
+  private static final Set<Class<?>> IMMUTABLE_TYPES =
+      ImmutableSet.of(
+          AclTrace.class,
+          BgpRoute.class,
+          BgpRouteDiffs.class,
+          Boolean.class,
+          Double.class,
+          FileLines.class,
+          Flow.class,
+          Integer.class,
+          Ip.class,
+          Issue.class,
+          Long.class,
+          NodeInterfacePair.class,
+          Prefix.class,
+          String.class,
+          Trace.class);
+
   public abstract static class RowBuilder {
 
-    @Nonnull protected final ObjectNode _data;
+    /** Column name -> value, in the order in which columns were first put */
+    @Nonnull protected final Map<String, Object> _data;
 
     private RowBuilder() {
-      _data = BatfishObjectMapper.mapper().createObjectNode();
+      _data = new LinkedHashMap<>();
     }
 
     public Row build() {
-      return new Row(_data.deepCopy());
+      return new Row(
+          COLUMNS_CACHE.getUnchecked(ImmutableList.copyOf(_data.keySet())),
+          _data.values().toArray());
     }
 
     @VisibleForTesting
@@ -83,10 +125,20 @@ public class Row implements Comparable<Row>, Serializable {
     /**
      * Sets the value of {@code column} to {@code value}.
      *
-     * <p>Any existing values for the column are overwritten
+     * <p>Any existing values for the column are overwritten. Values of immutable types and enums
+     * are retained by the row; all other values are copied, so later changes to {@code value} do
+     * not affect the row.
      */
     public RowBuilder put(String column, @Nullable Object value) {
-      _data.set(column, BatfishObjectMapper.mapper().valueToTree(value));
+      if (value instanceof JsonNode) {
+        _data.put(column, ((JsonNode) value).deepCopy());
+      } else if (value == null
+          || value instanceof Enum
+          || IMMUTABLE_TYPES.contains(value.getClass())) {
+        _data.put(column, value);
+      } else {
+        _data.put(column, toJson(value));
+      }
       return this;
     }
 
@@ -101,7 +153,7 @@ public class Row implements Comparable<Row>, Serializable {
      * @throws NoSuchElementException if one of the columns is not present in {@code otherRow}.
      */
     public RowBuilder putAll(Row otherRow, Collection<String> columns) {
-      columns.forEach(col -> put(col, otherRow.get(col)));
+      columns.forEach(col -> put(col, otherRow._values[otherRow.indexOf(col)]));
       return this;
     }
   }
@@ -141,7 +193,7 @@ public class Row implements Comparable<Row>, Serializable {
     @Override
     public Row build() {
       // Fill in missing columns with null entries
-      _columnNames.stream().filter(c -> !_data.has(c)).forEach(c -> super.put(c, null));
+      _columnNames.stream().filter(c -> !_data.containsKey(c)).forEach(c -> super.put(c, null));
       return super.build();
     }
   }
@@ -150,7 +202,11 @@ public class Row implements Comparable<Row>, Serializable {
     private UntypedRowBuilder() {}
   }
 
-  @Nonnull private final ObjectNode _data;
+  /** The names of the columns of this row, in order. Shared by rows with the same columns. */
+  @Nonnull private final List<String> _columns;
+
+  /** The value of each column, either a {@link JsonNode} or an instance of an immutable type */
+  @Nonnull private final Object[] _values;
 
   /**
    * Returns a new {@link Row} with the given entries.
@@ -174,8 +230,23 @@ public class Row implements Comparable<Row>, Serializable {
   }
 
   @JsonCreator
-  private Row(ObjectNode data) {
-    _data = firstNonNull(data, BatfishObjectMapper.mapper().createObjectNode());
+  private static Row create(@Nullable ObjectNode data) {
+    if (data == null) {
+      return new Row(ImmutableList.of(), new Object[0]);
+    }
+    ImmutableList.Builder<String> columns = ImmutableList.builder();
+    data.fieldNames().forEachRemaining(columns::add);
+    Object[] values = new Object[data.size()];
+    int i = 0;
+    for (JsonNode value : data) {
+      values[i++] = value;
+    }
+    return new Row(COLUMNS_CACHE.getUnchecked(columns.build()), values);
+  }
+
+  private Row(List<String> columns, Object[] values) {
+    _columns = columns;
+    _values = values;
   }
 
   /** Returns an {@link UntypedRowBuilder} object for Row */
@@ -209,10 +280,18 @@ public class Row implements Comparable<Row>, Serializable {
 
   @Override
   public boolean equals(Object o) {
-    if (!(o instanceof Row)) {
+    if (this == o) {
+      return true;
+    } else if (!(o instanceof Row)) {
       return false;
     }
-    return _data.equals(((Row) o)._data);
+    Row other = (Row) o;
+    if (_columns.equals(other._columns) && Arrays.equals(_values, other._values)) {
+      return true;
+    }
+    // Equal rows may still hold different representations of a value, e.g., when one of them was
+    // deserialized from JSON, so fall back to comparing the JSON representations.
+    return hashCode() == other.hashCode() && getData().equals(other.getData());
   }
 
   /**
@@ -223,10 +302,7 @@ public class Row implements Comparable<Row>, Serializable {
    * @throws NoSuchElementException if this column does not exist
    */
   public JsonNode get(String columnName) {
-    if (!_data.has(columnName)) {
-      throw new NoSuchElementException(missingColumnErrorMessage(columnName, getColumnNames()));
-    }
-    return _data.get(columnName);
+    return toJson(_values[indexOf(columnName)]);
   }
 
   /**
@@ -238,19 +314,29 @@ public class Row implements Comparable<Row>, Serializable {
    * @throws ClassCastException if the recovered data cannot be cast to the expected object
    */
   public Object get(String columnName, Schema columnSchema) {
-    if (!_data.has(columnName)) {
-      throw new NoSuchElementException(missingColumnErrorMessage(columnName, getColumnNames()));
-    }
-    if (_data.get(columnName).isNull()) {
+    Object value = _values[indexOf(columnName)];
+    if (isNull(value)) {
       return null;
+    } else if (columnSchema.getType() == Type.BASE
+        && value.getClass() == columnSchema.getBaseType()) {
+      // Already of the requested type, no need to go through JSON
+      return value;
     }
-    return SchemaUtils.convertType(_data.get(columnName), columnSchema);
+    return SchemaUtils.convertType(toJson(value), columnSchema);
   }
 
   /** Get the value of specified column safely cast to type specifed via {@code typeReference}. */
+  @SuppressWarnings("unchecked")
   public <T> T get(String columnName, TypeReference<T> typeReference) {
+    Object value = _values[indexOf(columnName)];
+    if (!(value instanceof JsonNode)
+        && typeReference.getType() instanceof Class
+        && ((Class<?>) typeReference.getType()).isInstance(value)) {
+      // Already of the requested type, no need to go through JSON
+      return (T) value;
+    }
     ObjectMapper mapper = BatfishObjectMapper.mapper();
-    JsonNode node = get(columnName);
+    JsonNode node = toJson(value);
     try {
       return mapper.readValue(mapper.treeAsTokens(node), typeReference);
     } catch (IOException e) {
@@ -275,14 +361,17 @@ public class Row implements Comparable<Row>, Serializable {
    * @return The {@link Set} of names
    */
   public Set<String> getColumnNames() {
-    HashSet<String> columns = new HashSet<>();
-    _data.fieldNames().forEachRemaining(columns::add);
-    return columns;
+    return new HashSet<>(_columns);
   }
 
+  /** Returns the JSON representation of this row. */
   @JsonValue
   private ObjectNode getData() {
-    return _data;
+    ObjectNode data = BatfishObjectMapper.mapper().createObjectNode();
+    for (int i = 0; i < _values.length; i++) {
+      data.set(_columns.get(i), toJson(_values[i]));
+    }
+    return data;
   }
 
   public Double getDouble(String column) {
@@ -375,7 +464,12 @@ public class Row implements Comparable<Row>, Serializable {
 
   @Override
   public int hashCode() {
-    return Objects.hash(_data);
+    int h = _hashCode;
+    if (h == 0) {
+      h = Objects.hash(getData());
+      _hashCode = h;
+    }
+    return h;
   }
 
   /**
@@ -385,7 +479,36 @@ public class Row implements Comparable<Row>, Serializable {
    * @return The result of the check
    */
   public boolean isCovered(ObjectNode exclusion) {
-    return Exclusion.firstCoversSecond(exclusion, _data);
+    return Exclusion.firstCoversSecond(exclusion, getData());
+  }
+
+  /**
+   * Returns the index of {@code columnName} in this row.
+   *
+   * @throws NoSuchElementException if this column does not exist
+   */
+  private int indexOf(String columnName) {
+    int index = _columns.indexOf(columnName);
+    if (index < 0) {
+      throw new NoSuchElementException(missingColumnErrorMessage(columnName, getColumnNames()));
+    }
+    return index;
+  }
+
+  /** Returns whether {@code value} is a missing value or a JSON null */
+  private static boolean isNull(@Nullable Object value) {
+    return value == null || (value instanceof JsonNode && ((JsonNode) value).isNull());
+  }
+
+  @Nonnull
+  private static JsonNode toJson(@Nullable Object value) {
+    if (value == null) {
+      return NullNode.getInstance();
+    } else if (value instanceof JsonNode) {
+      return (JsonNode) value;
+    }
+    JsonNode node = BatfishObjectMapper.mapper().valueToTree(value);
+    return node == null ? NullNode.getInstance() : node;
   }
 
   /** Returns a message indicating that {@code columnName} is not present in {@code columns} */
@@ -395,20 +518,24 @@ public class Row implements Comparable<Row>, Serializable {
 
   @Override
   public String toString() {
-    return _data.toString();
+    return getData().toString();
   }
 
   public boolean hasNonNull(String column) {
-    return _data.hasNonNull(column);
+    int index = _columns.indexOf(column);
+    return index >= 0 && !isNull(_values[index]);
   }
 
+  /* Cache the hashcode */
+  private transient int _hashCode = 0;
+
   private volatile String _asString;
 
   @JsonIgnore
   private String getAsString() throws JsonProcessingException {
     String asString = _asString;
     if (asString == null) {
-      asString = BatfishObjectMapper.writeString(_data);
+      asString = BatfishObjectMapper.writeString(getData());
       _asString = asString;
     }
     return asString;
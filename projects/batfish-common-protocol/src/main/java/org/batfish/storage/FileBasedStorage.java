@@ -12,6 +12,7 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.io.Closer;
 import com.google.errorprone.annotations.MustBeClosed;
+import java.io.BufferedOutputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -29,14 +30,12 @@ import java.nio.file.Paths;
 import java.util.Base64;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.zip.GZIPInputStream;
 import javax.annotation.Nonnull;
@@ -62,6 +61,7 @@ import org.batfish.datamodel.AnalysisMetadata;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.SnapshotMetadata;
 import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.answers.Answer;
 import org.batfish.datamodel.answers.AnswerMetadata;
 import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
 import org.batfish.datamodel.answers.MajorIssueConfig;
@@ -156,22 +156,25 @@ public final class FileBasedStorage implements StorageProvider {
       return null;
     }
 
-    _logger.info("\n*** DESERIALIZING VENDOR-INDEPENDENT CONFIGURATION STRUCTURES ***\n");
-    Map<Path, String> namesByPath = new TreeMap<>();
+    Map<String, Path> pathsByName = new TreeMap<>();
     try (DirectoryStream<Path> stream = Files.newDirectoryStream(indepDir)) {
       for (Path serializedConfig : stream) {
         String name = serializedConfig.getFileName().toString();
-        namesByPath.put(serializedConfig, name);
+        pathsByName.put(name, serializedConfig);
       }
     } catch (IOException e) {
       throw new BatfishException(
           "Error reading vendor-independent configs directory: '" + indepDir + "'", e);
     }
-    try {
-      return deserializeObjects(namesByPath, Configuration.class);
-    } catch (BatfishException e) {
-      return null;
-    }
+    // Each configuration is deserialized on first access, so that questions about a few nodes do
+    // not pay for deserializing the whole network.
+    return new LazyConfigurations(
+        pathsByName,
+        inputPath -> {
+          _logger.debugf("Reading configuration from '%s'\n", inputPath);
+          return deserializeObject(inputPath, Configuration.class);
+        },
+        _newBatch);
   }
 
   @Override
@@ -473,6 +476,15 @@ public final class FileBasedStorage implements StorageProvider {
     CommonUtil.writeFile(answerPath, answerStr);
   }
 
+  @Override
+  public void storeAnswer(Answer answer, AnswerId answerId) throws IOException {
+    Path answerPath = getAnswerPath(answerId);
+    mkdirs(answerPath.getParent());
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(answerPath))) {
+      BatfishObjectMapper.writer().writeValue(out, answer);
+    }
+  }
+
   @Override
   public void storeAnswerMetadata(AnswerMetadata answerMetadata, AnswerId answerId) {
     String metricsStr;
@@ -521,31 +533,6 @@ public final class FileBasedStorage implements StorageProvider {
     }
   }
 
-  private <S extends Serializable> SortedMap<String, S> deserializeObjects(
-      Map<Path, String> namesByPath, Class<S> outputClass) {
-    String outputClassName = outputClass.getName();
-    AtomicInteger completed =
-        _newBatch.apply(
-            String.format("Deserializing objects of type '%s' from files", outputClassName),
-            namesByPath.size());
-    return new TreeMap<>(
-        namesByPath
-            .entrySet()
-            .parallelStream()
-            .collect(
-                Collectors.toMap(
-                    Entry::getValue,
-                    entry -> {
-                      Path inputPath = entry.getKey();
-                      String name = entry.getValue();
-                      _logger.debugf(
-                          "Reading %s '%s' from '%s'\n", outputClassName, name, inputPath);
-                      S output = deserializeObject(inputPath, outputClass);
-                      completed.incrementAndGet();
-                      return output;
-                    })));
-  }
-
   /**
    * Writes a single object of the given class to the given file. Uses the {@link FileBasedStorage}
    * default file encoding including serialization format and compression.
@@ -601,6 +588,17 @@ public final class FileBasedStorage implements StorageProvider {
     return FileUtils.readFileToString(answerPath.toFile(), UTF_8);
   }
 
+  @MustBeClosed
+  @Override
+  public @Nonnull InputStream loadAnswerStream(AnswerId answerId)
+      throws FileNotFoundException, IOException {
+    Path answerPath = getAnswerPath(answerId);
+    if (!Files.exists(answerPath)) {
+      throw new FileNotFoundException(String.format("Could not find answer with ID: %s", answerId));
+    }
+    return Files.newInputStream(answerPath);
+  }
+
   @Override
   public @Nonnull AnswerMetadata loadAnswerMetadata(AnswerId answerId)
       throws FileNotFoundException, IOException {
@@ -0,0 +1,171 @@
+package org.batfish.storage;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ForwardingSortedMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Maps;
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.common.BatfishException;
+import org.batfish.datamodel.Configuration;
+
+/**
+ * An unmodifiable map from hostname to {@link Configuration} that deserializes each configuration
+ * the first time it is accessed. Iterating over all values loads the configurations one at a time;
+ * use {@link #prefetch()} to load all of them in parallel first. Post-processing can be deferred
+ * the same way with {@link #postProcessed(Consumer)}.
+ *
+ * <p>Accessing a configuration that cannot be deserialized throws a {@link BatfishException},
+ * unless a fallback was set with {@link #withFallback(Function)}.
+ */
+@ParametersAreNonnullByDefault
+public final class LazyConfigurations extends ForwardingSortedMap<String, Configuration>
+    implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Loads all configurations in {@code configurations} in parallel if it is a {@link
+   * LazyConfigurations}; otherwise does nothing.
+   *
+   * @throws BatfishException if any configuration cannot be deserialized
+   */
+  public static void prefetch(Map<String, Configuration> configurations) {
+    if (configurations instanceof LazyConfigurations) {
+      ((LazyConfigurations) configurations).prefetch();
+    }
+  }
+
+  /**
+   * Applies {@code postProcessor} to each configuration in {@code configurations}. If {@code
+   * configurations} is a {@link LazyConfigurations}, returns a {@link LazyConfigurations} that
+   * applies it to each configuration the first time it is accessed instead; otherwise applies it to
+   * all configurations now and returns {@code configurations}.
+   */
+  public static @Nonnull SortedMap<String, Configuration> postProcessed(
+      SortedMap<String, Configuration> configurations, Consumer<Configuration> postProcessor) {
+    if (configurations instanceof LazyConfigurations) {
+      return ((LazyConfigurations) configurations).postProcessed(postProcessor);
+    }
+    configurations.values().forEach(postProcessor);
+    return configurations;
+  }
+
+  /**
+   * Obtains configurations in {@code configurations} that cannot be deserialized from {@code
+   * fallback} instead, given their hostnames. If {@code configurations} is not a {@link
+   * LazyConfigurations}, it is already fully loaded, so returns it unchanged.
+   */
+  public static @Nonnull SortedMap<String, Configuration> withFallback(
+      SortedMap<String, Configuration> configurations, Function<String, Configuration> fallback) {
+    if (configurations instanceof LazyConfigurations) {
+      return ((LazyConfigurations) configurations).withFallback(fallback);
+    }
+    return configurations;
+  }
+
+  /**
+   * Returns a {@link LazyConfigurations} with the same configurations as this one, where a
+   * configuration that cannot be deserialized is obtained from {@code fallback} instead, given its
+   * hostname. This {@link LazyConfigurations} should not be used afterwards.
+   */
+  public @Nonnull LazyConfigurations withFallback(Function<String, Configuration> fallback) {
+    return new LazyConfigurations(
+        ImmutableSortedMap.copyOfSorted(
+            Maps.transformEntries(
+                _suppliers,
+                (hostname, supplier) ->
+                    Suppliers.memoize(
+                        () -> {
+                          try {
+                            return supplier.get();
+                          } catch (BatfishException e) {
+                            return fallback.apply(hostname);
+                          }
+                        }))),
+        _newBatch);
+  }
+
+  /**
+   * Returns a {@link LazyConfigurations} with the same configurations as this one, where {@code
+   * postProcessor} is applied to each configuration once, the first time it is accessed. This
+   * {@link LazyConfigurations} should not be used afterwards.
+   */
+  public @Nonnull LazyConfigurations postProcessed(Consumer<Configuration> postProcessor) {
+    return new LazyConfigurations(
+        ImmutableSortedMap.copyOfSorted(
+            Maps.transformValues(
+                _suppliers,
+                supplier ->
+                    Suppliers.memoize(
+                        () -> {
+                          Configuration configuration = supplier.get();
+                          postProcessor.accept(configuration);
+                          return configuration;
+                        }))),
+        _newBatch);
+  }
+
+  /**
+   * Loads all configurations that have not been accessed yet, in parallel.
+   *
+   * @throws BatfishException if any configuration cannot be deserialized
+   */
+  public void prefetch() {
+    AtomicInteger completed =
+        _newBatch.apply("Deserializing configurations from files", _suppliers.size());
+    _suppliers
+        .values()
+        .parallelStream()
+        .forEach(
+            supplier -> {
+              supplier.get();
+              completed.incrementAndGet();
+            });
+  }
+
+  @Override
+  protected @Nonnull SortedMap<String, Configuration> delegate() {
+    return _delegate;
+  }
+
+  LazyConfigurations(
+      Map<String, Path> pathsByName,
+      Function<Path, Configuration> loader,
+      BiFunction<String, Integer, AtomicInteger> newBatch) {
+    ImmutableSortedMap.Builder<String, Supplier<Configuration>> suppliers =
+        ImmutableSortedMap.naturalOrder();
+    pathsByName.forEach(
+        (name, path) -> suppliers.put(name, Suppliers.memoize(() -> loader.apply(path))));
+    _suppliers = suppliers.build();
+    _delegate = Maps.transformValues(_suppliers, Supplier::get);
+    _newBatch = newBatch;
+  }
+
+  private LazyConfigurations(
+      ImmutableSortedMap<String, Supplier<Configuration>> suppliers,
+      BiFunction<String, Integer, AtomicInteger> newBatch) {
+    _suppliers = suppliers;
+    _delegate = Maps.transformValues(_suppliers, Supplier::get);
+    _newBatch = newBatch;
+  }
+
+  /** Serializes as a plain map containing every configuration. */
+  private Object writeReplace() {
+    prefetch();
+    return ImmutableSortedMap.copyOfSorted(_delegate);
+  }
+
+  private final transient @Nonnull ImmutableSortedMap<String, Supplier<Configuration>> _suppliers;
+  private final transient @Nonnull SortedMap<String, Configuration> _delegate;
+  private final transient @Nonnull BiFunction<String, Integer, AtomicInteger> _newBatch;
+}
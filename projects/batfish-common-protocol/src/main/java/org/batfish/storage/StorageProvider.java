@@ -21,6 +21,7 @@ import org.batfish.datamodel.AnalysisMetadata;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.SnapshotMetadata;
 import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.answers.Answer;
 import org.batfish.datamodel.answers.AnswerMetadata;
 import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
 import org.batfish.datamodel.answers.MajorIssueConfig;
@@ -156,6 +157,16 @@ public interface StorageProvider {
    */
   void storeAnswer(String answerStr, AnswerId answerId);
 
+  /**
+   * Store the answer to an ad-hoc or analysis question. The answer is serialized to JSON as it is
+   * written, so its serialized text is never held in memory in its entirety.
+   *
+   * @param answer The answer
+   * @param answerId The ID of the answer
+   * @throws IOException if there is an error writing the answer
+   */
+  void storeAnswer(Answer answer, AnswerId answerId) throws IOException;
+
   /**
    * Store the metadata for the answer to an ad-hoc or analysis question.
    *
@@ -196,6 +207,18 @@ public interface StorageProvider {
   @Nonnull
   String loadAnswer(AnswerId answerId) throws FileNotFoundException, IOException;
 
+  /**
+   * Provide a stream from which the JSON-serialized answer to an ad-hoc or analysis question may be
+   * read.
+   *
+   * @param answerId The ID of the answer
+   * @throws FileNotFoundException if answer does not exist; {@link IOException} if there is an
+   *     error reading the answer.
+   */
+  @Nonnull
+  @MustBeClosed
+  InputStream loadAnswerStream(AnswerId answerId) throws FileNotFoundException, IOException;
+
   /**
    * Load the metadata for the answer to an ad-hoc or analysis question.
    *
@@ -3,6 +3,7 @@ package org.batfish.common.bdd;
 import static org.batfish.common.bdd.BDDOps.andNull;
 import static org.batfish.common.bdd.BDDUtils.isAssignment;
 import static org.batfish.common.bdd.BDDUtils.swap;
+import static org.batfish.common.bdd.BDDUtils.transfer;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertFalse;
@@ -12,6 +13,7 @@ import java.util.function.BiFunction;
 import net.sf.javabdd.BDD;
 import net.sf.javabdd.BDDFactory;
 import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpProtocol;
 import org.junit.Test;
 
 public class BDDUtilsTest {
@@ -79,4 +81,40 @@ public class BDDUtilsTest {
             dstPort.value(7));
     assertThat(swap(orig, dstIp, srcIp, dstPort, srcPort), equalTo(swapped));
   }
+
+  @Test
+  public void testTransfer() {
+    BDDPacket source = new BDDPacket();
+    BDDPacket target = new BDDPacket();
+
+    Ip ip = Ip.parse("1.1.1.1");
+    BDD orig =
+        source
+            .getDstIp()
+            .value(ip.asLong())
+            .and(source.getDstPort().value(5))
+            .or(
+                source
+                    .getSrcIp()
+                    .value(ip.asLong())
+                    .and(source.getIpProtocol().value(IpProtocol.TCP)));
+    BDD expected =
+        target
+            .getDstIp()
+            .value(ip.asLong())
+            .and(target.getDstPort().value(5))
+            .or(
+                target
+                    .getSrcIp()
+                    .value(ip.asLong())
+                    .and(target.getIpProtocol().value(IpProtocol.TCP)));
+
+    assertThat(transfer(orig, target.getFactory()), equalTo(expected));
+    assertThat(
+        transfer(source.getFactory().one(), target.getFactory()),
+        equalTo(target.getFactory().one()));
+    assertThat(
+        transfer(source.getFactory().zero(), target.getFactory()),
+        equalTo(target.getFactory().zero()));
+  }
 }
@@ -25,7 +25,6 @@ import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.DataPlane;
 import org.batfish.datamodel.Flow;
 import org.batfish.datamodel.Topology;
-import org.batfish.datamodel.answers.AnswerElement;
 import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
 import org.batfish.datamodel.answers.DataPlaneAnswerElement;
 import org.batfish.datamodel.answers.InitInfoAnswerElement;
@@ -357,7 +356,7 @@ public class IBatfishTestAdapter implements IBatfish {
   }
 
   @Override
-  public AnswerElement standard(
+  public Set<Flow> bddSingleReachabilityFlows(
       NetworkSnapshot snapshot, ReachabilityParameters reachabilityParameters) {
     throw new UnsupportedOperationException();
   }
@@ -399,6 +398,11 @@ public class IBatfishTestAdapter implements IBatfish {
     return _referenceSnapshot;
   }
 
+  @Override
+  public @Nullable NetworkSnapshot registerParentSnapshot(NetworkSnapshot snapshot) {
+    return null;
+  }
+
   @Override
   public @Nonnull BidirectionalReachabilityResult bidirectionalReachability(
       NetworkSnapshot snapshot, BDDPacket bddPacket, ReachabilityParameters parameters) {
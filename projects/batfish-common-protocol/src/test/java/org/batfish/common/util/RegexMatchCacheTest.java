@@ -0,0 +1,61 @@
+package org.batfish.common.util;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+import org.junit.Test;
+
+/** Tests of {@link RegexMatchCache}. */
+public final class RegexMatchCacheTest {
+
+  /** An expression, equal only to itself, that counts how often it is evaluated. */
+  private static final class CountingExpr {
+    private final AtomicInteger _evaluations = new AtomicInteger();
+
+    private boolean matches(String value) {
+      _evaluations.incrementAndGet();
+      return PatternProvider.fromString("^a").matcher(value).find();
+    }
+  }
+
+  @Test
+  public void testMemoizedPerValue() {
+    CountingExpr expr = new CountingExpr();
+
+    assertThat(RegexMatchCache.matches(expr, "abc", CountingExpr::matches), equalTo(true));
+    assertThat(RegexMatchCache.matches(expr, "abc", CountingExpr::matches), equalTo(true));
+    assertThat(RegexMatchCache.matches(expr, "bcd", CountingExpr::matches), equalTo(false));
+    assertThat(RegexMatchCache.matches(expr, "bcd", CountingExpr::matches), equalTo(false));
+    assertThat(expr._evaluations.get(), equalTo(2));
+  }
+
+  @Test
+  public void testSharedBetweenEqualExpressions() {
+    AtomicInteger evaluations = new AtomicInteger();
+    BiPredicate<List<String>, String> matcher =
+        (regexes, value) -> {
+          evaluations.incrementAndGet();
+          return PatternProvider.fromString(regexes.get(0)).matcher(value).find();
+        };
+
+    RegexMatchCache.matches(ImmutableList.of("^shared"), "shared", matcher);
+    RegexMatchCache.matches(new ArrayList<>(ImmutableList.of("^shared")), "shared", matcher);
+    assertThat(evaluations.get(), equalTo(1));
+  }
+
+  @Test
+  public void testNotSharedBetweenUnequalExpressions() {
+    CountingExpr expr1 = new CountingExpr();
+    CountingExpr expr2 = new CountingExpr();
+
+    RegexMatchCache.matches(expr1, "abc", CountingExpr::matches);
+    RegexMatchCache.matches(expr2, "abc", CountingExpr::matches);
+    assertThat(expr1._evaluations.get(), equalTo(1));
+    assertThat(expr2._evaluations.get(), equalTo(1));
+  }
+}
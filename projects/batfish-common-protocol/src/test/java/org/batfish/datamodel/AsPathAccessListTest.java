@@ -0,0 +1,48 @@
+package org.batfish.datamodel;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.Test;
+
+/** Test for {@link AsPathAccessList} */
+public class AsPathAccessListTest {
+
+  private static final AsPathAccessList LIST =
+      new AsPathAccessList(
+          "list",
+          ImmutableList.of(
+              new AsPathAccessListLine(LineAction.DENY, "^65000 "),
+              new AsPathAccessListLine(LineAction.PERMIT, "65000"),
+              new AsPathAccessListLine(LineAction.PERMIT, "^1 2$")));
+
+  @Test
+  public void testFirstMatchingLineWins() {
+    assertFalse(LIST.permits(AsPath.ofSingletonAsSets(65000L, 1L)));
+    assertTrue(LIST.permits(AsPath.ofSingletonAsSets(1L, 65000L)));
+    assertTrue(LIST.permits(AsPath.ofSingletonAsSets(1L, 2L)));
+  }
+
+  @Test
+  public void testNoMatchingLineDenies() {
+    assertFalse(LIST.permits(AsPath.ofSingletonAsSets(1L, 2L, 3L)));
+    assertFalse(LIST.permits(AsPath.empty()));
+    assertFalse(new AsPathAccessList("empty", null).permits(AsPath.ofSingletonAsSets(1L)));
+  }
+
+  @Test
+  public void testRepeatedQueries() {
+    AsPath asPath = AsPath.ofSingletonAsSets(1L, 65000L);
+    assertTrue(LIST.permits(asPath));
+    assertTrue(LIST.permits(asPath));
+  }
+
+  @Test
+  public void testSerialization() {
+    AsPathAccessList clone = SerializationUtils.clone(LIST);
+    assertTrue(clone.permits(AsPath.ofSingletonAsSets(1L, 2L)));
+    assertFalse(clone.permits(AsPath.ofSingletonAsSets(65000L, 1L)));
+  }
+}
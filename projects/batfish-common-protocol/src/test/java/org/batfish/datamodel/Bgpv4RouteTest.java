@@ -1,6 +1,8 @@
 package org.batfish.datamodel;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 import com.google.common.collect.ImmutableSet;
@@ -92,6 +94,29 @@ public class Bgpv4RouteTest {
         .testEquals();
   }
 
+  @Test
+  public void testAttributesInterned() {
+    Builder brb =
+        Bgpv4Route.builder()
+            .setNetwork(Prefix.parse("1.1.1.0/24"))
+            .setAsPath(AsPath.ofSingletonAsSets(1L, 2L))
+            .setCommunities(ImmutableSet.of(StandardCommunity.of(1L)))
+            .setNextHopIp(Ip.parse("2.2.2.2"))
+            .setOriginatorIp(Ip.parse("1.1.1.1"))
+            .setOriginType(OriginType.IGP)
+            .setProtocol(RoutingProtocol.BGP);
+    Bgpv4Route route = brb.build();
+    // Routes for other networks and next hops share the attributes
+    Bgpv4Route other =
+        brb.setNetwork(Prefix.parse("1.1.2.0/24")).setNextHopIp(Ip.parse("3.3.3.3")).build();
+    assertThat(other._attributes, sameInstance(route._attributes));
+    assertThat(other.getStandardCommunities(), sameInstance(route.getStandardCommunities()));
+
+    // Routes with different attributes do not
+    assertThat(
+        brb.setLocalPreference(200).build()._attributes, not(sameInstance(route._attributes)));
+  }
+
   @Test
   public void testThrowsWithoutOriginType() {
     thrown.expect(IllegalArgumentException.class);
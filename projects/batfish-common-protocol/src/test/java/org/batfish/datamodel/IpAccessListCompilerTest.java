@@ -0,0 +1,173 @@
+package org.batfish.datamodel;
+
+import static org.batfish.datamodel.acl.AclLineMatchExprs.and;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.match;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.matchSrcInterface;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.not;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.batfish.datamodel.IpAccessListCompiler.CompiledAcl;
+import org.batfish.datamodel.acl.AclLineEvaluator;
+import org.batfish.datamodel.acl.OriginatingFromDevice;
+import org.batfish.datamodel.acl.PermittedByAcl;
+import org.junit.Test;
+
+/** Tests of {@link IpAccessListCompiler}. */
+public final class IpAccessListCompilerTest {
+
+  private static final IpAccessList PERMIT_WEB =
+      IpAccessList.builder()
+          .setName("permitWeb")
+          .setLines(
+              ExprAclLine.acceptingHeaderSpace(
+                  HeaderSpace.builder()
+                      .setIpProtocols(IpProtocol.TCP)
+                      .setDstPorts(new SubRange(80, 80), new SubRange(443, 443))
+                      .build()))
+          .build();
+
+  private static final IpAccessList ACL =
+      IpAccessList.builder()
+          .setName("acl")
+          .setLines(
+              ExprAclLine.rejectingHeaderSpace(
+                  HeaderSpace.builder()
+                      .setSrcIps(
+                          IpWildcardSetIpSpace.builder()
+                              .including(IpWildcard.parse("10.0.0.0/8"))
+                              .excluding(IpWildcard.parse("10.1.0.0/16"))
+                              .build())
+                      .setNotDstPorts(ImmutableList.of(new SubRange(20, 25)))
+                      .build()),
+              new AclAclLine("web", PERMIT_WEB.getName()),
+              ExprAclLine.accepting(
+                  and(
+                      matchSrcInterface("eth0"),
+                      match(
+                          HeaderSpace.builder()
+                              .setDstIps(new IpSpaceReference("servers"))
+                              .setIpProtocols(IpProtocol.UDP, IpProtocol.ICMP)
+                              .build()))),
+              ExprAclLine.rejecting(
+                  not(
+                      match(
+                          HeaderSpace.builder()
+                              .setSrcOrDstIps(
+                                  AclIpSpace.permitting(Prefix.parse("2.2.2.0/24").toIpSpace())
+                                      .thenRejecting(Ip.parse("3.3.3.3").toIpSpace())
+                                      .thenPermitting(Prefix.parse("3.3.3.0/24").toIpSpace())
+                                      .build())
+                              .build()))),
+              ExprAclLine.accepting(OriginatingFromDevice.INSTANCE),
+              ExprAclLine.accepting(new PermittedByAcl(PERMIT_WEB.getName())))
+          .build();
+
+  private static final Map<String, IpAccessList> ACLS =
+      ImmutableMap.of(ACL.getName(), ACL, PERMIT_WEB.getName(), PERMIT_WEB);
+
+  private static final Map<String, IpSpace> IP_SPACES =
+      ImmutableMap.of("servers", Prefix.parse("3.3.3.0/24").toIpSpace());
+
+  private static List<Flow> flows() {
+    ImmutableList.Builder<Flow> flows = ImmutableList.builder();
+    for (String srcIp : ImmutableList.of("10.0.0.1", "10.1.0.1", "2.2.2.2", "9.9.9.9")) {
+      for (String dstIp : ImmutableList.of("3.3.3.3", "3.3.3.4", "4.4.4.4")) {
+        for (IpProtocol protocol : ImmutableList.of(IpProtocol.TCP, IpProtocol.UDP)) {
+          for (int dstPort : ImmutableList.of(22, 80, 443, 8080)) {
+            flows.add(
+                Flow.builder()
+                    .setIngressNode("node")
+                    .setSrcIp(Ip.parse(srcIp))
+                    .setDstIp(Ip.parse(dstIp))
+                    .setIpProtocol(protocol)
+                    .setSrcPort(1234)
+                    .setDstPort(dstPort)
+                    .build());
+          }
+        }
+        flows.add(
+            Flow.builder()
+                .setIngressNode("node")
+                .setSrcIp(Ip.parse(srcIp))
+                .setDstIp(Ip.parse(dstIp))
+                .setIpProtocol(IpProtocol.ICMP)
+                .setIcmpType(8)
+                .setIcmpCode(0)
+                .build());
+      }
+    }
+    return flows.build();
+  }
+
+  /** Filters {@code flow} by interpreting each line of {@code acl}. */
+  private static FilterResult interpret(
+      IpAccessList acl,
+      Flow flow,
+      @Nullable String srcInterface,
+      Map<String, IpAccessList> availableAcls,
+      Map<String, IpSpace> namedIpSpaces) {
+    AclLineEvaluator lineEvaluator =
+        new AclLineEvaluator(flow, srcInterface, availableAcls, namedIpSpaces);
+    for (int i = 0; i < acl.getLines().size(); i++) {
+      LineAction action = lineEvaluator.visit(acl.getLines().get(i));
+      if (action != null) {
+        return new FilterResult(i, action);
+      }
+    }
+    return new FilterResult(null, LineAction.DENY);
+  }
+
+  private static void assertSameResult(FilterResult actual, FilterResult expected) {
+    assertThat(actual.getMatchLine(), equalTo(expected.getMatchLine()));
+    assertThat(actual.getAction(), equalTo(expected.getAction()));
+  }
+
+  @Test
+  public void testMatchesInterpreter() {
+    CompiledAcl compiled = IpAccessListCompiler.compile(ACL, ACLS, IP_SPACES);
+    for (Flow flow : flows()) {
+      for (String srcInterface : new String[] {"eth0", "eth1", null}) {
+        assertSameResult(
+            compiled.filter(flow, srcInterface),
+            interpret(ACL, flow, srcInterface, ACLS, IP_SPACES));
+      }
+    }
+  }
+
+  @Test
+  public void testIpSpaceReferenceResolvedWhenFiltering() {
+    Map<String, IpSpace> ipSpaces = new HashMap<>(IP_SPACES);
+    CompiledAcl compiled = IpAccessListCompiler.compile(ACL, ACLS, ipSpaces);
+
+    ipSpaces.put("servers", Prefix.parse("4.4.4.0/24").toIpSpace());
+    for (Flow flow : flows()) {
+      assertSameResult(
+          compiled.filter(flow, "eth0"), interpret(ACL, flow, "eth0", ACLS, ipSpaces));
+    }
+
+    ipSpaces.remove("servers");
+    for (Flow flow : flows()) {
+      assertSameResult(
+          compiled.filter(flow, "eth0"), interpret(ACL, flow, "eth0", ACLS, ipSpaces));
+    }
+  }
+
+  @Test
+  public void testCompiledFormReused() {
+    CompiledAcl compiled = IpAccessListCompiler.compile(ACL, ACLS, IP_SPACES);
+
+    assertThat(compiled.isCompiledFor(ACLS, IP_SPACES), equalTo(true));
+    assertThat(compiled.isCompiledFor(ACLS, ImmutableMap.of()), equalTo(false));
+    assertThat(
+        IpAccessListCompiler.compile(ACL, ImmutableMap.of(), ImmutableMap.of())
+            .isCompiledFor(ImmutableMap.of(), ImmutableMap.of()),
+        equalTo(true));
+  }
+}
@@ -0,0 +1,102 @@
+package org.batfish.datamodel;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+/** Tests of {@link LongestPrefixMatchIndex} */
+public class LongestPrefixMatchIndexTest {
+
+  private static long ip(String ip) {
+    return Ip.parse(ip).asLong();
+  }
+
+  @Test
+  public void testEmpty() {
+    LongestPrefixMatchIndex<Integer> index = LongestPrefixMatchIndex.create(ImmutableMap.of());
+    assertThat(index.getNumRanges(), equalTo(1));
+    assertThat(index.longestPrefixMatch(0L), empty());
+    assertThat(index.longestPrefixMatch(ip("1.2.3.4")), empty());
+    assertThat(index.longestPrefixMatch(Ip.MAX.asLong()), empty());
+  }
+
+  @Test
+  public void testEmptyElementsIgnored() {
+    LongestPrefixMatchIndex<Integer> index =
+        LongestPrefixMatchIndex.create(
+            ImmutableMap.of(
+                Prefix.ZERO, ImmutableSet.of(0), Prefix.parse("1.0.0.0/8"), ImmutableSet.of()));
+    assertThat(index.getNumRanges(), equalTo(1));
+    assertThat(index.longestPrefixMatch(ip("1.2.3.4")), contains(0));
+  }
+
+  @Test
+  public void testNested() {
+    LongestPrefixMatchIndex<Integer> index =
+        LongestPrefixMatchIndex.create(
+            ImmutableMap.of(
+                Prefix.ZERO,
+                ImmutableSet.of(0),
+                Prefix.parse("10.0.0.0/8"),
+                ImmutableSet.of(8),
+                Prefix.parse("10.0.0.0/16"),
+                ImmutableSet.of(16),
+                Prefix.parse("10.255.255.0/24"),
+                ImmutableSet.of(24),
+                Prefix.parse("255.255.255.255/32"),
+                ImmutableSet.of(32)));
+    assertThat(index.longestPrefixMatch(0L), contains(0));
+    assertThat(index.longestPrefixMatch(ip("9.255.255.255")), contains(0));
+    assertThat(index.longestPrefixMatch(ip("10.0.0.0")), contains(16));
+    assertThat(index.longestPrefixMatch(ip("10.0.255.255")), contains(16));
+    assertThat(index.longestPrefixMatch(ip("10.1.0.0")), contains(8));
+    assertThat(index.longestPrefixMatch(ip("10.255.254.255")), contains(8));
+    assertThat(index.longestPrefixMatch(ip("10.255.255.0")), contains(24));
+    assertThat(index.longestPrefixMatch(ip("10.255.255.255")), contains(24));
+    assertThat(index.longestPrefixMatch(ip("11.0.0.0")), contains(0));
+    assertThat(index.longestPrefixMatch(ip("255.255.255.254")), contains(0));
+    assertThat(index.longestPrefixMatch(Ip.MAX.asLong()), contains(32));
+  }
+
+  @Test
+  public void testAdjacent() {
+    LongestPrefixMatchIndex<Integer> index =
+        LongestPrefixMatchIndex.create(
+            ImmutableMap.of(
+                Prefix.parse("10.0.0.0/25"), ImmutableSet.of(1),
+                Prefix.parse("10.0.0.128/25"), ImmutableSet.of(2)));
+    assertThat(index.getNumRanges(), equalTo(4));
+    assertThat(index.longestPrefixMatch(ip("9.255.255.255")), empty());
+    assertThat(index.longestPrefixMatch(ip("10.0.0.127")), contains(1));
+    assertThat(index.longestPrefixMatch(ip("10.0.0.128")), contains(2));
+    assertThat(index.longestPrefixMatch(ip("10.0.1.0")), empty());
+  }
+
+  @Test
+  public void testMatchesPrefixTrieMultiMap() {
+    Random random = new Random(7);
+    PrefixTrieMultiMap<Integer> trie = new PrefixTrieMultiMap<>(Prefix.ZERO);
+    for (int i = 0; i < 1000; i++) {
+      // cluster the prefixes, so that many of them are nested
+      long ip = (random.nextInt(4) << 24) | random.nextInt(1 << 24);
+      trie.put(Prefix.create(Ip.create(ip), 4 + random.nextInt(29)), i);
+    }
+    Map<Prefix, Set<Integer>> elementsByPrefix = new HashMap<>();
+    trie.traverseEntries(elementsByPrefix::put);
+    LongestPrefixMatchIndex<Integer> index = LongestPrefixMatchIndex.create(elementsByPrefix);
+
+    for (int i = 0; i < 100000; i++) {
+      long ip = (random.nextInt(5) << 24) | random.nextInt(1 << 24);
+      assertThat(index.longestPrefixMatch(ip), equalTo(trie.longestPrefixMatch(Ip.create(ip))));
+    }
+  }
+}
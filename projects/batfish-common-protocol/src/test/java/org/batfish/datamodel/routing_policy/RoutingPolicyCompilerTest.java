@@ -0,0 +1,193 @@
+package org.batfish.datamodel.routing_policy;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.List;
+import org.batfish.datamodel.Bgpv4Route;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.ConnectedRoute;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.OriginType;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.RoutingProtocol;
+import org.batfish.datamodel.bgp.community.StandardCommunity;
+import org.batfish.datamodel.routing_policy.Environment.Direction;
+import org.batfish.datamodel.routing_policy.expr.BooleanExprs;
+import org.batfish.datamodel.routing_policy.expr.CallExpr;
+import org.batfish.datamodel.routing_policy.expr.Conjunction;
+import org.batfish.datamodel.routing_policy.expr.Disjunction;
+import org.batfish.datamodel.routing_policy.expr.LiteralCommunitySet;
+import org.batfish.datamodel.routing_policy.expr.MatchCommunitySet;
+import org.batfish.datamodel.routing_policy.expr.Not;
+import org.batfish.datamodel.routing_policy.statement.CallStatement;
+import org.batfish.datamodel.routing_policy.statement.Comment;
+import org.batfish.datamodel.routing_policy.statement.If;
+import org.batfish.datamodel.routing_policy.statement.Statement;
+import org.batfish.datamodel.routing_policy.statement.Statements;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests of {@link RoutingPolicyCompiler}. */
+public final class RoutingPolicyCompilerTest {
+
+  private Configuration _c;
+  private NetworkFactory _nf;
+
+  @Before
+  public void setup() {
+    _nf = new NetworkFactory();
+    _c =
+        _nf.configurationBuilder()
+            .setHostname("c")
+            .setConfigurationFormat(ConfigurationFormat.CISCO_IOS)
+            .build();
+    _nf.routingPolicyBuilder()
+        .setOwner(_c)
+        .setName("returnTrue")
+        .addStatement(Statements.ReturnTrue.toStaticStatement())
+        .build();
+    _nf.routingPolicyBuilder()
+        .setOwner(_c)
+        .setName("exitReject")
+        .addStatement(Statements.ExitReject.toStaticStatement())
+        .build();
+  }
+
+  private Environment newEnvironment() {
+    return Environment.builder(_c)
+        .setOriginalRoute(new ConnectedRoute(Prefix.parse("1.1.1.0/24"), "iface"))
+        .setOutputRoute(ConnectedRoute.builder())
+        .setDirection(Direction.OUT)
+        .build();
+  }
+
+  /** Asserts that the compiled policy has the same result and effects as the interpreted one. */
+  private void assertCompiledMatchesInterpreted(List<Statement> statements) {
+    RoutingPolicy policy =
+        _nf.routingPolicyBuilder().setOwner(_c).setStatements(statements).build();
+    Environment interpreted = newEnvironment();
+    Environment compiled = newEnvironment();
+    assertThat(
+        RoutingPolicyCompiler.compile(policy).apply(compiled), equalTo(policy.call(interpreted)));
+    assertThat(compiled.getDefaultAction(), equalTo(interpreted.getDefaultAction()));
+    assertThat(compiled.getError(), equalTo(interpreted.getError()));
+  }
+
+  @Test
+  public void testEmpty() {
+    assertCompiledMatchesInterpreted(ImmutableList.of());
+    assertCompiledMatchesInterpreted(
+        ImmutableList.of(Statements.SetDefaultActionAccept.toStaticStatement()));
+  }
+
+  @Test
+  public void testCommentsAndConstantGuards() {
+    assertCompiledMatchesInterpreted(
+        ImmutableList.of(
+            new Comment("comment"),
+            new If(
+                BooleanExprs.TRUE,
+                ImmutableList.of(Statements.SetDefaultActionAccept.toStaticStatement())),
+            new If(
+                BooleanExprs.FALSE,
+                ImmutableList.of(Statements.ExitReject.toStaticStatement()),
+                ImmutableList.of(Statements.ReturnTrue.toStaticStatement()))));
+  }
+
+  @Test
+  public void testIf() {
+    assertCompiledMatchesInterpreted(
+        ImmutableList.of(
+            new If(
+                new Conjunction(ImmutableList.of(BooleanExprs.TRUE, new Not(BooleanExprs.FALSE))),
+                ImmutableList.of(Statements.ExitAccept.toStaticStatement()),
+                ImmutableList.of(Statements.ExitReject.toStaticStatement()))));
+    assertCompiledMatchesInterpreted(
+        ImmutableList.of(
+            new If(
+                new Disjunction(BooleanExprs.FALSE, new Not(BooleanExprs.TRUE)),
+                ImmutableList.of(Statements.ExitAccept.toStaticStatement())),
+            Statements.ReturnFalse.toStaticStatement()));
+  }
+
+  @Test
+  public void testCallStatement() {
+    assertCompiledMatchesInterpreted(ImmutableList.of(new CallStatement("returnTrue")));
+    assertCompiledMatchesInterpreted(
+        ImmutableList.of(
+            new CallStatement("exitReject"), Statements.ExitAccept.toStaticStatement()));
+    assertCompiledMatchesInterpreted(ImmutableList.of(new CallStatement("undefined")));
+  }
+
+  @Test
+  public void testCallExpr() {
+    assertCompiledMatchesInterpreted(
+        ImmutableList.of(
+            new If(
+                new CallExpr("returnTrue"),
+                ImmutableList.of(Statements.ExitAccept.toStaticStatement()),
+                ImmutableList.of(Statements.ExitReject.toStaticStatement()))));
+    assertCompiledMatchesInterpreted(
+        ImmutableList.of(
+            new If(
+                new Disjunction(new CallExpr("undefined"), new CallExpr("exitReject")),
+                ImmutableList.of(Statements.ReturnTrue.toStaticStatement()))));
+  }
+
+  @Test
+  public void testMatchLiteralCommunitySet() {
+    Bgpv4Route route =
+        Bgpv4Route.builder()
+            .setCommunities(ImmutableSet.of(StandardCommunity.of(1, 1), StandardCommunity.of(2, 2)))
+            .setNetwork(Prefix.ZERO)
+            .setOriginatorIp(Ip.ZERO)
+            .setOriginType(OriginType.INCOMPLETE)
+            .setProtocol(RoutingProtocol.BGP)
+            .build();
+    for (LiteralCommunitySet literal :
+        ImmutableList.of(
+            new LiteralCommunitySet(ImmutableSet.of(StandardCommunity.of(2, 2))),
+            new LiteralCommunitySet(ImmutableSet.of(StandardCommunity.of(3, 3))))) {
+      RoutingPolicy policy =
+          _nf.routingPolicyBuilder()
+              .setOwner(_c)
+              .addStatement(
+                  new If(
+                      new MatchCommunitySet(literal),
+                      ImmutableList.of(Statements.ExitAccept.toStaticStatement()),
+                      ImmutableList.of(Statements.ExitReject.toStaticStatement())))
+              .build();
+      assertThat(
+          RoutingPolicyCompiler.compile(policy)
+              .apply(Environment.builder(_c).setOriginalRoute(route).build()),
+          equalTo(policy.call(Environment.builder(_c).setOriginalRoute(route).build())));
+    }
+    // not a BGP route
+    assertCompiledMatchesInterpreted(
+        ImmutableList.of(
+            new If(
+                new MatchCommunitySet(
+                    new LiteralCommunitySet(ImmutableSet.of(StandardCommunity.of(1, 1)))),
+                ImmutableList.of(Statements.ExitAccept.toStaticStatement()),
+                ImmutableList.of(Statements.ExitReject.toStaticStatement()))));
+  }
+
+  @Test
+  public void testRecompileAfterSetStatements() {
+    RoutingPolicy policy =
+        _nf.routingPolicyBuilder()
+            .setOwner(_c)
+            .addStatement(Statements.ExitReject.toStaticStatement())
+            .build();
+    ConnectedRoute route = new ConnectedRoute(Prefix.parse("1.1.1.0/24"), "iface");
+    assertThat(policy.process(route, ConnectedRoute.builder(), Direction.OUT), equalTo(false));
+
+    policy.setStatements(ImmutableList.of(Statements.ExitAccept.toStaticStatement()));
+    assertThat(policy.process(route, ConnectedRoute.builder(), Direction.OUT), equalTo(true));
+  }
+}
@@ -1,12 +1,15 @@
 package org.batfish.datamodel.routing_policy.communities;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 import com.google.common.testing.EqualsTester;
 import java.io.IOException;
 import org.apache.commons.lang3.SerializationUtils;
 import org.batfish.common.util.BatfishObjectMapper;
+import org.batfish.datamodel.bgp.community.StandardCommunity;
 import org.junit.Test;
 
 /** Test of {@link CommunityMatchRegex}. */
@@ -35,4 +38,15 @@ public final class CommunityMatchRegexTest {
         .addEqualityGroup(new Object())
         .testEquals();
   }
+
+  @Test
+  public void testMatches() {
+    CommunityMatchRegex regex =
+        new CommunityMatchRegex(ColonSeparatedRendering.instance(), "^1:1$");
+
+    assertTrue(regex.matches(StandardCommunity.of(1, 1)));
+    assertTrue(regex.matches(StandardCommunity.of(1, 1)));
+    assertFalse(regex.matches(StandardCommunity.of(11, 11)));
+    assertTrue(SerializationUtils.clone(regex).matches(StandardCommunity.of(1, 1)));
+  }
 }
@@ -1,12 +1,15 @@
 package org.batfish.datamodel.routing_policy.communities;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 import com.google.common.testing.EqualsTester;
 import java.io.IOException;
 import org.apache.commons.lang3.SerializationUtils;
 import org.batfish.common.util.BatfishObjectMapper;
+import org.batfish.datamodel.bgp.community.StandardCommunity;
 import org.junit.Test;
 
 /** Test of {@link CommunitySetMatchRegex}. */
@@ -43,4 +46,18 @@ public final class CommunitySetMatchRegexTest {
         .addEqualityGroup(new Object())
         .testEquals();
   }
+
+  @Test
+  public void testMatches() {
+    CommunitySetMatchRegex regex =
+        new CommunitySetMatchRegex(
+            new TypesFirstAscendingSpaceSeparated(ColonSeparatedRendering.instance()), "^1:1 2:2$");
+    CommunitySet communities =
+        CommunitySet.of(StandardCommunity.of(2, 2), StandardCommunity.of(1, 1));
+
+    assertTrue(regex.matches(communities));
+    assertTrue(regex.matches(communities));
+    assertFalse(regex.matches(CommunitySet.of(StandardCommunity.of(1, 1))));
+    assertTrue(SerializationUtils.clone(regex).matches(communities));
+  }
 }
@@ -1,7 +1,9 @@
 package org.batfish.datamodel.table;
 
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.junit.Assert.assertThat;
 
@@ -9,8 +11,12 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
+import org.batfish.common.util.BatfishObjectMapper;
+import org.batfish.datamodel.Ip;
 import org.batfish.datamodel.answers.Schema;
 import org.batfish.datamodel.pojo.Node;
 import org.batfish.datamodel.table.Row.TypedRowBuilder;
@@ -201,6 +207,68 @@ public class RowTest {
         equalTo(ImmutableList.of(new Node("n1"), new Node("n2"))));
   }
 
+  @Test
+  public void getRetainsTypedValue() {
+    Ip ip = Ip.parse("1.1.1.1");
+
+    assertThat(Row.builder().put("col", ip).build().get("col", Schema.IP), sameInstance(ip));
+    assertThat(
+        Row.builder().put("col", ip).build().get("col", new TypeReference<Ip>() {}),
+        sameInstance(ip));
+  }
+
+  @Test
+  public void jsonRoundTrip() throws IOException {
+    Row row =
+        Row.builder()
+            .put("node", new Node("node"))
+            .put("nodes", ImmutableList.of(new Node("n1"), new Node("n2")))
+            .put("null", null)
+            .build();
+    Row clone = BatfishObjectMapper.clone(row, Row.class);
+
+    assertThat(clone, equalTo(row));
+    assertThat(clone.hashCode(), equalTo(row.hashCode()));
+    assertThat(clone.compareTo(row), equalTo(0));
+    assertThat(clone.get("node", Schema.NODE), equalTo(new Node("node")));
+    assertThat(clone.get("null", Schema.NODE), nullValue());
+    assertThat(clone.hasNonNull("null"), equalTo(false));
+    assertThat(row.hasNonNull("null"), equalTo(false));
+    assertThat(row.hasNonNull("node"), equalTo(true));
+  }
+
+  @Test
+  public void putCopiesCollection() {
+    List<String> values = new ArrayList<>();
+    values.add("a");
+    Row row = Row.builder().put("col", values).build();
+    values.add("b");
+
+    assertThat(row.get("col", Schema.list(Schema.STRING)), equalTo(ImmutableList.of("a")));
+  }
+
+  @Test
+  public void putCopiesMutableValue() {
+    Node node = new Node("node");
+    Row row = Row.builder().put("col", node).build();
+    node.setProperties(ImmutableMap.of("key", "value"));
+
+    assertThat(row.getNode("col"), equalTo(new Node("node")));
+    assertThat(row.getNode("col").getProperties(), nullValue());
+  }
+
+  @Test
+  public void equalsMixedRepresentations() throws IOException {
+    Row row = Row.builder().put("ip", Ip.parse("1.1.1.1")).put("null", null).build();
+    Row clone = BatfishObjectMapper.clone(row, Row.class);
+
+    assertThat(Row.builder().putAll(row).build(), equalTo(row));
+    assertThat(row, equalTo(clone));
+    assertThat(clone, equalTo(row));
+    assertThat(
+        row, not(equalTo(Row.builder().put("ip", Ip.parse("2.2.2.2")).put("null", null).build())));
+  }
+
   @Test
   public void getKey() {
     Row row = initRowThree();
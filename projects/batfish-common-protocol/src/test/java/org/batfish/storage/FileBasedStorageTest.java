@@ -47,6 +47,7 @@ import org.batfish.common.util.UnzipUtility;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.ConfigurationFormat;
 import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.answers.Answer;
 import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
 import org.batfish.datamodel.answers.MajorIssueConfig;
 import org.batfish.datamodel.answers.MinorIssueConfig;
@@ -54,6 +55,7 @@ import org.batfish.datamodel.collections.NodeInterfacePair;
 import org.batfish.datamodel.isp_configuration.BorderInterfaceInfo;
 import org.batfish.datamodel.isp_configuration.IspConfiguration;
 import org.batfish.datamodel.isp_configuration.IspFilter;
+import org.batfish.identifiers.AnswerId;
 import org.batfish.identifiers.IssueSettingsId;
 import org.batfish.identifiers.NetworkId;
 import org.batfish.identifiers.QuestionSettingsId;
@@ -134,6 +136,29 @@ public final class FileBasedStorageTest {
     assertThat(ispConfiguration, equalTo(readIspConfiguration));
   }
 
+  @Test
+  public void testStoreAnswer() throws IOException {
+    AnswerId answerId = new AnswerId("answer");
+    Answer answer = Answer.failureAnswer("message", null);
+
+    _storage.storeAnswer(answer, answerId);
+
+    String answerStr;
+    try (InputStream inputStream = _storage.loadAnswerStream(answerId)) {
+      answerStr = IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+    }
+    assertThat(answerStr, equalTo(BatfishObjectMapper.writeString(answer)));
+    assertThat(_storage.loadAnswer(answerId), equalTo(answerStr));
+  }
+
+  @Test
+  public void testLoadAnswerStreamMissing() throws IOException {
+    _thrown.expect(FileNotFoundException.class);
+    try (InputStream inputStream = _storage.loadAnswerStream(new AnswerId("missing"))) {
+      assert inputStream != null; // avoid unused warning
+    }
+  }
+
   @Test
   public void testMajorIssueConfigRoundTrip() throws IOException {
     String majorIssue = "majorIssue";
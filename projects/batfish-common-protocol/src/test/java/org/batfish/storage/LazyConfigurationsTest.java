@@ -0,0 +1,147 @@
+package org.batfish.storage;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Queue;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.lang3.SerializationUtils;
+import org.batfish.common.BatfishException;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/** Tests of {@link LazyConfigurations}. */
+public final class LazyConfigurationsTest {
+
+  @Rule public ExpectedException _thrown = ExpectedException.none();
+
+  private final Queue<Path> _loaded = new ConcurrentLinkedQueue<>();
+
+  private LazyConfigurations lazyConfigurations(Map<String, Path> pathsByName) {
+    return new LazyConfigurations(
+        pathsByName,
+        path -> {
+          _loaded.add(path);
+          if (path.toString().equals("bad")) {
+            throw new BatfishException("could not deserialize");
+          }
+          return new Configuration(path.getFileName().toString(), ConfigurationFormat.CISCO_IOS);
+        },
+        (name, size) -> new AtomicInteger());
+  }
+
+  @Test
+  public void testLoadOnAccess() {
+    LazyConfigurations configurations =
+        lazyConfigurations(ImmutableMap.of("b", Paths.get("b"), "a", Paths.get("a")));
+
+    assertThat(configurations.keySet(), contains("a", "b"));
+    assertThat(_loaded, empty());
+
+    assertThat(configurations.get("b").getHostname(), equalTo("b"));
+    assertThat(configurations.get("b").getHostname(), equalTo("b"));
+    assertThat(_loaded, contains(Paths.get("b")));
+  }
+
+  @Test
+  public void testPrefetch() {
+    LazyConfigurations configurations =
+        lazyConfigurations(ImmutableMap.of("a", Paths.get("a"), "b", Paths.get("b")));
+    configurations.get("a");
+
+    LazyConfigurations.prefetch(configurations);
+
+    assertThat(_loaded, containsInAnyOrder(Paths.get("a"), Paths.get("b")));
+  }
+
+  @Test
+  public void testPostProcessedOnAccess() {
+    LazyConfigurations configurations =
+        lazyConfigurations(ImmutableMap.of("a", Paths.get("a"), "b", Paths.get("b")));
+    Queue<String> postProcessed = new ConcurrentLinkedQueue<>();
+
+    SortedMap<String, Configuration> lazy =
+        LazyConfigurations.postProcessed(configurations, c -> postProcessed.add(c.getHostname()));
+
+    assertThat(lazy, instanceOf(LazyConfigurations.class));
+    assertThat(postProcessed, empty());
+
+    lazy.get("b");
+    lazy.get("b");
+    assertThat(_loaded, contains(Paths.get("b")));
+    assertThat(postProcessed, contains("b"));
+
+    LazyConfigurations.prefetch(lazy);
+    assertThat(postProcessed, containsInAnyOrder("a", "b"));
+  }
+
+  @Test
+  public void testPostProcessedEager() {
+    SortedMap<String, Configuration> configurations =
+        ImmutableSortedMap.of("a", new Configuration("a", ConfigurationFormat.CISCO_IOS));
+    Queue<String> postProcessed = new ConcurrentLinkedQueue<>();
+
+    assertThat(
+        LazyConfigurations.postProcessed(configurations, c -> postProcessed.add(c.getHostname())),
+        sameInstance(configurations));
+    assertThat(postProcessed, contains("a"));
+  }
+
+  @Test
+  public void testPrefetchFailure() {
+    LazyConfigurations configurations =
+        lazyConfigurations(ImmutableMap.of("a", Paths.get("a"), "b", Paths.get("bad")));
+
+    _thrown.expect(BatfishException.class);
+    configurations.prefetch();
+  }
+
+  @Test
+  public void testWithFallback() {
+    LazyConfigurations configurations =
+        lazyConfigurations(ImmutableMap.of("a", Paths.get("a"), "b", Paths.get("bad")));
+    Queue<String> fellBack = new ConcurrentLinkedQueue<>();
+
+    SortedMap<String, Configuration> withFallback =
+        LazyConfigurations.withFallback(
+            configurations,
+            hostname -> {
+              fellBack.add(hostname);
+              return new Configuration(hostname, ConfigurationFormat.CISCO_IOS);
+            });
+
+    assertThat(withFallback, instanceOf(LazyConfigurations.class));
+    LazyConfigurations.prefetch(withFallback);
+    assertThat(withFallback.get("a").getHostname(), equalTo("a"));
+    assertThat(withFallback.get("b").getHostname(), equalTo("b"));
+    assertThat(fellBack, contains("b"));
+  }
+
+  @Test
+  public void testSerialization() {
+    LazyConfigurations configurations =
+        lazyConfigurations(ImmutableMap.of("a", Paths.get("a"), "b", Paths.get("b")));
+
+    Map<String, Configuration> clone = SerializationUtils.clone(configurations);
+
+    assertThat(clone, not(instanceOf(LazyConfigurations.class)));
+    assertThat(clone.keySet(), contains("a", "b"));
+    assertThat(clone.get("a").getHostname(), equalTo("a"));
+  }
+}
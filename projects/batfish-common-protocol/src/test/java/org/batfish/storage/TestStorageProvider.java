@@ -18,6 +18,7 @@ import org.batfish.datamodel.AnalysisMetadata;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.SnapshotMetadata;
 import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.answers.Answer;
 import org.batfish.datamodel.answers.AnswerMetadata;
 import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
 import org.batfish.datamodel.answers.MajorIssueConfig;
@@ -147,6 +148,11 @@ public class TestStorageProvider implements StorageProvider {
     throw new UnsupportedOperationException("no implementation for generated method");
   }
 
+  @Override
+  public void storeAnswer(Answer answer, AnswerId answerId) {
+    throw new UnsupportedOperationException("no implementation for generated method");
+  }
+
   @Override
   public void storeAnswerMetadata(AnswerMetadata answerMetadata, AnswerId answerId) {
     throw new UnsupportedOperationException("no implementation for generated method");
@@ -157,6 +163,11 @@ public class TestStorageProvider implements StorageProvider {
     throw new UnsupportedOperationException("no implementation for generated method");
   }
 
+  @Override
+  public InputStream loadAnswerStream(AnswerId answerId) {
+    throw new UnsupportedOperationException("no implementation for generated method");
+  }
+
   @Override
   public AnswerMetadata loadAnswerMetadata(AnswerId answerId) {
     throw new UnsupportedOperationException("no implementation for generated method");
@@ -22,22 +22,30 @@ import static org.batfish.datamodel.transformation.TransformationUtil.visitTrans
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Streams;
 import io.opentracing.ActiveSpan;
+import io.opentracing.References;
+import io.opentracing.SpanContext;
 import io.opentracing.util.GlobalTracer;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -45,6 +53,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import net.sf.javabdd.BDD;
+import net.sf.javabdd.BDDFactory;
 import org.batfish.bddreachability.IpsRoutedOutInterfacesFactory.IpsRoutedOutInterfaces;
 import org.batfish.bddreachability.transition.TransformationToTransition;
 import org.batfish.bddreachability.transition.Transition;
@@ -52,6 +61,7 @@ import org.batfish.common.BatfishException;
 import org.batfish.common.bdd.BDDInteger;
 import org.batfish.common.bdd.BDDPacket;
 import org.batfish.common.bdd.BDDSourceManager;
+import org.batfish.common.bdd.BDDUtils;
 import org.batfish.common.bdd.HeaderSpaceToBDD;
 import org.batfish.common.bdd.IpAccessListToBdd;
 import org.batfish.common.bdd.IpAccessListToBddImpl;
@@ -138,6 +148,12 @@ import org.batfish.symbolic.state.VrfAccept;
  */
 @ParametersAreNonnullByDefault
 public final class BDDReachabilityAnalysisFactory {
+  /**
+   * Networks with at least this many nodes have their forwarding analysis converted to BDDs in
+   * parallel. For smaller networks, the overhead of the per-node factories outweighs the speedup.
+   */
+  private static final int PARALLEL_FIB_MIN_NODES = 32;
+
   // node name --> acl name --> set of packets denied by the acl.
   private final Map<String, Map<String, Supplier<BDD>>> _aclDenyBDDs;
 
@@ -225,6 +241,8 @@ public final class BDDReachabilityAnalysisFactory {
 
   private BDD _zero;
 
+  private final Supplier<List<Edge>> _edges = Suppliers.memoize(this::computeEdges);
+
   public BDDReachabilityAnalysisFactory(
       BDDPacket packet,
       Map<String, Configuration> configs,
@@ -260,20 +278,21 @@ public final class BDDReachabilityAnalysisFactory {
       _bddIncomingTransformations = computeBDDIncomingTransformations();
       _bddOutgoingTransformations = computeBDDOutgoingTransformations();
 
-      _arpTrueEdgeBDDs = computeArpTrueEdgeBDDs(forwardingAnalysis, _dstIpSpaceToBDD);
+      Function<IpSpace, BDD> dstIpSpaceToBDD = forwardingIpSpaceToBDD(forwardingAnalysis);
+      _arpTrueEdgeBDDs = computeArpTrueEdgeBDDs(forwardingAnalysis, dstIpSpaceToBDD);
       _neighborUnreachableBDDs =
-          computeDispositionBDDs(forwardingAnalysis.getNeighborUnreachable(), _dstIpSpaceToBDD);
+          computeDispositionBDDs(forwardingAnalysis.getNeighborUnreachable(), dstIpSpaceToBDD);
       _deliveredToSubnetBDDs =
-          computeDispositionBDDs(forwardingAnalysis.getDeliveredToSubnet(), _dstIpSpaceToBDD);
+          computeDispositionBDDs(forwardingAnalysis.getDeliveredToSubnet(), dstIpSpaceToBDD);
       _exitsNetworkBDDs =
-          computeDispositionBDDs(forwardingAnalysis.getExitsNetwork(), _dstIpSpaceToBDD);
+          computeDispositionBDDs(forwardingAnalysis.getExitsNetwork(), dstIpSpaceToBDD);
       _insufficientInfoBDDs =
-          computeDispositionBDDs(forwardingAnalysis.getInsufficientInfo(), _dstIpSpaceToBDD);
-      _nullRoutedBDDs = computeNullRoutedBDDs(forwardingAnalysis, _dstIpSpaceToBDD);
-      _routableBDDs = computeRoutableBDDs(forwardingAnalysis, _dstIpSpaceToBDD);
+          computeDispositionBDDs(forwardingAnalysis.getInsufficientInfo(), dstIpSpaceToBDD);
+      _nullRoutedBDDs = computeNullRoutedBDDs(forwardingAnalysis, dstIpSpaceToBDD);
+      _routableBDDs = computeRoutableBDDs(forwardingAnalysis, dstIpSpaceToBDD);
       _vrfAcceptBDDs =
-          computeVrfAcceptBDDs(configs, forwardingAnalysis.getAcceptsIps(), _dstIpSpaceToBDD);
-      _nextVrfBDDs = computeNextVrfBDDs(forwardingAnalysis.getNextVrfIps(), _dstIpSpaceToBDD);
+          computeVrfAcceptBDDs(configs, forwardingAnalysis.getAcceptsIps(), dstIpSpaceToBDD);
+      _nextVrfBDDs = computeNextVrfBDDs(forwardingAnalysis.getNextVrfIps(), dstIpSpaceToBDD);
 
       _convertedPacketPolicies = convertPacketPolicies(configs, ipsRoutedOutInterfacesFactory);
 
@@ -414,7 +433,7 @@ public final class BDDReachabilityAnalysisFactory {
   }
 
   private static @Nonnull Map<String, Map<String, BDD>> computeNullRoutedBDDs(
-      ForwardingAnalysis forwardingAnalysis, IpSpaceToBDD ipSpaceToBDD) {
+      ForwardingAnalysis forwardingAnalysis, Function<IpSpace, BDD> ipSpaceToBDD) {
     try (ActiveSpan span =
         GlobalTracer.get()
             .buildSpan("BDDReachabilityAnalysisFactory.computeNullRoutedBDDs")
@@ -428,12 +447,12 @@ public final class BDDReachabilityAnalysisFactory {
                   nullRoutedIpsByNodeVrfEntry.getValue(),
                   Entry::getKey /* vrf */,
                   nullRoutedIpsByVrfEntry ->
-                      nullRoutedIpsByVrfEntry.getValue().accept(ipSpaceToBDD)));
+                      ipSpaceToBDD.apply(nullRoutedIpsByVrfEntry.getValue())));
     }
   }
 
   private static Map<String, Map<String, BDD>> computeRoutableBDDs(
-      ForwardingAnalysis forwardingAnalysis, IpSpaceToBDD ipSpaceToBDD) {
+      ForwardingAnalysis forwardingAnalysis, Function<IpSpace, BDD> ipSpaceToBDD) {
     try (ActiveSpan span =
         GlobalTracer.get()
             .buildSpan("BDDReachabilityAnalysisFactory.computeRoutableBDDs")
@@ -446,10 +465,111 @@ public final class BDDReachabilityAnalysisFactory {
               toImmutableMap(
                   nodeEntry.getValue(),
                   Entry::getKey,
-                  vrfEntry -> vrfEntry.getValue().accept(ipSpaceToBDD)));
+                  vrfEntry -> ipSpaceToBDD.apply(vrfEntry.getValue())));
+    }
+  }
+
+  /**
+   * Returns the function used to convert the {@link IpSpace IpSpaces} of {@code forwardingAnalysis}
+   * to destination IP BDDs. For large networks, they are all converted up front in parallel (see
+   * {@link #computeForwardingBDDsInParallel}).
+   */
+  private Function<IpSpace, BDD> forwardingIpSpaceToBDD(ForwardingAnalysis forwardingAnalysis) {
+    if (forwardingAnalysis.getRoutableIps().size() < PARALLEL_FIB_MIN_NODES
+        || Runtime.getRuntime().availableProcessors() == 1) {
+      return ipSpace -> ipSpace.accept(_dstIpSpaceToBDD);
+    }
+    Map<IpSpace, BDD> bdds = computeForwardingBDDsInParallel(_bddPacket, forwardingAnalysis);
+    return ipSpace -> {
+      BDD bdd = bdds.get(ipSpace);
+      return bdd != null ? bdd : ipSpace.accept(_dstIpSpaceToBDD);
+    };
+  }
+
+  /**
+   * Converts the {@link IpSpace IpSpaces} of {@code forwardingAnalysis} to destination IP BDDs in
+   * {@code packet}. Since {@link BDDPacket} is not thread-safe, each node is converted in parallel
+   * on its own {@link BDDPacket}, and its BDDs are then {@link BDDUtils#transfer transferred} into
+   * {@code packet}. The returned map is keyed by identity.
+   */
+  @VisibleForTesting
+  static Map<IpSpace, BDD> computeForwardingBDDsInParallel(
+      BDDPacket packet, ForwardingAnalysis forwardingAnalysis) {
+    try (ActiveSpan span =
+        GlobalTracer.get()
+            .buildSpan("BDDReachabilityAnalysisFactory.computeForwardingBDDsInParallel")
+            .startActive()) {
+      assert span != null; // avoid unused warning
+      SpanContext parentContext = span.context();
+      BDDFactory factory = packet.getFactory();
+      Map<IpSpace, BDD> bdds = new IdentityHashMap<>();
+      forwardingIpSpacesByNode(forwardingAnalysis)
+          .entrySet()
+          .parallelStream()
+          .forEach(
+              nodeEntry -> {
+                try (ActiveSpan nodeSpan =
+                    GlobalTracer.get()
+                        .buildSpan("BDDReachabilityAnalysisFactory.computeForwardingBDDs for node")
+                        .addReference(References.FOLLOWS_FROM, parentContext)
+                        .startActive()) {
+                  assert nodeSpan != null; // avoid unused warning
+                  nodeSpan.setTag("node", nodeEntry.getKey());
+                  IpSpaceToBDD nodeIpSpaceToBDD = new BDDPacket().getDstIpSpaceToBDD();
+                  Map<IpSpace, BDD> nodeBdds = new IdentityHashMap<>();
+                  nodeEntry
+                      .getValue()
+                      .forEach(ipSpace -> nodeBdds.put(ipSpace, ipSpace.accept(nodeIpSpaceToBDD)));
+                  synchronized (bdds) {
+                    Map<BDD, BDD> transferred = new HashMap<>();
+                    nodeBdds.forEach(
+                        (ipSpace, bdd) ->
+                            bdds.put(ipSpace, BDDUtils.transfer(bdd, factory, transferred)));
+                  }
+                }
+              });
+      return bdds;
     }
   }
 
+  /** Collects the {@link IpSpace IpSpaces} of {@code forwardingAnalysis} by node. */
+  private static Map<String, Set<IpSpace>> forwardingIpSpacesByNode(
+      ForwardingAnalysis forwardingAnalysis) {
+    Map<String, Set<IpSpace>> ipSpacesByNode = new HashMap<>();
+    BiConsumer<String, Collection<IpSpace>> add =
+        (node, ipSpaces) ->
+            ipSpacesByNode
+                .computeIfAbsent(node, k -> Collections.newSetFromMap(new IdentityHashMap<>()))
+                .addAll(ipSpaces);
+    forwardingAnalysis
+        .getArpTrueEdge()
+        .forEach(
+            (node, ipSpacesByVrf) ->
+                ipSpacesByVrf.values().forEach(ipSpaces -> add.accept(node, ipSpaces.values())));
+    Stream.of(
+            forwardingAnalysis.getNeighborUnreachable(),
+            forwardingAnalysis.getDeliveredToSubnet(),
+            forwardingAnalysis.getExitsNetwork(),
+            forwardingAnalysis.getInsufficientInfo(),
+            forwardingAnalysis.getNextVrfIps())
+        .forEach(
+            ipSpaceMap ->
+                ipSpaceMap.forEach(
+                    (node, ipSpacesByVrf) ->
+                        ipSpacesByVrf
+                            .values()
+                            .forEach(ipSpaces -> add.accept(node, ipSpaces.values()))));
+    Stream.of(
+            forwardingAnalysis.getNullRoutedIps(),
+            forwardingAnalysis.getRoutableIps(),
+            forwardingAnalysis.getAcceptsIps())
+        .forEach(
+            ipSpaceMap ->
+                ipSpaceMap.forEach(
+                    (node, ipSpacesByVrf) -> add.accept(node, ipSpacesByVrf.values())));
+    return ipSpacesByNode;
+  }
+
   /** For all configs/interfaces that have PBR policy defined, convert the packet policy to BDDs */
   private Map<String, Map<String, PacketPolicyToBdd>> convertPacketPolicies(
       Map<String, Configuration> configs,
@@ -502,7 +622,8 @@ public final class BDDReachabilityAnalysisFactory {
   }
 
   private static Map<String, Map<String, Map<org.batfish.datamodel.Edge, BDD>>>
-      computeArpTrueEdgeBDDs(ForwardingAnalysis forwardingAnalysis, IpSpaceToBDD ipSpaceToBDD) {
+      computeArpTrueEdgeBDDs(
+          ForwardingAnalysis forwardingAnalysis, Function<IpSpace, BDD> ipSpaceToBDD) {
     try (ActiveSpan span =
         GlobalTracer.get()
             .buildSpan("BDDReachabilityAnalysisFactory.computeArpTrueEdgeBDDs")
@@ -519,12 +640,13 @@ public final class BDDReachabilityAnalysisFactory {
                       toImmutableMap(
                           vrfEntry.getValue(),
                           Entry::getKey,
-                          edgeEntry -> edgeEntry.getValue().accept(ipSpaceToBDD))));
+                          edgeEntry -> ipSpaceToBDD.apply(edgeEntry.getValue()))));
     }
   }
 
   private static Map<String, Map<String, Map<String, BDD>>> computeDispositionBDDs(
-      Map<String, Map<String, Map<String, IpSpace>>> ipSpaceMap, IpSpaceToBDD ipSpaceToBDD) {
+      Map<String, Map<String, Map<String, IpSpace>>> ipSpaceMap,
+      Function<IpSpace, BDD> ipSpaceToBDD) {
     try (ActiveSpan span =
         GlobalTracer.get()
             .buildSpan("BDDReachabilityAnalysisFactory.computeDispositionBDDs")
@@ -541,7 +663,7 @@ public final class BDDReachabilityAnalysisFactory {
                       toImmutableMap(
                           vrfEntry.getValue(),
                           Entry::getKey,
-                          ifaceEntry -> ifaceEntry.getValue().accept(ipSpaceToBDD))));
+                          ifaceEntry -> ipSpaceToBDD.apply(ifaceEntry.getValue()))));
     }
   }
 
@@ -639,26 +761,32 @@ public final class BDDReachabilityAnalysisFactory {
         generateRules_NodeInterfaceNeighborUnreachable_NeighborUnreachable(finalNodes));
   }
 
-  /*
-   * These edges do not depend on the query. Compute them separately so that we can later cache them
-   * across queries if we want to.
+  /**
+   * Returns the edges of the reachability graph that do not depend on the query. They are computed
+   * once, so that each analysis created by this factory (and, when the factory is cached, each
+   * question) reuses them.
    */
   private Stream<Edge> generateEdges() {
+    return _edges.get().stream();
+  }
+
+  private List<Edge> computeEdges() {
     return Streams.concat(
-        generateRules_PreInInterface_NodeDropAclIn(),
-        generateRules_PreInInterface_NodeDropAclIn_PBR(),
-        generateRules_PreInInterface_PostInInterface(),
-        generateRules_PreInInterface_PostInVrf_PBR(),
-        generateRules_PostInInterface_NodeDropAclIn(),
-        generateRules_PostInInterface_PostInVrf(),
-        generateRules_PreOutEdge_NodeDropAclOut(),
-        generateRules_PreOutEdge_PreOutEdgePostNat(),
-        generateRules_PreOutEdgePostNat_NodeDropAclOut(),
-        generateRules_PreOutEdgePostNat_PreInInterface(),
-        generateRules_PreOutInterfaceDisposition_NodeInterfaceDisposition(),
-        generateRules_PreOutInterfaceDisposition_NodeDropAclOut(),
-        generateRules_VrfAccept_NodeAccept(),
-        generateFibRules());
+            generateRules_PreInInterface_NodeDropAclIn(),
+            generateRules_PreInInterface_NodeDropAclIn_PBR(),
+            generateRules_PreInInterface_PostInInterface(),
+            generateRules_PreInInterface_PostInVrf_PBR(),
+            generateRules_PostInInterface_NodeDropAclIn(),
+            generateRules_PostInInterface_PostInVrf(),
+            generateRules_PreOutEdge_NodeDropAclOut(),
+            generateRules_PreOutEdge_PreOutEdgePostNat(),
+            generateRules_PreOutEdgePostNat_NodeDropAclOut(),
+            generateRules_PreOutEdgePostNat_PreInInterface(),
+            generateRules_PreOutInterfaceDisposition_NodeInterfaceDisposition(),
+            generateRules_PreOutInterfaceDisposition_NodeDropAclOut(),
+            generateRules_VrfAccept_NodeAccept(),
+            generateFibRules())
+        .collect(ImmutableList.toImmutableList());
   }
 
   private @Nonnull Stream<Edge> generateFibRules() {
@@ -1594,7 +1722,7 @@ public final class BDDReachabilityAnalysisFactory {
   private static Map<String, Map<String, BDD>> computeVrfAcceptBDDs(
       Map<String, Configuration> configs,
       Map<String, Map<String, IpSpace>> acceptIps,
-      IpSpaceToBDD ipSpaceToBDD) {
+      Function<IpSpace, BDD> ipSpaceToBDD) {
     try (ActiveSpan span =
         GlobalTracer.get()
             .buildSpan("BDDReachabilityAnalysisFactory.computeVrfAcceptBDDs")
@@ -1609,16 +1737,16 @@ public final class BDDReachabilityAnalysisFactory {
                   nodeEntry.getValue().getVrfs(),
                   Entry::getKey,
                   vrfEntry ->
-                      acceptIps
-                          .getOrDefault(nodeEntry.getKey(), ImmutableMap.of())
-                          .getOrDefault(vrfEntry.getKey(), EmptyIpSpace.INSTANCE)
-                          .accept(ipSpaceToBDD)));
+                      ipSpaceToBDD.apply(
+                          acceptIps
+                              .getOrDefault(nodeEntry.getKey(), ImmutableMap.of())
+                              .getOrDefault(vrfEntry.getKey(), EmptyIpSpace.INSTANCE))));
     }
   }
 
   private Map<String, Map<String, Map<String, BDD>>> computeNextVrfBDDs(
       Map<String, Map<String, Map<String, IpSpace>>> nextVrfIpsByNodeVrf,
-      IpSpaceToBDD ipSpaceToBDD) {
+      Function<IpSpace, BDD> ipSpaceToBDD) {
     try (ActiveSpan span =
         GlobalTracer.get()
             .buildSpan("BDDReachabilityAnalysisFactory.computeNextVrfBDDs")
@@ -1636,7 +1764,7 @@ public final class BDDReachabilityAnalysisFactory {
                           nextVrfIpsByVrfEntry.getValue() /* nextVrfIpsByNextVrf */,
                           Entry::getKey,
                           nextVrfIpsByNextVrfEntry ->
-                              nextVrfIpsByNextVrfEntry.getValue().accept(ipSpaceToBDD))));
+                              ipSpaceToBDD.apply(nextVrfIpsByNextVrfEntry.getValue()))));
     }
   }
 
@@ -1733,6 +1861,10 @@ public final class BDDReachabilityAnalysisFactory {
     }
   }
 
+  public BDDPacket getBDDPacket() {
+    return _bddPacket;
+  }
+
   public Map<String, BDDSourceManager> getBDDSourceManagers() {
     return _bddSourceManagers;
   }
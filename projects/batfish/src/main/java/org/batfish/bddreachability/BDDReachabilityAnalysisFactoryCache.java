@@ -0,0 +1,123 @@
+package org.batfish.bddreachability;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.primitives.Ints;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import net.sf.javabdd.BDDFactory;
+import org.batfish.common.NetworkSnapshot;
+
+/**
+ * A per-snapshot cache of {@link BDDReachabilityAnalysisFactory factories}, so that consecutive
+ * BDD-based questions on the same snapshot reuse the ACL, transformation, and FIB BDDs and the
+ * query-independent edges built by an earlier question.
+ *
+ * <p>Factories and their {@link org.batfish.common.bdd.BDDPacket BDDPackets} are not thread-safe,
+ * so a factory is removed from the cache while it is in use: callers {@link #checkout} a factory,
+ * and {@link #checkin} it when done. The BDD node table and operator caches of a factory only grow
+ * while it is checked out, so each entry is weighed by their estimated size in bytes at checkin,
+ * which ends every use. Least-recently-used entries are evicted once the total exceeds the budget,
+ * and a factory that alone exceeds the budget is not cached.
+ */
+@ParametersAreNonnullByDefault
+public final class BDDReachabilityAnalysisFactoryCache {
+
+  private static final class Key {
+    private final @Nonnull NetworkSnapshot _snapshot;
+    private final boolean _ignoreFilters;
+
+    private Key(NetworkSnapshot snapshot, boolean ignoreFilters) {
+      _snapshot = snapshot;
+      _ignoreFilters = ignoreFilters;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      } else if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return _ignoreFilters == key._ignoreFilters && _snapshot.equals(key._snapshot);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_snapshot, _ignoreFilters);
+    }
+  }
+
+  /** Bytes per BDD node: {@link net.sf.javabdd.JFactory} stores each node as five ints. */
+  private static final long BYTES_PER_NODE = 20;
+
+  /** Bytes per operator cache entry: a reference to an object with four int fields. */
+  private static final long BYTES_PER_CACHE_ENTRY = 36;
+
+  private final Cache<Key, BDDReachabilityAnalysisFactory> _cache;
+  private final long _maxBytes;
+
+  /**
+   * @param maxBytes The budget for the estimated total size, in bytes, of the BDD node tables and
+   *     operator caches of all cached factories.
+   */
+  public BDDReachabilityAnalysisFactoryCache(long maxBytes) {
+    _maxBytes = maxBytes;
+    _cache =
+        CacheBuilder.newBuilder()
+            // a single segment, so that the whole budget is available to one large factory
+            .concurrencyLevel(1)
+            .softValues()
+            .maximumWeight(maxBytes)
+            .weigher((Key key, BDDReachabilityAnalysisFactory factory) -> weigh(factory))
+            .build();
+  }
+
+  /**
+   * Removes and returns the cached factory for {@code snapshot}, or returns {@code null} if there
+   * is none. The caller has exclusive use of the factory until it is returned with {@link
+   * #checkin}.
+   */
+  public @Nullable BDDReachabilityAnalysisFactory checkout(
+      NetworkSnapshot snapshot, boolean ignoreFilters) {
+    return _cache.asMap().remove(new Key(snapshot, ignoreFilters));
+  }
+
+  /**
+   * Caches {@code factory} for use by later questions on {@code snapshot}, weighed by the current
+   * size of its node table and operator caches. If another factory for the same snapshot was cached
+   * in the meantime, it is replaced. If {@code factory} alone exceeds the budget, it is discarded
+   * instead.
+   */
+  public void checkin(
+      NetworkSnapshot snapshot, boolean ignoreFilters, BDDReachabilityAnalysisFactory factory) {
+    Key key = new Key(snapshot, ignoreFilters);
+    if (weigh(factory) > _maxBytes) {
+      _cache.invalidate(key);
+      return;
+    }
+    _cache.put(key, factory);
+  }
+
+  /**
+   * Returns the estimated size in bytes of the node table and operator caches of {@code factory},
+   * saturated to an int.
+   */
+  @VisibleForTesting
+  static int weigh(BDDReachabilityAnalysisFactory factory) {
+    BDDFactory bddFactory = factory.getBDDPacket().getFactory();
+    return Ints.saturatedCast(
+        bddFactory.getNodeTableSize() * BYTES_PER_NODE
+            + bddFactory.getCacheEntries() * BYTES_PER_CACHE_ENTRY);
+  }
+
+  /** Discards the cached factories for {@code snapshot}, e.g. because its data plane changed. */
+  public void invalidate(NetworkSnapshot snapshot) {
+    _cache.invalidate(new Key(snapshot, false));
+    _cache.invalidate(new Key(snapshot, true));
+  }
+}
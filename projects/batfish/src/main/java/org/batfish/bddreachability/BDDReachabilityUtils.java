@@ -5,18 +5,26 @@ import static com.google.common.collect.ImmutableTable.toImmutableTable;
 import static org.batfish.common.util.CollectionUtil.toImmutableMap;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Streams;
 import com.google.common.collect.Table;
 import com.google.common.collect.Tables;
 import io.opentracing.ActiveSpan;
 import io.opentracing.util.GlobalTracer;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import net.sf.javabdd.BDD;
+import net.sf.javabdd.BDDFactory;
 import org.batfish.bddreachability.transition.Transition;
 import org.batfish.bddreachability.transition.Transitions;
 import org.batfish.common.bdd.BDDIpProtocol;
@@ -44,49 +52,247 @@ public final class BDDReachabilityUtils {
             (t1, t2) -> Transitions.or(t1, t2)));
   }
 
-  /** Apply edges to the reachableSets until a fixed point is reached. */
+  /**
+   * Number of partitions per available processor used by {@link #partitionedFixpoint}. More
+   * partitions than threads smooths out imbalance between partitions.
+   */
+  private static final int PARTITIONS_PER_PROCESSOR = 4;
+
+  /**
+   * Apply edges to the reachableSets until a fixed point is reached. If the {@link BDDFactory} of
+   * the reachable sets supports concurrent use, the state graph is partitioned and the partitions
+   * are processed in parallel (see {@link #partitionedFixpoint}). Otherwise states are scheduled
+   * by strongly connected component (see {@link #sccFixpoint}).
+   */
   @VisibleForTesting
   static void fixpoint(
       Map<StateExpr, BDD> reachableSets,
       Table<StateExpr, StateExpr, Transition> edges,
       BiFunction<Transition, BDD, BDD> traverse) {
+    if (reachableSets.isEmpty()) {
+      return;
+    }
+    BDDFactory factory = reachableSets.values().iterator().next().getFactory();
+    if (factory.isThreadSafe()) {
+      partitionedFixpoint(
+          reachableSets,
+          edges,
+          traverse,
+          PARTITIONS_PER_PROCESSOR * Runtime.getRuntime().availableProcessors(),
+          true);
+    } else {
+      sccFixpoint(reachableSets, edges, traverse);
+    }
+  }
+
+  /**
+   * Apply edges to the reachableSets until a fixed point is reached, scheduling states by strongly
+   * connected component (SCC). The SCCs of the graph reachable from the initial states are
+   * processed in topological order, so when an SCC is processed all of its in-edges from other SCCs
+   * have already been traversed. Acyclic SCCs (single states without self-loops) are therefore
+   * processed exactly once, and iteration to a local fixed point only happens within cyclic SCCs.
+   */
+  private static void sccFixpoint(
+      Map<StateExpr, BDD> reachableSets,
+      Table<StateExpr, StateExpr, Transition> edges,
+      BiFunction<Transition, BDD, BDD> traverse) {
     try (ActiveSpan span =
         GlobalTracer.get().buildSpan("BDDReachabilityAnalysis.fixpoint").startActive()) {
       assert span != null; // avoid unused warning
-      Set<StateExpr> dirtyStates = ImmutableSet.copyOf(reachableSets.keySet());
+      List<ImmutableSet<StateExpr>> sccs =
+          StronglyConnectedComponents.topologicalOrder(
+              ImmutableList.copyOf(reachableSets.keySet()), state -> edges.row(state).keySet());
 
-      while (!dirtyStates.isEmpty()) {
-        Set<StateExpr> newDirtyStates = new HashSet<>();
+      for (ImmutableSet<StateExpr> scc : sccs) {
+        if (scc.size() == 1) {
+          StateExpr state = scc.iterator().next();
+          if (!edges.contains(state, state)) {
+            propagate(state, reachableSets, edges, traverse, neighbor -> {});
+            continue;
+          }
+        }
 
-        dirtyStates.forEach(
-            dirtyState -> {
-              Map<StateExpr, Transition> dirtyStateEdges = edges.row(dirtyState);
-              if (dirtyStateEdges == null) {
-                // dirtyState has no edges
+        // cyclic SCC: iterate until its reachable sets stop changing
+        Set<StateExpr> worklist = new LinkedHashSet<>(scc);
+        while (!worklist.isEmpty()) {
+          Iterator<StateExpr> iterator = worklist.iterator();
+          StateExpr state = iterator.next();
+          iterator.remove();
+          propagate(
+              state,
+              reachableSets,
+              edges,
+              traverse,
+              neighbor -> {
+                if (scc.contains(neighbor)) {
+                  worklist.add(neighbor);
+                }
+              });
+        }
+      }
+    }
+  }
+
+  /**
+   * Traverse the out-edges of {@code state}, adding the results to the reachable sets of its
+   * neighbors. Calls {@code onChange} for each neighbor whose reachable set grew.
+   */
+  private static void propagate(
+      StateExpr state,
+      Map<StateExpr, BDD> reachableSets,
+      Table<StateExpr, StateExpr, Transition> edges,
+      BiFunction<Transition, BDD, BDD> traverse,
+      Consumer<StateExpr> onChange) {
+    BDD stateBDD = reachableSets.get(state);
+    if (stateBDD == null) {
+      // no packets reach state
+      return;
+    }
+    edges
+        .row(state)
+        .forEach(
+            (neighbor, edge) -> {
+              BDD result = traverse.apply(edge, stateBDD);
+              if (result.isZero()) {
                 return;
               }
 
-              BDD dirtyStateBDD = reachableSets.get(dirtyState);
-              dirtyStateEdges.forEach(
-                  (neighbor, edge) -> {
-                    BDD result = traverse.apply(edge, dirtyStateBDD);
-                    if (result.isZero()) {
-                      return;
-                    }
-
-                    // update neighbor's reachable set
-                    BDD oldReach = reachableSets.get(neighbor);
-                    BDD newReach = oldReach == null ? result : oldReach.or(result);
-                    if (oldReach == null || !oldReach.equals(newReach)) {
-                      reachableSets.put(neighbor, newReach);
-                      newDirtyStates.add(neighbor);
-                    }
-                  });
+              // update neighbor's reachable set
+              BDD oldReach = reachableSets.get(neighbor);
+              BDD newReach = oldReach == null ? result : oldReach.or(result);
+              if (oldReach == null || !oldReach.equals(newReach)) {
+                reachableSets.put(neighbor, newReach);
+                onChange.accept(neighbor);
+              }
             });
+  }
 
-        dirtyStates = newDirtyStates;
+  /**
+   * Apply edges to the reachableSets until a fixed point is reached, with the state graph split
+   * into {@code numPartitions} partitions by hash. Each state is owned by exactly one partition,
+   * which is the only reader and writer of its reachable set. Each round has two phases:
+   *
+   * <ol>
+   *   <li>Propagate: every partition traverses the out-edges of its dirty states, accumulating the
+   *       results in an outbox per destination partition.
+   *   <li>Merge: every partition merges the contributions addressed to it into its reachable sets,
+   *       and marks states whose reachable sets grew as dirty for the next round.
+   * </ol>
+   *
+   * <p>Within a phase partitions share nothing but the {@link BDDFactory}, so when {@code parallel}
+   * is true they are processed concurrently. This requires a factory that {@link
+   * BDDFactory#isThreadSafe() supports concurrent use}.
+   */
+  @VisibleForTesting
+  static void partitionedFixpoint(
+      Map<StateExpr, BDD> reachableSets,
+      Table<StateExpr, StateExpr, Transition> edges,
+      BiFunction<Transition, BDD, BDD> traverse,
+      int numPartitions,
+      boolean parallel) {
+    checkArgument(numPartitions > 0, "numPartitions must be positive");
+    try (ActiveSpan span =
+        GlobalTracer.get().buildSpan("BDDReachabilityAnalysis.partitionedFixpoint").startActive()) {
+      assert span != null; // avoid unused warning
+      List<Map<StateExpr, BDD>> partitionReachableSets =
+          Stream.generate(HashMap<StateExpr, BDD>::new)
+              .limit(numPartitions)
+              .collect(ImmutableList.toImmutableList());
+      reachableSets.forEach(
+          (state, bdd) ->
+              partitionReachableSets.get(partition(state, numPartitions)).put(state, bdd));
+      List<Set<StateExpr>> dirtyStates =
+          partitionReachableSets.stream()
+              .map(partitionReachable -> ImmutableSet.copyOf(partitionReachable.keySet()))
+              .collect(ImmutableList.toImmutableList());
+
+      while (dirtyStates.stream().anyMatch(dirty -> !dirty.isEmpty())) {
+        List<Set<StateExpr>> currentDirtyStates = dirtyStates;
+
+        // outboxes.get(src).get(dst): contributions from partition src to states of partition dst
+        List<List<Map<StateExpr, BDD>>> outboxes =
+            partitionIndices(numPartitions, parallel)
+                .mapToObj(
+                    p ->
+                        propagatePartition(
+                            currentDirtyStates.get(p),
+                            partitionReachableSets.get(p),
+                            edges,
+                            traverse,
+                            numPartitions))
+                .collect(ImmutableList.toImmutableList());
+
+        dirtyStates =
+            partitionIndices(numPartitions, parallel)
+                .mapToObj(
+                    p ->
+                        mergePartition(
+                            partitionReachableSets.get(p),
+                            outboxes.stream().map(outbox -> outbox.get(p))))
+                .collect(ImmutableList.toImmutableList());
       }
+
+      partitionReachableSets.forEach(reachableSets::putAll);
+    }
+  }
+
+  private static int partition(StateExpr state, int numPartitions) {
+    return Math.floorMod(state.hashCode(), numPartitions);
+  }
+
+  private static IntStream partitionIndices(int numPartitions, boolean parallel) {
+    IntStream indices = IntStream.range(0, numPartitions);
+    return parallel ? indices.parallel() : indices;
+  }
+
+  /**
+   * Traverse the out-edges of the dirty states of one partition. Returns the union of the results
+   * for each neighbor, grouped by the neighbor's partition.
+   */
+  private static List<Map<StateExpr, BDD>> propagatePartition(
+      Set<StateExpr> dirtyStates,
+      Map<StateExpr, BDD> partitionReachableSets,
+      Table<StateExpr, StateExpr, Transition> edges,
+      BiFunction<Transition, BDD, BDD> traverse,
+      int numPartitions) {
+    List<Map<StateExpr, BDD>> outbox =
+        Stream.generate(HashMap<StateExpr, BDD>::new)
+            .limit(numPartitions)
+            .collect(ImmutableList.toImmutableList());
+    for (StateExpr dirtyState : dirtyStates) {
+      BDD dirtyStateBDD = partitionReachableSets.get(dirtyState);
+      edges
+          .row(dirtyState)
+          .forEach(
+              (neighbor, edge) -> {
+                BDD result = traverse.apply(edge, dirtyStateBDD);
+                if (!result.isZero()) {
+                  outbox.get(partition(neighbor, numPartitions)).merge(neighbor, result, BDD::or);
+                }
+              });
     }
+    return outbox;
+  }
+
+  /**
+   * Merge contributions into the reachable sets of one partition. Returns the states whose
+   * reachable sets changed.
+   */
+  private static Set<StateExpr> mergePartition(
+      Map<StateExpr, BDD> partitionReachableSets, Stream<Map<StateExpr, BDD>> contributions) {
+    Set<StateExpr> newDirtyStates = new HashSet<>();
+    contributions.forEach(
+        contribution ->
+            contribution.forEach(
+                (state, result) -> {
+                  BDD oldReach = partitionReachableSets.get(state);
+                  BDD newReach = oldReach == null ? result : oldReach.or(result);
+                  if (oldReach == null || !oldReach.equals(newReach)) {
+                    partitionReachableSets.put(state, newReach);
+                    newDirtyStates.add(state);
+                  }
+                }));
+    return newDirtyStates;
   }
 
   @VisibleForTesting
@@ -0,0 +1,114 @@
+package org.batfish.bddreachability;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Computes the strongly connected components (SCCs) of a directed graph using Tarjan's algorithm.
+ * The depth-first search uses an explicit stack, since reachability graphs are far too deep for
+ * recursion.
+ */
+@ParametersAreNonnullByDefault
+final class StronglyConnectedComponents {
+
+  /** Per-node bookkeeping for Tarjan's algorithm. */
+  private static final class NodeInfo {
+    private final int _index;
+    private int _lowLink;
+    private boolean _onStack;
+
+    private NodeInfo(int index) {
+      _index = index;
+      _lowLink = index;
+      _onStack = true;
+    }
+  }
+
+  /** A node whose successors are being explored by the depth-first search. */
+  private static final class Frame<N> {
+    private final N _node;
+    private final NodeInfo _info;
+    private final Iterator<N> _successors;
+
+    private Frame(N node, NodeInfo info, Iterator<N> successors) {
+      _node = node;
+      _info = info;
+      _successors = successors;
+    }
+  }
+
+  /**
+   * Returns the SCCs of the subgraph reachable from {@code roots}, in topological order: if there
+   * is an edge from a node in one SCC to a node in another, the former SCC comes first.
+   */
+  static <N> List<ImmutableSet<N>> topologicalOrder(
+      Iterable<N> roots, Function<N, ? extends Collection<N>> successors) {
+    Map<N, NodeInfo> infos = new HashMap<>();
+    Deque<N> sccStack = new ArrayDeque<>();
+    Deque<Frame<N>> callStack = new ArrayDeque<>();
+    List<ImmutableSet<N>> sccs = new ArrayList<>();
+
+    for (N root : roots) {
+      if (infos.containsKey(root)) {
+        continue;
+      }
+      callStack.push(visit(root, infos, sccStack, successors));
+      while (!callStack.isEmpty()) {
+        Frame<N> frame = callStack.peek();
+        if (frame._successors.hasNext()) {
+          N successor = frame._successors.next();
+          NodeInfo successorInfo = infos.get(successor);
+          if (successorInfo == null) {
+            callStack.push(visit(successor, infos, sccStack, successors));
+          } else if (successorInfo._onStack) {
+            frame._info._lowLink = Math.min(frame._info._lowLink, successorInfo._index);
+          }
+          continue;
+        }
+
+        // all successors explored
+        callStack.pop();
+        if (frame._info._lowLink == frame._info._index) {
+          ImmutableSet.Builder<N> scc = ImmutableSet.builder();
+          N member;
+          do {
+            member = sccStack.pop();
+            infos.get(member)._onStack = false;
+            scc.add(member);
+          } while (member != frame._node);
+          sccs.add(scc.build());
+        }
+        Frame<N> parent = callStack.peek();
+        if (parent != null) {
+          parent._info._lowLink = Math.min(parent._info._lowLink, frame._info._lowLink);
+        }
+      }
+    }
+
+    // Tarjan's algorithm emits SCCs in reverse topological order.
+    return Lists.reverse(sccs);
+  }
+
+  private static <N> Frame<N> visit(
+      N node,
+      Map<N, NodeInfo> infos,
+      Deque<N> sccStack,
+      Function<N, ? extends Collection<N>> successors) {
+    NodeInfo info = new NodeInfo(infos.size());
+    infos.put(node, info);
+    sccStack.push(node);
+    return new Frame<>(node, info, successors.apply(node).iterator());
+  }
+
+  private StronglyConnectedComponents() {}
+}
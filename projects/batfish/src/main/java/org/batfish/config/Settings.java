@@ -86,6 +86,8 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   public static final String ARG_SERVICE_PORT = "serviceport";
 
+  private static final String ARG_SPILL_DATA_PLANE = "spilldataplane";
+
   private static final String ARG_TRACING_AGENT_HOST = "tracingagenthost";
 
   private static final String ARG_TRACING_AGENT_PORT = "tracingagentport";
@@ -371,6 +373,14 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return !_config.getBoolean(ARG_DISABLE_Z3_SIMPLIFICATION);
   }
 
+  /**
+   * Whether computed data planes keep their per-node routing state on disk, paging it into memory
+   * only when it is accessed.
+   */
+  public boolean getSpillDataPlane() {
+    return _config.getBoolean(ARG_SPILL_DATA_PLANE);
+  }
+
   public String getSnapshotName() {
     return _config.getString(BfConsts.ARG_SNAPSHOT_NAME);
   }
@@ -531,6 +541,7 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     setDefaultProperty(ARG_SERVICE_HOST, "localhost");
     setDefaultProperty(ARG_SERVICE_NAME, "worker-service");
     setDefaultProperty(ARG_SERVICE_PORT, BfConsts.SVC_PORT);
+    setDefaultProperty(ARG_SPILL_DATA_PLANE, false);
     setDefaultProperty(BfConsts.ARG_SNAPSHOT_NAME, null);
     setDefaultProperty(BfConsts.ARG_SSL_DISABLE, CoordConsts.SVC_CFG_POOL_SSL_DISABLE);
     setDefaultProperty(BfConsts.ARG_SSL_KEYSTORE_FILE, null);
@@ -720,6 +731,10 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
     addOption(BfConsts.ARG_SNAPSHOT_NAME, "name of snapshot", ARGNAME_NAME);
 
+    addBooleanOption(
+        ARG_SPILL_DATA_PLANE,
+        "keep per-node routing state of computed data planes on disk instead of in memory");
+
     addBooleanOption(
         BfConsts.ARG_SSL_DISABLE, "whether to disable SSL during communication with coordinator");
 
@@ -870,6 +885,7 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     getBooleanOptionValue(ARG_NO_SHUFFLE);
     getBooleanOptionValue(ARG_PARSE_REUSE);
     getStringOptionValue(BfConsts.ARG_SNAPSHOT_NAME);
+    getBooleanOptionValue(ARG_SPILL_DATA_PLANE);
     getBooleanOptionValue(BfConsts.ARG_SSL_DISABLE);
     getPathOptionValue(BfConsts.ARG_SSL_KEYSTORE_FILE);
     getStringOptionValue(BfConsts.ARG_SSL_KEYSTORE_PASSWORD);
@@ -969,6 +985,10 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     _config.setProperty(ARG_SEQUENTIAL, sequential);
   }
 
+  public void setSpillDataPlane(boolean spillDataPlane) {
+    _config.setProperty(ARG_SPILL_DATA_PLANE, spillDataPlane);
+  }
+
   public void setSslDisable(boolean sslDisable) {
     _config.setProperty(BfConsts.ARG_SSL_DISABLE, sslDisable);
   }
@@ -0,0 +1,496 @@
+package org.batfish.dataplane;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static org.batfish.specifier.LocationInfoUtils.computeLocationInfo;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.FinalizablePhantomReference;
+import com.google.common.base.FinalizableReferenceQueue;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ForwardingTable;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.UUID;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.batfish.common.BatfishException;
+import org.batfish.common.util.CommonUtil;
+import org.batfish.datamodel.AbstractRoute;
+import org.batfish.datamodel.AnnotatedRoute;
+import org.batfish.datamodel.Bgpv4Route;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.DataPlane;
+import org.batfish.datamodel.EvpnRoute;
+import org.batfish.datamodel.Fib;
+import org.batfish.datamodel.ForwardingAnalysis;
+import org.batfish.datamodel.ForwardingAnalysisImpl;
+import org.batfish.datamodel.GenericRib;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.vxlan.Layer2Vni;
+import org.batfish.dataplane.ibdp.IncrementalDataPlane;
+import org.batfish.dataplane.ibdp.Node;
+
+/**
+ * A {@link DataPlane} whose per-node routing state (main RIBs, FIBs, and BGP and EVPN routes) is
+ * kept on disk, one file per node, and paged back into memory when a node is accessed. At most
+ * {@link #MAX_PAGED_IN_NODES} nodes stay paged in, and they are dropped sooner when memory runs
+ * low.
+ *
+ * <p>If the data plane was computed by ibdp, the converged {@link Node nodes} are spilled to a
+ * second file per node, so that the data plane of a forked snapshot can reuse them. They are only
+ * read by {@link #getNodes()}.
+ *
+ * <p>Configurations, layer-2 VNIs, and the prefix tracing summary stay in memory. The {@link
+ * ForwardingAnalysis} is computed from the spilled FIBs on first use.
+ *
+ * <p>When serialized, the spilled node files are copied into the stream one node at a time, and
+ * they are spilled again when deserialized. So neither direction needs the routing state of all
+ * nodes in memory at once.
+ *
+ * <p>The spill files of a data plane live in one temporary directory. The directory is shared by
+ * all copies of the data plane in this JVM, e.g. a cached data plane and the copies deserialized
+ * from it. It is deleted once the last of them is garbage collected, or when the JVM exits.
+ */
+@ParametersAreNonnullByDefault
+public final class SpilledDataPlane implements DataPlane {
+
+  /** The routing state of a single node, keyed by VRF name. */
+  private static final class NodeState implements Serializable {
+    @Nonnull private final SortedMap<String, GenericRib<AnnotatedRoute<AbstractRoute>>> _ribs;
+    @Nonnull private final Map<String, Fib> _fibs;
+    @Nonnull private final Map<String, Set<Bgpv4Route>> _bgpRoutes;
+    @Nonnull private final Map<String, Set<EvpnRoute<?, ?>>> _evpnRoutes;
+
+    private NodeState(DataPlane dataPlane, String hostname) {
+      _ribs =
+          ImmutableSortedMap.copyOf(
+              dataPlane.getRibs().getOrDefault(hostname, ImmutableSortedMap.of()));
+      _fibs = ImmutableMap.copyOf(dataPlane.getFibs().getOrDefault(hostname, ImmutableMap.of()));
+      _bgpRoutes = ImmutableMap.copyOf(dataPlane.getBgpRoutes().row(hostname));
+      _evpnRoutes = ImmutableMap.copyOf(dataPlane.getEvpnRoutes().row(hostname));
+    }
+
+    @Nonnull
+    private Map<String, Set<Bgpv4Route>> getBgpRoutes() {
+      return _bgpRoutes;
+    }
+
+    @Nonnull
+    private Map<String, Set<EvpnRoute<?, ?>>> getEvpnRoutes() {
+      return _evpnRoutes;
+    }
+  }
+
+  /**
+   * A read-only view of a per-node table of routes. Row lookups only page in the requested node;
+   * any other access pages in every node.
+   */
+  private final class NodeStateTable<V> extends ForwardingTable<String, String, V> {
+
+    @Nonnull private final Function<NodeState, Map<String, V>> _rows;
+
+    private NodeStateTable(Function<NodeState, Map<String, V>> rows) {
+      _rows = rows;
+    }
+
+    @Override
+    protected Table<String, String, V> delegate() {
+      Table<String, String, V> table = HashBasedTable.create();
+      for (String hostname : _hostnames) {
+        table.row(hostname).putAll(row(hostname));
+      }
+      return table;
+    }
+
+    @Override
+    public boolean contains(@Nullable Object rowKey, @Nullable Object columnKey) {
+      return getRow(rowKey).containsKey(columnKey);
+    }
+
+    @Override
+    public boolean containsRow(@Nullable Object rowKey) {
+      return !getRow(rowKey).isEmpty();
+    }
+
+    @Override
+    public V get(@Nullable Object rowKey, @Nullable Object columnKey) {
+      return getRow(rowKey).get(columnKey);
+    }
+
+    @Override
+    public Map<String, V> row(String rowKey) {
+      return getRow(rowKey);
+    }
+
+    @Nonnull
+    private Map<String, V> getRow(@Nullable Object rowKey) {
+      if (!_hostnames.contains(rowKey)) {
+        return ImmutableMap.of();
+      }
+      return _rows.apply(getNodeState((String) rowKey));
+    }
+  }
+
+  private final class ForwardingAnalysisSupplier
+      implements Serializable, Supplier<ForwardingAnalysis> {
+
+    @Override
+    public ForwardingAnalysis get() {
+      // The analysis makes several passes over the FIBs. Page in each node only once, and keep
+      // only its FIBs while the analysis is computed.
+      Map<String, Map<String, Fib>> fibs =
+          _hostnames.stream()
+              .collect(
+                  toImmutableMap(Function.identity(), hostname -> getNodeState(hostname)._fibs));
+      return new ForwardingAnalysisImpl(
+          _configurations, fibs, _layer3Topology, computeLocationInfo(_configurations));
+    }
+  }
+
+  /**
+   * A spill directory and the number of {@link SpilledDataPlane} instances using it. Guarded by
+   * {@link #SPILL_DIRECTORIES}.
+   */
+  private static final class SpillDirectory {
+    @Nonnull private final Path _path;
+    private int _users;
+
+    private SpillDirectory(Path path) {
+      _path = path;
+    }
+  }
+
+  /**
+   * Releases an instance's use of its spill directory once the instance has been garbage
+   * collected. A static class, so that it does not reference the instance itself.
+   */
+  private static final class SpillDirectoryReference
+      extends FinalizablePhantomReference<SpilledDataPlane> {
+    @Nonnull private final String _id;
+
+    private SpillDirectoryReference(SpilledDataPlane dataPlane) {
+      super(dataPlane, REFERENCE_QUEUE);
+      _id = dataPlane._id;
+    }
+
+    @Override
+    public void finalizeReferent() {
+      REFERENCES.remove(this);
+      releaseSpillDirectory(_id);
+    }
+  }
+
+  /** The maximum number of nodes whose routing state is paged in at once. */
+  private static final int MAX_PAGED_IN_NODES = 256;
+
+  /** Spill directories in use, by the {@link #_id} of the data plane they belong to. */
+  private static final Map<String, SpillDirectory> SPILL_DIRECTORIES = new HashMap<>();
+
+  private static final FinalizableReferenceQueue REFERENCE_QUEUE = new FinalizableReferenceQueue();
+
+  /** Keeps the references of live instances reachable until they are enqueued. */
+  private static final Set<SpillDirectoryReference> REFERENCES = Sets.newConcurrentHashSet();
+
+  static {
+    Runtime.getRuntime()
+        .addShutdownHook(new Thread(SpilledDataPlane::deleteSpillDirectories, "SpilledDataPlane"));
+  }
+
+  @Nonnull private final Map<String, Configuration> _configurations;
+
+  private final Supplier<ForwardingAnalysis> _forwardingAnalysis =
+      Suppliers.memoize(new ForwardingAnalysisSupplier());
+
+  /** Hostnames of the nodes whose state is spilled, in the order it is serialized. */
+  @Nonnull private final SortedSet<String> _hostnames;
+
+  /** Identifies the spilled state. Shared by all copies of this data plane. */
+  @Nonnull private final String _id;
+
+  @Nonnull private final Topology _layer3Topology;
+  @Nonnull private final Table<String, String, Set<Layer2Vni>> _layer2Vnis;
+
+  @Nonnull
+  private final SortedMap<String, SortedMap<String, Map<Prefix, Map<String, Set<String>>>>>
+      _prefixTracingInfoSummary;
+
+  /** Whether the converged ibdp nodes are spilled, too. */
+  private final boolean _hasNodes;
+
+  // Initialized when spilling or deserializing
+  private transient Path _directory;
+  private transient Map<String, Path> _files;
+  private transient Map<String, Path> _nodeFiles;
+  private transient LoadingCache<String, NodeState> _nodeStates;
+
+  private SpilledDataPlane(DataPlane dataPlane, Topology layer3Topology) {
+    _id = UUID.randomUUID().toString();
+    _configurations = dataPlane.getConfigurations();
+    _hostnames =
+        ImmutableSortedSet.<String>naturalOrder()
+            .addAll(dataPlane.getRibs().keySet())
+            .addAll(dataPlane.getFibs().keySet())
+            .addAll(dataPlane.getBgpRoutes().rowKeySet())
+            .addAll(dataPlane.getEvpnRoutes().rowKeySet())
+            .build();
+    _layer3Topology = layer3Topology;
+    _layer2Vnis = dataPlane.getLayer2Vnis();
+    _prefixTracingInfoSummary = dataPlane.getPrefixTracingInfoSummary();
+    _hasNodes = dataPlane instanceof IncrementalDataPlane;
+    init();
+  }
+
+  /**
+   * Returns a {@link SpilledDataPlane} with the same contents as {@code dataPlane}, whose per-node
+   * routing state is written to a new temporary directory. {@code dataPlane} itself should be
+   * discarded afterwards, so that its routing state can be garbage collected.
+   *
+   * @param dataPlane the data plane to spill
+   * @param layer3Topology the layer-3 topology {@code dataPlane} was computed with
+   */
+  @Nonnull
+  public static SpilledDataPlane spill(DataPlane dataPlane, Topology layer3Topology) {
+    checkArgument(!(dataPlane instanceof SpilledDataPlane), "Data plane is already spilled");
+    SpilledDataPlane spilled = new SpilledDataPlane(dataPlane, layer3Topology);
+    spilled
+        ._hostnames
+        .parallelStream()
+        .forEach(
+            hostname -> {
+              writeObject(new NodeState(dataPlane, hostname), spilled._files.get(hostname));
+              if (spilled._hasNodes) {
+                writeObject(
+                    ((IncrementalDataPlane) dataPlane).getNodes().get(hostname),
+                    spilled._nodeFiles.get(hostname));
+              }
+            });
+    return spilled;
+  }
+
+  /**
+   * Returns the converged ibdp {@link Node nodes} of this data plane, keyed by hostname, or {@code
+   * null} if it was not computed by ibdp. Each lookup reads the node from disk and returns a new
+   * copy, so callers should keep the nodes they use.
+   */
+  @Nullable
+  public Map<String, Node> getNodes() {
+    if (!_hasNodes) {
+      return null;
+    }
+    return Maps.asMap(_hostnames, hostname -> (Node) readObject(_nodeFiles.get(hostname)));
+  }
+
+  /**
+   * Acquires the spill directory of this data plane, and allocates the spill files and the cache of
+   * paged-in nodes. Returns {@code true} if the directory was created, and {@code false} if another
+   * copy of this data plane already uses it.
+   */
+  private boolean init() {
+    boolean created = acquireSpillDirectory();
+    ImmutableMap.Builder<String, Path> files = ImmutableMap.builder();
+    ImmutableMap.Builder<String, Path> nodeFiles = ImmutableMap.builder();
+    int index = 0;
+    for (String hostname : _hostnames) {
+      // Hostnames need not be valid file names
+      files.put(hostname, _directory.resolve(Integer.toString(index)));
+      nodeFiles.put(hostname, _directory.resolve(index + ".node"));
+      index++;
+    }
+    _files = files.build();
+    _nodeFiles = nodeFiles.build();
+    _nodeStates =
+        CacheBuilder.newBuilder()
+            .maximumSize(MAX_PAGED_IN_NODES)
+            .softValues()
+            .build(CacheLoader.from(hostname -> (NodeState) readObject(_files.get(hostname))));
+    return created;
+  }
+
+  private boolean acquireSpillDirectory() {
+    boolean created;
+    synchronized (SPILL_DIRECTORIES) {
+      SpillDirectory directory = SPILL_DIRECTORIES.get(_id);
+      created = directory == null;
+      if (created) {
+        try {
+          directory = new SpillDirectory(Files.createTempDirectory("dataplane"));
+        } catch (IOException e) {
+          throw new BatfishException("Failed to create a directory to spill data plane state", e);
+        }
+        SPILL_DIRECTORIES.put(_id, directory);
+      }
+      directory._users++;
+      _directory = directory._path;
+    }
+    REFERENCES.add(new SpillDirectoryReference(this));
+    return created;
+  }
+
+  private static void releaseSpillDirectory(String id) {
+    synchronized (SPILL_DIRECTORIES) {
+      SpillDirectory directory = SPILL_DIRECTORIES.get(id);
+      // null if the directories were already deleted at JVM exit
+      if (directory != null && --directory._users == 0) {
+        SPILL_DIRECTORIES.remove(id);
+        CommonUtil.deleteDirectory(directory._path);
+      }
+    }
+  }
+
+  private static void deleteSpillDirectories() {
+    synchronized (SPILL_DIRECTORIES) {
+      SPILL_DIRECTORIES.values().forEach(directory -> CommonUtil.deleteDirectory(directory._path));
+      SPILL_DIRECTORIES.clear();
+    }
+  }
+
+  /** Returns the directory containing the spill files. */
+  @VisibleForTesting
+  @Nonnull
+  Path getSpillDirectory() {
+    return _directory;
+  }
+
+  @Nonnull
+  private NodeState getNodeState(String hostname) {
+    return _nodeStates.getUnchecked(hostname);
+  }
+
+  /** Returns the number of nodes whose state is currently in memory. */
+  @VisibleForTesting
+  long getNumPagedInNodes() {
+    _nodeStates.cleanUp();
+    return _nodeStates.size();
+  }
+
+  private static void writeObject(Serializable object, Path file) {
+    try (ObjectOutputStream oos =
+        new ObjectOutputStream(
+            new LZ4FrameOutputStream(new BufferedOutputStream(Files.newOutputStream(file))))) {
+      oos.writeObject(object);
+    } catch (IOException e) {
+      throw new BatfishException("Failed to spill data plane state to " + file, e);
+    }
+  }
+
+  @Nonnull
+  private static Object readObject(Path file) {
+    try (ObjectInputStream ois =
+        new ObjectInputStream(
+            new LZ4FrameInputStream(new BufferedInputStream(Files.newInputStream(file))))) {
+      return ois.readObject();
+    } catch (IOException | ClassNotFoundException e) {
+      throw new BatfishException("Failed to read spilled data plane state from " + file, e);
+    }
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    out.defaultWriteObject();
+    for (String hostname : _hostnames) {
+      copyToStream(_files.get(hostname), out);
+      if (_hasNodes) {
+        copyToStream(_nodeFiles.get(hostname), out);
+      }
+    }
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    // If another copy of this data plane is alive, its spill files are reused.
+    boolean created = init();
+    for (String hostname : _hostnames) {
+      copyFromStream(in, created ? _files.get(hostname) : null);
+      if (_hasNodes) {
+        copyFromStream(in, created ? _nodeFiles.get(hostname) : null);
+      }
+    }
+  }
+
+  /**
+   * Writes the raw contents of a spill file, so the stream does not retain the deserialized state.
+   */
+  private static void copyToStream(Path file, ObjectOutputStream out) throws IOException {
+    byte[] bytes = Files.readAllBytes(file);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /** Reads the contents of a spill file and writes them to {@code file}, unless it is null. */
+  private static void copyFromStream(ObjectInputStream in, @Nullable Path file)
+      throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    if (file != null) {
+      Files.write(file, bytes);
+    }
+  }
+
+  @Override
+  public Table<String, String, Set<Bgpv4Route>> getBgpRoutes() {
+    return new NodeStateTable<>(NodeState::getBgpRoutes);
+  }
+
+  @Override
+  public Table<String, String, Set<EvpnRoute<?, ?>>> getEvpnRoutes() {
+    return new NodeStateTable<>(NodeState::getEvpnRoutes);
+  }
+
+  @Override
+  public Map<String, Configuration> getConfigurations() {
+    return _configurations;
+  }
+
+  @Override
+  public Map<String, Map<String, Fib>> getFibs() {
+    return Maps.asMap(_hostnames, hostname -> getNodeState(hostname)._fibs);
+  }
+
+  @Override
+  public ForwardingAnalysis getForwardingAnalysis() {
+    return _forwardingAnalysis.get();
+  }
+
+  @Override
+  public SortedMap<String, SortedMap<String, GenericRib<AnnotatedRoute<AbstractRoute>>>> getRibs() {
+    return Maps.asMap(_hostnames, hostname -> getNodeState(hostname)._ribs);
+  }
+
+  @Override
+  public SortedMap<String, SortedMap<String, Map<Prefix, Map<String, Set<String>>>>>
+      getPrefixTracingInfoSummary() {
+    return _prefixTracingInfoSummary;
+  }
+
+  @Override
+  public Table<String, String, Set<Layer2Vni>> getLayer2Vnis() {
+    return _layer2Vnis;
+  }
+}
@@ -1,13 +1,17 @@
 package org.batfish.dataplane;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import java.util.List;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.function.BiConsumer;
 import org.batfish.common.plugin.TracerouteEngine;
 import org.batfish.datamodel.DataPlane;
 import org.batfish.datamodel.Flow;
 import org.batfish.datamodel.Topology;
 import org.batfish.datamodel.flow.FirewallSessionTraceInfo;
+import org.batfish.datamodel.flow.Trace;
 import org.batfish.datamodel.flow.TraceAndReverseFlow;
 import org.batfish.dataplane.traceroute.TracerouteEngineImplContext;
 
@@ -28,4 +32,18 @@ public final class TracerouteEngineImpl implements TracerouteEngine {
             _dataPlane, _topology, sessions, flows, _dataPlane.getFibs(), ignoreFilters)
         .buildTracesAndReturnFlows();
   }
+
+  @Override
+  public void computeTraces(
+      Set<Flow> flows, boolean ignoreFilters, BiConsumer<Flow, List<Trace>> consumer) {
+    new TracerouteEngineImplContext(
+            _dataPlane, _topology, ImmutableSet.of(), flows, _dataPlane.getFibs(), ignoreFilters)
+        .buildTraces(
+            (flow, traces) ->
+                consumer.accept(
+                    flow,
+                    traces.stream()
+                        .map(TraceAndReverseFlow::getTrace)
+                        .collect(ImmutableList.toImmutableList())));
+  }
 }
@@ -10,6 +10,7 @@ import static org.batfish.dataplane.protocols.BgpProtocolHelper.transformBgpRout
 import static org.batfish.dataplane.rib.RibDelta.importRibDelta;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
@@ -92,6 +93,8 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
   @Nonnull private BgpTopology _topology;
   /** Metadata about propagated prefixes to/from neighbors */
   @Nonnull private PrefixTracer _prefixTracer;
+  /** Memoized results of export policies, shared by all neighbors */
+  @Nonnull private final ExportPolicyCache _exportPolicyCache = new ExportPolicyCache();
 
   /** Route dependency tracker for BGP IPv4 aggregate routes */
   @Nonnull
@@ -459,6 +462,17 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
         });
   }
 
+  /** Hit and miss counts of memoized export policy results, by export policy name */
+  @Nonnull
+  Map<String, CacheStats> getExportPolicyCacheStats() {
+    return _exportPolicyCache.getStats();
+  }
+
+  /** Drops memoized export policy results, e.g. once the data plane has converged */
+  void clearExportPolicyCache() {
+    _exportPolicyCache.clear();
+  }
+
   @Nonnull
   @Override
   public RibDelta<BgpRoute<?, ?>> getUpdatesForMainRib() {
@@ -862,14 +876,14 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
     }
 
     // Process transformed outgoing route by the export policy
-    boolean shouldExport =
-        exportPolicy.processBgpRoute(
-            exportCandidate, transformedOutgoingRouteBuilder, sessionProperties, Direction.OUT);
+    transformedOutgoingRouteBuilder =
+        _exportPolicyCache.process(
+            exportPolicy, exportCandidate, transformedOutgoingRouteBuilder, sessionProperties);
 
     // sessionProperties represents the incoming edge, so its tailIp is the remote peer's IP
     Ip remoteIp = sessionProperties.getTailIp();
 
-    if (!shouldExport) {
+    if (transformedOutgoingRouteBuilder == null) {
       // This route could not be exported due to export policy
       _prefixTracer.filtered(
           exportCandidate.getNetwork(),
@@ -943,14 +957,14 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
                 protocol);
 
     // Process transformed outgoing route by the export policy
-    boolean shouldExport =
-        exportPolicy.processBgpRoute(
-            exportCandidate, transformedOutgoingRouteBuilder, sessionProperties, Direction.OUT);
+    transformedOutgoingRouteBuilder =
+        _exportPolicyCache.process(
+            exportPolicy, exportCandidate, transformedOutgoingRouteBuilder, sessionProperties);
 
     // sessionProperties represents the incoming edge, so its tailIp is the remote peer's IP
     Ip remoteIp = sessionProperties.getHeadIp();
 
-    if (!shouldExport) {
+    if (transformedOutgoingRouteBuilder == null) {
       // This route could not be exported due to export policy
       _prefixTracer.filtered(
           exportCandidate.getNetwork(),
@@ -1148,20 +1162,20 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
   }
 
   int iterationHashCode() {
-    return Stream.of(
+    return Streams.concat(
             // RIBs
-            _bgpv4Rib.getTypedRoutes(),
-            _evpnRib.getTypedRoutes(),
+            Stream.of(_bgpv4Rib.getRoutesHashCode(), _evpnRib.getRoutesHashCode()),
             // Message queues
-            _bgpv4IncomingRoutes,
-            _evpnType3IncomingRoutes,
-            _evpnType5IncomingRoutes,
-            // Delta builders
-            _bgpv4DeltaBuilder.build(),
-            _evpnDeltaBuilder.build(),
-            // intermediate state
-            _type5RoutesToSendForEveryone,
-            _type5RoutesToSendPerNeighbor)
+            Stream.of(_bgpv4IncomingRoutes, _evpnType3IncomingRoutes, _evpnType5IncomingRoutes)
+                .flatMap(m -> m.values().stream())
+                .flatMap(Queue::stream),
+            Stream.of(
+                // Delta builders
+                _bgpv4DeltaBuilder.build(),
+                _evpnDeltaBuilder.build(),
+                // intermediate state
+                _type5RoutesToSendForEveryone,
+                _type5RoutesToSendPerNeighbor))
         .collect(toOrderedHashCode());
   }
 
@@ -11,6 +11,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Sets;
+import com.google.common.collect.Streams;
 import com.google.common.graph.Network;
 import java.util.Collection;
 import java.util.Map;
@@ -560,10 +561,10 @@ final class EigrpRoutingProcess implements RoutingProcess<EigrpTopology, EigrpRo
    * @return integer hashcode
    */
   int computeIterationHashCode() {
-    return Stream.of(
-            _rib,
-            _incomingInternalRoutes.values().stream(),
-            _incomingExternalRoutes.values().stream())
+    return Streams.concat(
+            Stream.of(_rib.getRoutesHashCode()),
+            _incomingInternalRoutes.values().stream().flatMap(Queue::stream),
+            _incomingExternalRoutes.values().stream().flatMap(Queue::stream))
         .collect(toOrderedHashCode());
   }
 
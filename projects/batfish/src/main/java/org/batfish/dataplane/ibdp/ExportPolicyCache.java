@@ -0,0 +1,150 @@
+package org.batfish.dataplane.ibdp;
+
+import static org.batfish.datamodel.routing_policy.Environment.Direction.OUT;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSortedMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.AbstractRouteDecorator;
+import org.batfish.datamodel.BgpRoute;
+import org.batfish.datamodel.BgpSessionProperties;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.routing_policy.RoutingPolicy;
+import org.batfish.datamodel.routing_policy.RoutingPolicy.BgpRouteProcessingResult;
+
+/**
+ * Memoizes the results of BGP export policies of one {@link BgpRoutingProcess}, so that a route
+ * advertised to many peers runs through an export policy once per distinct policy input rather
+ * than once per peer.
+ *
+ * <p>A policy's result depends only on the export candidate, the route it is asked to transform
+ * (after the pre-export BGP transformations), and the session properties. The pre-export
+ * transformations set the route's received-from IP to the local IP of the session, which policies
+ * neither read nor set, so it is left out of the policy input and restored on the result. Most
+ * policies never read the session properties, so results are first memoized without them; only
+ * results of evaluations that did read them are keyed on the session too.
+ */
+@ParametersAreNonnullByDefault
+final class ExportPolicyCache {
+
+  /** Memoized results of a single export policy. */
+  private static final class PolicyResults {
+    // Maximum size 2^16 per policy: bounds memory when exporting full tables.
+    private final Cache<Key, Optional<BgpRoute<?, ?>>> _results =
+        CacheBuilder.newBuilder().maximumSize(1 << 16).build();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+  }
+
+  private static final class Key {
+    private final AbstractRouteDecorator _exportCandidate;
+    private final BgpRoute<?, ?> _preExportRoute;
+    private final @Nullable BgpSessionProperties _sessionProperties;
+    private final int _hashCode;
+
+    private Key(
+        AbstractRouteDecorator exportCandidate,
+        BgpRoute<?, ?> preExportRoute,
+        @Nullable BgpSessionProperties sessionProperties) {
+      _exportCandidate = exportCandidate;
+      _preExportRoute = preExportRoute;
+      _sessionProperties = sessionProperties;
+      _hashCode = Objects.hash(exportCandidate, preExportRoute, sessionProperties);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      } else if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return _hashCode == other._hashCode
+          && _exportCandidate.equals(other._exportCandidate)
+          && _preExportRoute.equals(other._preExportRoute)
+          && Objects.equals(_sessionProperties, other._sessionProperties);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+  }
+
+  /**
+   * Runs {@code exportCandidate} through {@code exportPolicy} for export on the session with
+   * {@code sessionProperties}, reusing a memoized result when one applies.
+   *
+   * @param outputRouteBuilder the route to be exported after pre-export transformations
+   * @return a builder for the route transformed by the policy, or {@code null} if the policy
+   *     rejects the route. This is {@code outputRouteBuilder} itself unless the result was reused.
+   */
+  @Nullable
+  <B extends BgpRoute.Builder<B, R>, R extends BgpRoute<B, R>> B process(
+      RoutingPolicy exportPolicy,
+      AbstractRouteDecorator exportCandidate,
+      B outputRouteBuilder,
+      BgpSessionProperties sessionProperties) {
+    PolicyResults policyResults =
+        _resultsByPolicy.computeIfAbsent(exportPolicy.getName(), name -> new PolicyResults());
+    Ip receivedFromIp = outputRouteBuilder.getReceivedFromIp();
+    R preExportRoute = outputRouteBuilder.setReceivedFromIp(null).build();
+    Key sessionIndependentKey = new Key(exportCandidate, preExportRoute, null);
+    Optional<BgpRoute<?, ?>> result = policyResults._results.getIfPresent(sessionIndependentKey);
+    if (result == null) {
+      Key sessionKey = new Key(exportCandidate, preExportRoute, sessionProperties);
+      result = policyResults._results.getIfPresent(sessionKey);
+      if (result == null) {
+        policyResults._misses.increment();
+        BgpRouteProcessingResult processingResult =
+            exportPolicy.processBgpRouteTrackingSession(
+                exportCandidate, outputRouteBuilder, sessionProperties, OUT);
+        policyResults._results.put(
+            processingResult.getSessionPropertiesRead() ? sessionKey : sessionIndependentKey,
+            processingResult.getAccepted()
+                ? Optional.<BgpRoute<?, ?>>of(outputRouteBuilder.build())
+                : Optional.empty());
+        return processingResult.getAccepted()
+            ? outputRouteBuilder.setReceivedFromIp(receivedFromIp)
+            : null;
+      }
+    }
+    policyResults._hits.increment();
+    if (!result.isPresent()) {
+      return null;
+    }
+    // Same policy input implies the same route type as the one built above
+    @SuppressWarnings("unchecked")
+    R transformedRoute = (R) result.get();
+    return transformedRoute.toBuilder().setReceivedFromIp(receivedFromIp);
+  }
+
+  /** Drops all memoized results. Hit and miss counts are kept. */
+  void clear() {
+    _resultsByPolicy.values().forEach(results -> results._results.invalidateAll());
+  }
+
+  /** Returns hit and miss counts of memoized results, by export policy name. */
+  @Nonnull
+  Map<String, CacheStats> getStats() {
+    ImmutableSortedMap.Builder<String, CacheStats> stats = ImmutableSortedMap.naturalOrder();
+    _resultsByPolicy.forEach(
+        (name, results) ->
+            stats.put(
+                name,
+                new CacheStats(results._hits.sum(), results._misses.sum(), 0, 0, 0, 0)));
+    return stats.build();
+  }
+
+  private final Map<String, PolicyResults> _resultsByPolicy = new ConcurrentHashMap<>();
+}
@@ -13,19 +13,31 @@ import static org.batfish.datamodel.vxlan.VxlanTopologyUtils.prunedVxlanTopology
 import static org.batfish.dataplane.rib.AbstractRib.importRib;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.graph.EndpointPair;
 import io.opentracing.ActiveSpan;
 import io.opentracing.util.GlobalTracer;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.BdpOscillationException;
 import org.batfish.common.plugin.DataPlanePlugin.ComputeDataPlaneResult;
@@ -39,6 +51,7 @@ import org.batfish.datamodel.AnnotatedRoute;
 import org.batfish.datamodel.BgpAdvertisement;
 import org.batfish.datamodel.Bgpv4Route;
 import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.DataPlane;
 import org.batfish.datamodel.Ip;
 import org.batfish.datamodel.IsisRoute;
 import org.batfish.datamodel.NetworkConfigurations;
@@ -48,16 +61,23 @@ import org.batfish.datamodel.bgp.BgpTopology;
 import org.batfish.datamodel.eigrp.EigrpTopology;
 import org.batfish.datamodel.eigrp.EigrpTopologyUtils;
 import org.batfish.datamodel.ipsec.IpsecTopology;
+import org.batfish.datamodel.isis.IsisNode;
 import org.batfish.datamodel.isis.IsisTopology;
+import org.batfish.datamodel.ospf.OspfNeighborConfigId;
 import org.batfish.datamodel.ospf.OspfTopology;
 import org.batfish.datamodel.vxlan.VxlanTopology;
 import org.batfish.datamodel.vxlan.VxlanTopologyUtils;
 import org.batfish.dataplane.TracerouteEngineImpl;
+import org.batfish.dataplane.ibdp.schedule.EventDrivenScheduler;
 import org.batfish.dataplane.ibdp.schedule.IbdpSchedule;
 import org.batfish.dataplane.ibdp.schedule.IbdpSchedule.Schedule;
 import org.batfish.dataplane.rib.Bgpv4Rib;
 import org.batfish.dataplane.rib.RibDelta;
 import org.batfish.version.BatfishVersion;
+import org.jgrapht.Graph;
+import org.jgrapht.alg.connectivity.ConnectivityInspector;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.Pseudograph;
 
 class IncrementalBdpEngine {
 
@@ -76,6 +96,19 @@ class IncrementalBdpEngine {
       Map<String, Configuration> configurations,
       TopologyContext callerTopologyContext,
       Set<BgpAdvertisement> externalAdverts) {
+    return computeDataPlane(configurations, callerTopologyContext, externalAdverts, null);
+  }
+
+  /**
+   * Computes the data plane. If {@code parent} is given, nodes in routing domains that are
+   * unchanged from the parent snapshot are reused from its data plane, and only the remaining nodes
+   * are recomputed.
+   */
+  ComputeDataPlaneResult computeDataPlane(
+      Map<String, Configuration> configurations,
+      TopologyContext callerTopologyContext,
+      Set<BgpAdvertisement> externalAdverts,
+      @Nullable ParentDataPlane parent) {
     try (ActiveSpan span = GlobalTracer.get().buildSpan("Compute Data Plane").startActive()) {
       assert span != null; // avoid unused warning
 
@@ -99,9 +132,29 @@ class IncrementalBdpEngine {
               .setTunnelTopology(TopologyUtil.computeInitialTunnelTopology(configurations))
               .build();
 
-      // Generate our nodes, keyed by name, sorted for determinism
+      Map<String, Node> reusedNodes =
+          parent == null
+              ? ImmutableMap.of()
+              : parent.getReusableNodes(configurations, callerTopologyContext, externalAdverts);
+      DataPlane parentDataPlane = parent == null ? null : parent.getDataPlane();
+      if (parent != null) {
+        _bfLogger.infof(
+            "Reusing %d of %d nodes from the parent snapshot's data plane\n",
+            reusedNodes.size(), configurations.size());
+        dpBuilder.setParent(parentDataPlane, reusedNodes.keySet());
+      }
+
+      // Generate our nodes, keyed by name, sorted for determinism. Reused nodes have already
+      // converged and are not adjacent to any other node, so they take no part in the computation.
       SortedMap<String, Node> nodes =
-          toImmutableSortedMap(configurations.values(), Configuration::getHostname, Node::new);
+          toImmutableSortedMap(
+              configurations.values().stream()
+                  .filter(c -> !reusedNodes.containsKey(c.getHostname()))
+                  .collect(ImmutableList.toImmutableList()),
+              Configuration::getHostname,
+              Node::new);
+      SortedMap<String, Node> allNodes =
+          ImmutableSortedMap.<String, Node>naturalOrder().putAll(nodes).putAll(reusedNodes).build();
       NetworkConfigurations networkConfigurations = NetworkConfigurations.of(configurations);
 
       /*
@@ -132,7 +185,7 @@ class IncrementalBdpEngine {
           computeFibs(nodes);
           IncrementalDataPlane partialDataplane =
               dpBuilder
-                  .setNodes(nodes)
+                  .setNodes(allNodes)
                   .setLayer3Topology(currentTopologyContext.getLayer3Topology())
                   .build();
 
@@ -229,10 +282,13 @@ class IncrementalBdpEngine {
       // Generate the answers from the computation, compute final FIBs
       // TODO: Properly finalize topologies, IpOwners, etc.
       computeFibs(nodes);
+      logExportPolicyCacheStats(nodes);
+      clearExportPolicyCaches(nodes);
       answerElement.setVersion(BatfishVersion.getVersionStatic());
       IncrementalDataPlane finalDataplane =
           IncrementalDataPlane.builder()
-              .setNodes(nodes)
+              .setNodes(allNodes)
+              .setParent(parentDataPlane, reusedNodes.keySet())
               .setLayer3Topology(currentTopologyContext.getLayer3Topology())
               .build();
       _bfLogger.printElapsedTime();
@@ -254,6 +310,7 @@ class IncrementalBdpEngine {
    * @param iterationLabel iteration label (for stats tracking)
    * @param allNodes all nodes in the network (for correct neighbor referencing)
    * @param topologyContext the various network topologies
+   * @param isisDomains the IS-IS domains partitioning {@code allNodes}
    */
   private static void computeDependentRoutesIteration(
       Map<String, Node> nodes,
@@ -261,6 +318,7 @@ class IncrementalBdpEngine {
       String iterationLabel,
       Map<String, Node> allNodes,
       TopologyContext topologyContext,
+      List<SortedMap<String, Node>> isisDomains,
       NetworkConfigurations networkConfigurations,
       int iteration) {
     try (ActiveSpan overallSpan =
@@ -333,33 +391,15 @@ class IncrementalBdpEngine {
             .forEach(vr -> vr.initIsisExports(iteration, allNodes, networkConfigurations));
       }
 
-      // IS-IS route propagation
-      AtomicBoolean isisChanged = new AtomicBoolean(true);
-      int isisSubIterations = 0;
-      while (isisChanged.get()) {
-        isisSubIterations++;
-        try (ActiveSpan isisSpan =
-            GlobalTracer.get()
-                .buildSpan(
-                    iterationLabel + ": Recompute IS-IS routes: subIteration: " + isisSubIterations)
-                .startActive()) {
-          assert isisSpan != null; // avoid unused warning
-          isisChanged.set(false);
-          nodes
-              .values()
-              .parallelStream()
-              .flatMap(n -> n.getVirtualRouters().values().stream())
-              .forEach(
-                  vr -> {
-                    Entry<RibDelta<IsisRoute>, RibDelta<IsisRoute>> p =
-                        vr.propagateIsisRoutes(networkConfigurations);
-                    if (p != null
-                        && vr.unstageIsisRoutes(
-                            allNodes, networkConfigurations, p.getKey(), p.getValue())) {
-                      isisChanged.set(true);
-                    }
-                  });
-        }
+      // IS-IS route propagation, converged independently in each IS-IS domain
+      try (ActiveSpan span =
+          GlobalTracer.get().buildSpan(iterationLabel + ": Recompute IS-IS routes").startActive()) {
+        assert span != null; // avoid unused warning
+        isisDomains
+            .parallelStream()
+            .map(domain -> Maps.filterKeys(domain, nodes::containsKey))
+            .filter(domain -> !domain.isEmpty())
+            .forEach(domain -> propagateIsisRoutes(domain, allNodes, networkConfigurations));
       }
 
       try (ActiveSpan span =
@@ -518,6 +558,48 @@ class IncrementalBdpEngine {
     }
   }
 
+  /** Logs how often memoized BGP export policy results were reused, per node, VRF and policy. */
+  private void logExportPolicyCacheStats(Map<String, Node> nodes) {
+    if (!_bfLogger.isActive(BatfishLogger.LEVEL_DEBUG)) {
+      return;
+    }
+    nodes.forEach(
+        (hostname, node) ->
+            node.getVirtualRouters()
+                .forEach(
+                    (vrfName, vr) -> {
+                      BgpRoutingProcess bgpProcess = vr.getBgpRoutingProcess();
+                      if (bgpProcess == null) {
+                        return;
+                      }
+                      bgpProcess
+                          .getExportPolicyCacheStats()
+                          .forEach(
+                              (policyName, stats) ->
+                                  _bfLogger.debugf(
+                                      "BGP export policy %s on %s vrf %s: %d hits, %d misses, hit"
+                                          + " rate %.3f\n",
+                                      policyName,
+                                      hostname,
+                                      vrfName,
+                                      stats.hitCount(),
+                                      stats.missCount(),
+                                      stats.hitRate()));
+                    }));
+  }
+
+  /**
+   * Drops memoized BGP export policy results of all of the given nodes. They are only needed while
+   * routes are exchanged, but would otherwise be retained with the converged data plane.
+   */
+  private static void clearExportPolicyCaches(Map<String, Node> nodes) {
+    nodes.values().stream()
+        .flatMap(n -> n.getVirtualRouters().values().stream())
+        .map(VirtualRouter::getBgpRoutingProcess)
+        .filter(Objects::nonNull)
+        .forEach(BgpRoutingProcess::clearExportPolicyCache);
+  }
+
   /**
    * Run {@link VirtualRouter#computeFib} on all of the given nodes (and their virtual routers)
    *
@@ -565,11 +647,42 @@ class IncrementalBdpEngine {
             .forEach(vr -> vr.initForIgpComputation(topologyContext));
       }
 
-      // OSPF internal routes
-      numOspfInternalIterations = initOspfInternalRoutes(nodes, topologyContext.getOspfTopology());
+      // OSPF internal routes, converged independently in each OSPF domain
+      OspfTopology ospfTopology = topologyContext.getOspfTopology();
+      try (ActiveSpan ospfSpan =
+          GlobalTracer.get().buildSpan("Compute OSPF internal routes").startActive()) {
+        assert ospfSpan != null; // avoid unused warning
+        numOspfInternalIterations =
+            computeDomains(
+                    nodes, ospfTopology.getGraph().edges(), OspfNeighborConfigId::getHostname)
+                .parallelStream()
+                .filter(domain -> hasVirtualRouter(domain, vr -> !vr.getOspfProcesses().isEmpty()))
+                .mapToInt(domain -> initOspfInternalRoutes(domain, ospfTopology))
+                .max()
+                .orElse(0);
+      }
 
-      // RIP internal routes
-      initRipInternalRoutes(nodes, topologyContext.getLayer3Topology());
+      // RIP internal routes, converged independently in each RIP domain
+      Topology layer3Topology = topologyContext.getLayer3Topology();
+      try (ActiveSpan ripSpan =
+          GlobalTracer.get().buildSpan("Compute RIP internal routes").startActive()) {
+        assert ripSpan != null; // avoid unused warning
+        // RIP speakers read routes from all of their layer-3 neighbors
+        Set<String> ripNodes =
+            nodes.values().stream()
+                .filter(node -> hasVirtualRouter(node, vr -> vr._vrf.getRipProcess() != null))
+                .map(node -> node.getConfiguration().getHostname())
+                .collect(ImmutableSet.toImmutableSet());
+        Set<EndpointPair<String>> ripAdjacencies =
+            layer3Topology.getEdges().stream()
+                .filter(edge -> ripNodes.contains(edge.getNode1()))
+                .map(edge -> EndpointPair.unordered(edge.getNode1(), edge.getNode2()))
+                .collect(ImmutableSet.toImmutableSet());
+        computeDomains(nodes, ripAdjacencies, Function.identity())
+            .parallelStream()
+            .filter(domain -> !Collections.disjoint(domain.keySet(), ripNodes))
+            .forEach(domain -> initRipInternalRoutes(domain, layer3Topology));
+      }
 
       // Activate static routes
       try (ActiveSpan staticSpan =
@@ -664,7 +777,22 @@ class IncrementalBdpEngine {
 
       Map<Integer, SortedSet<Integer>> iterationsByHashCode = new HashMap<>();
 
+      List<SortedMap<String, Node>> isisDomains =
+          computeDomains(
+              nodes,
+              topologyContext.getIsisTopology().getNetwork().asGraph().edges(),
+              IsisNode::getNode);
+
       Schedule currentSchedule = _settings.getScheduleName();
+      @Nullable
+      EventDrivenScheduler eventDrivenScheduler =
+          currentSchedule == Schedule.EVENT_DRIVEN
+              ? new EventDrivenScheduler(
+                  nodes,
+                  _settings.getColoringType(),
+                  topologyContext,
+                  IncrementalBdpEngine::hasPendingWork)
+              : null;
 
       // Go into iteration mode, until the routes converge (or oscillation is detected)
       do {
@@ -678,7 +806,10 @@ class IncrementalBdpEngine {
               GlobalTracer.get().buildSpan("Compute schedule").startActive()) {
             assert innerSpan != null; // avoid unused warning
             // Compute node schedule
-            schedule = IbdpSchedule.getSchedule(_settings, currentSchedule, nodes, topologyContext);
+            schedule =
+                eventDrivenScheduler != null
+                    ? eventDrivenScheduler.nextIteration()
+                    : IbdpSchedule.getSchedule(_settings, currentSchedule, nodes, topologyContext);
           }
 
           // compute dependent routes for each allowable set of nodes until we cover all nodes
@@ -693,6 +824,7 @@ class IncrementalBdpEngine {
                 iterationlabel,
                 nodes,
                 topologyContext,
+                isisDomains,
                 networkConfigurations,
                 _numIterations);
             ++nodeSet;
@@ -720,33 +852,42 @@ class IncrementalBdpEngine {
                   "Switching to a more restrictive schedule %s, iteration %d\n",
                   Schedule.NODE_SERIALIZED, _numIterations);
               currentSchedule = Schedule.NODE_SERIALIZED;
+              eventDrivenScheduler = null;
             } else {
               return true; // Found an oscillation
             }
           }
         }
-      } while (hasNotReachedRoutingFixedPoint(nodes));
+      } while (hasNotReachedRoutingFixedPoint(nodes, eventDrivenScheduler));
 
       ae.setDependentRoutesIterations(_numIterations);
       return false; // No oscillations
     }
   }
 
-  /** Check if we have reached a routing fixed point */
-  private boolean hasNotReachedRoutingFixedPoint(Map<String, Node> nodes) {
+  /**
+   * Check if we have reached a routing fixed point. If an {@link EventDrivenScheduler} is given,
+   * only the nodes it has not ruled out are checked.
+   */
+  private boolean hasNotReachedRoutingFixedPoint(
+      Map<String, Node> nodes, @Nullable EventDrivenScheduler eventDrivenScheduler) {
     try (ActiveSpan span =
         GlobalTracer.get()
             .buildSpan("Iteration " + _numIterations + ": Check if fixed-point reached")
             .startActive()) {
       assert span != null; // avoid unused warning
-      return nodes
-          .values()
-          .parallelStream()
-          .flatMap(n -> n.getVirtualRouters().values().stream())
-          .anyMatch(VirtualRouter::isDirty);
+      if (eventDrivenScheduler != null) {
+        return eventDrivenScheduler.hasPendingWork();
+      }
+      return nodes.values().parallelStream().anyMatch(IncrementalBdpEngine::hasPendingWork);
     }
   }
 
+  /** Check if any of the node's virtual routers has unprocessed messages or route deltas */
+  private static boolean hasPendingWork(Node node) {
+    return node.getVirtualRouters().values().stream().anyMatch(VirtualRouter::isDirty);
+  }
+
   /**
    * Compute the hashcode that uniquely identifies the state of the network at a given iteration
    *
@@ -814,6 +955,79 @@ class IncrementalBdpEngine {
                 vrfEntry -> ImmutableSet.copyOf(vrfEntry.getValue().getMainRib().getRoutes())));
   }
 
+  /**
+   * Partition the given nodes into routing domains: the connected components of the graph of the
+   * given adjacencies. Nodes in different domains never exchange routes over these adjacencies, so
+   * each domain can be converged independently. Adjacencies with endpoints outside of {@code nodes}
+   * are ignored.
+   *
+   * @param nodes the nodes to partition, keyed by hostname
+   * @param adjacencies the adjacencies between nodes
+   * @param hostname maps an adjacency endpoint to its hostname
+   * @return the domains, each keyed by hostname
+   */
+  @VisibleForTesting
+  static <T> List<SortedMap<String, Node>> computeDomains(
+      SortedMap<String, Node> nodes,
+      Collection<EndpointPair<T>> adjacencies,
+      Function<T, String> hostname) {
+    Graph<String, DefaultEdge> graph = new Pseudograph<>(DefaultEdge.class);
+    nodes.keySet().forEach(graph::addVertex);
+    for (EndpointPair<T> adjacency : adjacencies) {
+      String u = hostname.apply(adjacency.nodeU());
+      String v = hostname.apply(adjacency.nodeV());
+      if (nodes.containsKey(u) && nodes.containsKey(v)) {
+        graph.addEdge(u, v);
+      }
+    }
+    return new ConnectivityInspector<>(graph)
+        .connectedSets().stream()
+            .map(domain -> toImmutableSortedMap(domain, Function.identity(), nodes::get))
+            .collect(ImmutableList.toImmutableList());
+  }
+
+  /** Check if any of the given nodes has a virtual router satisfying the given predicate */
+  private static boolean hasVirtualRouter(
+      Map<String, Node> nodes, Predicate<VirtualRouter> predicate) {
+    return nodes.values().stream().anyMatch(node -> hasVirtualRouter(node, predicate));
+  }
+
+  /** Check if the given node has a virtual router satisfying the given predicate */
+  private static boolean hasVirtualRouter(Node node, Predicate<VirtualRouter> predicate) {
+    return node.getVirtualRouters().values().stream().anyMatch(predicate);
+  }
+
+  /**
+   * Propagate IS-IS routes among the given nodes until no more routes change
+   *
+   * @param nodes nodes whose IS-IS routes to propagate, keyed by name
+   * @param allNodes all nodes in the network (for correct neighbor referencing)
+   * @param networkConfigurations the network configurations
+   */
+  private static void propagateIsisRoutes(
+      Map<String, Node> nodes,
+      Map<String, Node> allNodes,
+      NetworkConfigurations networkConfigurations) {
+    AtomicBoolean isisChanged = new AtomicBoolean(true);
+    while (isisChanged.get()) {
+      isisChanged.set(false);
+      nodes
+          .values()
+          .parallelStream()
+          .flatMap(n -> n.getVirtualRouters().values().stream())
+          .forEach(
+              vr -> {
+                Entry<RibDelta<IsisRoute>, RibDelta<IsisRoute>> p =
+                    vr.propagateIsisRoutes(networkConfigurations);
+                if (p != null
+                    && vr.unstageIsisRoutes(
+                        allNodes, networkConfigurations, p.getKey(), p.getValue())) {
+                  isisChanged.set(true);
+                }
+              });
+    }
+  }
+
   /**
    * Run the IGP OSPF computation until convergence.
    *
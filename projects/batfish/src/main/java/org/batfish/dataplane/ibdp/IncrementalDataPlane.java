@@ -8,6 +8,7 @@ import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Table;
 import java.io.Serializable;
 import java.util.Map;
@@ -15,6 +16,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedMap;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.batfish.datamodel.AbstractRoute;
 import org.batfish.datamodel.AnnotatedRoute;
 import org.batfish.datamodel.Bgpv4Route;
@@ -35,6 +37,8 @@ public final class IncrementalDataPlane implements Serializable, DataPlane {
 
     private Map<String, Node> _nodes;
     private Topology _layer3Topology;
+    private @Nullable DataPlane _parent;
+    private Set<String> _reusedNodes = ImmutableSet.of();
 
     public Builder setNodes(Map<String, Node> nodes) {
       _nodes = ImmutableMap.copyOf(nodes);
@@ -46,6 +50,17 @@ public final class IncrementalDataPlane implements Serializable, DataPlane {
       return this;
     }
 
+    /**
+     * Sets the data plane that the {@link #setNodes nodes} named by {@code reusedNodes} were reused
+     * from. The BGP and EVPN routes of those nodes are not serialized with them, so they are taken
+     * from {@code parent} instead.
+     */
+    public Builder setParent(@Nullable DataPlane parent, Set<String> reusedNodes) {
+      _parent = parent;
+      _reusedNodes = ImmutableSet.copyOf(reusedNodes);
+      return this;
+    }
+
     public IncrementalDataPlane build() {
       return new IncrementalDataPlane(this);
     }
@@ -105,8 +120,8 @@ public final class IncrementalDataPlane implements Serializable, DataPlane {
   private IncrementalDataPlane(Builder builder) {
     _nodes = builder._nodes;
     _layer3Topology = builder._layer3Topology;
-    _bgpRoutes = computeBgpRoutes();
-    _evpnRoutes = computeEvpnRoutes();
+    _bgpRoutes = computeBgpRoutes(builder._parent, builder._reusedNodes);
+    _evpnRoutes = computeEvpnRoutes(builder._parent, builder._reusedNodes);
     _vniSettings = computeVniSettings();
   }
 
@@ -157,29 +172,41 @@ public final class IncrementalDataPlane implements Serializable, DataPlane {
   }
 
   @Nonnull
-  private Table<String, String, Set<Bgpv4Route>> computeBgpRoutes() {
+  private Table<String, String, Set<Bgpv4Route>> computeBgpRoutes(
+      @Nullable DataPlane parent, Set<String> reusedNodes) {
     Table<String, String, Set<Bgpv4Route>> table = HashBasedTable.create();
 
     _nodes.forEach(
-        (hostname, node) ->
-            node.getVirtualRouters()
-                .forEach(
-                    (vrfName, vr) -> {
-                      table.put(hostname, vrfName, vr.getBgpRoutes());
-                    }));
+        (hostname, node) -> {
+          if (parent != null && reusedNodes.contains(hostname)) {
+            table.row(hostname).putAll(parent.getBgpRoutes().row(hostname));
+            return;
+          }
+          node.getVirtualRouters()
+              .forEach(
+                  (vrfName, vr) -> {
+                    table.put(hostname, vrfName, vr.getBgpRoutes());
+                  });
+        });
     return table;
   }
 
   @Nonnull
-  private Table<String, String, Set<EvpnRoute<?, ?>>> computeEvpnRoutes() {
+  private Table<String, String, Set<EvpnRoute<?, ?>>> computeEvpnRoutes(
+      @Nullable DataPlane parent, Set<String> reusedNodes) {
     Table<String, String, Set<EvpnRoute<?, ?>>> table = HashBasedTable.create();
     _nodes.forEach(
-        (hostname, node) ->
-            node.getVirtualRouters()
-                .forEach(
-                    (vrfName, vr) -> {
-                      table.put(hostname, vrfName, vr.getEvpnRoutes());
-                    }));
+        (hostname, node) -> {
+          if (parent != null && reusedNodes.contains(hostname)) {
+            table.row(hostname).putAll(parent.getEvpnRoutes().row(hostname));
+            return;
+          }
+          node.getVirtualRouters()
+              .forEach(
+                  (vrfName, vr) -> {
+                    table.put(hostname, vrfName, vr.getEvpnRoutes());
+                  });
+        });
     return table;
   }
 
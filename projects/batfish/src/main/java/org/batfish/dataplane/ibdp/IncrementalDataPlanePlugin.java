@@ -3,14 +3,16 @@ package org.batfish.dataplane.ibdp;
 import com.google.auto.service.AutoService;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.plugin.DataPlanePlugin;
 import org.batfish.common.plugin.Plugin;
 import org.batfish.common.topology.TopologyProvider;
 import org.batfish.datamodel.BgpAdvertisement;
 import org.batfish.datamodel.Configuration;
-import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.DataPlane;
 import org.batfish.datamodel.answers.IncrementalBdpAnswerElement;
+import org.batfish.dataplane.SpilledDataPlane;
 
 /** A batfish plugin that registers the Incremental Batfish Data Plane (ibdp) Engine. */
 @AutoService(Plugin.class)
@@ -20,27 +22,20 @@ public class IncrementalDataPlanePlugin extends DataPlanePlugin {
 
   private IncrementalBdpEngine _engine;
 
+  private IncrementalDataPlaneSettings _settings;
+
   public IncrementalDataPlanePlugin() {}
 
   @Override
   public ComputeDataPlaneResult computeDataPlane(NetworkSnapshot snapshot) {
     Map<String, Configuration> configurations = _batfish.loadConfigurations(snapshot);
-    Topology topology = _batfish.getTopologyProvider().getInitialLayer3Topology(snapshot);
     Set<BgpAdvertisement> externalAdverts =
         _batfish.loadExternalBgpAnnouncements(snapshot, configurations);
-    TopologyProvider topologyProvider = _batfish.getTopologyProvider();
-    TopologyContext topologyContext =
-        TopologyContext.builder()
-            .setIpsecTopology(topologyProvider.getInitialIpsecTopology(snapshot))
-            .setLayer1LogicalTopology(topologyProvider.getLayer1LogicalTopology(snapshot))
-            .setLayer2Topology(topologyProvider.getInitialLayer2Topology(snapshot))
-            .setLayer3Topology(topology)
-            .setOspfTopology(topologyProvider.getInitialOspfTopology(snapshot))
-            .setRawLayer1PhysicalTopology(topologyProvider.getRawLayer1PhysicalTopology(snapshot))
-            .build();
+    TopologyContext topologyContext = loadInitialTopologyContext(snapshot);
 
     ComputeDataPlaneResult answer =
-        _engine.computeDataPlane(configurations, topologyContext, externalAdverts);
+        _engine.computeDataPlane(
+            configurations, topologyContext, externalAdverts, loadParentDataPlane(snapshot));
     double averageRoutes =
         ((IncrementalDataPlane) answer._dataPlane)
             .getNodes().values().stream()
@@ -56,12 +51,57 @@ public class IncrementalDataPlanePlugin extends DataPlanePlugin {
     return answer;
   }
 
+  private TopologyContext loadInitialTopologyContext(NetworkSnapshot snapshot) {
+    TopologyProvider topologyProvider = _batfish.getTopologyProvider();
+    return TopologyContext.builder()
+        .setIpsecTopology(topologyProvider.getInitialIpsecTopology(snapshot))
+        .setLayer1LogicalTopology(topologyProvider.getLayer1LogicalTopology(snapshot))
+        .setLayer2Topology(topologyProvider.getInitialLayer2Topology(snapshot))
+        .setLayer3Topology(topologyProvider.getInitialLayer3Topology(snapshot))
+        .setOspfTopology(topologyProvider.getInitialOspfTopology(snapshot))
+        .setRawLayer1PhysicalTopology(topologyProvider.getRawLayer1PhysicalTopology(snapshot))
+        .build();
+  }
+
+  /**
+   * Returns the data plane of the snapshot that {@code snapshot} was forked from, if reusing it is
+   * enabled and it was computed by this plugin. Otherwise, returns {@code null}.
+   */
+  private @Nullable ParentDataPlane loadParentDataPlane(NetworkSnapshot snapshot) {
+    if (!_settings.getReuseParentDataPlane()) {
+      return null;
+    }
+    NetworkSnapshot parent = _batfish.registerParentSnapshot(snapshot);
+    if (parent == null) {
+      return null;
+    }
+    DataPlane dataPlane = _batfish.loadDataPlane(parent);
+    Map<String, Node> nodes = null;
+    if (dataPlane instanceof IncrementalDataPlane) {
+      nodes = ((IncrementalDataPlane) dataPlane).getNodes();
+    } else if (dataPlane instanceof SpilledDataPlane) {
+      // The converged nodes are read back from the spill files
+      nodes = ((SpilledDataPlane) dataPlane).getNodes();
+    }
+    if (nodes == null) {
+      _logger.infof(
+          "Not reusing the data plane of parent snapshot %s: it was not computed by %s\n",
+          parent.getSnapshot(), PLUGIN_NAME);
+      return null;
+    }
+    Map<String, Configuration> configurations = _batfish.loadConfigurations(parent);
+    return new ParentDataPlane(
+        configurations,
+        loadInitialTopologyContext(parent),
+        _batfish.loadExternalBgpAnnouncements(parent, configurations),
+        dataPlane,
+        nodes);
+  }
+
   @Override
   protected void dataPlanePluginInitialize() {
-    _engine =
-        new IncrementalBdpEngine(
-            new IncrementalDataPlaneSettings(_batfish.getSettingsConfiguration()),
-            _batfish.getLogger());
+    _settings = new IncrementalDataPlaneSettings(_batfish.getSettingsConfiguration());
+    _engine = new IncrementalBdpEngine(_settings, _batfish.getLogger());
   }
 
   @Override
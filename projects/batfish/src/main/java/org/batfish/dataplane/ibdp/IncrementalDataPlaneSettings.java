@@ -17,6 +17,7 @@ public class IncrementalDataPlaneSettings {
   private Configuration _config;
 
   public static final String PROP_COLORING = "coloring";
+  public static final String PROP_REUSE_PARENT_DATA_PLANE = "reuseparentdataplane";
   public static final String PROP_SCHEDULE = "schedule";
 
   /**
@@ -48,6 +49,7 @@ public class IncrementalDataPlaneSettings {
   /** Initialize defaults for all properties */
   private void initDefaults() {
     _config.setProperty(PROP_COLORING, SATURATION.toString());
+    _config.setProperty(PROP_REUSE_PARENT_DATA_PLANE, false);
     _config.setProperty(PROP_SCHEDULE, NODE_COLORED.toString());
   }
 
@@ -63,4 +65,12 @@ public class IncrementalDataPlaneSettings {
   public Coloring getColoringType() {
     return Coloring.valueOf(_config.getString(PROP_COLORING));
   }
+
+  /**
+   * Return whether the data plane of a forked snapshot should reuse the parts of its parent
+   * snapshot's data plane that are unaffected by the fork's changes
+   */
+  public boolean getReuseParentDataPlane() {
+    return _config.getBoolean(PROP_REUSE_PARENT_DATA_PLANE);
+  }
 }
@@ -1490,7 +1490,7 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
   }
 
   int iterationHashCode() {
-    return Stream.of(
+    return Streams.concat(
             // Message queues
             Stream.of(
                     _intraAreaIncomingRoutes,
@@ -1503,7 +1503,7 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
             _activatedGeneratedRoutes.getActions(),
             // RIB state
             Stream.of(_intraAreaRib, _interAreaRib, _type1Rib, _type2Rib)
-                .map(AbstractRib::getTypedRoutes))
+                .map(AbstractRib::getRoutesHashCode))
         .collect(toOrderedHashCode());
   }
 
@@ -0,0 +1,254 @@
+package org.batfish.dataplane.ibdp;
+
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSetMultimap.toImmutableSetMultimap;
+import static org.batfish.common.util.IpsecUtil.toEdgeSet;
+import static org.batfish.datamodel.bgp.BgpTopologyUtils.initBgpTopology;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.apache.commons.lang3.SerializationUtils;
+import org.batfish.common.topology.IpOwners;
+import org.batfish.common.topology.TopologyUtil;
+import org.batfish.datamodel.BgpAdvertisement;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.DataPlane;
+import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.vxlan.VxlanTopologyUtils;
+import org.jgrapht.Graph;
+import org.jgrapht.alg.connectivity.ConnectivityInspector;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.Pseudograph;
+
+/**
+ * The converged data plane of a parent snapshot, along with the inputs it was computed from.
+ *
+ * <p>Nodes only exchange routes over adjacencies (layer-1 and layer-3 edges, tunnels, IPsec and
+ * VXLAN peerings, and BGP sessions), so the network partitions into independent routing domains:
+ * the connected components of the graph of all adjacencies that could come up. A domain whose
+ * nodes, adjacencies, and external advertisements are all unchanged from the parent snapshot
+ * converges to exactly the parent's routing state, so its nodes can be reused instead of
+ * recomputed.
+ */
+@ParametersAreNonnullByDefault
+final class ParentDataPlane {
+
+  /** A potential adjacency between two nodes, identified by the topology edge that induces it. */
+  private static final class Adjacency {
+    private final @Nonnull String _node1;
+    private final @Nonnull String _node2;
+    private final @Nonnull Object _edge;
+
+    private Adjacency(String node1, String node2, Object edge) {
+      _node1 = node1;
+      _node2 = node2;
+      _edge = edge;
+    }
+
+    private static @Nonnull Adjacency of(Edge edge) {
+      return new Adjacency(edge.getNode1(), edge.getNode2(), edge);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      } else if (!(o instanceof Adjacency)) {
+        return false;
+      }
+      Adjacency adjacency = (Adjacency) o;
+      return _node1.equals(adjacency._node1)
+          && _node2.equals(adjacency._node2)
+          && _edge.equals(adjacency._edge);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_node1, _node2, _edge);
+    }
+  }
+
+  private final @Nonnull Map<String, Configuration> _configurations;
+  private final @Nonnull DataPlane _dataPlane;
+  private final @Nonnull Set<BgpAdvertisement> _externalAdverts;
+  private final @Nonnull Map<String, Node> _nodes;
+  private final @Nonnull TopologyContext _topologyContext;
+
+  /**
+   * @param configurations The parent snapshot's configurations
+   * @param topologyContext The initial topologies of the parent snapshot
+   * @param externalAdverts The parent snapshot's external BGP advertisements
+   * @param dataPlane The data plane computed for the parent snapshot
+   */
+  ParentDataPlane(
+      Map<String, Configuration> configurations,
+      TopologyContext topologyContext,
+      Set<BgpAdvertisement> externalAdverts,
+      IncrementalDataPlane dataPlane) {
+    this(configurations, topologyContext, externalAdverts, dataPlane, dataPlane.getNodes());
+  }
+
+  /**
+   * @param configurations The parent snapshot's configurations
+   * @param topologyContext The initial topologies of the parent snapshot
+   * @param externalAdverts The parent snapshot's external BGP advertisements
+   * @param dataPlane The data plane computed for the parent snapshot, possibly spilled to disk
+   * @param nodes The converged nodes of {@code dataPlane}, keyed by hostname. Only the reusable
+   *     nodes are looked up.
+   */
+  ParentDataPlane(
+      Map<String, Configuration> configurations,
+      TopologyContext topologyContext,
+      Set<BgpAdvertisement> externalAdverts,
+      DataPlane dataPlane,
+      Map<String, Node> nodes) {
+    _configurations = configurations;
+    _topologyContext = topologyContext;
+    _externalAdverts = externalAdverts;
+    _dataPlane = dataPlane;
+    _nodes = nodes;
+  }
+
+  @Nonnull
+  DataPlane getDataPlane() {
+    return _dataPlane;
+  }
+
+  /**
+   * Returns the converged parent {@link Node nodes} that can be reused in a data plane computation
+   * with the given inputs, keyed by hostname.
+   */
+  @Nonnull
+  Map<String, Node> getReusableNodes(
+      Map<String, Configuration> configurations,
+      TopologyContext topologyContext,
+      Set<BgpAdvertisement> externalAdverts) {
+    Set<Adjacency> adjacencies = computeAdjacencies(configurations, topologyContext);
+    Set<Adjacency> parentAdjacencies = computeAdjacencies(_configurations, _topologyContext);
+
+    Set<String> changed = computeChangedNodes(configurations, externalAdverts);
+    for (Adjacency adjacency : Sets.symmetricDifference(adjacencies, parentAdjacencies)) {
+      changed.add(adjacency._node1);
+      changed.add(adjacency._node2);
+    }
+
+    Graph<String, DefaultEdge> domains = new Pseudograph<>(DefaultEdge.class);
+    Sets.union(configurations.keySet(), _configurations.keySet()).forEach(domains::addVertex);
+    for (Adjacency adjacency : Sets.union(adjacencies, parentAdjacencies)) {
+      domains.addVertex(adjacency._node1);
+      domains.addVertex(adjacency._node2);
+      domains.addEdge(adjacency._node1, adjacency._node2);
+    }
+
+    return new ConnectivityInspector<>(domains)
+        .connectedSets().stream()
+            .filter(
+                domain ->
+                    domain.stream()
+                        .allMatch(
+                            hostname ->
+                                configurations.containsKey(hostname)
+                                    && !changed.contains(hostname)))
+            .flatMap(Set::stream)
+            .collect(toImmutableMap(Function.identity(), _nodes::get));
+  }
+
+  /**
+   * Returns every adjacency that could come up in a network with the given configurations and
+   * initial topologies.
+   */
+  private static @Nonnull Set<Adjacency> computeAdjacencies(
+      Map<String, Configuration> configurations, TopologyContext topologyContext) {
+    ImmutableSet.Builder<Adjacency> adjacencies = ImmutableSet.builder();
+    topologyContext.getLayer3Topology().getEdges().stream()
+        .map(Adjacency::of)
+        .forEach(adjacencies::add);
+    topologyContext
+        .getLayer1LogicalTopology()
+        .ifPresent(
+            layer1 ->
+                layer1
+                    .getGraph()
+                    .edges()
+                    .forEach(
+                        edge ->
+                            adjacencies.add(
+                                new Adjacency(
+                                    edge.getNode1().getHostname(),
+                                    edge.getNode2().getHostname(),
+                                    edge))));
+    toEdgeSet(topologyContext.getIpsecTopology(), configurations).stream()
+        .map(Adjacency::of)
+        .forEach(adjacencies::add);
+    TopologyUtil.computeInitialTunnelTopology(configurations).asEdgeSet().stream()
+        .map(Adjacency::of)
+        .forEach(adjacencies::add);
+    VxlanTopologyUtils.computeVxlanTopology(configurations)
+        .getGraph()
+        .edges()
+        .forEach(
+            edge ->
+                adjacencies.add(
+                    new Adjacency(edge.nodeU().getHostname(), edge.nodeV().getHostname(), edge)));
+    // All compatible BGP peerings, whether or not they turn out to be reachable
+    initBgpTopology(configurations, new IpOwners(configurations).getIpVrfOwners(), false, null)
+        .getGraph()
+        .edges()
+        .forEach(
+            edge ->
+                adjacencies.add(
+                    new Adjacency(edge.source().getHostname(), edge.target().getHostname(), edge)));
+    return adjacencies.build();
+  }
+
+  /**
+   * Returns the hostnames of nodes that were added, removed, or reconfigured, or whose external
+   * advertisements changed.
+   */
+  private @Nonnull Set<String> computeChangedNodes(
+      Map<String, Configuration> configurations, Set<BgpAdvertisement> externalAdverts) {
+    Set<String> changed =
+        Sets.newHashSet(
+            Sets.symmetricDifference(configurations.keySet(), _configurations.keySet()));
+    // Nodes missing from the parent data plane cannot be reused.
+    changed.addAll(Sets.difference(_configurations.keySet(), _nodes.keySet()));
+    changed.addAll(
+        Sets.intersection(configurations.keySet(), _configurations.keySet())
+            .parallelStream()
+            .filter(
+                hostname ->
+                    !sameConfiguration(configurations.get(hostname), _configurations.get(hostname)))
+            .collect(ImmutableSet.toImmutableSet()));
+
+    SetMultimap<String, BgpAdvertisement> advertsByNode = indexByDstNode(externalAdverts);
+    SetMultimap<String, BgpAdvertisement> parentAdvertsByNode = indexByDstNode(_externalAdverts);
+    for (String hostname : Sets.union(advertsByNode.keySet(), parentAdvertsByNode.keySet())) {
+      if (!advertsByNode.get(hostname).equals(parentAdvertsByNode.get(hostname))) {
+        changed.add(hostname);
+      }
+    }
+    return changed;
+  }
+
+  private static @Nonnull SetMultimap<String, BgpAdvertisement> indexByDstNode(
+      Set<BgpAdvertisement> adverts) {
+    return adverts.stream()
+        .collect(toImmutableSetMultimap(BgpAdvertisement::getDstNode, Function.identity()));
+  }
+
+  /**
+   * Returns whether two configurations are identical. Configurations do not implement {@code
+   * equals}, so their serialized forms are compared. A false negative only costs a recomputation.
+   */
+  private static boolean sameConfiguration(Configuration c1, Configuration c2) {
+    return Arrays.equals(SerializationUtils.serialize(c1), SerializationUtils.serialize(c2));
+  }
+}
@@ -1891,14 +1891,14 @@ public class VirtualRouter implements Serializable {
   int computeIterationHashCode() {
     return Streams.concat(
             // RIB State
-            Stream.of(_mainRib.getTypedRoutes()),
+            Stream.of(_mainRib.getRoutesHashCode()),
             // Message queues
             Stream.of(_isisIncomingRoutes, _crossVrfIncomingRoutes)
                 .flatMap(m -> m.values().stream())
                 .flatMap(Queue::stream),
-            Stream.of(_routesForIsisRedistribution),
+            Stream.of(_routesForIsisRedistribution.build()),
             // Processes
-            Stream.of(_ospfProcesses.values().stream().map(OspfRoutingProcess::iterationHashCode)),
+            _ospfProcesses.values().stream().map(OspfRoutingProcess::iterationHashCode),
             Stream.of(_eigrpProcesses)
                 .flatMap(m -> m.values().stream())
                 .map(EigrpRoutingProcess::computeIterationHashCode),
@@ -0,0 +1,141 @@
+package org.batfish.dataplane.ibdp.schedule;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import com.google.common.graph.EndpointPair;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.BgpPeerConfigId;
+import org.batfish.datamodel.eigrp.EigrpNeighborConfigId;
+import org.batfish.datamodel.isis.IsisNode;
+import org.batfish.datamodel.ospf.OspfNeighborConfigId;
+import org.batfish.dataplane.ibdp.Node;
+import org.batfish.dataplane.ibdp.TopologyContext;
+import org.batfish.dataplane.ibdp.schedule.NodeColoredSchedule.Coloring;
+
+/**
+ * Produces event-driven schedules for the iterations of a dataplane fixed-point computation. Only
+ * nodes with pending work (queued messages or unprocessed route deltas) are scheduled, and the
+ * schedule is colored like a {@link NodeColoredSchedule}.
+ *
+ * <p>A node can only get new work by running, or by receiving messages from a neighbor that ran. So
+ * after each iteration, only the nodes that ran and their neighbors need to be checked for pending
+ * work, both to schedule the next iteration and to detect convergence.
+ */
+@ParametersAreNonnullByDefault
+public final class EventDrivenScheduler {
+
+  private final @Nonnull Coloring _coloring;
+  private final @Nonnull Predicate<Node> _hasPendingWork;
+  private final @Nonnull SetMultimap<String, String> _neighbors;
+  private final @Nonnull Map<String, Node> _nodes;
+
+  /** Nodes that may have pending work. Other nodes are known to have none. */
+  private @Nonnull Set<String> _candidates;
+
+  private boolean _firstIteration;
+
+  /**
+   * Create a new scheduler. Initially, every node may have pending work.
+   *
+   * @param nodes all nodes participating in the computation
+   * @param coloring the {@link Coloring} used to schedule nodes with pending work
+   * @param topologyContext the topologies over which nodes exchange messages
+   * @param hasPendingWork whether a node has pending work
+   */
+  public EventDrivenScheduler(
+      Map<String, Node> nodes,
+      Coloring coloring,
+      TopologyContext topologyContext,
+      Predicate<Node> hasPendingWork) {
+    _nodes = ImmutableMap.copyOf(nodes);
+    _coloring = coloring;
+    _hasPendingWork = hasPendingWork;
+    _neighbors = computeNeighbors(topologyContext);
+    _candidates = _nodes.keySet();
+    _firstIteration = true;
+  }
+
+  /**
+   * Return the schedule for the next iteration, containing the nodes with pending work. In the
+   * first iteration, all nodes are scheduled.
+   */
+  public @Nonnull IbdpSchedule nextIteration() {
+    Map<String, Node> scheduled;
+    if (_firstIteration) {
+      scheduled = _nodes;
+      _firstIteration = false;
+    } else {
+      Set<String> pending = getPending();
+      scheduled = Maps.filterKeys(_nodes, pending::contains);
+    }
+    ImmutableSet.Builder<String> candidates = ImmutableSet.builder();
+    for (String hostname : scheduled.keySet()) {
+      candidates.add(hostname);
+      candidates.addAll(_neighbors.get(hostname));
+    }
+    _candidates = candidates.build();
+    return new NodeColoredSchedule(scheduled, _coloring, _neighbors);
+  }
+
+  /** Return whether any node has pending work. */
+  public boolean hasPendingWork() {
+    return _candidates.stream().map(_nodes::get).anyMatch(_hasPendingWork);
+  }
+
+  /** Return the hostnames of the nodes with pending work. */
+  @VisibleForTesting
+  @Nonnull
+  Set<String> getPending() {
+    return _candidates.stream()
+        .filter(hostname -> _hasPendingWork.test(_nodes.get(hostname)))
+        .collect(ImmutableSet.toImmutableSet());
+  }
+
+  /**
+   * Return the nodes adjacent to each node in any routing protocol topology. Adjacency is
+   * symmetric, since messages can flow either way.
+   */
+  private static @Nonnull SetMultimap<String, String> computeNeighbors(
+      TopologyContext topologyContext) {
+    ImmutableSetMultimap.Builder<String, String> neighbors = ImmutableSetMultimap.builder();
+    addNeighbors(
+        neighbors,
+        topologyContext.getBgpTopology().getGraph().edges(),
+        BgpPeerConfigId::getHostname);
+    addNeighbors(
+        neighbors,
+        topologyContext.getEigrpTopology().getNetwork().asGraph().edges(),
+        EigrpNeighborConfigId::getHostname);
+    addNeighbors(
+        neighbors,
+        topologyContext.getIsisTopology().getNetwork().asGraph().edges(),
+        IsisNode::getNode);
+    addNeighbors(
+        neighbors,
+        topologyContext.getOspfTopology().getGraph().edges(),
+        OspfNeighborConfigId::getHostname);
+    return neighbors.build();
+  }
+
+  private static <T> void addNeighbors(
+      ImmutableSetMultimap.Builder<String, String> neighbors,
+      Set<EndpointPair<T>> edges,
+      Function<T, String> hostname) {
+    for (EndpointPair<T> edge : edges) {
+      String u = hostname.apply(edge.nodeU());
+      String v = hostname.apply(edge.nodeV());
+      if (!u.equals(v)) {
+        neighbors.put(u, v).put(v, u);
+      }
+    }
+  }
+}
@@ -19,6 +19,8 @@ public abstract class IbdpSchedule implements Iterator<Map<String, Node>> {
 
   public enum Schedule {
     ALL,
+    /** See {@link EventDrivenScheduler} */
+    EVENT_DRIVEN,
     NODE_COLORED,
     NODE_SERIALIZED,
   }
@@ -84,6 +86,8 @@ public abstract class IbdpSchedule implements Iterator<Map<String, Node>> {
         return new MaxParallelSchedule(allNodes);
       case NODE_SERIALIZED:
         return new NodeSerializedSchedule(allNodes);
+      case EVENT_DRIVEN:
+        // Without the state of previous iterations, every node may have pending work.
       case NODE_COLORED:
         Coloring coloring = settings.getColoringType();
         return new NodeColoredSchedule(allNodes, coloring, topologyContext);
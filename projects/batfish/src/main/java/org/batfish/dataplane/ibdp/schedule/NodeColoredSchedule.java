@@ -2,6 +2,7 @@ package org.batfish.dataplane.ibdp.schedule;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
 import com.google.common.graph.EndpointPair;
 import java.util.Iterator;
 import java.util.List;
@@ -41,12 +42,30 @@ public class NodeColoredSchedule extends IbdpSchedule {
       Map<String, Node> nodes, Coloring algorithm, TopologyContext topologyContext) {
     super(nodes);
     makeGraph(nodes, topologyContext);
+    _iterator = colorGraph(algorithm);
+  }
+
+  /**
+   * Create a new schedule based on existing nodes and their neighbors
+   *
+   * @param nodes the nodes to schedule
+   * @param neighbors the neighbors of each node. Neighbors that are not scheduled are ignored.
+   */
+  NodeColoredSchedule(
+      Map<String, Node> nodes, Coloring algorithm, SetMultimap<String, String> neighbors) {
+    super(nodes);
+    _graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+    nodes.keySet().forEach(n -> _graph.addVertex(n));
+    nodes.keySet().forEach(n -> neighbors.get(n).forEach(neighbor -> addEdge(n, neighbor)));
+    _iterator = colorGraph(algorithm);
+  }
 
-    // Color the graph
+  /** Color the graph, and return an iterator over its color classes */
+  private Iterator<Set<String>> colorGraph(Coloring algorithm) {
     VertexColoringAlgorithm<String> coloringAlg = getColoringAlgorithmInstance(algorithm, _graph);
     VertexColoringAlgorithm.Coloring<String> coloring = coloringAlg.getColoring();
     List<Set<String>> colorClasses = ImmutableList.copyOf(coloring.getColorClasses());
-    _iterator = colorClasses.iterator();
+    return colorClasses.iterator();
   }
 
   /**
@@ -90,11 +109,21 @@ public class NodeColoredSchedule extends IbdpSchedule {
 
     // Process BGP connections
     for (EndpointPair<BgpPeerConfigId> edge : topologyContext.getBgpTopology().getGraph().edges()) {
-      _graph.addEdge(edge.source().getHostname(), edge.target().getHostname());
+      addEdge(edge.source().getHostname(), edge.target().getHostname());
     }
     // Process OSPF edges
     for (EdgeId edge : topologyContext.getOspfTopology().edges()) {
-      _graph.addEdge(edge.getTail().getHostname(), edge.getHead().getHostname());
+      addEdge(edge.getTail().getHostname(), edge.getHead().getHostname());
+    }
+  }
+
+  /**
+   * Adds an edge between two nodes. Edges to nodes outside this schedule (e.g., nodes reused from a
+   * parent data plane) are ignored, since those nodes are not computed.
+   */
+  private void addEdge(String node1, String node2) {
+    if (_graph.containsVertex(node1) && _graph.containsVertex(node2)) {
+      _graph.addEdge(node1, node2);
     }
   }
 
@@ -146,6 +146,15 @@ public abstract class AbstractRib<R extends AbstractRouteDecorator> implements G
     return _allRoutes;
   }
 
+  /**
+   * Return the hash code of the set of all routes in this RIB, i.e. {@code
+   * getTypedRoutes().hashCode()}. It is maintained as routes are merged and removed, so unlike
+   * {@link #getTypedRoutes()} it takes constant time even when the RIB has changed.
+   */
+  public final int getRoutesHashCode() {
+    return _tree.getRoutesHashCode();
+  }
+
   /**
    * Remove a route from backup route map if it was present and backup route map exists
    *
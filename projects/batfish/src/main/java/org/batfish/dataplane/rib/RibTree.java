@@ -28,6 +28,12 @@ final class RibTree<R extends AbstractRouteDecorator> implements Serializable {
   @Nonnull private final PrefixTrieMultiMap<R> _root;
   @Nonnull private final AbstractRib<R> _owner;
 
+  /**
+   * Sum of the hash codes of all routes in the tree, i.e., the hash code of the set of all routes.
+   * Updated as routes are added and removed, so it is available without traversing the tree.
+   */
+  private int _routesHashCode;
+
   RibTree(AbstractRib<R> owner) {
     _root = new PrefixTrieMultiMap<>(Prefix.ZERO);
     _owner = owner;
@@ -45,6 +51,7 @@ final class RibTree<R extends AbstractRouteDecorator> implements Serializable {
     if (!removed) {
       return RibDelta.empty();
     }
+    _routesHashCode -= route.hashCode();
 
     Builder<R> b = RibDelta.builder();
     b.remove(route, reason);
@@ -63,6 +70,7 @@ final class RibTree<R extends AbstractRouteDecorator> implements Serializable {
   /** Remove all routes from the tree */
   public void clear() {
     _root.clear();
+    _routesHashCode = 0;
   }
 
   /**
@@ -114,6 +122,14 @@ final class RibTree<R extends AbstractRouteDecorator> implements Serializable {
     return _root.getAllElements();
   }
 
+  /**
+   * Return the hash code of the set of all routes contained in this RIB, i.e. {@code
+   * getRoutes().hashCode()}, in constant time.
+   */
+  int getRoutesHashCode() {
+    return _routesHashCode;
+  }
+
   /** Retrieve stored routes for a particular prefix only. */
   public Set<R> getRoutes(Prefix prefix) {
     return _root.get(prefix);
@@ -131,6 +147,7 @@ final class RibTree<R extends AbstractRouteDecorator> implements Serializable {
     Set<R> routes = _root.get(route.getNetwork());
     if (routes.isEmpty()) {
       _root.put(route.getNetwork(), route);
+      _routesHashCode += route.hashCode();
       return RibDelta.<R>builder().add(route).build();
     }
     /*
@@ -148,6 +165,7 @@ final class RibTree<R extends AbstractRouteDecorator> implements Serializable {
     if (preferenceComparison == 0) { // equal preference, so add for multipath routing
       // Otherwise add the route
       if (_root.put(route.getNetwork(), route)) {
+        _routesHashCode += route.hashCode();
         return RibDelta.<R>builder().add(route).build();
       } else {
         return RibDelta.empty();
@@ -159,6 +177,10 @@ final class RibTree<R extends AbstractRouteDecorator> implements Serializable {
      * replace them with this one.
      */
     if (_root.replaceAll(route.getNetwork(), route)) {
+      for (R replaced : routes) {
+        _routesHashCode -= replaced.hashCode();
+      }
+      _routesHashCode += route.hashCode();
       return RibDelta.<R>builder().remove(routes, REPLACE).add(route).build();
     } else {
       return RibDelta.empty();
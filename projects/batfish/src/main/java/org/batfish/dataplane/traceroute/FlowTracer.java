@@ -569,12 +569,12 @@ class FlowTracer {
                       Fib fib = _tracerouteContext.getFib(currentNodeName, lookupVrfName).get();
                       Set<FibEntry> entries =
                           fibLookupAction.requireConnected()
-                              ? fib.get(ip).stream()
+                              ? fib.longestPrefixMatch(ip.asLong()).stream()
                                   // Filter entries if a directly connected hext hop is required
                                   .filter(
                                       entry -> entry.getTopLevelRoute() instanceof ConnectedRoute)
                                   .collect(ImmutableSet.toImmutableSet())
-                              : fib.get(ip);
+                              : fib.longestPrefixMatch(ip.asLong());
                       return !entries.isEmpty();
                     })
                 .findFirst()
@@ -692,7 +692,7 @@ class FlowTracer {
       _breadcrumbs.push(breadcrumb);
     }
     try {
-      Set<FibEntry> fibEntries = fib.get(dstIp);
+      Set<FibEntry> fibEntries = fib.longestPrefixMatch(dstIp.asLong());
 
       if (fibEntries.isEmpty()) {
         buildNoRouteTrace();
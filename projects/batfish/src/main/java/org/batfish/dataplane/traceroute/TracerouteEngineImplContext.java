@@ -1,22 +1,31 @@
 package org.batfish.dataplane.traceroute;
 
+import static com.google.common.collect.Maps.immutableEntry;
 import static org.batfish.dataplane.traceroute.FlowTracer.initialFlowTracer;
 import static org.batfish.dataplane.traceroute.TracerouteUtils.buildSessionsByIngressInterface;
 import static org.batfish.dataplane.traceroute.TracerouteUtils.validateInputs;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.batfish.common.BatfishException;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.DataPlane;
@@ -38,10 +47,45 @@ import org.batfish.datamodel.flow.TraceAndReverseFlow;
  * boolean)} and the context (data) needed for it.
  *
  * <p>In particular, it contains all context about the network that is valid for all the flows
- * (since computeTraces computes traces for a set of flows). Each flow is traced concurrently, and
- * the context is shared among each of the concurrent {@link FlowTracer FlowTracers}.
+ * (since computeTraces computes traces for a set of flows). Flows are traced concurrently in
+ * batches, and the context is shared among each of the concurrent {@link FlowTracer FlowTracers}.
  */
 public class TracerouteEngineImplContext {
+  /**
+   * The maximum number of flows in a batch. Larger groups of flows with the same ingress node and
+   * destination IP are split, so they can still be traced in parallel.
+   */
+  private static final int MAX_BATCH_SIZE = 256;
+
+  /** Key for memoized lookups of an IP at a named VRF or interface of a node. */
+  private static final class LookupKey {
+    private final @Nonnull String _node;
+    private final @Nonnull String _name;
+    private final @Nonnull Ip _ip;
+
+    private LookupKey(String node, String name, Ip ip) {
+      _node = node;
+      _name = name;
+      _ip = ip;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      } else if (!(o instanceof LookupKey)) {
+        return false;
+      }
+      LookupKey that = (LookupKey) o;
+      return _ip.equals(that._ip) && _node.equals(that._node) && _name.equals(that._name);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_node, _name, _ip);
+    }
+  }
+
   private final Map<String, Configuration> _configurations;
   private final DataPlane _dataPlane;
   private final Multimap<NodeInterfacePair, FirewallSessionTraceInfo> _sessionsByIngressInterface;
@@ -51,6 +95,14 @@ public class TracerouteEngineImplContext {
   private final boolean _ignoreFilters;
   private final Topology _topology;
 
+  /*
+   * Memoized forwarding analysis lookups. These are only set in the context of a single batch of
+   * flows (see #buildTraces), which is traced on one thread.
+   */
+  private final @Nullable Map<LookupKey, Boolean> _acceptsIp;
+  private final @Nullable Map<LookupKey, FlowDisposition> _dispositions;
+  private final @Nullable Map<LookupKey, Boolean> _repliesToArp;
+
   public TracerouteEngineImplContext(
       DataPlane dataPlane,
       Topology topology,
@@ -66,6 +118,24 @@ public class TracerouteEngineImplContext {
     _forwardingAnalysis = _dataPlane.getForwardingAnalysis();
     _sessionsByIngressInterface = buildSessionsByIngressInterface(sessions);
     _topology = topology;
+    _acceptsIp = null;
+    _dispositions = null;
+    _repliesToArp = null;
+  }
+
+  /** Create a context for tracing a single batch of flows, with memoized lookups. */
+  private TracerouteEngineImplContext(TracerouteEngineImplContext context, List<Flow> batch) {
+    _configurations = context._configurations;
+    _dataPlane = context._dataPlane;
+    _flows = ImmutableSet.copyOf(batch);
+    _fibs = context._fibs;
+    _ignoreFilters = context._ignoreFilters;
+    _forwardingAnalysis = context._forwardingAnalysis;
+    _sessionsByIngressInterface = context._sessionsByIngressInterface;
+    _topology = context._topology;
+    _acceptsIp = new HashMap<>();
+    _dispositions = new HashMap<>();
+    _repliesToArp = new HashMap<>();
   }
 
   /**
@@ -76,20 +146,38 @@ public class TracerouteEngineImplContext {
    */
   public SortedMap<Flow, List<TraceAndReverseFlow>> buildTracesAndReturnFlows() {
     Map<Flow, List<TraceAndReverseFlow>> traces = new ConcurrentHashMap<>();
-    _flows
-        .parallelStream()
+    buildTraces(traces::put);
+    return new TreeMap<>(traces);
+  }
+
+  /**
+   * Builds the possible {@link Trace}s for each {@link Flow} in {@link
+   * TracerouteEngineImplContext#_flows}, passing each flow and its traces to {@code consumer} as
+   * soon as they are built rather than collecting them. {@code consumer} is called concurrently.
+   *
+   * <p>Flows are traced in batches of flows with the same ingress node and destination IP, which
+   * mostly take the same forwarding decisions. Each batch is traced on a single thread, and its
+   * flows share memoized lookups of accepted IPs, ARP replies, and dispositions.
+   */
+  public void buildTraces(BiConsumer<Flow, List<TraceAndReverseFlow>> consumer) {
+    Multimaps.index(_flows, flow -> immutableEntry(flow.getIngressNode(), flow.getDstIp())).asMap()
+        .values().stream()
+        .flatMap(flows -> Lists.partition(ImmutableList.copyOf(flows), MAX_BATCH_SIZE).stream())
+        .parallel()
         .forEach(
-            flow -> {
-              List<TraceAndReverseFlow> currentTraces =
-                  traces.computeIfAbsent(flow, k -> new ArrayList<>());
-              validateInputs(_configurations, flow);
-              String ingressNodeName = flow.getIngressNode();
-              String ingressInterfaceName = flow.getIngressInterface();
-              initialFlowTracer(
-                      this, ingressNodeName, ingressInterfaceName, flow, currentTraces::add)
-                  .processHop();
+            batch -> {
+              TracerouteEngineImplContext batchContext =
+                  new TracerouteEngineImplContext(this, batch);
+              batch.forEach(flow -> consumer.accept(flow, batchContext.buildTraces(flow)));
             });
-    return new TreeMap<>(traces);
+  }
+
+  private List<TraceAndReverseFlow> buildTraces(Flow flow) {
+    validateInputs(_configurations, flow);
+    List<TraceAndReverseFlow> traces = new ArrayList<>();
+    initialFlowTracer(this, flow.getIngressNode(), flow.getIngressInterface(), flow, traces::add)
+        .processHop();
+    return traces;
   }
 
   /**
@@ -105,6 +193,16 @@ public class TracerouteEngineImplContext {
    *     FlowDisposition#NEIGHBOR_UNREACHABLE}
    */
   FlowDisposition computeDisposition(String hostname, String outgoingInterfaceName, Ip dstIp) {
+    if (_dispositions != null) {
+      return _dispositions.computeIfAbsent(
+          new LookupKey(hostname, outgoingInterfaceName, dstIp),
+          key -> doComputeDisposition(hostname, outgoingInterfaceName, dstIp));
+    }
+    return doComputeDisposition(hostname, outgoingInterfaceName, dstIp);
+  }
+
+  private FlowDisposition doComputeDisposition(
+      String hostname, String outgoingInterfaceName, Ip dstIp) {
     String vrfName =
         _configurations.get(hostname).getAllInterfaces().get(outgoingInterfaceName).getVrfName();
     if (_forwardingAnalysis
@@ -171,6 +269,14 @@ public class TracerouteEngineImplContext {
    * ip}
    */
   boolean acceptsIp(String node, String vrf, Ip ip) {
+    if (_acceptsIp != null) {
+      return _acceptsIp.computeIfAbsent(
+          new LookupKey(node, vrf, ip), key -> doAcceptsIp(node, vrf, ip));
+    }
+    return doAcceptsIp(node, vrf, ip);
+  }
+
+  private boolean doAcceptsIp(String node, String vrf, Ip ip) {
     return _forwardingAnalysis
         .getAcceptsIps()
         .getOrDefault(node, ImmutableMap.of())
@@ -187,6 +293,14 @@ public class TracerouteEngineImplContext {
    * @return true if the node will respond to the ARP request
    */
   boolean repliesToArp(String node, String iface, Ip arpIp) {
+    if (_repliesToArp != null) {
+      return _repliesToArp.computeIfAbsent(
+          new LookupKey(node, iface, arpIp), key -> doRepliesToArp(node, iface, arpIp));
+    }
+    return doRepliesToArp(node, iface, arpIp);
+  }
+
+  private boolean doRepliesToArp(String node, String iface, Ip arpIp) {
     return _forwardingAnalysis
         .getArpReplies()
         .get(node)
@@ -30,6 +30,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.base.Throwables;
 import com.google.common.cache.Cache;
 import com.google.common.collect.HashMultimap;
@@ -56,6 +58,7 @@ import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
@@ -76,11 +79,16 @@ import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import net.sf.javabdd.BDD;
+import net.sf.javabdd.BDDFactory;
+import net.sf.javabdd.BDDFactory.CacheStats;
+import net.sf.javabdd.BDDFactory.GCStats;
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 import org.apache.commons.configuration2.ImmutableConfiguration;
@@ -89,6 +97,7 @@ import org.apache.commons.lang3.SerializationUtils;
 import org.batfish.bddreachability.BDDLoopDetectionAnalysis;
 import org.batfish.bddreachability.BDDReachabilityAnalysis;
 import org.batfish.bddreachability.BDDReachabilityAnalysisFactory;
+import org.batfish.bddreachability.BDDReachabilityAnalysisFactoryCache;
 import org.batfish.bddreachability.BidirectionalReachabilityAnalysis;
 import org.batfish.bddreachability.IpsRoutedOutInterfacesFactory;
 import org.batfish.common.Answerer;
@@ -135,6 +144,7 @@ import org.batfish.datamodel.Interface.Dependency;
 import org.batfish.datamodel.Interface.DependencyType;
 import org.batfish.datamodel.InterfaceType;
 import org.batfish.datamodel.NetworkConfigurations;
+import org.batfish.datamodel.SnapshotMetadata;
 import org.batfish.datamodel.SubRange;
 import org.batfish.datamodel.SwitchportMode;
 import org.batfish.datamodel.Topology;
@@ -166,6 +176,7 @@ import org.batfish.datamodel.ospf.OspfTopologyUtils;
 import org.batfish.datamodel.pojo.Environment;
 import org.batfish.datamodel.questions.InvalidReachabilityParametersException;
 import org.batfish.datamodel.questions.Question;
+import org.batfish.dataplane.SpilledDataPlane;
 import org.batfish.dataplane.TracerouteEngineImpl;
 import org.batfish.grammar.BatfishCombinedParser;
 import org.batfish.grammar.BatfishParseException;
@@ -223,6 +234,7 @@ import org.batfish.specifier.SpecifierContext;
 import org.batfish.specifier.SpecifierContextImpl;
 import org.batfish.specifier.UnionLocationSpecifier;
 import org.batfish.storage.FileBasedStorage;
+import org.batfish.storage.LazyConfigurations;
 import org.batfish.storage.StorageProvider;
 import org.batfish.symbolic.IngressLocation;
 import org.batfish.topology.TopologyProviderImpl;
@@ -238,6 +250,9 @@ import org.jgrapht.traverse.TopologicalOrderIterator;
 /** This class encapsulates the main control logic for Batfish. */
 public class Batfish extends PluginConsumer implements IBatfish {
 
+  /** Debug flag that enables collecting and logging BDD statistics for BDD-based questions. */
+  public static final String DEBUG_FLAG_BDD_STATS = "bddstats";
+
   private static final Pattern MANAGEMENT_INTERFACES =
       Pattern.compile(
           "(\\Amgmt)|(\\Amanagement)|(\\Afxp0)|(\\Aem0)|(\\Ame0)|(\\Avme)|(\\Awlan-ap)",
@@ -458,6 +473,8 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   private SortedMap<BgpTableFormat, BgpTablePlugin> _bgpTablePlugins;
 
+  private final BDDReachabilityAnalysisFactoryCache _cachedBddReachabilityAnalysisFactories;
+
   private final Cache<NetworkSnapshot, SortedMap<String, Configuration>> _cachedConfigurations;
 
   private final Cache<NetworkSnapshot, DataPlane> _cachedDataPlanes;
@@ -469,6 +486,9 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   private Set<ExternalBgpAdvertisementPlugin> _externalBgpAdvertisementPlugins;
 
+  /** Settings of the parent snapshots registered by {@link #registerParentSnapshot}, by name. */
+  private final Map<SnapshotId, TestrigSettings> _parentTestrigSettings = new HashMap<>();
+
   private IdResolver _idResolver;
 
   private BatfishLogger _logger;
@@ -490,6 +510,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
       Cache<NetworkSnapshot, SortedMap<String, Configuration>> cachedConfigurations,
       Cache<NetworkSnapshot, DataPlane> cachedDataPlanes,
       Map<NetworkSnapshot, SortedMap<String, BgpAdvertisementsByVrf>> cachedEnvironmentBgpTables,
+      BDDReachabilityAnalysisFactoryCache cachedBddReachabilityAnalysisFactories,
       @Nullable StorageProvider alternateStorageProvider,
       @Nullable IdResolver alternateIdResolver) {
     _settings = settings;
@@ -497,6 +518,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
     _cachedConfigurations = cachedConfigurations;
     _cachedDataPlanes = cachedDataPlanes;
     _cachedEnvironmentBgpTables = cachedEnvironmentBgpTables;
+    _cachedBddReachabilityAnalysisFactories = cachedBddReachabilityAnalysisFactories;
     _externalBgpAdvertisementPlugins = new TreeSet<>();
     initLocalSettings(settings);
     _logger = _settings.getLogger();
@@ -762,20 +784,29 @@ public class Batfish extends PluginConsumer implements IBatfish {
         && _deltaTestrigSettings.getName().equals(snapshot.getSnapshot())) {
       return _deltaTestrigSettings;
     }
+    TestrigSettings parentTestrigSettings = _parentTestrigSettings.get(snapshot.getSnapshot());
+    if (parentTestrigSettings != null) {
+      return parentTestrigSettings;
+    }
     throw new IllegalStateException("Unknown snapshot " + snapshot);
   }
 
   /* Write the dataplane to disk and cache, and write the answer element to disk.
    */
   private void saveDataPlane(NetworkSnapshot snapshot, ComputeDataPlaneResult result) {
-    _cachedDataPlanes.put(snapshot, result._dataPlane);
+    DataPlane dataPlane = result._dataPlane;
+    if (_settings.getSpillDataPlane()) {
+      dataPlane = SpilledDataPlane.spill(dataPlane, result._topologies.getLayer3Topology());
+    }
+    _cachedDataPlanes.put(snapshot, dataPlane);
+    _cachedBddReachabilityAnalysisFactories.invalidate(snapshot);
 
     _logger.resetTimer();
     newBatch("Writing data plane to disk", 0);
     try (ActiveSpan writeDataplane =
         GlobalTracer.get().buildSpan("Writing data plane").startActive()) {
       assert writeDataplane != null; // avoid unused warning
-      serializeObject(result._dataPlane, getTestrigSettings(snapshot).getDataPlanePath());
+      serializeObject(dataPlane, getTestrigSettings(snapshot).getDataPlanePath());
       serializeObject(result._answerElement, getTestrigSettings(snapshot).getDataPlaneAnswerPath());
       TopologyContainer topologies = result._topologies;
       _storage.storeBgpTopology(topologies.getBgpTopology(), snapshot);
@@ -1220,6 +1251,38 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return new NetworkSnapshot(_settings.getContainer(), _deltaTestrigSettings.getName());
   }
 
+  @Override
+  public @Nullable NetworkSnapshot registerParentSnapshot(NetworkSnapshot snapshot) {
+    SnapshotId parentId;
+    try {
+      parentId =
+          BatfishObjectMapper.mapper()
+              .readValue(
+                  _storage.loadSnapshotMetadata(snapshot.getNetwork(), snapshot.getSnapshot()),
+                  SnapshotMetadata.class)
+              .getParentSnapshotId();
+    } catch (IOException e) {
+      _logger.warnf("Could not read metadata of snapshot %s: %s\n", snapshot, e.getMessage());
+      return null;
+    }
+    if (parentId == null) {
+      return null;
+    }
+    NetworkSnapshot parent = new NetworkSnapshot(snapshot.getNetwork(), parentId);
+    TestrigSettings parentTestrigSettings = new TestrigSettings();
+    parentTestrigSettings.setName(parentId);
+    applyBaseDir(
+        parentTestrigSettings,
+        _settings.getStorageBase().resolve(snapshot.getNetwork().getId()),
+        parentId);
+    if (_cachedDataPlanes.getIfPresent(parent) == null
+        && !Files.exists(parentTestrigSettings.getDataPlanePath())) {
+      return null;
+    }
+    _parentTestrigSettings.put(parentId, parentTestrigSettings);
+    return parent;
+  }
+
   @Override
   public String getTaskId() {
     return _settings.getTaskId();
@@ -1302,7 +1365,10 @@ public class Batfish extends PluginConsumer implements IBatfish {
       configurations = _storage.loadConfigurations(snapshot.getNetwork(), snapshot.getSnapshot());
       if (configurations != null) {
         _logger.debugf("Loaded configurations for %s off disk", snapshot);
-        postProcessSnapshot(snapshot, configurations);
+        configurations =
+            postProcessLoadedConfigurations(
+                snapshot,
+                LazyConfigurations.withFallback(configurations, repairingLoader(snapshot)));
       } else {
         // Otherwise, we have to parse the configurations. Fall back to old, hacky code.
         configurations = parseConfigurationsAndApplyEnvironment(snapshot);
@@ -1324,8 +1390,31 @@ public class Batfish extends PluginConsumer implements IBatfish {
         configurations != null,
         "Configurations should not be null when loaded immediately after repair.");
     assert configurations != null;
-    postProcessSnapshot(snapshot, configurations);
-    return configurations;
+    return postProcessLoadedConfigurations(snapshot, configurations);
+  }
+
+  /**
+   * Returns a function that loads a single configuration of {@code snapshot} after repairing the
+   * configurations on disk. It is used for configurations that fail to deserialize. The snapshot is
+   * repaired at most once, however many of its configurations fail.
+   */
+  private @Nonnull Function<String, Configuration> repairingLoader(NetworkSnapshot snapshot) {
+    Supplier<SortedMap<String, Configuration>> repaired =
+        Suppliers.memoize(
+            () -> {
+              _logger.infof("Repairing configurations for testrig %s", snapshot.getSnapshot());
+              repairConfigurations(snapshot);
+              return _storage.loadConfigurations(snapshot.getNetwork(), snapshot.getSnapshot());
+            });
+    return hostname -> {
+      SortedMap<String, Configuration> configurations = repaired.get();
+      Configuration configuration = configurations == null ? null : configurations.get(hostname);
+      if (configuration == null) {
+        throw new BatfishException(
+            String.format("Configuration of %s is missing after repairing %s", hostname, snapshot));
+      }
+      return configuration;
+    };
   }
 
   @Override
@@ -1504,19 +1593,17 @@ public class Batfish extends PluginConsumer implements IBatfish {
 
   private void outputAnswer(Answer answer, boolean writeLog) {
     try {
-      String answerString = BatfishObjectMapper.writeString(answer);
-      _logger.debug(answerString);
-      @Nullable String logString = writeLog ? answerString : null;
-      writeJsonAnswerWithLog(logString, answerString);
+      if (_logger.isActive(BatfishLogger.LEVEL_DEBUG)) {
+        _logger.debug(BatfishObjectMapper.writeString(answer));
+      }
+      writeJsonAnswerWithLog(answer, writeLog);
     } catch (Exception e) {
       BatfishException be = new BatfishException("Error in sending answer", e);
       try {
         Answer failureAnswer = Answer.failureAnswer(e.toString(), answer.getQuestion());
         failureAnswer.addAnswerElement(be.getBatfishStackTrace());
-        String answerString = BatfishObjectMapper.writeString(failureAnswer);
-        _logger.error(answerString);
-        @Nullable String logString = writeLog ? answerString : null;
-        writeJsonAnswerWithLog(logString, answerString);
+        _logger.error(BatfishObjectMapper.writeString(failureAnswer));
+        writeJsonAnswerWithLog(failureAnswer, writeLog);
       } catch (Exception e1) {
         _logger.errorf(
             "Could not serialize failure answer. %s", Throwables.getStackTraceAsString(e1));
@@ -2037,17 +2124,15 @@ public class Batfish extends PluginConsumer implements IBatfish {
    * </ul>
    */
   private void updateBlacklistedAndInactiveConfigs(
-      NetworkSnapshot snapshot, Map<String, Configuration> configurations) {
+      Map<String, Configuration> configurations,
+      @Nullable SortedSet<String> blacklistedNodes,
+      @Nullable SnapshotRuntimeData runtimeData) {
     NetworkConfigurations nc = NetworkConfigurations.of(configurations);
-    NetworkId networkId = snapshot.getNetwork();
-    SnapshotId snapshotId = snapshot.getSnapshot();
 
-    SortedSet<String> blacklistedNodes = _storage.loadNodeBlacklist(networkId, snapshotId);
     if (blacklistedNodes != null) {
       processInterfaceBlacklist(nodeToInterfaceBlacklist(blacklistedNodes, nc), nc);
     }
     // If interface blacklist was provided, it was converted to runtime data file by WorkMgr
-    SnapshotRuntimeData runtimeData = _storage.loadRuntimeData(networkId, snapshotId);
     if (runtimeData != null) {
       processInterfaceBlacklist(runtimeData.getBlacklistedInterfaces(), nc);
     }
@@ -2078,15 +2163,56 @@ public class Batfish extends PluginConsumer implements IBatfish {
    */
   private void postProcessSnapshot(
       NetworkSnapshot snapshot, Map<String, Configuration> configurations) {
-    updateBlacklistedAndInactiveConfigs(snapshot, configurations);
-    postProcessAggregatedInterfaces(configurations);
-    NetworkConfigurations nc = NetworkConfigurations.of(configurations);
-    OspfTopologyUtils.initNeighborConfigs(nc);
-    postProcessOspfCosts(configurations);
-    EigrpTopologyUtils.initNeighborConfigs(nc);
+    configurations.values().forEach(configurationPostProcessor(snapshot));
     computeAndStoreCompletionMetadata(snapshot, configurations);
   }
 
+  /**
+   * Post-processes configurations of {@code snapshot} loaded from disk, like {@link
+   * #postProcessSnapshot(NetworkSnapshot, Map)}. Configurations loaded lazily are post-processed
+   * individually on first access, so that questions about a few nodes only load those nodes.
+   * Completion metadata covers all nodes, so it is only computed if it was not stored yet.
+   */
+  private @Nonnull SortedMap<String, Configuration> postProcessLoadedConfigurations(
+      NetworkSnapshot snapshot, SortedMap<String, Configuration> configurations) {
+    SortedMap<String, Configuration> postProcessed =
+        LazyConfigurations.postProcessed(configurations, configurationPostProcessor(snapshot));
+    if (!hasCompletionMetadata(snapshot)) {
+      LazyConfigurations.prefetch(postProcessed);
+      computeAndStoreCompletionMetadata(snapshot, postProcessed);
+    }
+    return postProcessed;
+  }
+
+  /** Returns a function that post-processes a single configuration of {@code snapshot}. */
+  private @Nonnull Consumer<Configuration> configurationPostProcessor(NetworkSnapshot snapshot) {
+    NetworkId networkId = snapshot.getNetwork();
+    SnapshotId snapshotId = snapshot.getSnapshot();
+    SortedSet<String> blacklistedNodes = _storage.loadNodeBlacklist(networkId, snapshotId);
+    SnapshotRuntimeData runtimeData = _storage.loadRuntimeData(networkId, snapshotId);
+    return c -> {
+      // None of the steps look beyond the node being post-processed.
+      Map<String, Configuration> configurations = ImmutableMap.of(c.getHostname(), c);
+      updateBlacklistedAndInactiveConfigs(configurations, blacklistedNodes, runtimeData);
+      postProcessAggregatedInterfaces(configurations);
+      NetworkConfigurations nc = NetworkConfigurations.of(configurations);
+      OspfTopologyUtils.initNeighborConfigs(nc);
+      postProcessOspfCosts(configurations);
+      EigrpTopologyUtils.initNeighborConfigs(nc);
+    };
+  }
+
+  private boolean hasCompletionMetadata(NetworkSnapshot snapshot) {
+    try {
+      return !_storage
+          .loadCompletionMetadata(snapshot.getNetwork(), snapshot.getSnapshot())
+          .equals(CompletionMetadata.EMPTY);
+    } catch (IOException e) {
+      _logger.errorf("Error loading CompletionMetadata: %s", e);
+      return false;
+    }
+  }
+
   private void computeAndStoreCompletionMetadata(
       NetworkSnapshot snapshot, Map<String, Configuration> configurations) {
     try {
@@ -2832,69 +2958,157 @@ public class Batfish extends PluginConsumer implements IBatfish {
         .getResult();
   }
 
-  @Override
-  public AnswerElement standard(
-      NetworkSnapshot snapshot, ReachabilityParameters reachabilityParameters) {
-    return bddSingleReachability(snapshot, reachabilityParameters);
-  }
-
   public AnswerElement bddSingleReachability(
       NetworkSnapshot snapshot, ReachabilityParameters parameters) {
+    Set<Flow> flows;
+    try {
+      flows = bddSingleReachabilityFlows(snapshot, parameters);
+    } catch (InvalidReachabilityParametersException e) {
+      return e.getInvalidParametersAnswer();
+    }
+    return new TraceWrapperAsAnswerElement(
+        buildFlows(snapshot, flows, parameters.getIgnoreFilters()));
+  }
+
+  @Override
+  public Set<Flow> bddSingleReachabilityFlows(
+      NetworkSnapshot snapshot, ReachabilityParameters parameters)
+      throws InvalidReachabilityParametersException {
     try (ActiveSpan span = GlobalTracer.get().buildSpan("bddSingleReachability").startActive()) {
       assert span != null; // avoid not used warning
-      ResolvedReachabilityParameters params;
-      try {
-        params = resolveReachabilityParameters(this, parameters, snapshot);
-      } catch (InvalidReachabilityParametersException e) {
-        return e.getInvalidParametersAnswer();
-      }
+      ResolvedReachabilityParameters params =
+          resolveReachabilityParameters(this, parameters, snapshot);
 
       checkArgument(
           params.getSrcNatted() == SrcNattedConstraint.UNCONSTRAINED,
           "Requiring or forbidding Source NAT is currently unsupported");
 
-      BDDPacket pkt = new BDDPacket();
       boolean ignoreFilters = params.getIgnoreFilters();
       BDDReachabilityAnalysisFactory bddReachabilityAnalysisFactory =
-          getBddReachabilityAnalysisFactory(snapshot, pkt, ignoreFilters);
-
-      Map<IngressLocation, BDD> reachableBDDs =
-          bddReachabilityAnalysisFactory.getAllBDDs(
-              params.getSourceIpAssignment(),
-              params.getHeaderSpace(),
-              params.getForbiddenTransitNodes(),
-              params.getRequiredTransitNodes(),
-              params.getFinalNodes(),
-              params.getActions());
-
-      Set<Flow> flows =
-          reachableBDDs.entrySet().stream()
-              .flatMap(
-                  entry -> {
-                    IngressLocation loc = entry.getKey();
-                    BDD headerSpace = entry.getValue();
-                    Optional<Flow.Builder> optionalFlow = pkt.getFlow(headerSpace);
-                    if (!optionalFlow.isPresent()) {
-                      return Stream.of();
-                    }
-                    Flow.Builder flow = optionalFlow.get();
-                    flow.setIngressNode(loc.getNode());
-                    switch (loc.getType()) {
-                      case INTERFACE_LINK:
-                        flow.setIngressInterface(loc.getInterface());
-                        break;
-                      case VRF:
-                        flow.setIngressVrf(loc.getVrf());
-                        break;
-                      default:
-                        throw new BatfishException(
-                            "Unexpected IngressLocation Type: " + loc.getType().name());
-                    }
-                    return Stream.of(flow.build());
-                  })
-              .collect(ImmutableSet.toImmutableSet());
+          checkoutBddReachabilityAnalysisFactory(snapshot, ignoreFilters);
+      BDDPacket pkt = bddReachabilityAnalysisFactory.getBDDPacket();
+      BddStatsBaseline bddStats = startBddStats(pkt);
+      try {
+        Map<IngressLocation, BDD> reachableBDDs =
+            bddReachabilityAnalysisFactory.getAllBDDs(
+                params.getSourceIpAssignment(),
+                params.getHeaderSpace(),
+                params.getForbiddenTransitNodes(),
+                params.getRequiredTransitNodes(),
+                params.getFinalNodes(),
+                params.getActions());
+        reportBddStats(pkt, bddStats);
+
+        return reachableBDDs.entrySet().stream()
+            .flatMap(
+                entry -> {
+                  IngressLocation loc = entry.getKey();
+                  BDD headerSpace = entry.getValue();
+                  Optional<Flow.Builder> optionalFlow = pkt.getFlow(headerSpace);
+                  if (!optionalFlow.isPresent()) {
+                    return Stream.of();
+                  }
+                  Flow.Builder flow = optionalFlow.get();
+                  flow.setIngressNode(loc.getNode());
+                  switch (loc.getType()) {
+                    case INTERFACE_LINK:
+                      flow.setIngressInterface(loc.getInterface());
+                      break;
+                    case VRF:
+                      flow.setIngressVrf(loc.getVrf());
+                      break;
+                    default:
+                      throw new BatfishException(
+                          "Unexpected IngressLocation Type: " + loc.getType().name());
+                  }
+                  return Stream.of(flow.build());
+                })
+            .collect(ImmutableSet.toImmutableSet());
+      } finally {
+        _cachedBddReachabilityAnalysisFactories.checkin(
+            snapshot, ignoreFilters, bddReachabilityAnalysisFactory);
+      }
+    }
+  }
 
-      return new TraceWrapperAsAnswerElement(buildFlows(snapshot, flows, ignoreFilters));
+  /**
+   * The statistics of a {@link BDDFactory} at the start of a BDD-based question. Factories are
+   * reused across questions, so each question reports the difference from its baseline.
+   */
+  private static final class BddStatsBaseline {
+    private final long _opHit;
+    private final long _opMiss;
+    private final int _gcNum;
+    private final long _gcTime;
+    private final int _resizeNum;
+    private final long _resizeTime;
+
+    private BddStatsBaseline(BDDFactory factory) {
+      CacheStats cacheStats = factory.getCacheStats();
+      GCStats gcStats = factory.getGCStats();
+      _opHit = cacheStats.opHit;
+      _opMiss = cacheStats.opMiss;
+      _gcNum = gcStats.num;
+      _gcTime = gcStats.sumtime;
+      _resizeNum = cacheStats.resizeNum;
+      _resizeTime = cacheStats.resizeTime;
+    }
+  }
+
+  /**
+   * If {@link #DEBUG_FLAG_BDD_STATS} is enabled, enables cache statistics for {@code pkt}'s factory
+   * and returns its current statistics, to pass to {@link #reportBddStats} when the question is
+   * done. Otherwise returns {@code null}.
+   */
+  private @Nullable BddStatsBaseline startBddStats(BDDPacket pkt) {
+    if (!debugFlagEnabled(DEBUG_FLAG_BDD_STATS)) {
+      return null;
+    }
+    BDDFactory factory = pkt.getFactory();
+    factory.setCacheStatsEnabled(true);
+    return new BddStatsBaseline(factory);
+  }
+
+  /**
+   * If statistics were started with {@link #startBddStats}, logs the cache hit rate, garbage
+   * collection, and resize statistics of {@code pkt}'s factory since {@code baseline} and attaches
+   * them to the active span.
+   */
+  private void reportBddStats(BDDPacket pkt, @Nullable BddStatsBaseline baseline) {
+    if (baseline == null) {
+      return;
+    }
+    BDDFactory factory = pkt.getFactory();
+    CacheStats cacheStats = factory.getCacheStats();
+    GCStats gcStats = factory.getGCStats();
+    long opHit = cacheStats.opHit - baseline._opHit;
+    long opMiss = cacheStats.opMiss - baseline._opMiss;
+    double opHitRate = opHit + opMiss > 0 ? (double) opHit / (opHit + opMiss) : 0;
+    int gcNum = gcStats.num - baseline._gcNum;
+    long gcTime = gcStats.sumtime - baseline._gcTime;
+    int resizeNum = cacheStats.resizeNum - baseline._resizeNum;
+    long resizeTime = cacheStats.resizeTime - baseline._resizeTime;
+    _logger.infof(
+        "BDD statistics: %d nodes, %d cache entries, cache hit rate %.3f (%d hits, %d misses), "
+            + "%d garbage collections (%d ms), %d resizes (%d ms)\n",
+        factory.getNodeTableSize(),
+        factory.getCacheEntries(),
+        opHitRate,
+        opHit,
+        opMiss,
+        gcNum,
+        gcTime,
+        resizeNum,
+        resizeTime);
+    ActiveSpan span = GlobalTracer.get().activeSpan();
+    if (span != null) {
+      span.setTag("bdd.nodeTableSize", factory.getNodeTableSize())
+          .setTag("bdd.cacheEntries", factory.getCacheEntries())
+          .setTag("bdd.cacheHitRate", opHitRate)
+          .setTag("bdd.gcCount", gcNum)
+          .setTag("bdd.gcTimeMs", gcTime)
+          .setTag("bdd.resizeCount", resizeNum)
+          .setTag("bdd.resizeTimeMs", resizeTime);
     }
   }
 
@@ -2902,42 +3116,49 @@ public class Batfish extends PluginConsumer implements IBatfish {
   public Set<Flow> bddLoopDetection(NetworkSnapshot snapshot) {
     try (ActiveSpan span = GlobalTracer.get().buildSpan("bddLoopDetection").startActive()) {
       assert span != null; // avoid unused warning
-      BDDPacket pkt = new BDDPacket();
       // TODO add ignoreFilters parameter
       boolean ignoreFilters = false;
       BDDReachabilityAnalysisFactory bddReachabilityAnalysisFactory =
-          getBddReachabilityAnalysisFactory(snapshot, pkt, ignoreFilters);
-      BDDLoopDetectionAnalysis analysis =
-          bddReachabilityAnalysisFactory.bddLoopDetectionAnalysis(
-              getAllSourcesInferFromLocationIpSpaceAssignment(snapshot));
-      Map<IngressLocation, BDD> loopBDDs = analysis.detectLoops();
-
-      try (ActiveSpan span1 =
-          GlobalTracer.get().buildSpan("bddLoopDetection.computeResultFlows").startActive()) {
-        assert span1 != null; // avoid unused warning
-        return loopBDDs.entrySet().stream()
-            .map(
-                entry ->
-                    pkt.getFlow(entry.getValue())
-                        .map(
-                            fb -> {
-                              IngressLocation loc = entry.getKey();
-                              fb.setIngressNode(loc.getNode());
-                              switch (loc.getType()) {
-                                case INTERFACE_LINK:
-                                  fb.setIngressInterface(loc.getInterface());
-                                  break;
-                                case VRF:
-                                  fb.setIngressVrf(loc.getVrf());
-                                  break;
-                                default:
-                                  throw new BatfishException(
-                                      "Unknown Location Type: " + loc.getType());
-                              }
-                              return fb.build();
-                            }))
-            .flatMap(optional -> optional.map(Stream::of).orElse(Stream.empty()))
-            .collect(ImmutableSet.toImmutableSet());
+          checkoutBddReachabilityAnalysisFactory(snapshot, ignoreFilters);
+      BDDPacket pkt = bddReachabilityAnalysisFactory.getBDDPacket();
+      BddStatsBaseline bddStats = startBddStats(pkt);
+      try {
+        BDDLoopDetectionAnalysis analysis =
+            bddReachabilityAnalysisFactory.bddLoopDetectionAnalysis(
+                getAllSourcesInferFromLocationIpSpaceAssignment(snapshot));
+        Map<IngressLocation, BDD> loopBDDs = analysis.detectLoops();
+        reportBddStats(pkt, bddStats);
+
+        try (ActiveSpan span1 =
+            GlobalTracer.get().buildSpan("bddLoopDetection.computeResultFlows").startActive()) {
+          assert span1 != null; // avoid unused warning
+          return loopBDDs.entrySet().stream()
+              .map(
+                  entry ->
+                      pkt.getFlow(entry.getValue())
+                          .map(
+                              fb -> {
+                                IngressLocation loc = entry.getKey();
+                                fb.setIngressNode(loc.getNode());
+                                switch (loc.getType()) {
+                                  case INTERFACE_LINK:
+                                    fb.setIngressInterface(loc.getInterface());
+                                    break;
+                                  case VRF:
+                                    fb.setIngressVrf(loc.getVrf());
+                                    break;
+                                  default:
+                                    throw new BatfishException(
+                                        "Unknown Location Type: " + loc.getType());
+                                }
+                                return fb.build();
+                              }))
+              .flatMap(optional -> optional.map(Stream::of).orElse(Stream.empty()))
+              .collect(ImmutableSet.toImmutableSet());
+        }
+      } finally {
+        _cachedBddReachabilityAnalysisFactories.checkin(
+            snapshot, ignoreFilters, bddReachabilityAnalysisFactory);
       }
     }
   }
@@ -2947,47 +3168,54 @@ public class Batfish extends PluginConsumer implements IBatfish {
       NetworkSnapshot snapshot, MultipathConsistencyParameters parameters) {
     try (ActiveSpan span = GlobalTracer.get().buildSpan("bddMultipathConsistency").startActive()) {
       assert span != null; // avoid unused warning
-      BDDPacket pkt = new BDDPacket();
       // TODO add ignoreFilters parameter
       boolean ignoreFilters = false;
       BDDReachabilityAnalysisFactory bddReachabilityAnalysisFactory =
-          getBddReachabilityAnalysisFactory(snapshot, pkt, ignoreFilters);
-      IpSpaceAssignment srcIpSpaceAssignment = parameters.getSrcIpSpaceAssignment();
-      Set<String> finalNodes = parameters.getFinalNodes();
-      Set<FlowDisposition> failureDispositions =
-          ImmutableSet.of(
-              FlowDisposition.DENIED_IN,
-              FlowDisposition.DENIED_OUT,
-              FlowDisposition.LOOP,
-              FlowDisposition.INSUFFICIENT_INFO,
-              FlowDisposition.NEIGHBOR_UNREACHABLE,
-              FlowDisposition.NO_ROUTE,
-              FlowDisposition.NULL_ROUTED);
-      Set<FlowDisposition> successDispositions =
-          ImmutableSet.of(
-              FlowDisposition.ACCEPTED,
-              FlowDisposition.DELIVERED_TO_SUBNET,
-              FlowDisposition.EXITS_NETWORK);
-      Set<String> forbiddenTransitNodes = parameters.getForbiddenTransitNodes();
-      Set<String> requiredTransitNodes = parameters.getRequiredTransitNodes();
-      Map<IngressLocation, BDD> successBdds =
-          bddReachabilityAnalysisFactory.getAllBDDs(
-              srcIpSpaceAssignment,
-              parameters.getHeaderSpace(),
-              forbiddenTransitNodes,
-              requiredTransitNodes,
-              finalNodes,
-              successDispositions);
-      Map<IngressLocation, BDD> failureBdds =
-          bddReachabilityAnalysisFactory.getAllBDDs(
-              srcIpSpaceAssignment,
-              parameters.getHeaderSpace(),
-              forbiddenTransitNodes,
-              requiredTransitNodes,
-              finalNodes,
-              failureDispositions);
-
-      return ImmutableSet.copyOf(computeMultipathInconsistencies(pkt, successBdds, failureBdds));
+          checkoutBddReachabilityAnalysisFactory(snapshot, ignoreFilters);
+      BDDPacket pkt = bddReachabilityAnalysisFactory.getBDDPacket();
+      BddStatsBaseline bddStats = startBddStats(pkt);
+      try {
+        IpSpaceAssignment srcIpSpaceAssignment = parameters.getSrcIpSpaceAssignment();
+        Set<String> finalNodes = parameters.getFinalNodes();
+        Set<FlowDisposition> failureDispositions =
+            ImmutableSet.of(
+                FlowDisposition.DENIED_IN,
+                FlowDisposition.DENIED_OUT,
+                FlowDisposition.LOOP,
+                FlowDisposition.INSUFFICIENT_INFO,
+                FlowDisposition.NEIGHBOR_UNREACHABLE,
+                FlowDisposition.NO_ROUTE,
+                FlowDisposition.NULL_ROUTED);
+        Set<FlowDisposition> successDispositions =
+            ImmutableSet.of(
+                FlowDisposition.ACCEPTED,
+                FlowDisposition.DELIVERED_TO_SUBNET,
+                FlowDisposition.EXITS_NETWORK);
+        Set<String> forbiddenTransitNodes = parameters.getForbiddenTransitNodes();
+        Set<String> requiredTransitNodes = parameters.getRequiredTransitNodes();
+        Map<IngressLocation, BDD> successBdds =
+            bddReachabilityAnalysisFactory.getAllBDDs(
+                srcIpSpaceAssignment,
+                parameters.getHeaderSpace(),
+                forbiddenTransitNodes,
+                requiredTransitNodes,
+                finalNodes,
+                successDispositions);
+        Map<IngressLocation, BDD> failureBdds =
+            bddReachabilityAnalysisFactory.getAllBDDs(
+                srcIpSpaceAssignment,
+                parameters.getHeaderSpace(),
+                forbiddenTransitNodes,
+                requiredTransitNodes,
+                finalNodes,
+                failureDispositions);
+        reportBddStats(pkt, bddStats);
+
+        return ImmutableSet.copyOf(computeMultipathInconsistencies(pkt, successBdds, failureBdds));
+      } finally {
+        _cachedBddReachabilityAnalysisFactories.checkin(
+            snapshot, ignoreFilters, bddReachabilityAnalysisFactory);
+      }
     }
   }
 
@@ -3003,6 +3231,22 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return InferFromLocationIpSpaceSpecifier.INSTANCE.resolve(locations, specifierContext);
   }
 
+  /**
+   * Returns a {@link BDDReachabilityAnalysisFactory} for {@code snapshot}, reusing one cached by an
+   * earlier question if possible. The caller has exclusive use of the factory (and its {@link
+   * BDDPacket}) and must return it to {@link #_cachedBddReachabilityAnalysisFactories} when done.
+   */
+  @Nonnull
+  private BDDReachabilityAnalysisFactory checkoutBddReachabilityAnalysisFactory(
+      NetworkSnapshot snapshot, boolean ignoreFilters) {
+    BDDReachabilityAnalysisFactory factory =
+        _cachedBddReachabilityAnalysisFactories.checkout(snapshot, ignoreFilters);
+    if (factory != null) {
+      return factory;
+    }
+    return getBddReachabilityAnalysisFactory(snapshot, new BDDPacket(), ignoreFilters);
+  }
+
   @Nonnull
   private BDDReachabilityAnalysisFactory getBddReachabilityAnalysisFactory(
       NetworkSnapshot snapshot, BDDPacket pkt, boolean ignoreFilters) {
@@ -3056,6 +3300,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
       checkArgument(
           !parameters.getFlowDispositions().isEmpty(), "Must specify at least one FlowDisposition");
       BDDPacket pkt = new BDDPacket();
+      BddStatsBaseline bddStats = startBddStats(pkt);
 
       AclLineMatchExpr headerSpace =
           parameters.getInvertSearch()
@@ -3088,6 +3333,8 @@ public class Batfish extends PluginConsumer implements IBatfish {
                   parameters.getFinalNodes(),
                   parameters.getFlowDispositions());
 
+      reportBddStats(pkt, bddStats);
+
       Set<IngressLocation> commonSources =
           Sets.intersection(baseAcceptBDDs.keySet(), deltaAcceptBDDs.keySet());
 
@@ -3134,7 +3381,8 @@ public class Batfish extends PluginConsumer implements IBatfish {
         .collect(ImmutableSet.toImmutableSet());
   }
 
-  private void writeJsonAnswer(String structuredAnswerString) {
+  /** Stores {@code answer} as the answer to the current question, and returns its ID. */
+  private @Nonnull AnswerId writeJsonAnswer(Answer answer) throws IOException {
     SnapshotId deltaSnapshot = _settings.getDiffQuestion() ? _deltaTestrigSettings.getName() : null;
     NetworkId networkId = _settings.getContainer();
     QuestionId questionId = _settings.getQuestionName();
@@ -3163,12 +3411,16 @@ public class Batfish extends PluginConsumer implements IBatfish {
             networkNodeRolesId,
             deltaSnapshot,
             analysisId);
-    _storage.storeAnswer(structuredAnswerString, baseAnswerId);
+    _storage.storeAnswer(answer, baseAnswerId);
+    return baseAnswerId;
   }
 
-  private void writeJsonAnswerWithLog(@Nullable String logString, String structuredAnswerString) {
+  private void writeJsonAnswerWithLog(Answer answer, boolean writeLog) throws IOException {
+    // Write answer.json if WorkItem was answering a question
+    @Nullable
+    AnswerId answerId = _settings.getQuestionName() != null ? writeJsonAnswer(answer) : null;
     // Write log of WorkItem task to the configured path for logs
-    if (logString != null && _settings.getTaskId() != null) {
+    if (writeLog && _settings.getTaskId() != null) {
       Path jsonPath =
           _settings
               .getStorageBase()
@@ -3177,11 +3429,14 @@ public class Batfish extends PluginConsumer implements IBatfish {
               .resolve(_settings.getTestrig().getId())
               .resolve(BfConsts.RELPATH_OUTPUT)
               .resolve(_settings.getTaskId() + BfConsts.SUFFIX_ANSWER_JSON_FILE);
-      CommonUtil.writeFile(jsonPath, logString);
-    }
-    // Write answer.json and answer-pretty.json if WorkItem was answering a question
-    if (_settings.getQuestionName() != null) {
-      writeJsonAnswer(structuredAnswerString);
+      if (answerId == null) {
+        BatfishObjectMapper.writer().writeValue(jsonPath.toFile(), answer);
+      } else {
+        // Copy the stored answer rather than serializing it again
+        try (InputStream answerStream = _storage.loadAnswerStream(answerId)) {
+          Files.copy(answerStream, jsonPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+      }
     }
   }
 
@@ -44,6 +44,7 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 import org.apache.commons.collections4.map.LRUMap;
 import org.apache.commons.lang3.SystemUtils;
+import org.batfish.bddreachability.BDDReachabilityAnalysisFactoryCache;
 import org.batfish.common.BatfishException;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.BfConsts;
@@ -116,6 +117,9 @@ public class Driver {
 
   private static ConcurrentMap<String, Task> _taskLog;
 
+  private static final BDDReachabilityAnalysisFactoryCache
+      CACHED_BDD_REACHABILITY_ANALYSIS_FACTORIES = buildBddReachabilityAnalysisFactoryCache();
+
   private static final Cache<NetworkSnapshot, DataPlane> CACHED_DATA_PLANES = buildDataPlaneCache();
 
   private static final Map<NetworkSnapshot, SortedMap<String, BgpAdvertisementsByVrf>>
@@ -134,6 +138,9 @@ public class Driver {
 
   static Logger httpServerLogger = Logger.getLogger(HttpServer.class.getName());
 
+  /** Budget in bytes for the BDD node tables and caches of cached reachability factories. */
+  private static final long MAX_CACHED_BDD_BYTES = 1L << 29;
+
   private static final int MAX_CACHED_DATA_PLANES = 2;
 
   private static final int MAX_CACHED_ENVIRONMENT_BGP_TABLES = 4;
@@ -143,6 +150,10 @@ public class Driver {
   static Logger networkListenerLogger =
       Logger.getLogger("org.glassfish.grizzly.http.server.NetworkListener");
 
+  private static BDDReachabilityAnalysisFactoryCache buildBddReachabilityAnalysisFactoryCache() {
+    return new BDDReachabilityAnalysisFactoryCache(MAX_CACHED_BDD_BYTES);
+  }
+
   private static Cache<NetworkSnapshot, DataPlane> buildDataPlaneCache() {
     return CacheBuilder.newBuilder().softValues().maximumSize(MAX_CACHED_DATA_PLANES).build();
   }
@@ -526,6 +537,7 @@ public class Driver {
               CACHED_TESTRIGS,
               CACHED_DATA_PLANES,
               CACHED_ENVIRONMENT_BGP_TABLES,
+              CACHED_BDD_REACHABILITY_ANALYSIS_FACTORIES,
               null,
               null);
 
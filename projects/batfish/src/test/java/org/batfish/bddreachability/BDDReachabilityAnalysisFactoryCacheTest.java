@@ -0,0 +1,106 @@
+package org.batfish.bddreachability;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.util.SortedMap;
+import net.sf.javabdd.BDDFactory;
+import org.batfish.common.NetworkSnapshot;
+import org.batfish.common.bdd.BDDPacket;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.DataPlane;
+import org.batfish.main.Batfish;
+import org.batfish.main.BatfishTestUtils;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests of {@link BDDReachabilityAnalysisFactoryCache}. */
+public class BDDReachabilityAnalysisFactoryCacheTest {
+  @ClassRule public static TemporaryFolder temp = new TemporaryFolder();
+
+  private static SortedMap<String, Configuration> _configs;
+  private static DataPlane _dataPlane;
+  private static NetworkSnapshot _snapshot;
+  private static BDDReachabilityAnalysisFactory _factory;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    _configs = TestNetworkSources.twoNodeNetwork();
+    Batfish batfish = BatfishTestUtils.getBatfish(_configs, temp);
+    _snapshot = batfish.getSnapshot();
+    batfish.computeDataPlane(_snapshot);
+    _dataPlane = batfish.loadDataPlane(_snapshot);
+    _factory = newFactory();
+  }
+
+  private static BDDReachabilityAnalysisFactory newFactory() {
+    return new BDDReachabilityAnalysisFactory(
+        new BDDPacket(),
+        _configs,
+        _dataPlane.getForwardingAnalysis(),
+        new IpsRoutedOutInterfacesFactory(_dataPlane.getFibs()),
+        false,
+        false);
+  }
+
+  @Test
+  public void testCheckoutCheckin() {
+    BDDReachabilityAnalysisFactoryCache cache = new BDDReachabilityAnalysisFactoryCache(1L << 30);
+    assertThat(cache.checkout(_snapshot, false), nullValue());
+
+    cache.checkin(_snapshot, false, _factory);
+    assertThat(cache.checkout(_snapshot, true), nullValue());
+    assertThat(cache.checkout(_snapshot, false), sameInstance(_factory));
+    // checked out factories are not shared
+    assertThat(cache.checkout(_snapshot, false), nullValue());
+  }
+
+  @Test
+  public void testInvalidate() {
+    BDDReachabilityAnalysisFactoryCache cache = new BDDReachabilityAnalysisFactoryCache(1L << 30);
+    cache.checkin(_snapshot, false, _factory);
+    cache.checkin(_snapshot, true, _factory);
+    cache.invalidate(_snapshot);
+    assertThat(cache.checkout(_snapshot, false), nullValue());
+    assertThat(cache.checkout(_snapshot, true), nullValue());
+  }
+
+  @Test
+  public void testOverBudget() {
+    int bytes = BDDReachabilityAnalysisFactoryCache.weigh(_factory);
+    BDDReachabilityAnalysisFactoryCache cache = new BDDReachabilityAnalysisFactoryCache(bytes - 1);
+    cache.checkin(_snapshot, false, _factory);
+    assertThat(cache.checkout(_snapshot, false), nullValue());
+  }
+
+  @Test
+  public void testWeighsCaches() {
+    BDDReachabilityAnalysisFactory factory = newFactory();
+    BDDFactory bddFactory = factory.getBDDPacket().getFactory();
+    int bytes = BDDReachabilityAnalysisFactoryCache.weigh(factory);
+
+    // the operator caches grew while the node table did not
+    bddFactory.setCacheSize(2 * bddFactory.getCacheSize());
+    assertThat(BDDReachabilityAnalysisFactoryCache.weigh(factory), greaterThan(bytes));
+  }
+
+  @Test
+  public void testReweighedAtCheckin() {
+    BDDReachabilityAnalysisFactory factory = newFactory();
+    BDDFactory bddFactory = factory.getBDDPacket().getFactory();
+    BDDReachabilityAnalysisFactoryCache cache =
+        new BDDReachabilityAnalysisFactoryCache(BDDReachabilityAnalysisFactoryCache.weigh(factory));
+    cache.checkin(_snapshot, false, factory);
+    assertThat(cache.checkout(_snapshot, false), sameInstance(factory));
+
+    // the node table grew while the factory was checked out
+    bddFactory.setNodeTableSize(2 * bddFactory.getNodeTableSize());
+    cache.checkin(_snapshot, false, factory);
+    assertThat(cache.checkout(_snapshot, false), nullValue());
+  }
+}
@@ -183,6 +183,24 @@ public final class BDDReachabilityAnalysisFactoryTest {
         false);
   }
 
+  @Test
+  public void testComputeForwardingBDDsInParallel() throws IOException {
+    TestNetwork net = new TestNetwork();
+    Batfish batfish = BatfishTestUtils.getBatfish(net._configs, temp);
+    batfish.computeDataPlane(batfish.getSnapshot());
+    DataPlane dataPlane = batfish.loadDataPlane(batfish.getSnapshot());
+
+    BDDPacket pkt = new BDDPacket();
+    Map<IpSpace, BDD> bdds =
+        BDDReachabilityAnalysisFactory.computeForwardingBDDsInParallel(
+            pkt, dataPlane.getForwardingAnalysis());
+    assertFalse(bdds.isEmpty());
+
+    // the BDDs built on per-node factories match those built directly on pkt
+    IpSpaceToBDD ipSpaceToBDD = pkt.getDstIpSpaceToBDD();
+    bdds.forEach((ipSpace, bdd) -> assertThat(bdd, equalTo(ipSpace.accept(ipSpaceToBDD))));
+  }
+
   @Test
   public void testFinalNodes() throws IOException {
     SortedMap<String, Configuration> configs = TestNetworkSources.twoNodeNetwork();
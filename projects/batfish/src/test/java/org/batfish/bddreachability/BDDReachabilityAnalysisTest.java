@@ -2,6 +2,7 @@ package org.batfish.bddreachability;
 
 import static org.batfish.bddreachability.BDDReachabilityUtils.computeForwardEdgeTable;
 import static org.batfish.bddreachability.BDDReachabilityUtils.fixpoint;
+import static org.batfish.bddreachability.BDDReachabilityUtils.partitionedFixpoint;
 import static org.batfish.bddreachability.BDDReachabilityUtils.toIngressLocation;
 import static org.batfish.bddreachability.TestNetwork.DST_PREFIX_1;
 import static org.batfish.bddreachability.TestNetwork.DST_PREFIX_2;
@@ -14,6 +15,7 @@ import static org.batfish.common.bdd.BDDMatchers.isZero;
 import static org.batfish.datamodel.Configuration.DEFAULT_VRF_NAME;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertEquals;
@@ -31,6 +33,7 @@ import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import net.sf.javabdd.BDD;
+import net.sf.javabdd.JFactory;
 import org.batfish.bddreachability.transition.Transition;
 import org.batfish.common.bdd.BDDInteger;
 import org.batfish.common.bdd.BDDOps;
@@ -545,4 +548,131 @@ public final class BDDReachabilityAnalysisTest {
                   c, start)));
     }
   }
+
+  @Test
+  public void testFixpointTraversesAcyclicEdgesOnce() {
+    // a diamond lattice: every state at level i has edges to both states at level i + 1
+    int levels = 10;
+    ImmutableList.Builder<Edge> edges = ImmutableList.builder();
+    for (int i = 0; i < levels; i++) {
+      for (int j = 0; j < 2; j++) {
+        for (int k = 0; k < 2; k++) {
+          edges.add(
+              new Edge(
+                  new NodeAccept(i + "-" + j),
+                  new NodeAccept((i + 1) + "-" + k),
+                  PKT.getDstIp().value(j + k)));
+        }
+      }
+    }
+    Table<StateExpr, StateExpr, Transition> forwardEdges = computeForwardEdgeTable(edges.build());
+
+    int[] traversals = {0};
+    Map<StateExpr, BDD> reachability = new HashMap<>();
+    reachability.put(new NodeAccept("0-0"), PKT.getFactory().one());
+    reachability.put(new NodeAccept("0-1"), PKT.getFactory().one());
+    fixpoint(
+        reachability,
+        forwardEdges,
+        (transition, bdd) -> {
+          traversals[0]++;
+          return transition.transitForward(bdd);
+        });
+    assertThat(reachability.keySet(), hasSize(2 * (levels + 1)));
+    assertThat(traversals[0], equalTo(forwardEdges.size()));
+  }
+
+  @Test
+  public void testPartitionedFixpoint() {
+    StateExpr a = new NodeAccept("A");
+    StateExpr b = new NodeAccept("B");
+    StateExpr c = new NodeAccept("C");
+    StateExpr d = new NodeAccept("D");
+
+    BDD start = PKT.getSrcPort().value(1);
+    BDD bddAB = PKT.getDstIp().value(1);
+    BDD bddBC = PKT.getSrcIp().value(1);
+    BDD bddCA = PKT.getDstPort().value(1);
+
+    // a -> b -> c -> a is a cycle; c -> d leaves it. Every state is reachable along two paths.
+    Table<StateExpr, StateExpr, Transition> forwardEdges =
+        computeForwardEdgeTable(
+            ImmutableList.of(
+                new Edge(a, b, bddAB),
+                new Edge(b, c, bddBC),
+                new Edge(c, a, bddCA),
+                new Edge(c, d, PKT.getFactory().one()),
+                new Edge(a, d, bddBC)));
+
+    Map<StateExpr, BDD> expected = new HashMap<>();
+    expected.put(a, start);
+    fixpoint(expected, forwardEdges, Transition::transitForward);
+    assertThat(expected.keySet(), containsInAnyOrder(a, b, c, d));
+    assertThat(expected.get(d), equalTo(start.and(bddBC)));
+
+    for (int numPartitions : new int[] {1, 2, 5}) {
+      Map<StateExpr, BDD> forwardReachability = new HashMap<>();
+      forwardReachability.put(a, start);
+      partitionedFixpoint(
+          forwardReachability, forwardEdges, Transition::transitForward, numPartitions, false);
+      assertThat(forwardReachability, equalTo(expected));
+    }
+  }
+
+  /**
+   * A graph of {@code size} states with two cycles through all states and edges that constrain
+   * different header fields, so that reachable sets keep growing for several rounds.
+   */
+  private static Table<StateExpr, StateExpr, Transition> cyclicGraph(BDDPacket pkt, int size) {
+    ImmutableList.Builder<Edge> edges = ImmutableList.builder();
+    for (int i = 0; i < size; i++) {
+      edges.add(
+          new Edge(
+              new NodeAccept("n" + i),
+              new NodeAccept("n" + (i + 1) % size),
+              pkt.getDstIp().value(i).or(pkt.getDstPort().value(i))));
+      edges.add(
+          new Edge(
+              new NodeAccept("n" + i),
+              new NodeAccept("n" + (i * 7 + 3) % size),
+              pkt.getSrcPort().value(i).not().or(pkt.getSrcIp().value(i))));
+    }
+    return computeForwardEdgeTable(edges.build());
+  }
+
+  private static Map<StateExpr, BDD> initialReachability(BDDPacket pkt) {
+    Map<StateExpr, BDD> reachability = new HashMap<>();
+    reachability.put(new NodeAccept("n0"), pkt.getFactory().one());
+    reachability.put(new NodeAccept("n5"), pkt.getDstIp().value(5));
+    return reachability;
+  }
+
+  @Test
+  public void testParallelPartitionedFixpoint() {
+    int size = 40;
+    BDDPacket pkt = new BDDPacket(JFactory.initConcurrent(10000, 1000));
+    Table<StateExpr, StateExpr, Transition> forwardEdges = cyclicGraph(pkt, size);
+
+    Map<StateExpr, BDD> expected = initialReachability(pkt);
+    partitionedFixpoint(expected, forwardEdges, Transition::transitForward, 1, false);
+    assertThat(expected.keySet(), hasSize(size));
+
+    for (int numPartitions : new int[] {2, 8, 64}) {
+      Map<StateExpr, BDD> reachability = initialReachability(pkt);
+      partitionedFixpoint(
+          reachability, forwardEdges, Transition::transitForward, numPartitions, true);
+      assertThat(reachability, equalTo(expected));
+    }
+
+    // fixpoint picks the parallel mode for a thread-safe factory
+    Map<StateExpr, BDD> reachability = initialReachability(pkt);
+    fixpoint(reachability, forwardEdges, Transition::transitForward);
+    assertThat(reachability, equalTo(expected));
+
+    // and agrees with the sequential fixpoint on a factory that is not thread-safe
+    Map<StateExpr, BDD> sequential = initialReachability(PKT);
+    fixpoint(sequential, cyclicGraph(PKT, size), Transition::transitForward);
+    expected.forEach(
+        (state, bdd) -> assertThat(sequential.get(state).satCount(), equalTo(bdd.satCount())));
+  }
 }
@@ -0,0 +1,84 @@
+package org.batfish.bddreachability;
+
+import static org.batfish.bddreachability.StronglyConnectedComponents.topologicalOrder;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+public class StronglyConnectedComponentsTest {
+
+  @Test
+  public void testEmpty() {
+    assertThat(topologicalOrder(ImmutableList.<String>of(), n -> ImmutableSet.of()), empty());
+  }
+
+  @Test
+  public void testChain() {
+    SetMultimap<String, String> edges =
+        ImmutableSetMultimap.of(
+            "a", "b", //
+            "b", "c");
+    assertThat(
+        topologicalOrder(ImmutableList.of("b", "a"), edges::get),
+        contains(ImmutableSet.of("a"), ImmutableSet.of("b"), ImmutableSet.of("c")));
+  }
+
+  @Test
+  public void testUnreachableFromRoots() {
+    SetMultimap<String, String> edges =
+        ImmutableSetMultimap.of(
+            "a", "b", //
+            "c", "a");
+    assertThat(
+        topologicalOrder(ImmutableList.of("a"), edges::get),
+        contains(ImmutableSet.of("a"), ImmutableSet.of("b")));
+  }
+
+  @Test
+  public void testCycles() {
+    // a -> {b <-> c} -> d -> d, and a -> d
+    SetMultimap<String, String> edges =
+        ImmutableSetMultimap.<String, String>builder()
+            .put("a", "b")
+            .put("a", "d")
+            .put("b", "c")
+            .put("c", "b")
+            .put("c", "d")
+            .put("d", "d")
+            .build();
+    List<ImmutableSet<String>> sccs = topologicalOrder(ImmutableList.of("a"), edges::get);
+    assertThat(sccs, hasSize(3));
+    assertThat(sccs.get(0), contains("a"));
+    assertThat(sccs.get(1), containsInAnyOrder("b", "c"));
+    assertThat(sccs.get(2), contains("d"));
+  }
+
+  @Test
+  public void testDeepGraph() {
+    // deep enough that a recursive depth-first search would overflow the stack
+    int depth = 100_000;
+    List<ImmutableSet<Integer>> sccs =
+        topologicalOrder(
+            ImmutableList.of(0), n -> n < depth ? ImmutableSet.of(n + 1) : ImmutableSet.of(0));
+    assertThat(sccs, hasSize(1));
+    assertThat(sccs.get(0), hasSize(depth + 1));
+    assertThat(
+        topologicalOrder(
+            ImmutableList.of(0), n -> n < depth ? ImmutableSet.of(n + 1) : ImmutableSet.of()),
+        contains(
+            IntStream.rangeClosed(0, depth)
+                .mapToObj(ImmutableSet::of)
+                .collect(ImmutableList.toImmutableList())
+                .toArray()));
+  }
+}
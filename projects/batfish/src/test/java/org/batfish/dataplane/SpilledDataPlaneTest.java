@@ -0,0 +1,163 @@
+package org.batfish.dataplane;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.lang3.SerializationUtils;
+import org.batfish.common.NetworkSnapshot;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.DataPlane;
+import org.batfish.dataplane.ibdp.IncrementalDataPlane;
+import org.batfish.dataplane.ibdp.Node;
+import org.batfish.main.Batfish;
+import org.batfish.main.BatfishTestUtils;
+import org.batfish.main.TestrigText;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests of {@link SpilledDataPlane}. */
+public class SpilledDataPlaneTest {
+
+  @Rule public TemporaryFolder _folder = new TemporaryFolder();
+
+  private static final String TESTRIGS_PREFIX = "org/batfish/dataplane/testrigs/";
+
+  private Batfish _batfish;
+  private NetworkSnapshot _snapshot;
+
+  @Before
+  public void setup() throws IOException {
+    _batfish =
+        BatfishTestUtils.getBatfishFromTestrigText(
+            TestrigText.builder()
+                .setConfigurationText(TESTRIGS_PREFIX + "rip", ImmutableSet.of("r1", "r2", "r3"))
+                .build(),
+            _folder);
+    _snapshot = _batfish.getSnapshot();
+  }
+
+  private static void assertSameContents(DataPlane actual, DataPlane expected) {
+    assertThat(actual.getConfigurations().keySet(), equalTo(expected.getConfigurations().keySet()));
+    assertThat(actual.getRibs().keySet(), equalTo(expected.getRibs().keySet()));
+    expected
+        .getRibs()
+        .forEach(
+            (hostname, ribs) -> {
+              assertThat(actual.getRibs().get(hostname).keySet(), equalTo(ribs.keySet()));
+              ribs.forEach(
+                  (vrf, rib) ->
+                      assertThat(
+                          actual.getRibs().get(hostname).get(vrf).getRoutes(),
+                          equalTo(rib.getRoutes())));
+            });
+    expected
+        .getFibs()
+        .forEach(
+            (hostname, fibs) ->
+                fibs.forEach(
+                    (vrf, fib) ->
+                        assertThat(
+                            actual.getFibs().get(hostname).get(vrf).allEntries(),
+                            equalTo(fib.allEntries()))));
+    assertThat(actual.getBgpRoutes().cellSet(), equalTo(expected.getBgpRoutes().cellSet()));
+    assertThat(actual.getEvpnRoutes().cellSet(), equalTo(expected.getEvpnRoutes().cellSet()));
+    assertThat(
+        actual.getForwardingAnalysis().getRoutableIps(),
+        equalTo(expected.getForwardingAnalysis().getRoutableIps()));
+  }
+
+  @Test
+  public void testSpill() {
+    _batfish.computeDataPlane(_snapshot);
+    DataPlane dataPlane = _batfish.loadDataPlane(_snapshot);
+    SpilledDataPlane spilled =
+        SpilledDataPlane.spill(
+            dataPlane, _batfish.getTopologyProvider().getLayer3Topology(_snapshot));
+
+    assertThat(spilled.getNumPagedInNodes(), equalTo(0L));
+    assertSameContents(spilled, dataPlane);
+  }
+
+  @Test
+  public void testPageInSingleNode() {
+    _batfish.computeDataPlane(_snapshot);
+    DataPlane dataPlane = _batfish.loadDataPlane(_snapshot);
+    SpilledDataPlane spilled =
+        SpilledDataPlane.spill(
+            dataPlane, _batfish.getTopologyProvider().getLayer3Topology(_snapshot));
+
+    Set<?> routes = spilled.getRibs().get("r1").get(Configuration.DEFAULT_VRF_NAME).getRoutes();
+    Map<String, ?> bgpRoutes = spilled.getBgpRoutes().row("r2");
+
+    assertThat(
+        routes,
+        equalTo(dataPlane.getRibs().get("r1").get(Configuration.DEFAULT_VRF_NAME).getRoutes()));
+    assertThat(bgpRoutes, equalTo(dataPlane.getBgpRoutes().row("r2")));
+    // r3 was never accessed
+    assertThat(spilled.getNumPagedInNodes(), equalTo(2L));
+  }
+
+  @Test
+  public void testJavaSerialization() {
+    _batfish.computeDataPlane(_snapshot);
+    DataPlane dataPlane = _batfish.loadDataPlane(_snapshot);
+    SpilledDataPlane spilled =
+        SpilledDataPlane.spill(
+            dataPlane, _batfish.getTopologyProvider().getLayer3Topology(_snapshot));
+
+    assertSameContents(SerializationUtils.clone(spilled), dataPlane);
+  }
+
+  @Test
+  public void testJavaSerializationReusesSpillDirectory() {
+    _batfish.computeDataPlane(_snapshot);
+    DataPlane dataPlane = _batfish.loadDataPlane(_snapshot);
+    SpilledDataPlane spilled =
+        SpilledDataPlane.spill(
+            dataPlane, _batfish.getTopologyProvider().getLayer3Topology(_snapshot));
+    SpilledDataPlane other =
+        SpilledDataPlane.spill(
+            dataPlane, _batfish.getTopologyProvider().getLayer3Topology(_snapshot));
+
+    assertThat(
+        SerializationUtils.clone(spilled).getSpillDirectory(),
+        equalTo(spilled.getSpillDirectory()));
+    assertThat(other.getSpillDirectory(), not(equalTo(spilled.getSpillDirectory())));
+  }
+
+  @Test
+  public void testGetNodes() {
+    _batfish.computeDataPlane(_snapshot);
+    IncrementalDataPlane dataPlane = (IncrementalDataPlane) _batfish.loadDataPlane(_snapshot);
+    SpilledDataPlane spilled =
+        SpilledDataPlane.spill(
+            dataPlane, _batfish.getTopologyProvider().getLayer3Topology(_snapshot));
+
+    for (SpilledDataPlane copy : ImmutableList.of(spilled, SerializationUtils.clone(spilled))) {
+      Map<String, Node> nodes = copy.getNodes();
+      assertThat(nodes, notNullValue());
+      assertThat(nodes.keySet(), equalTo(dataPlane.getNodes().keySet()));
+      assertThat(nodes.get("r1").getConfiguration().getHostname(), equalTo("r1"));
+      // nodes are read from disk, not paged in
+      assertThat(copy.getNumPagedInNodes(), equalTo(0L));
+    }
+  }
+
+  @Test
+  public void testSpillDataPlaneSetting() {
+    _batfish.getSettings().setSpillDataPlane(true);
+    _batfish.computeDataPlane(_snapshot);
+
+    assertThat(_batfish.loadDataPlane(_snapshot), instanceOf(SpilledDataPlane.class));
+  }
+}
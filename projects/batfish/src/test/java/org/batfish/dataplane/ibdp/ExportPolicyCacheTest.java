@@ -0,0 +1,202 @@
+package org.batfish.dataplane.ibdp;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSet;
+import org.batfish.datamodel.AbstractRouteDecorator;
+import org.batfish.datamodel.BgpActivePeerConfig;
+import org.batfish.datamodel.BgpProcess;
+import org.batfish.datamodel.BgpSessionProperties;
+import org.batfish.datamodel.Bgpv4Route;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.OriginType;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.RoutingProtocol;
+import org.batfish.datamodel.bgp.AddressFamily.Type;
+import org.batfish.datamodel.bgp.Ipv4UnicastAddressFamily;
+import org.batfish.datamodel.routing_policy.RoutingPolicy;
+import org.batfish.datamodel.routing_policy.expr.SelfNextHop;
+import org.batfish.datamodel.routing_policy.statement.SetNextHop;
+import org.batfish.datamodel.routing_policy.statement.Statements;
+import org.batfish.dataplane.protocols.BgpProtocolHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests of {@link ExportPolicyCache}. */
+public final class ExportPolicyCacheTest {
+
+  private static final Bgpv4Route ROUTE =
+      Bgpv4Route.builder()
+          .setNetwork(Prefix.parse("10.0.0.0/24"))
+          .setNextHopIp(Ip.parse("10.0.0.1"))
+          .setOriginatorIp(Ip.parse("1.1.1.1"))
+          .setOriginType(OriginType.IGP)
+          .setProtocol(RoutingProtocol.BGP)
+          .build();
+
+  private static final BgpSessionProperties SESSION1 = session(Ip.parse("2.2.2.1"));
+  private static final BgpSessionProperties SESSION2 = session(Ip.parse("2.2.2.2"));
+
+  private Configuration _c;
+  private ExportPolicyCache _cache;
+  private NetworkFactory _nf;
+
+  private static BgpSessionProperties session(Ip headIp) {
+    return BgpSessionProperties.builder()
+        .setHeadAs(1L)
+        .setTailAs(2L)
+        .setHeadIp(headIp)
+        .setTailIp(Ip.parse("3.3.3.3"))
+        .setAddressFamilies(ImmutableSet.of(Type.IPV4_UNICAST))
+        .build();
+  }
+
+  @Before
+  public void setup() {
+    _nf = new NetworkFactory();
+    _c =
+        _nf.configurationBuilder()
+            .setHostname("c")
+            .setConfigurationFormat(ConfigurationFormat.CISCO_IOS)
+            .build();
+    _cache = new ExportPolicyCache();
+  }
+
+  private static BgpProcess bgpProcess(Ip routerId) {
+    return BgpProcess.builder()
+        .setRouterId(routerId)
+        .setAdminCostsToVendorDefaults(ConfigurationFormat.CISCO_IOS)
+        .build();
+  }
+
+  private static BgpActivePeerConfig peer(
+      Ip localIp, Ip peerAddress, long localAs, long remoteAs, String exportPolicy) {
+    return BgpActivePeerConfig.builder()
+        .setLocalIp(localIp)
+        .setPeerAddress(peerAddress)
+        .setLocalAs(localAs)
+        .setRemoteAs(remoteAs)
+        .setIpv4UnicastAddressFamily(
+            Ipv4UnicastAddressFamily.builder().setExportPolicy(exportPolicy).build())
+        .build();
+  }
+
+  private Bgpv4Route.Builder export(
+      RoutingPolicy policy, AbstractRouteDecorator exportCandidate, BgpSessionProperties session) {
+    return _cache.process(policy, exportCandidate, ROUTE.toBuilder(), session);
+  }
+
+  @Test
+  public void testSessionIndependentPolicyReusedAcrossSessions() {
+    RoutingPolicy policy =
+        _nf.routingPolicyBuilder()
+            .setOwner(_c)
+            .addStatement(Statements.ExitAccept.toStaticStatement())
+            .build();
+
+    assertThat(export(policy, ROUTE, SESSION1).build(), equalTo(ROUTE));
+    assertThat(export(policy, ROUTE, SESSION2).build(), equalTo(ROUTE));
+
+    CacheStats stats = _cache.getStats().get(policy.getName());
+    assertThat(stats.missCount(), equalTo(1L));
+    assertThat(stats.hitCount(), equalTo(1L));
+  }
+
+  @Test
+  public void testSessionDependentPolicyKeyedOnSession() {
+    RoutingPolicy policy =
+        _nf.routingPolicyBuilder()
+            .setOwner(_c)
+            .addStatement(new SetNextHop(SelfNextHop.getInstance()))
+            .addStatement(Statements.ExitAccept.toStaticStatement())
+            .build();
+
+    assertThat(
+        export(policy, ROUTE, SESSION1).build().getNextHopIp(), equalTo(SESSION1.getHeadIp()));
+    assertThat(
+        export(policy, ROUTE, SESSION2).build().getNextHopIp(), equalTo(SESSION2.getHeadIp()));
+    assertThat(
+        export(policy, ROUTE, SESSION1).build().getNextHopIp(), equalTo(SESSION1.getHeadIp()));
+
+    CacheStats stats = _cache.getStats().get(policy.getName());
+    assertThat(stats.missCount(), equalTo(2L));
+    assertThat(stats.hitCount(), equalTo(1L));
+  }
+
+  /**
+   * Exports a route from a hub to several eBGP peers, each on a session with a different local IP,
+   * going through the same pre-export transformations as the data plane.
+   */
+  @Test
+  public void testReusedAcrossSessionsWithDifferentLocalIps() {
+    RoutingPolicy policy =
+        _nf.routingPolicyBuilder()
+            .setOwner(_c)
+            .addStatement(Statements.ExitAccept.toStaticStatement())
+            .build();
+    BgpProcess hubProcess = bgpProcess(Ip.parse("1.1.1.1"));
+    int peers = 4;
+    for (int i = 1; i <= peers; i++) {
+      Ip hubIp = Ip.parse("10.0." + i + ".1");
+      Ip peerIp = Ip.parse("10.0." + i + ".2");
+      BgpActivePeerConfig hubPeer = peer(hubIp, peerIp, 1L, 100L + i, policy.getName());
+      BgpActivePeerConfig remotePeer = peer(peerIp, hubIp, 100L + i, 1L, "peerExport");
+      BgpSessionProperties session = BgpSessionProperties.from(hubPeer, remotePeer, false);
+      Bgpv4Route.Builder preExport =
+          BgpProtocolHelper.transformBgpRoutePreExport(
+              hubPeer,
+              remotePeer,
+              session,
+              hubProcess,
+              bgpProcess(peerIp),
+              ROUTE,
+              Type.IPV4_UNICAST);
+      assertThat(preExport, notNullValue());
+
+      Bgpv4Route exported = _cache.process(policy, ROUTE, preExport, session).build();
+
+      assertThat(exported.getReceivedFromIp(), equalTo(hubIp));
+      assertThat(exported.getNetwork(), equalTo(ROUTE.getNetwork()));
+    }
+
+    CacheStats stats = _cache.getStats().get(policy.getName());
+    assertThat(stats.missCount(), equalTo(1L));
+    assertThat(stats.hitCount(), equalTo(peers - 1L));
+  }
+
+  @Test
+  public void testClear() {
+    RoutingPolicy policy =
+        _nf.routingPolicyBuilder()
+            .setOwner(_c)
+            .addStatement(Statements.ExitAccept.toStaticStatement())
+            .build();
+    export(policy, ROUTE, SESSION1);
+    _cache.clear();
+    export(policy, ROUTE, SESSION1);
+
+    CacheStats stats = _cache.getStats().get(policy.getName());
+    assertThat(stats.missCount(), equalTo(2L));
+    assertThat(stats.hitCount(), equalTo(0L));
+  }
+
+  @Test
+  public void testRejectedRoute() {
+    RoutingPolicy policy =
+        _nf.routingPolicyBuilder()
+            .setOwner(_c)
+            .addStatement(Statements.ExitReject.toStaticStatement())
+            .build();
+
+    assertThat(export(policy, ROUTE, SESSION1), nullValue());
+    assertThat(export(policy, ROUTE, SESSION2), nullValue());
+    assertThat(_cache.getStats().get(policy.getName()).hitCount(), equalTo(1L));
+  }
+}
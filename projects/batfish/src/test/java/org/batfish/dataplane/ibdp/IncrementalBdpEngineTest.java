@@ -0,0 +1,62 @@
+package org.batfish.dataplane.ibdp;
+
+import static org.batfish.dataplane.ibdp.TestUtils.makeIosRouter;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.graph.EndpointPair;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+/** Tests of {@link IncrementalBdpEngine} */
+public class IncrementalBdpEngineTest {
+
+  private static List<Set<String>> hostnames(List<SortedMap<String, Node>> domains) {
+    return domains.stream().map(SortedMap::keySet).collect(Collectors.toList());
+  }
+
+  @Test
+  public void testComputeDomains() {
+    ImmutableSortedMap.Builder<String, Node> nodes = ImmutableSortedMap.naturalOrder();
+    ImmutableList.of("a", "b", "c", "d", "e")
+        .forEach(hostname -> nodes.put(hostname, makeIosRouter(hostname)));
+
+    // a - b - c are connected, d is only adjacent to itself, and e only to an unknown node
+    Set<EndpointPair<String>> adjacencies =
+        ImmutableSet.of(
+            EndpointPair.unordered("a", "b"),
+            EndpointPair.unordered("c", "b"),
+            EndpointPair.unordered("d", "d"),
+            EndpointPair.unordered("e", "unknown"));
+
+    assertThat(
+        hostnames(
+            IncrementalBdpEngine.computeDomains(nodes.build(), adjacencies, Function.identity())),
+        containsInAnyOrder(
+            ImmutableSet.of("a", "b", "c"), ImmutableSet.of("d"), ImmutableSet.of("e")));
+  }
+
+  @Test
+  public void testComputeDomainsMapsHostnames() {
+    ImmutableSortedMap.Builder<String, Node> nodes = ImmutableSortedMap.naturalOrder();
+    ImmutableList.of("a", "b", "c")
+        .forEach(hostname -> nodes.put(hostname, makeIosRouter(hostname)));
+
+    // Adjacencies between interfaces of nodes
+    Set<EndpointPair<String>> adjacencies =
+        ImmutableSet.of(EndpointPair.unordered("a:eth0", "c:eth1"));
+
+    assertThat(
+        hostnames(
+            IncrementalBdpEngine.computeDomains(
+                nodes.build(), adjacencies, endpoint -> endpoint.split(":")[0])),
+        containsInAnyOrder(ImmutableSet.of("a", "c"), ImmutableSet.of("b")));
+  }
+}
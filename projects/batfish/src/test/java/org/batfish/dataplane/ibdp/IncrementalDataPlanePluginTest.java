@@ -9,6 +9,7 @@ import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.in;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
@@ -31,11 +32,13 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.apache.commons.lang3.SerializationUtils;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.plugin.DataPlanePlugin;
 import org.batfish.common.plugin.DataPlanePlugin.ComputeDataPlaneResult;
+import org.batfish.common.topology.TopologyUtil;
 import org.batfish.datamodel.AbstractRoute;
 import org.batfish.datamodel.AnnotatedRoute;
 import org.batfish.datamodel.BgpActivePeerConfig;
@@ -73,6 +76,7 @@ import org.batfish.datamodel.isis.IsisLevelSettings;
 import org.batfish.datamodel.isis.IsisProcess;
 import org.batfish.datamodel.routing_policy.RoutingPolicy;
 import org.batfish.datamodel.routing_policy.statement.SetDefaultPolicy;
+import org.batfish.dataplane.SpilledDataPlane;
 import org.batfish.dataplane.TracerouteEngineImpl;
 import org.batfish.main.Batfish;
 import org.batfish.main.BatfishTestUtils;
@@ -743,6 +747,146 @@ public class IncrementalDataPlanePluginTest {
     return ImmutableSortedMap.of(c1.getHostname(), c1, c2.getHostname(), c2, c3.getHostname(), c3);
   }
 
+  /**
+   * Two sites that are not connected to each other, each a pair of directly connected nodes. The
+   * first node of each site has a static route via the second. If {@code extraRoute}, the first
+   * node of site b has a second static route.
+   */
+  private static SortedMap<String, Configuration> generateTwoSites(boolean extraRoute) {
+    NetworkFactory nf = new NetworkFactory();
+    Configuration.Builder cb =
+        nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS);
+    ImmutableSortedMap.Builder<String, Configuration> configs = ImmutableSortedMap.naturalOrder();
+    for (String site : ImmutableList.of("a", "b")) {
+      String subnet = site.equals("a") ? "10.0.0" : "10.0.1";
+      Configuration c1 = cb.setHostname(site + "1").build();
+      Vrf v1 = nf.vrfBuilder().setOwner(c1).setName(DEFAULT_VRF_NAME).build();
+      Interface i1 =
+          nf.interfaceBuilder()
+              .setOwner(c1)
+              .setVrf(v1)
+              .setAddress(ConcreteInterfaceAddress.parse(subnet + ".0/31"))
+              .build();
+      Configuration c2 = cb.setHostname(site + "2").build();
+      Vrf v2 = nf.vrfBuilder().setOwner(c2).setName(DEFAULT_VRF_NAME).build();
+      nf.interfaceBuilder()
+          .setOwner(c2)
+          .setVrf(v2)
+          .setAddress(ConcreteInterfaceAddress.parse(subnet + ".1/31"))
+          .build();
+      StaticRoute.Builder sb =
+          StaticRoute.builder()
+              .setAdministrativeCost(1)
+              .setNextHopInterface(i1.getName())
+              .setNextHopIp(Ip.parse(subnet + ".1"));
+      ImmutableSortedSet.Builder<StaticRoute> staticRoutes = ImmutableSortedSet.naturalOrder();
+      staticRoutes.add(sb.setNetwork(Prefix.parse("10.1.0.0/24")).build());
+      if (extraRoute && site.equals("b")) {
+        staticRoutes.add(sb.setNetwork(Prefix.parse("10.2.0.0/24")).build());
+      }
+      v1.setStaticRoutes(staticRoutes.build());
+      configs.put(c1.getHostname(), c1).put(c2.getHostname(), c2);
+    }
+    return configs.build();
+  }
+
+  private static ComputeDataPlaneResult computeTwoSitesDataPlane(
+      SortedMap<String, Configuration> configs, @Nullable ParentDataPlane parent) {
+    IncrementalBdpEngine engine =
+        new IncrementalBdpEngine(
+            new IncrementalDataPlaneSettings(),
+            new BatfishLogger(BatfishLogger.LEVELSTR_DEBUG, false));
+    return engine.computeDataPlane(
+        configs,
+        TopologyContext.builder()
+            .setLayer3Topology(TopologyUtil.synthesizeL3Topology(configs))
+            .build(),
+        ImmutableSet.of(),
+        parent);
+  }
+
+  @Test
+  public void testReuseParentDataPlane() {
+    SortedMap<String, Configuration> parentConfigs = generateTwoSites(false);
+    IncrementalDataPlane parentDp =
+        (IncrementalDataPlane) computeTwoSitesDataPlane(parentConfigs, null)._dataPlane;
+    ParentDataPlane parent =
+        new ParentDataPlane(
+            parentConfigs,
+            TopologyContext.builder()
+                .setLayer3Topology(TopologyUtil.synthesizeL3Topology(parentConfigs))
+                .build(),
+            ImmutableSet.of(),
+            parentDp);
+
+    // Site a is unchanged, so its nodes are reused. Site b is recomputed.
+    SortedMap<String, Configuration> configs = generateTwoSites(true);
+    IncrementalDataPlane dp =
+        (IncrementalDataPlane) computeTwoSitesDataPlane(configs, parent)._dataPlane;
+    assertThat(dp.getNodes().get("a1"), sameInstance(parentDp.getNodes().get("a1")));
+    assertThat(dp.getNodes().get("a2"), sameInstance(parentDp.getNodes().get("a2")));
+    assertThat(dp.getNodes().get("b1"), not(sameInstance(parentDp.getNodes().get("b1"))));
+    assertThat(
+        dp.getRibs().get("b1").get(DEFAULT_VRF_NAME).getRoutes(),
+        hasItem(hasPrefix(Prefix.parse("10.2.0.0/24"))));
+
+    // The result is the same as computing the data plane from scratch.
+    DataPlane expected = computeTwoSitesDataPlane(generateTwoSites(true), null)._dataPlane;
+    for (String hostname : configs.keySet()) {
+      assertThat(
+          dp.getRibs().get(hostname).get(DEFAULT_VRF_NAME).getRoutes(),
+          equalTo(expected.getRibs().get(hostname).get(DEFAULT_VRF_NAME).getRoutes()));
+    }
+  }
+
+  @Test
+  public void testReuseParentDataPlaneIdentical() {
+    SortedMap<String, Configuration> configs = generateTwoSites(false);
+    IncrementalDataPlane parentDp =
+        (IncrementalDataPlane) computeTwoSitesDataPlane(configs, null)._dataPlane;
+    ParentDataPlane parent =
+        new ParentDataPlane(
+            configs,
+            TopologyContext.builder()
+                .setLayer3Topology(TopologyUtil.synthesizeL3Topology(configs))
+                .build(),
+            ImmutableSet.of(),
+            parentDp);
+
+    IncrementalDataPlane dp =
+        (IncrementalDataPlane) computeTwoSitesDataPlane(generateTwoSites(false), parent)._dataPlane;
+    assertThat(dp.getNodes(), equalTo(parentDp.getNodes()));
+  }
+
+  @Test
+  public void testReuseSpilledParentDataPlane() {
+    SortedMap<String, Configuration> parentConfigs = generateTwoSites(false);
+    Topology parentLayer3Topology = TopologyUtil.synthesizeL3Topology(parentConfigs);
+    SpilledDataPlane spilled =
+        SpilledDataPlane.spill(
+            computeTwoSitesDataPlane(parentConfigs, null)._dataPlane, parentLayer3Topology);
+    Map<String, Node> parentNodes = spilled.getNodes();
+    assertNotNull(parentNodes);
+    ParentDataPlane parent =
+        new ParentDataPlane(
+            parentConfigs,
+            TopologyContext.builder().setLayer3Topology(parentLayer3Topology).build(),
+            ImmutableSet.of(),
+            spilled,
+            parentNodes);
+
+    // Site a is reused from the spill files. Site b is recomputed.
+    SortedMap<String, Configuration> configs = generateTwoSites(true);
+    IncrementalDataPlane dp =
+        (IncrementalDataPlane) computeTwoSitesDataPlane(configs, parent)._dataPlane;
+    DataPlane expected = computeTwoSitesDataPlane(generateTwoSites(true), null)._dataPlane;
+    for (String hostname : configs.keySet()) {
+      assertThat(
+          dp.getRibs().get(hostname).get(DEFAULT_VRF_NAME).getRoutes(),
+          equalTo(expected.getRibs().get(hostname).get(DEFAULT_VRF_NAME).getRoutes()));
+    }
+  }
+
   /**
    * Check that ibdp topology fixed-point computation is performed correctly. In particular, ensure
    * that iBGP adjacency are established between loopbacks over IS-IS as the IGP.
@@ -2,6 +2,7 @@ package org.batfish.dataplane.ibdp;
 
 import static org.batfish.datamodel.matchers.AbstractRouteDecoratorMatchers.hasPrefix;
 import static org.batfish.datamodel.matchers.AbstractRouteDecoratorMatchers.hasProtocol;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.not;
@@ -41,6 +42,7 @@ import org.batfish.datamodel.routing_policy.expr.Disjunction;
 import org.batfish.datamodel.routing_policy.expr.MatchProtocol;
 import org.batfish.datamodel.routing_policy.statement.If;
 import org.batfish.datamodel.routing_policy.statement.Statements;
+import org.batfish.dataplane.ibdp.schedule.IbdpSchedule.Schedule;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -106,6 +108,14 @@ public class RouteReflectionTest {
    */
   private SortedMap<String, SortedMap<String, Set<AbstractRoute>>> generateRoutesOneReflector(
       boolean edge1RouteReflectorClient, boolean edge2RouteReflectorClient) {
+    return generateRoutesOneReflector(
+        edge1RouteReflectorClient, edge2RouteReflectorClient, new IncrementalDataPlaneSettings());
+  }
+
+  private SortedMap<String, SortedMap<String, Set<AbstractRoute>>> generateRoutesOneReflector(
+      boolean edge1RouteReflectorClient,
+      boolean edge2RouteReflectorClient,
+      IncrementalDataPlaneSettings settings) {
     Ip as1PeeringIp = Ip.parse("10.12.11.1");
     Ip edge1EbgpIfaceIp = Ip.parse("10.12.11.2");
     Ip edge1IbgpIfaceIp = Ip.parse("10.1.12.1");
@@ -218,9 +228,7 @@ public class RouteReflectionTest {
             .put(edge2.getHostname(), edge2)
             .build();
     IncrementalBdpEngine engine =
-        new IncrementalBdpEngine(
-            new IncrementalDataPlaneSettings(),
-            new BatfishLogger(BatfishLogger.LEVELSTR_OUTPUT, false));
+        new IncrementalBdpEngine(settings, new BatfishLogger(BatfishLogger.LEVELSTR_OUTPUT, false));
     Topology topology = TopologyUtil.synthesizeL3Topology(configurations);
     ComputeDataPlaneResult dpResult =
         engine.computeDataPlane(
@@ -479,4 +487,23 @@ public class RouteReflectionTest {
     assertIbgpRoute(routes, RR_NAME, AS3_PREFIX);
     assertIbgpRoute(routes, EDGE2_NAME, AS1_PREFIX);
   }
+
+  /*
+   * AS1 |                  AS2                   | AS3
+   *       edge1(client) <=> rr <=> (client)edge2
+   */
+  @Test
+  public void testSingleReflectorTwoClientsEventDriven() {
+    IncrementalDataPlaneSettings settings = new IncrementalDataPlaneSettings();
+    settings
+        .getConfig()
+        .setProperty(IncrementalDataPlaneSettings.PROP_SCHEDULE, Schedule.EVENT_DRIVEN.toString());
+
+    SortedMap<String, SortedMap<String, Set<AbstractRoute>>> routes =
+        generateRoutesOneReflector(true, true, settings);
+    // reset the builders, so that the same network is generated again
+    setup();
+
+    assertThat(routes, equalTo(generateRoutesOneReflector(true, true)));
+  }
 }
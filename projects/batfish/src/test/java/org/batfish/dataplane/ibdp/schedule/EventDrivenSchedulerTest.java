@@ -0,0 +1,125 @@
+package org.batfish.dataplane.ibdp.schedule;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.graph.MutableValueGraph;
+import com.google.common.graph.ValueGraphBuilder;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.batfish.datamodel.BgpPeerConfigId;
+import org.batfish.datamodel.BgpSessionProperties;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.bgp.BgpTopology;
+import org.batfish.dataplane.ibdp.Node;
+import org.batfish.dataplane.ibdp.TopologyContext;
+import org.batfish.dataplane.ibdp.schedule.NodeColoredSchedule.Coloring;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests of {@link EventDrivenScheduler} */
+public class EventDrivenSchedulerTest {
+
+  private Map<String, Node> _nodes;
+
+  /** Nodes that have pending work */
+  private Set<String> _pending;
+
+  /** Nodes that were checked for pending work */
+  private Set<String> _checked;
+
+  private EventDrivenScheduler _scheduler;
+
+  private static BgpPeerConfigId peer(String hostname) {
+    return new BgpPeerConfigId(hostname, Configuration.DEFAULT_VRF_NAME, Prefix.ZERO, false);
+  }
+
+  private static Set<String> scheduled(IbdpSchedule schedule) {
+    return schedule.getAllRemaining().stream()
+        .flatMap(nodes -> nodes.keySet().stream())
+        .collect(Collectors.toSet());
+  }
+
+  @Before
+  public void setup() {
+    // A chain of BGP peerings: a - b - c - d
+    NetworkFactory nf = new NetworkFactory();
+    Configuration.Builder cb =
+        nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS);
+    List<String> hostnames = ImmutableList.of("a", "b", "c", "d");
+    ImmutableSortedMap.Builder<String, Node> nodes = ImmutableSortedMap.naturalOrder();
+    hostnames.forEach(hostname -> nodes.put(hostname, new Node(cb.setHostname(hostname).build())));
+    _nodes = nodes.build();
+
+    MutableValueGraph<BgpPeerConfigId, BgpSessionProperties> graph =
+        ValueGraphBuilder.directed().allowsSelfLoops(false).build();
+    BgpSessionProperties session =
+        BgpSessionProperties.builder()
+            .setHeadAs(1L)
+            .setTailAs(1L)
+            .setHeadIp(Ip.ZERO)
+            .setTailIp(Ip.ZERO)
+            .build();
+    for (int i = 0; i < hostnames.size() - 1; i++) {
+      graph.putEdgeValue(peer(hostnames.get(i)), peer(hostnames.get(i + 1)), session);
+      graph.putEdgeValue(peer(hostnames.get(i + 1)), peer(hostnames.get(i)), session);
+    }
+
+    _pending = new HashSet<>();
+    _checked = new HashSet<>();
+    _scheduler =
+        new EventDrivenScheduler(
+            _nodes,
+            Coloring.SATURATION,
+            TopologyContext.builder().setBgpTopology(new BgpTopology(graph)).build(),
+            node -> {
+              String hostname = node.getConfiguration().getHostname();
+              _checked.add(hostname);
+              return _pending.contains(hostname);
+            });
+  }
+
+  @Test
+  public void testFirstIterationSchedulesAllNodes() {
+    assertThat(scheduled(_scheduler.nextIteration()), containsInAnyOrder("a", "b", "c", "d"));
+    // neighbors are never scheduled together
+    for (Map<String, Node> nodes : _scheduler.nextIteration().getAllRemaining()) {
+      assertFalse(nodes.containsKey("a") && nodes.containsKey("b"));
+    }
+  }
+
+  @Test
+  public void testOnlyPendingNodesScheduled() {
+    _scheduler.nextIteration();
+    _pending.add("a");
+    assertTrue(_scheduler.hasPendingWork());
+    assertThat(scheduled(_scheduler.nextIteration()), contains("a"));
+
+    // a ran and may have sent messages to b, but not to c or d
+    _pending.clear();
+    _pending.add("b");
+    _checked.clear();
+    assertThat(_scheduler.getPending(), contains("b"));
+    assertThat(_checked, containsInAnyOrder("a", "b"));
+    assertThat(scheduled(_scheduler.nextIteration()), contains("b"));
+
+    _pending.clear();
+    _checked.clear();
+    assertFalse(_scheduler.hasPendingWork());
+    assertThat(_checked, containsInAnyOrder("a", "b", "c"));
+    assertThat(scheduled(_scheduler.nextIteration()), empty());
+  }
+}
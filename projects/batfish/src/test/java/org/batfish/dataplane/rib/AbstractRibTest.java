@@ -517,4 +517,51 @@ public class AbstractRibTest {
         contains(
             new RouteAdvertisement<>(route2, Reason.WITHDRAW), new RouteAdvertisement<>(route1)));
   }
+
+  /** Test that the maintained hash code matches the routes across merges, removals, and clear. */
+  @Test
+  public void testGetRoutesHashCode() {
+    Bgpv4Rib bestPathRib =
+        new Bgpv4Rib(
+            null, BgpTieBreaker.ROUTER_ID, 1, MultipathEquivalentAsPathMatchMode.EXACT_PATH, true);
+    assertThat(bestPathRib.getRoutesHashCode(), equalTo(0));
+
+    Ip originator1 = Ip.parse("1.1.1.1");
+    Ip originator2 = Ip.parse("2.2.2.2");
+    Bgpv4Route.Builder routeBuilder =
+        new Bgpv4Route.Builder()
+            .setNetwork(Prefix.ZERO)
+            .setLocalPreference(1)
+            .setOriginType(OriginType.INCOMPLETE)
+            .setOriginatorIp(originator1)
+            .setProtocol(RoutingProtocol.IBGP)
+            .setReceivedFromIp(originator1);
+    Bgpv4Route worst = routeBuilder.build();
+    Bgpv4Route middle = routeBuilder.setLocalPreference(100).build();
+    Bgpv4Route best =
+        routeBuilder
+            .setLocalPreference(2000)
+            .setOriginatorIp(originator2)
+            .setReceivedFromIp(originator2)
+            .build();
+    Bgpv4Route other = routeBuilder.setNetwork(Prefix.parse("1.0.0.0/8")).build();
+
+    // Each route replaces the previous one
+    for (Bgpv4Route route : new Bgpv4Route[] {worst, middle, best, other}) {
+      bestPathRib.mergeRoute(route);
+      assertThat(bestPathRib.getRoutesHashCode(), equalTo(bestPathRib.getTypedRoutes().hashCode()));
+    }
+
+    // Re-merging backups adds the worst route and then replaces it with the middle one
+    bestPathRib.removeRoute(best);
+    assertThat(bestPathRib.getTypedRoutes(), containsInAnyOrder(middle, other));
+    assertThat(bestPathRib.getRoutesHashCode(), equalTo(bestPathRib.getTypedRoutes().hashCode()));
+
+    // Removing an absent route changes nothing
+    bestPathRib.removeRoute(best);
+    assertThat(bestPathRib.getRoutesHashCode(), equalTo(bestPathRib.getTypedRoutes().hashCode()));
+
+    bestPathRib.clear();
+    assertThat(bestPathRib.getRoutesHashCode(), equalTo(0));
+  }
 }
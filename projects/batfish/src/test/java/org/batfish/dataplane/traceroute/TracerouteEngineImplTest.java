@@ -69,10 +69,14 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
 import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.plugin.TracerouteEngine;
 import org.batfish.datamodel.ConcreteInterfaceAddress;
@@ -199,6 +203,62 @@ public class TracerouteEngineImplTest {
     assertThat(traces, hasEntry(equalTo(flow2), contains(hasDisposition(ACCEPTED))));
   }
 
+  @Test
+  public void testBuildTracesInBatches() throws IOException {
+    // Construct network
+    NetworkFactory nf = new NetworkFactory();
+    Configuration.Builder cb =
+        nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS);
+    Configuration config = cb.build();
+    Vrf.Builder vb = nf.vrfBuilder().setOwner(config);
+    Interface.Builder ib = nf.interfaceBuilder().setOwner(config);
+
+    Vrf vrf1 = vb.build();
+    Vrf vrf2 = vb.build();
+
+    Interface i1 = ib.setVrf(vrf1).setAddress(ConcreteInterfaceAddress.parse("1.1.1.1/24")).build();
+    Interface i2 = ib.setVrf(vrf2).setAddress(ConcreteInterfaceAddress.parse("2.2.2.2/24")).build();
+
+    // Compute data plane
+    SortedMap<String, Configuration> configs = ImmutableSortedMap.of(config.getHostname(), config);
+    Batfish batfish = BatfishTestUtils.getBatfish(configs, _tempFolder);
+    NetworkSnapshot snapshot = batfish.getSnapshot();
+    batfish.computeDataPlane(snapshot);
+    DataPlane dataPlane = batfish.loadDataPlane(snapshot);
+
+    // Construct more flows with the same ingress node and destination IP than fit in one batch
+    Builder fb =
+        builder()
+            .setDstIp(parse("2.2.2.2"))
+            .setIngressNode(config.getHostname())
+            .setIpProtocol(TCP)
+            .setDstPort(80);
+    Set<Flow> noRouteFlows = new HashSet<>();
+    Set<Flow> acceptedFlows = new HashSet<>();
+    for (int srcPort = 1; srcPort <= 300; srcPort++) {
+      fb.setSrcPort(srcPort);
+      noRouteFlows.add(fb.setIngressInterface(i1.getName()).setIngressVrf(vrf1.getName()).build());
+      acceptedFlows.add(fb.setIngressInterface(i2.getName()).setIngressVrf(vrf2.getName()).build());
+    }
+
+    // Compute flow traces
+    Map<Flow, List<TraceAndReverseFlow>> traces = new ConcurrentHashMap<>();
+    new TracerouteEngineImplContext(
+            dataPlane,
+            Topology.EMPTY,
+            ImmutableSet.of(),
+            Sets.union(noRouteFlows, acceptedFlows),
+            dataPlane.getFibs(),
+            false)
+        .buildTraces((flow, flowTraces) -> assertThat(traces.put(flow, flowTraces), nullValue()));
+
+    assertThat(traces.keySet(), hasSize(600));
+    noRouteFlows.forEach(
+        flow -> assertThat(traces.get(flow), contains(hasTrace(hasDisposition(NO_ROUTE)))));
+    acceptedFlows.forEach(
+        flow -> assertThat(traces.get(flow), contains(hasTrace(hasDisposition(ACCEPTED)))));
+  }
+
   @Test
   public void testNullRouted() throws IOException {
     // Construct network
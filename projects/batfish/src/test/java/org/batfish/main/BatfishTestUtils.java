@@ -13,6 +13,7 @@ import java.util.TreeMap;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.apache.commons.collections4.map.LRUMap;
+import org.batfish.bddreachability.BDDReachabilityAnalysisFactoryCache;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.BfConsts;
 import org.batfish.common.NetworkSnapshot;
@@ -56,6 +57,10 @@ public class BatfishTestUtils {
     return Collections.synchronizedMap(new LRUMap<>(4));
   }
 
+  private static BDDReachabilityAnalysisFactoryCache makeBddReachabilityAnalysisFactoryCache() {
+    return new BDDReachabilityAnalysisFactoryCache(1L << 20);
+  }
+
   private static Cache<NetworkSnapshot, DataPlane> makeDataPlaneCache() {
     return CacheBuilder.newBuilder().softValues().maximumSize(2).build();
   }
@@ -80,6 +85,7 @@ public class BatfishTestUtils {
             testrigs,
             makeDataPlaneCache(),
             makeEnvBgpCache(),
+            makeBddReachabilityAnalysisFactoryCache(),
             null,
             new TestFileBasedIdResolver(settings.getStorageBase()));
     if (!configurations.isEmpty()) {
@@ -113,6 +119,7 @@ public class BatfishTestUtils {
             testrigs,
             makeDataPlaneCache(),
             makeEnvBgpCache(),
+            makeBddReachabilityAnalysisFactoryCache(),
             null,
             new TestFileBasedIdResolver(settings.getStorageBase()));
     batfish.getSettings().setDiffQuestion(true);
@@ -172,6 +179,7 @@ public class BatfishTestUtils {
             makeTestrigCache(),
             makeDataPlaneCache(),
             makeEnvBgpCache(),
+            makeBddReachabilityAnalysisFactoryCache(),
             null,
             new TestFileBasedIdResolver(settings.getStorageBase()));
     TestrigSettings snapshotTr = batfish.getSnapshotTestrigSettings();
@@ -240,6 +248,7 @@ public class BatfishTestUtils {
             makeTestrigCache(),
             makeDataPlaneCache(),
             makeEnvBgpCache(),
+            makeBddReachabilityAnalysisFactoryCache(),
             storageProvider,
             idResolver);
     registerDataPlanePlugins(batfish);
@@ -246,6 +246,17 @@ public abstract class BDDFactory {
    */
   public abstract boolean isInitialized();
 
+  /**
+   * Returns true if operations on this BDD factory and its BDDs may be invoked concurrently from
+   * multiple threads, false otherwise. Callers must not share a factory across threads unless this
+   * returns true.
+   *
+   * @return true if this BDD factory supports concurrent use
+   */
+  public boolean isThreadSafe() {
+    return false;
+  }
+
   /**
    * Reset the BDD factory to its initial state. Everything is reallocated from scratch. This is
    * like calling done() followed by initialize().
@@ -837,6 +848,16 @@ public abstract class BDDFactory {
    */
   public abstract int getCacheSize();
 
+  /**
+   * Get the total number of entries in all operator caches. This differs from {@link
+   * #getCacheSize()} when the caches are sized individually or have not all been allocated yet.
+   *
+   * @return number of entries in all operator caches
+   */
+  public long getCacheEntries() {
+    return getCacheSize();
+  }
+
   /**
    * Print cache statistics.
    *
@@ -940,6 +961,30 @@ public abstract class BDDFactory {
     return reorderstats;
   }
 
+  /**
+   * Enables or disables the collection of {@link CacheStats cache statistics}. Collection is
+   * disabled by default, since it adds a counter update to every cache access. Factories that do
+   * not collect statistics ignore this.
+   *
+   * @param enabled whether to collect cache statistics
+   * @return whether cache statistics were collected before this call
+   */
+  public boolean setCacheStatsEnabled(boolean enabled) {
+    return false;
+  }
+
+  /**
+   * Enables or disables adaptive sizing of the operator caches. When enabled, a factory may grow
+   * individual caches when it observes that they are too small for the working set. Disabled by
+   * default. Factories that do not adapt their caches ignore this.
+   *
+   * @param adaptive whether to grow the caches when they are too small
+   * @return whether cache sizes were adaptive before this call
+   */
+  public boolean setCacheAdaptive(boolean adaptive) {
+    return false;
+  }
+
   /**
    * Stores statistics about the operator cache.
    *
@@ -947,18 +992,30 @@ public abstract class BDDFactory {
    * @version $Id: BDDFactory.java,v 1.18 2005/10/12 10:27:08 joewhaley Exp $
    */
   public static class CacheStats {
-    public int uniqueAccess;
-    public int uniqueChain;
-    public int uniqueHit;
-    public int uniqueMiss;
-    public int uniqueTrivial;
-    public int opHit;
-    public int opMiss;
-    public int opOverwrite;
+    public long uniqueAccess;
+    public long uniqueChain;
+    public long uniqueHit;
+    public long uniqueMiss;
+    public long uniqueTrivial;
+    public long opHit;
+    public long opMiss;
+    public long opOverwrite;
     public int swapCount;
+    /** Number of node table resizes. Maintained even when statistics are disabled. */
+    public int resizeNum;
+    /**
+     * Milliseconds spent resizing the node table and operator caches. Maintained even when
+     * statistics are disabled.
+     */
+    public long resizeTime;
 
     protected CacheStats() {}
 
+    /** Returns the fraction of operator cache lookups that were hits, or 0 if there were none. */
+    public double opHitRate() {
+      return opHit + opMiss > 0 ? (double) opHit / (opHit + opMiss) : 0;
+    }
+
     void copyFrom(CacheStats that) {
       uniqueAccess = that.uniqueAccess;
       uniqueChain = that.uniqueChain;
@@ -969,6 +1026,8 @@ public abstract class BDDFactory {
       opMiss = that.opMiss;
       opOverwrite = that.opOverwrite;
       swapCount = that.swapCount;
+      resizeNum = that.resizeNum;
+      resizeTime = that.resizeTime;
     }
 
     @Override
@@ -1013,15 +1072,18 @@ public abstract class BDDFactory {
       sb.append(opOverwrite);
       sb.append(newLine);
       sb.append("=> Hit rate =   ");
-      if (opHit + opMiss > 0) {
-        sb.append(((float) opHit) / ((float) opHit + opMiss));
-      } else {
-        sb.append((float) 0);
-      }
+      sb.append((float) opHitRate());
       sb.append(newLine);
       sb.append("Swap count =    ");
       sb.append(swapCount);
       sb.append(newLine);
+      sb.append("Resize count =  ");
+      sb.append(resizeNum);
+      sb.append(newLine);
+      sb.append("Resize time =   ");
+      sb.append((float) resizeTime / 1000f);
+      sb.append("s");
+      sb.append(newLine);
       return sb.toString();
     }
   }
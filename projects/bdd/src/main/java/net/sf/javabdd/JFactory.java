@@ -34,8 +34,11 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.math.BigInteger;
 import java.util.Arrays;
+import java.lang.ref.WeakReference;
 import java.util.Collection;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.annotation.Nonnull;
 
 /**
@@ -47,9 +50,6 @@ import javax.annotation.Nonnull;
  * @version $Id: JFactory.java,v 1.28 2005/09/27 22:56:18 joewhaley Exp $
  */
 public final class JFactory extends BDDFactory {
-  /** Whether to maintain (and in some cases print) statistics about the cache use. */
-  private static final boolean CACHESTATS = false;
-
   /**
    * Whether to flush (clear completely) the cache when live BDD nodes are garbage collected. If
    * {@code false}, the cache will be attempted to be cleaned and maintain existing valid cache
@@ -83,16 +83,51 @@ public final class JFactory extends BDDFactory {
     return "JFactory " + REVISION.substring(11, REVISION.length() - 2);
   }
 
-  private JFactory() {
-    supportSet = new int[0];
+  private JFactory(boolean concurrent) {
+    this.concurrent = concurrent;
+    if (concurrent) {
+      mainWorker = null;
+      threadWorker = ThreadLocal.withInitial(this::newWorker);
+      nodeLocks = newLocks(NODE_LOCKS);
+      refLocks = newLocks(REF_LOCKS);
+    } else {
+      mainWorker = newWorker();
+      threadWorker = null;
+      nodeLocks = null;
+      refLocks = null;
+    }
   }
 
   public static BDDFactory init(int nodenum, int cachesize) {
-    BDDFactory f = new JFactory();
+    BDDFactory f = new JFactory(false);
+    f.initialize(nodenum, cachesize);
+    return f;
+  }
+
+  /**
+   * Creates a factory whose BDDs can be operated on from several threads at the same time.
+   *
+   * <p>Each thread gets its own reference stack and operator caches. The unique table is shared and
+   * guarded by striped locks, and the threads allocate nodes from private chunks of the free list.
+   * Garbage collection and node table resizes stop all threads at a safepoint (the next node
+   * allocation or the end of their current operation). Operations that change the variables, their
+   * order or the replacement pairs, and the cache and node table sizes, wait until no other thread
+   * is inside an operation.
+   *
+   * <p>A BDD may be used by several threads, but it must not be freed while another thread uses it.
+   * Statistics are aggregated over the threads when read.
+   */
+  public static BDDFactory initConcurrent(int nodenum, int cachesize) {
+    BDDFactory f = new JFactory(true);
     f.initialize(nodenum, cachesize);
     return f;
   }
 
+  @Override
+  public boolean isThreadSafe() {
+    return concurrent;
+  }
+
   /** Private helper function to create BDD objects. */
   private BDDImpl makeBDD(int id) {
     if (USE_FINALIZER) {
@@ -102,6 +137,243 @@ public final class JFactory extends BDDFactory {
     }
   }
 
+  /*=== THREADS ==========================================================*/
+
+  /* Number of striped locks for the unique table buckets and the reference counts */
+  private static final int NODE_LOCKS = 1 << 10;
+  private static final int REF_LOCKS = 1 << 8;
+
+  /* Number of free nodes a thread takes from the free list at once */
+  private static final int FREE_CHUNK = 256;
+
+  /* Worker states */
+  private static final int WORKER_IDLE = 0; /* Not inside an operation */
+  private static final int WORKER_ACTIVE = 1; /* Inside an operation */
+  private static final int WORKER_PARKED = 2; /* Inside an operation, stopped at a safepoint */
+
+  private final boolean concurrent; /* Whether several threads may operate at once */
+  private final Worker mainWorker; /* The worker of a factory that is not concurrent */
+  private final ThreadLocal<Worker> threadWorker; /* The worker of each thread, if concurrent */
+  private final List<Worker> workers = new CopyOnWriteArrayList<>(); /* All workers */
+  private final Object[] nodeLocks; /* Locks of the unique table buckets, if concurrent */
+  private final Object[] refLocks; /* Locks of the reference counts, if concurrent */
+  private final Object freeListLock = new Object(); /* Guards bddfreepos and bddfreenum */
+  private final Object safepointLock = new Object(); /* Guards the fields below */
+  private volatile boolean safepointRequested; /* Workers must stop at the next safepoint */
+  private volatile Worker exclusiveOwner; /* Worker waiting for or holding exclusive access */
+  private volatile Worker leader; /* Worker that has stopped all other workers */
+  private final CacheStats retiredstats = new CacheStats(); /* Stats of workers of dead threads */
+
+  private static Object[] newLocks(int num) {
+    Object[] locks = new Object[num];
+    for (int i = 0; i < num; i++) {
+      locks[i] = new Object();
+    }
+    return locks;
+  }
+
+  private Worker newWorker() {
+    Worker w = new Worker();
+    workers.add(w);
+    return w;
+  }
+
+  /** Returns the worker of the calling thread. */
+  private Worker worker() {
+    return concurrent ? threadWorker.get() : mainWorker;
+  }
+
+  /**
+   * Starts an operation of the calling thread and returns its worker. Must be paired with {@link
+   * #exit(Worker)}. Blocks while another thread has stopped the world.
+   */
+  private Worker enter() {
+    if (!concurrent) {
+      return mainWorker;
+    }
+    Worker w = threadWorker.get();
+    if (w.depth++ == 0) {
+      w.state = WORKER_ACTIVE;
+      if (mustWait(w)) {
+        synchronized (safepointLock) {
+          w.state = WORKER_IDLE;
+          safepointLock.notifyAll();
+          while (mustWait(w)) {
+            awaitSafepointLock();
+          }
+          w.state = WORKER_ACTIVE;
+        }
+      }
+      w.checkvarnum();
+    }
+    return w;
+  }
+
+  /** Ends an operation started by {@link #enter()}. */
+  private void exit(Worker w) {
+    if (concurrent && --w.depth == 0) {
+      w.bddrefstacktop = 0;
+      w.state = WORKER_IDLE;
+      if (safepointRequested || exclusiveOwner != null) {
+        synchronized (safepointLock) {
+          safepointLock.notifyAll();
+        }
+      }
+    }
+  }
+
+  /** Whether the worker must not start an operation, because another worker stopped the world. */
+  private boolean mustWait(Worker w) {
+    Worker owner = exclusiveOwner;
+    return safepointRequested && leader != w || owner != null && owner != w;
+  }
+
+  /** Stops the worker until the world is resumed, if another worker has stopped it. */
+  private void safepoint(Worker w) {
+    synchronized (safepointLock) {
+      w.state = WORKER_PARKED;
+      safepointLock.notifyAll();
+      while (safepointRequested && leader != w) {
+        awaitSafepointLock();
+      }
+      w.state = WORKER_ACTIVE;
+    }
+  }
+
+  /**
+   * Waits until all other workers are stopped at a safepoint or outside of an operation, so that
+   * the worker can garbage collect, resize or traverse the node table. The worker must be inside an
+   * operation. Returns {@code false} if the worker had already stopped the world, otherwise the
+   * world must be resumed with {@link #resumeWorld()}.
+   */
+  private boolean stopWorld(Worker w) {
+    if (!concurrent || leader == w) {
+      return false;
+    }
+    synchronized (safepointLock) {
+      if (leader != null) {
+        w.state = WORKER_PARKED;
+        safepointLock.notifyAll();
+        while (leader != null) {
+          awaitSafepointLock();
+        }
+      }
+      leader = w;
+      safepointRequested = true;
+      while (anyOtherWorker(w, WORKER_ACTIVE)) {
+        awaitSafepointLock();
+      }
+      w.state = WORKER_ACTIVE;
+    }
+    releaseFreeChunks();
+    return true;
+  }
+
+  private void resumeWorld() {
+    synchronized (safepointLock) {
+      leader = null;
+      safepointRequested = false;
+      safepointLock.notifyAll();
+    }
+  }
+
+  /**
+   * Waits until no other worker is inside an operation, and keeps them out until {@link
+   * #endExclusive(Worker)}. Used by operations that change the variables, the replacement pairs or
+   * the sizes of the tables. Must not be called inside an operation.
+   */
+  private Worker beginExclusive() {
+    if (!concurrent) {
+      return mainWorker;
+    }
+    Worker w = threadWorker.get();
+    if (w.depth++ > 0) {
+      if (exclusiveOwner != w) {
+        w.depth--;
+        throw new BDDException("Cannot change the factory inside a BDD operation");
+      }
+      return w;
+    }
+    synchronized (safepointLock) {
+      while (exclusiveOwner != null) {
+        awaitSafepointLock();
+      }
+      exclusiveOwner = w;
+      while (leader != null
+          || anyOtherWorker(w, WORKER_ACTIVE)
+          || anyOtherWorker(w, WORKER_PARKED)) {
+        awaitSafepointLock();
+      }
+      leader = w;
+      w.state = WORKER_ACTIVE;
+    }
+    releaseFreeChunks();
+    w.checkvarnum();
+    return w;
+  }
+
+  private void endExclusive(Worker w) {
+    if (concurrent && --w.depth == 0) {
+      w.bddrefstacktop = 0;
+      synchronized (safepointLock) {
+        w.state = WORKER_IDLE;
+        leader = null;
+        exclusiveOwner = null;
+        safepointLock.notifyAll();
+      }
+    }
+  }
+
+  private boolean anyOtherWorker(Worker w, int state) {
+    for (Worker other : workers) {
+      if (other != w && other.state == state) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void awaitSafepointLock() {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        safepointLock.wait();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Returns the free nodes that the workers took from the free list, and drops the workers of
+   * threads that died. The world must be stopped.
+   */
+  private void releaseFreeChunks() {
+    for (Worker w : workers) {
+      if (w.freepos != 0) {
+        int last = w.freepos;
+        while (NEXT(last) != 0) {
+          last = NEXT(last);
+        }
+        SETNEXT(last, bddfreepos);
+        bddfreepos = w.freepos;
+        bddfreenum += w.freenum;
+        bddproduced -= w.freenum;
+        w.freepos = 0;
+        w.freenum = 0;
+      }
+      Thread thread = w.thread.get();
+      if ((thread == null || !thread.isAlive()) && w.state == WORKER_IDLE) {
+        workers.remove(w);
+        addStats(retiredstats, w.cachestats);
+      }
+    }
+  }
+
   /** Wrapper for the BDD index number used internally in the representation. */
   private class BDDImpl extends BDD {
     int _index;
@@ -128,241 +400,414 @@ public final class JFactory extends BDDFactory {
 
     @Override
     public int var() {
-      return bdd_var(_index);
+      Worker w = enter();
+      try {
+        return bdd_var(_index);
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD high() {
-      return makeBDD(HIGH(_index));
+      Worker w = enter();
+      try {
+        return makeBDD(HIGH(_index));
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD low() {
-      return makeBDD(LOW(_index));
+      Worker w = enter();
+      try {
+        return makeBDD(LOW(_index));
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD id() {
-      return makeBDD(_index);
+      Worker w = enter();
+      try {
+        return makeBDD(_index);
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD not() {
-      return makeBDD(bdd_not(_index));
+      Worker w = enter();
+      try {
+        return makeBDD(w.bdd_not(_index));
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD ite(BDD thenBDD, BDD elseBDD) {
-      int x = _index;
-      int y = ((BDDImpl) thenBDD)._index;
-      int z = ((BDDImpl) elseBDD)._index;
-      return makeBDD(bdd_ite(x, y, z));
+      Worker w = enter();
+      try {
+        int x = _index;
+        int y = ((BDDImpl) thenBDD)._index;
+        int z = ((BDDImpl) elseBDD)._index;
+        return makeBDD(w.bdd_ite(x, y, z));
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD relprod(BDD that, BDD var) {
-      int x = _index;
-      int y = ((BDDImpl) that)._index;
-      int z = ((BDDImpl) var)._index;
-      return makeBDD(bdd_relprod(x, y, z));
+      Worker w = enter();
+      try {
+        int x = _index;
+        int y = ((BDDImpl) that)._index;
+        int z = ((BDDImpl) var)._index;
+        return makeBDD(w.bdd_relprod(x, y, z));
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD compose(BDD g, int var) {
-      int x = _index;
-      int y = ((BDDImpl) g)._index;
-      return makeBDD(bdd_compose(x, y, var));
+      Worker w = enter();
+      try {
+        int x = _index;
+        int y = ((BDDImpl) g)._index;
+        return makeBDD(w.bdd_compose(x, y, var));
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD veccompose(BDDPairing pair) {
-      int x = _index;
-      return makeBDD(bdd_veccompose(x, (bddPair) pair));
+      Worker w = enter();
+      try {
+        int x = _index;
+        return makeBDD(w.bdd_veccompose(x, (bddPair) pair));
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD constrain(BDD that) {
-      int x = _index;
-      int y = ((BDDImpl) that)._index;
-      return makeBDD(bdd_constrain(x, y));
+      Worker w = enter();
+      try {
+        int x = _index;
+        int y = ((BDDImpl) that)._index;
+        return makeBDD(w.bdd_constrain(x, y));
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD exist(BDD var) {
-      int x = _index;
-      int y = ((BDDImpl) var)._index;
-      return makeBDD(bdd_exist(x, y));
+      Worker w = enter();
+      try {
+        int x = _index;
+        int y = ((BDDImpl) var)._index;
+        return makeBDD(w.bdd_exist(x, y));
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD forAll(BDD var) {
-      int x = _index;
-      int y = ((BDDImpl) var)._index;
-      return makeBDD(bdd_forall(x, y));
+      Worker w = enter();
+      try {
+        int x = _index;
+        int y = ((BDDImpl) var)._index;
+        return makeBDD(w.bdd_forall(x, y));
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD unique(BDD var) {
-      int x = _index;
-      int y = ((BDDImpl) var)._index;
-      return makeBDD(bdd_unique(x, y));
+      Worker w = enter();
+      try {
+        int x = _index;
+        int y = ((BDDImpl) var)._index;
+        return makeBDD(w.bdd_unique(x, y));
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD restrict(BDD var) {
-      int x = _index;
-      int y = ((BDDImpl) var)._index;
-      return makeBDD(bdd_restrict(x, y));
+      Worker w = enter();
+      try {
+        int x = _index;
+        int y = ((BDDImpl) var)._index;
+        return makeBDD(w.bdd_restrict(x, y));
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD restrictWith(BDD that) {
-      int x = _index;
-      int y = ((BDDImpl) that)._index;
-      int a = bdd_restrict(x, y);
-      bdd_delref(x);
-      if (this != that) {
-        that.free();
+      Worker w = enter();
+      try {
+        int x = _index;
+        int y = ((BDDImpl) that)._index;
+        int a = w.bdd_restrict(x, y);
+        bdd_delref(x);
+        if (this != that) {
+          that.free();
+        }
+        bdd_addref(a);
+        _index = a;
+        return this;
+      } finally {
+        exit(w);
       }
-      bdd_addref(a);
-      _index = a;
-      return this;
     }
 
     @Override
     public BDD simplify(BDD d) {
-      int x = _index;
-      int y = ((BDDImpl) d)._index;
-      return makeBDD(bdd_simplify(x, y));
+      Worker w = enter();
+      try {
+        int x = _index;
+        int y = ((BDDImpl) d)._index;
+        return makeBDD(w.bdd_simplify(x, y));
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD support() {
-      int x = _index;
-      return makeBDD(bdd_support(x));
+      Worker w = enter();
+      try {
+        int x = _index;
+        return makeBDD(w.bdd_support(x));
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public boolean andSat(BDD that) {
-      if (applycache == null) {
-        applycache = BddCacheI_init(cachesize);
+      Worker w = enter();
+      try {
+        if (w.applycache == null) {
+          w.applycache = BddCacheI_init(cachesize);
+        }
+        return w.andsat_rec(_index, ((BDDImpl) that)._index);
+      } finally {
+        exit(w);
       }
-      return andsat_rec(_index, ((BDDImpl) that)._index);
     }
 
     @Override
     public boolean diffSat(BDD that) {
-      if (applycache == null) {
-        applycache = BddCacheI_init(cachesize);
+      Worker w = enter();
+      try {
+        if (w.applycache == null) {
+          w.applycache = BddCacheI_init(cachesize);
+        }
+        return w.diffsat_rec(_index, ((BDDImpl) that)._index);
+      } finally {
+        exit(w);
       }
-      return diffsat_rec(_index, ((BDDImpl) that)._index);
     }
 
     @Override
     public BDD apply(BDD that, BDDOp opr) {
-      int x = _index;
-      int y = ((BDDImpl) that)._index;
-      int z = opr.id;
-      return makeBDD(bdd_apply(x, y, z));
+      Worker w = enter();
+      try {
+        int x = _index;
+        int y = ((BDDImpl) that)._index;
+        int z = opr.id;
+        return makeBDD(w.bdd_apply(x, y, z));
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD applyWith(BDD that, BDDOp opr) {
-      int x = _index;
-      int y = ((BDDImpl) that)._index;
-      int z = opr.id;
-      int a = bdd_apply(x, y, z);
-      bdd_delref(x);
-      if (this != that) {
-        that.free();
+      Worker w = enter();
+      try {
+        int x = _index;
+        int y = ((BDDImpl) that)._index;
+        int z = opr.id;
+        int a = w.bdd_apply(x, y, z);
+        bdd_delref(x);
+        if (this != that) {
+          that.free();
+        }
+        bdd_addref(a);
+        _index = a;
+        return this;
+      } finally {
+        exit(w);
       }
-      bdd_addref(a);
-      _index = a;
-      return this;
     }
 
     @Override
     public BDD applyAll(BDD that, BDDOp opr, BDD var) {
-      int x = _index;
-      int y = ((BDDImpl) that)._index;
-      int z = opr.id;
-      int a = ((BDDImpl) var)._index;
-      return makeBDD(bdd_appall(x, y, z, a));
+      Worker w = enter();
+      try {
+        int x = _index;
+        int y = ((BDDImpl) that)._index;
+        int z = opr.id;
+        int a = ((BDDImpl) var)._index;
+        return makeBDD(w.bdd_appall(x, y, z, a));
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD applyEx(BDD that, BDDOp opr, BDD var) {
-      int x = _index;
-      int y = ((BDDImpl) that)._index;
-      int z = opr.id;
-      int a = ((BDDImpl) var)._index;
-      return makeBDD(bdd_appex(x, y, z, a));
+      Worker w = enter();
+      try {
+        int x = _index;
+        int y = ((BDDImpl) that)._index;
+        int z = opr.id;
+        int a = ((BDDImpl) var)._index;
+        return makeBDD(w.bdd_appex(x, y, z, a));
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD applyUni(BDD that, BDDOp opr, BDD var) {
-      int x = _index;
-      int y = ((BDDImpl) that)._index;
-      int z = opr.id;
-      int a = ((BDDImpl) var)._index;
-      return makeBDD(bdd_appuni(x, y, z, a));
+      Worker w = enter();
+      try {
+        int x = _index;
+        int y = ((BDDImpl) that)._index;
+        int z = opr.id;
+        int a = ((BDDImpl) var)._index;
+        return makeBDD(w.bdd_appuni(x, y, z, a));
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD satOne() {
-      int x = _index;
-      return makeBDD(bdd_satone(x));
+      Worker w = enter();
+      try {
+        int x = _index;
+        return makeBDD(w.bdd_satone(x));
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD fullSatOne() {
-      int x = _index;
-      return makeBDD(bdd_fullsatone(x));
+      Worker w = enter();
+      try {
+        int x = _index;
+        return makeBDD(w.bdd_fullsatone(x));
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD satOne(BDD var, boolean pol) {
-      int x = _index;
-      int y = ((BDDImpl) var)._index;
-      int z = pol ? 1 : 0;
-      return makeBDD(bdd_satoneset(x, y, z));
+      Worker w = enter();
+      try {
+        int x = _index;
+        int y = ((BDDImpl) var)._index;
+        int z = pol ? 1 : 0;
+        return makeBDD(w.bdd_satoneset(x, y, z));
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD replace(BDDPairing pair) {
-      int x = _index;
-      return makeBDD(bdd_replace(x, (bddPair) pair));
+      Worker w = enter();
+      try {
+        int x = _index;
+        return makeBDD(w.bdd_replace(x, (bddPair) pair));
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public BDD replaceWith(BDDPairing pair) {
-      int x = _index;
-      int y = bdd_replace(x, (bddPair) pair);
-      bdd_delref(x);
-      bdd_addref(y);
-      _index = y;
-      return this;
+      Worker w = enter();
+      try {
+        int x = _index;
+        int y = w.bdd_replace(x, (bddPair) pair);
+        bdd_delref(x);
+        bdd_addref(y);
+        _index = y;
+        return this;
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public int nodeCount() {
-      return bdd_nodecount(_index);
+      Worker w = enter();
+      boolean stopped = stopWorld(w);
+      try {
+        return bdd_nodecount(_index);
+      } finally {
+        if (stopped) {
+          resumeWorld();
+        }
+        exit(w);
+      }
     }
 
     @Override
     public double pathCount() {
-      return bdd_pathcount(_index);
+      Worker w = enter();
+      try {
+        return w.bdd_pathcount(_index);
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public double satCount() {
-      return bdd_satcount(_index).doubleValue();
+      Worker w = enter();
+      try {
+        return w.bdd_satcount(_index).doubleValue();
+      } finally {
+        exit(w);
+      }
     }
 
     @Override
     public int[] varProfile() {
-      int x = _index;
-      return bdd_varprofile(x);
+      Worker w = enter();
+      boolean stopped = stopWorld(w);
+      try {
+        int x = _index;
+        return bdd_varprofile(x);
+      } finally {
+        if (stopped) {
+          resumeWorld();
+        }
+        exit(w);
+      }
     }
 
     @Override
@@ -378,7 +823,12 @@ public final class JFactory extends BDDFactory {
 
     @Override
     public void free() {
-      bdd_delref(_index);
+      Worker w = enter();
+      try {
+        bdd_delref(_index);
+      } finally {
+        exit(w);
+      }
       _index = INVALID_BDD;
     }
   }
@@ -581,6 +1031,9 @@ public final class JFactory extends BDDFactory {
   private static class BddCache {
     BddCacheData[] table;
     int tablesize;
+    long misses; /* Lookups that missed since the last GC */
+    long overwrites; /* Insertions that evicted an entry since the last GC */
+    int adaptedsize; /* Size this cache has grown to adaptively, or 0 */
 
     BddCache copy() {
       BddCache that = new BddCache();
@@ -599,16 +1052,6 @@ public final class JFactory extends BDDFactory {
       }
       return that;
     }
-
-    /**
-     * Returns the number of used entries in this cache.
-     *
-     * <p>Slow. Should only be used in debugging contexts.
-     */
-    private int used() {
-      // Array lengths in Java must be representable by a signed int.
-      return (int) Arrays.stream(table).filter(e -> e.a != -1).count();
-    }
   }
 
   private static class JavaBDDException extends BDDException {
@@ -631,11 +1074,8 @@ public final class JFactory extends BDDFactory {
   private int bddfreenum; /* Number of free nodes */
   private int bddproduced; /* Number of new nodes ever produced */
   private int bddvarnum; /* Number of defined BDD variables */
-  private int[] bddrefstack; /* Internal node reference stack */
-  private int bddrefstacktop; /* Internal node reference stack top */
   private int[] bddvar2level; /* Variable -> level table */
   private int[] bddlevel2var; /* Level -> variable table */
-  private boolean bddresized; /* Flag indicating a resize of the nodetable */
 
   private int minfreenodes = 20;
 
@@ -796,13 +1236,6 @@ public final class JFactory extends BDDFactory {
     return bddlevel2var[LEVEL(root)];
   }
 
-  private void checkresize() {
-    if (bddresized) {
-      bdd_operator_noderesize();
-    }
-    bddresized = false;
-  }
-
   private static int NOTHASH(int r) {
     return r;
   }
@@ -859,14 +1292,6 @@ public final class JFactory extends BDDFactory {
     return PAIR(l, r);
   }
 
-  private boolean INVARSET(int a) {
-    return quantvarset[a] == quantvarsetID; /* unsigned check */
-  }
-
-  private boolean INSVARSET(int a) {
-    return Math.abs(quantvarset[a]) == quantvarsetID; /* signed check */
-  }
-
   private static final int bddop_and = 0; // NOTE: ite_rec caching exploits bddop_and==0.
   private static final int bddop_xor = 1;
   private static final int bddop_or = 2;
@@ -903,1165 +1328,1467 @@ public final class JFactory extends BDDFactory {
     } else if (ISONE(operands[0])) {
       return one();
     } else {
-      return makeBDD(bdd_orAll(operands));
+      Worker w = enter();
+      try {
+        return makeBDD(w.bdd_orAll(operands));
+      } finally {
+        exit(w);
+      }
     }
   }
 
-  private int bdd_orAll(int[] operands) {
-    if (multiopcache == null) {
-      multiopcache = BddCacheMultiOp_init(cachesize);
+  /**
+   * The state of the BDD operations of one thread: the reference stack, the operator caches and the
+   * arguments of the current operation. A factory that is not concurrent has a single worker.
+   */
+  private final class Worker {
+    private final WeakReference<Thread> thread = new WeakReference<>(Thread.currentThread());
+    private final CacheStats cachestats = concurrent ? new CacheStats() : JFactory.this.cachestats;
+    private volatile int state = WORKER_IDLE; /* See WORKER_IDLE, etc. */
+    private int depth; /* Number of nested operations, if concurrent */
+    private int freepos; /* First node of the chunk taken from the free list, if concurrent */
+    private int freenum; /* Number of nodes left in the chunk taken from the free list */
+    private int[] bddrefstack; /* Internal node reference stack */
+    private int bddrefstacktop; /* Internal node reference stack top */
+    private boolean bddresized; /* Flag indicating a resize of the nodetable */
+    private int applyop; /* Current operator for apply */
+    private int appexop; /* Current operator for appex */
+    private int appexid; /* Current cache id for appex */
+    private int quantid; /* Current cache id for quantifications */
+    private int[] quantvarset; /* Current variable set for quant. */
+    private int quantvarsetID; /* Current id used in quantvarset */
+    private int quantlast; /* Current last variable to be quant. */
+    private int replaceid; /* Current cache id for replace */
+    private int[] replacepair; /* Current replace pair */
+    private int replacelast; /* Current last var. level to replace */
+    private int composelevel; /* Current variable used for compose */
+    private int miscid; /* Current cache id for other results */
+    private int supportID; /* Current ID (true value) for support */
+    private int supportMin; /* Min. used level in support calc. */
+    private int supportMax; /* Max. used level in support calc. */
+    @Nonnull private int[] supportSet; /* The found support set */
+    private BddCache applycache; /* Cache for apply and ite results. See note in ite_rec. */
+    private BddCache quantcache; /* Cache for exist/forall results */
+    private BddCache appexcache; /* Cache for appex/appall results */
+    private BddCache replacecache; /* Cache for replace results */
+    private BddCache misccache; /* Cache for other results */
+    private BddCache multiopcache; /* Cache for varargs operators */
+    private BddCache countcache; /* Cache for count results */
+    private int satPolarity;
+    /* Used instead of local variable in order
+    to avoid compiler warning about 'first'
+    being clobbered by setjmp */
+
+    Worker() {
+      supportSet = new int[0];
+      bdd_operator_varresize();
     }
 
-    INITREF();
-    int res = orAll_rec(operands);
-    checkresize();
+    private void checkresize() {
+      if (bddresized) {
+        bdd_operator_noderesize();
+      }
+      bddresized = false;
+    }
 
-    return res;
-  }
+    private boolean INVARSET(int a) {
+      return quantvarset[a] == quantvarsetID; /* unsigned check */
+    }
 
-  private int bdd_not(int r) {
-    CHECK(r);
+    private boolean INSVARSET(int a) {
+      return Math.abs(quantvarset[a]) == quantvarsetID; /* signed check */
+    }
+
+    private int bdd_orAll(int[] operands) {
+      if (multiopcache == null) {
+        multiopcache = BddCacheMultiOp_init(cachesize);
+      }
+
+      INITREF();
+      int res = orAll_rec(operands);
+      checkresize();
 
-    if (applycache == null) {
-      applycache = BddCacheI_init(cachesize);
+      return res;
     }
 
-    INITREF();
-    int res = not_rec(r);
-    checkresize();
+    private int bdd_not(int r) {
+      CHECK(r);
 
-    return res;
-  }
+      if (applycache == null) {
+        applycache = BddCacheI_init(cachesize);
+      }
 
-  private int not_rec(int r) {
-    BddCacheDataI entry;
-    int res;
+      INITREF();
+      int res = not_rec(r);
+      checkresize();
 
-    if (ISZERO(r)) {
-      return BDDONE;
-    } else if (ISONE(r)) {
-      return BDDZERO;
+      return res;
     }
 
-    entry = BddCache_lookupI(applycache, NOTHASH(r));
+    private int not_rec(int r) {
+      BddCacheDataI entry;
+      int res;
 
-    if (entry.a == r && entry.c == bddop_not) {
-      if (CACHESTATS) {
-        cachestats.opHit++;
+      if (ISZERO(r)) {
+        return BDDONE;
+      } else if (ISONE(r)) {
+        return BDDZERO;
       }
-      return entry.res;
-    }
-    if (CACHESTATS) {
-      cachestats.opMiss++;
-    }
 
-    PUSHREF(not_rec(LOW(r)));
-    PUSHREF(not_rec(HIGH(r)));
-    res = bdd_makenode(LEVEL(r), READREF(2), READREF(1));
-    POPREF(2);
+      entry = BddCache_lookupI(applycache, NOTHASH(r));
 
-    if (CACHESTATS && entry.a != -1) {
-      cachestats.opOverwrite++;
-    }
-    entry.a = r;
-    entry.c = bddop_not;
-    entry.res = res;
+      if (entry.a == r && entry.c == bddop_not) {
+        if (cachestatsEnabled) {
+          cachestats.opHit++;
+        }
+        return entry.res;
+      }
+      applycache.misses++;
+      if (cachestatsEnabled) {
+        cachestats.opMiss++;
+      }
 
-    return res;
-  }
+      PUSHREF(not_rec(LOW(r)));
+      PUSHREF(not_rec(HIGH(r)));
+      res = bdd_makenode(LEVEL(r), READREF(2), READREF(1));
+      POPREF(2);
 
-  private int bdd_ite(int f, int g, int h) {
-    CHECK(f);
-    CHECK(g);
-    CHECK(h);
+      if (entry.a != -1) {
+        applycache.overwrites++;
+        if (cachestatsEnabled) {
+          cachestats.opOverwrite++;
+        }
+      }
+      entry.a = r;
+      entry.c = bddop_not;
+      entry.res = res;
 
-    if (applycache == null) {
-      applycache = BddCacheI_init(cachesize);
+      return res;
     }
 
-    INITREF();
-    int res = ite_rec(f, g, h);
-    checkresize();
-
-    return res;
-  }
+    private int bdd_ite(int f, int g, int h) {
+      CHECK(f);
+      CHECK(g);
+      CHECK(h);
 
-  private int ite_rec(int f, int g, int h) {
-    BddCacheDataI entry;
-    int res;
+      if (applycache == null) {
+        applycache = BddCacheI_init(cachesize);
+      }
 
-    if (ISONE(f)) {
-      return g;
-    } else if (ISZERO(f)) {
-      return h;
-    } else if (g == h) {
-      return g;
-    } else if (ISZERO(g)) {
-      applyop = bddop_less;
-      return apply_rec(f, h);
-    } else if (ISONE(g)) {
-      return or_rec(f, h);
-    } else if (ISZERO(h)) {
-      return and_rec(f, g);
-    } else if (ISONE(h)) {
-      applyop = bddop_imp;
-      return apply_rec(f, g);
-    }
-
-    // ITE and APPLY share the same cache:
-    //    APPLY is (l, r, op) where op in 0..10 (0=and, ..., 10=not) where l, r are BDD ids.
-    //    ITE is (f, g, -h) where f, g, h are all BDD ids.
-    //
-    // The only possible collision is apply(l, r, bddop_and) and ite(l, r, 0==BDDZERO).
-    // Fortuitously, these are logically equivalent -- if f then g else false === f and g.
-    entry = BddCache_lookupI(applycache, APPLYHASH(f, g, -h));
-    if (entry.a == f && entry.b == g && entry.c == -h) { // To explain -h, see caching note above.
-      if (CACHESTATS) {
-        cachestats.opHit++;
-      }
-      return entry.res;
-    }
-    if (CACHESTATS) {
-      cachestats.opMiss++;
-    }
-
-    if (LEVEL(f) == LEVEL(g)) {
-      if (LEVEL(f) == LEVEL(h)) {
-        PUSHREF(ite_rec(LOW(f), LOW(g), LOW(h)));
-        PUSHREF(ite_rec(HIGH(f), HIGH(g), HIGH(h)));
-        res = bdd_makenode(LEVEL(f), READREF(2), READREF(1));
-      } else if (LEVEL(f) < LEVEL(h)) {
-        PUSHREF(ite_rec(LOW(f), LOW(g), h));
-        PUSHREF(ite_rec(HIGH(f), HIGH(g), h));
-        res = bdd_makenode(LEVEL(f), READREF(2), READREF(1));
-      } else /* f > h */ {
-        PUSHREF(ite_rec(f, g, LOW(h)));
-        PUSHREF(ite_rec(f, g, HIGH(h)));
-        res = bdd_makenode(LEVEL(h), READREF(2), READREF(1));
-      }
-    } else if (LEVEL(f) < LEVEL(g)) {
-      if (LEVEL(f) == LEVEL(h)) {
-        PUSHREF(ite_rec(LOW(f), g, LOW(h)));
-        PUSHREF(ite_rec(HIGH(f), g, HIGH(h)));
-        res = bdd_makenode(LEVEL(f), READREF(2), READREF(1));
-      } else if (LEVEL(f) < LEVEL(h)) {
-        PUSHREF(ite_rec(LOW(f), g, h));
-        PUSHREF(ite_rec(HIGH(f), g, h));
-        res = bdd_makenode(LEVEL(f), READREF(2), READREF(1));
-      } else /* f > h */ {
-        PUSHREF(ite_rec(f, g, LOW(h)));
-        PUSHREF(ite_rec(f, g, HIGH(h)));
-        res = bdd_makenode(LEVEL(h), READREF(2), READREF(1));
+      INITREF();
+      int res = ite_rec(f, g, h);
+      checkresize();
+
+      return res;
+    }
+
+    private int ite_rec(int f, int g, int h) {
+      BddCacheDataI entry;
+      int res;
+
+      if (ISONE(f)) {
+        return g;
+      } else if (ISZERO(f)) {
+        return h;
+      } else if (g == h) {
+        return g;
+      } else if (ISZERO(g)) {
+        applyop = bddop_less;
+        return apply_rec(f, h);
+      } else if (ISONE(g)) {
+        return or_rec(f, h);
+      } else if (ISZERO(h)) {
+        return and_rec(f, g);
+      } else if (ISONE(h)) {
+        applyop = bddop_imp;
+        return apply_rec(f, g);
+      }
+
+      // ITE and APPLY share the same cache:
+      //    APPLY is (l, r, op) where op in 0..10 (0=and, ..., 10=not) where l, r are BDD ids.
+      //    ITE is (f, g, -h) where f, g, h are all BDD ids.
+      //
+      // The only possible collision is apply(l, r, bddop_and) and ite(l, r, 0==BDDZERO).
+      // Fortuitously, these are logically equivalent -- if f then g else false === f and g.
+      entry = BddCache_lookupI(applycache, APPLYHASH(f, g, -h));
+      if (entry.a == f && entry.b == g && entry.c == -h) { // To explain -h, see caching note above.
+        if (cachestatsEnabled) {
+          cachestats.opHit++;
+        }
+        return entry.res;
       }
-    } else /* f > g */ {
-      if (LEVEL(g) == LEVEL(h)) {
-        PUSHREF(ite_rec(f, LOW(g), LOW(h)));
-        PUSHREF(ite_rec(f, HIGH(g), HIGH(h)));
-        res = bdd_makenode(LEVEL(g), READREF(2), READREF(1));
-      } else if (LEVEL(g) < LEVEL(h)) {
-        PUSHREF(ite_rec(f, LOW(g), h));
-        PUSHREF(ite_rec(f, HIGH(g), h));
-        res = bdd_makenode(LEVEL(g), READREF(2), READREF(1));
-      } else /* g > h */ {
-        PUSHREF(ite_rec(f, g, LOW(h)));
-        PUSHREF(ite_rec(f, g, HIGH(h)));
-        res = bdd_makenode(LEVEL(h), READREF(2), READREF(1));
+      applycache.misses++;
+      if (cachestatsEnabled) {
+        cachestats.opMiss++;
       }
-    }
-
-    POPREF(2);
 
-    if (CACHESTATS && entry.a != -1) {
-      cachestats.opOverwrite++;
-    }
-    entry.a = f;
-    entry.b = g;
-    entry.c = -h; // To explain -h, see caching note above.
-    entry.res = res;
+      if (LEVEL(f) == LEVEL(g)) {
+        if (LEVEL(f) == LEVEL(h)) {
+          PUSHREF(ite_rec(LOW(f), LOW(g), LOW(h)));
+          PUSHREF(ite_rec(HIGH(f), HIGH(g), HIGH(h)));
+          res = bdd_makenode(LEVEL(f), READREF(2), READREF(1));
+        } else if (LEVEL(f) < LEVEL(h)) {
+          PUSHREF(ite_rec(LOW(f), LOW(g), h));
+          PUSHREF(ite_rec(HIGH(f), HIGH(g), h));
+          res = bdd_makenode(LEVEL(f), READREF(2), READREF(1));
+        } else /* f > h */ {
+          PUSHREF(ite_rec(f, g, LOW(h)));
+          PUSHREF(ite_rec(f, g, HIGH(h)));
+          res = bdd_makenode(LEVEL(h), READREF(2), READREF(1));
+        }
+      } else if (LEVEL(f) < LEVEL(g)) {
+        if (LEVEL(f) == LEVEL(h)) {
+          PUSHREF(ite_rec(LOW(f), g, LOW(h)));
+          PUSHREF(ite_rec(HIGH(f), g, HIGH(h)));
+          res = bdd_makenode(LEVEL(f), READREF(2), READREF(1));
+        } else if (LEVEL(f) < LEVEL(h)) {
+          PUSHREF(ite_rec(LOW(f), g, h));
+          PUSHREF(ite_rec(HIGH(f), g, h));
+          res = bdd_makenode(LEVEL(f), READREF(2), READREF(1));
+        } else /* f > h */ {
+          PUSHREF(ite_rec(f, g, LOW(h)));
+          PUSHREF(ite_rec(f, g, HIGH(h)));
+          res = bdd_makenode(LEVEL(h), READREF(2), READREF(1));
+        }
+      } else /* f > g */ {
+        if (LEVEL(g) == LEVEL(h)) {
+          PUSHREF(ite_rec(f, LOW(g), LOW(h)));
+          PUSHREF(ite_rec(f, HIGH(g), HIGH(h)));
+          res = bdd_makenode(LEVEL(g), READREF(2), READREF(1));
+        } else if (LEVEL(g) < LEVEL(h)) {
+          PUSHREF(ite_rec(f, LOW(g), h));
+          PUSHREF(ite_rec(f, HIGH(g), h));
+          res = bdd_makenode(LEVEL(g), READREF(2), READREF(1));
+        } else /* g > h */ {
+          PUSHREF(ite_rec(f, g, LOW(h)));
+          PUSHREF(ite_rec(f, g, HIGH(h)));
+          res = bdd_makenode(LEVEL(h), READREF(2), READREF(1));
+        }
+      }
 
-    return res;
-  }
+      POPREF(2);
 
-  private int bdd_replace(int r, bddPair pair) {
-    CHECK(r);
+      if (entry.a != -1) {
+        applycache.overwrites++;
+        if (cachestatsEnabled) {
+          cachestats.opOverwrite++;
+        }
+      }
+      entry.a = f;
+      entry.b = g;
+      entry.c = -h; // To explain -h, see caching note above.
+      entry.res = res;
 
-    if (replacecache == null) {
-      replacecache = BddCacheI_init(cachesize);
+      return res;
     }
-    replacepair = pair.result;
-    replacelast = pair.last;
-    replaceid = (pair.id << 2) | CACHEID_REPLACE;
 
-    INITREF();
-    int res = replace_rec(r);
-    checkresize();
+    private int bdd_replace(int r, bddPair pair) {
+      CHECK(r);
 
-    return res;
-  }
+      if (replacecache == null) {
+        replacecache = BddCacheI_init(cachesize);
+      }
+      replacepair = pair.result;
+      replacelast = pair.last;
+      replaceid = (pair.id << 2) | CACHEID_REPLACE;
 
-  private int replace_rec(int r) {
-    BddCacheDataI entry;
-    int res;
+      INITREF();
+      int res = replace_rec(r);
+      checkresize();
 
-    if (ISCONST(r) || LEVEL(r) > replacelast) {
-      return r;
+      return res;
     }
 
-    entry = BddCache_lookupI(replacecache, REPLACEHASH(replaceid, r));
-    if (entry.a == r && entry.c == replaceid) {
-      if (CACHESTATS) {
-        cachestats.opHit++;
+    private int replace_rec(int r) {
+      BddCacheDataI entry;
+      int res;
+
+      if (ISCONST(r) || LEVEL(r) > replacelast) {
+        return r;
       }
-      return entry.res;
-    }
-    if (CACHESTATS) {
-      cachestats.opMiss++;
-    }
 
-    PUSHREF(replace_rec(LOW(r)));
-    PUSHREF(replace_rec(HIGH(r)));
+      entry = BddCache_lookupI(replacecache, REPLACEHASH(replaceid, r));
+      if (entry.a == r && entry.c == replaceid) {
+        if (cachestatsEnabled) {
+          cachestats.opHit++;
+        }
+        return entry.res;
+      }
+      replacecache.misses++;
+      if (cachestatsEnabled) {
+        cachestats.opMiss++;
+      }
 
-    /* Replace the root variable with the new one. Replacements at the root or in the subbdds can
-     * cause the new root to be out of order. bdd_correctify builds the bdd correctly by branching
-     * on the new root at the correct level of the bdd.
-     */
-    {
-      int level = LEVEL(replacepair[LEVEL(r)]);
+      PUSHREF(replace_rec(LOW(r)));
+      PUSHREF(replace_rec(HIGH(r)));
 
-      /* bdd_correctify calls are cached separately from replace_rec calls. Set the cacheid for
-       * the bdd_correctify calls and restore when it returns.
+      /* Replace the root variable with the new one. Replacements at the root or in the subbdds can
+       * cause the new root to be out of order. bdd_correctify builds the bdd correctly by branching
+       * on the new root at the correct level of the bdd.
        */
-      int tmp = replaceid;
-      replaceid = (level << 2) | CACHEID_CORRECTIFY;
-      res = bdd_correctify(level, READREF(2), READREF(1));
-      replaceid = tmp;
-    }
-    POPREF(2);
+      {
+        int level = LEVEL(replacepair[LEVEL(r)]);
 
-    if (CACHESTATS && entry.a != -1) {
-      cachestats.opOverwrite++;
-    }
-    entry.a = r;
-    entry.c = replaceid;
-    entry.res = res;
-
-    return res;
-  }
+        /* bdd_correctify calls are cached separately from replace_rec calls. Set the cacheid for
+         * the bdd_correctify calls and restore when it returns.
+         */
+        int tmp = replaceid;
+        replaceid = (level << 2) | CACHEID_CORRECTIFY;
+        res = bdd_correctify(level, READREF(2), READREF(1));
+        replaceid = tmp;
+      }
+      POPREF(2);
 
-  /**
-   * This is similar to {@link JFactory#bdd_makenode} -- it returns a BDD that branches at the input
-   * level with the input low and high nodes. The difference between this and bdd_makenode is that
-   * bdd_makenode requires level to be strictly less than LEVEL(l) and LEVEL(r), where this does
-   * not. The base case of bdd_correctify is when that is true -- then it simply delegates to
-   * bdd_makenode.
-   *
-   * @param level The level to branch on.
-   * @param l The low branch.
-   * @param r The high branch.
-   */
-  private int bdd_correctify(int level, int l, int r) {
-    int res;
+      if (entry.a != -1) {
+        replacecache.overwrites++;
+        if (cachestatsEnabled) {
+          cachestats.opOverwrite++;
+        }
+      }
+      entry.a = r;
+      entry.c = replaceid;
+      entry.res = res;
 
-    if (level < LEVEL(l) && level < LEVEL(r)) {
-      return bdd_makenode(level, l, r);
+      return res;
     }
 
-    if (level == LEVEL(l) || level == LEVEL(r)) {
-      bdd_error(BDD_REPLACE);
-      return 0;
-    }
+    /**
+     * This is similar to {@link #bdd_makenode} -- it returns a BDD that branches at the input level
+     * with the input low and high nodes. The difference between this and bdd_makenode is that
+     * bdd_makenode requires level to be strictly less than LEVEL(l) and LEVEL(r), where this does
+     * not. The base case of bdd_correctify is when that is true -- then it simply delegates to
+     * bdd_makenode.
+     *
+     * @param level The level to branch on.
+     * @param l The low branch.
+     * @param r The high branch.
+     */
+    private int bdd_correctify(int level, int l, int r) {
+      int res;
 
-    BddCacheDataI entry = BddCache_lookupI(replacecache, CORRECTIFYHASH(replaceid, l, r));
-    if (entry.a == l && entry.b == r && entry.c == replaceid) {
-      if (CACHESTATS) {
-        cachestats.opHit++;
+      if (level < LEVEL(l) && level < LEVEL(r)) {
+        return bdd_makenode(level, l, r);
       }
-      return entry.res;
-    }
-    if (CACHESTATS) {
-      cachestats.opMiss++;
-    }
-
-    if (LEVEL(l) == LEVEL(r)) {
-      PUSHREF(bdd_correctify(level, LOW(l), LOW(r)));
-      PUSHREF(bdd_correctify(level, HIGH(l), HIGH(r)));
-      res = bdd_makenode(LEVEL(l), READREF(2), READREF(1));
-    } else if (LEVEL(l) < LEVEL(r)) {
-      PUSHREF(bdd_correctify(level, LOW(l), r));
-      PUSHREF(bdd_correctify(level, HIGH(l), r));
-      res = bdd_makenode(LEVEL(l), READREF(2), READREF(1));
-    } else {
-      PUSHREF(bdd_correctify(level, l, LOW(r)));
-      PUSHREF(bdd_correctify(level, l, HIGH(r)));
-      res = bdd_makenode(LEVEL(r), READREF(2), READREF(1));
-    }
-    POPREF(2);
 
-    if (CACHESTATS && entry.a != -1) {
-      cachestats.opOverwrite++;
-    }
-    entry.a = l;
-    entry.b = r;
-    entry.c = replaceid;
-    entry.res = res;
+      if (level == LEVEL(l) || level == LEVEL(r)) {
+        bdd_error(BDD_REPLACE);
+        return 0;
+      }
 
-    return res;
-  }
+      BddCacheDataI entry = BddCache_lookupI(replacecache, CORRECTIFYHASH(replaceid, l, r));
+      if (entry.a == l && entry.b == r && entry.c == replaceid) {
+        if (cachestatsEnabled) {
+          cachestats.opHit++;
+        }
+        return entry.res;
+      }
+      replacecache.misses++;
+      if (cachestatsEnabled) {
+        cachestats.opMiss++;
+      }
 
-  private int bdd_apply(int l, int r, int op) {
-    CHECK(l);
-    CHECK(r);
+      if (LEVEL(l) == LEVEL(r)) {
+        PUSHREF(bdd_correctify(level, LOW(l), LOW(r)));
+        PUSHREF(bdd_correctify(level, HIGH(l), HIGH(r)));
+        res = bdd_makenode(LEVEL(l), READREF(2), READREF(1));
+      } else if (LEVEL(l) < LEVEL(r)) {
+        PUSHREF(bdd_correctify(level, LOW(l), r));
+        PUSHREF(bdd_correctify(level, HIGH(l), r));
+        res = bdd_makenode(LEVEL(l), READREF(2), READREF(1));
+      } else {
+        PUSHREF(bdd_correctify(level, l, LOW(r)));
+        PUSHREF(bdd_correctify(level, l, HIGH(r)));
+        res = bdd_makenode(LEVEL(r), READREF(2), READREF(1));
+      }
+      POPREF(2);
 
-    if (op < 0 || op > bddop_invimp) {
-      bdd_error(BDD_OP);
-      return BDDZERO;
-    }
+      if (entry.a != -1) {
+        replacecache.overwrites++;
+        if (cachestatsEnabled) {
+          cachestats.opOverwrite++;
+        }
+      }
+      entry.a = l;
+      entry.b = r;
+      entry.c = replaceid;
+      entry.res = res;
 
-    if (applycache == null) {
-      applycache = BddCacheI_init(cachesize);
+      return res;
     }
-    applyop = op;
 
-    INITREF();
-    int res;
-    switch (op) {
-      case bddop_and:
-        res = and_rec(l, r);
-        break;
-      case bddop_or:
-        res = or_rec(l, r);
-        break;
-      default:
-        res = apply_rec(l, r);
-        break;
+    private int bdd_apply(int l, int r, int op) {
+      CHECK(l);
+      CHECK(r);
+
+      if (op < 0 || op > bddop_invimp) {
+        bdd_error(BDD_OP);
+        return BDDZERO;
+      }
+
+      if (applycache == null) {
+        applycache = BddCacheI_init(cachesize);
+      }
+      applyop = op;
+
+      INITREF();
+      int res;
+      switch (op) {
+        case bddop_and:
+          res = and_rec(l, r);
+          break;
+        case bddop_or:
+          res = or_rec(l, r);
+          break;
+        default:
+          res = apply_rec(l, r);
+          break;
+      }
+      checkresize();
+
+      return res;
     }
-    checkresize();
 
-    return res;
-  }
+    private int apply_rec(int l, int r) {
+      BddCacheDataI entry;
+      int res;
 
-  private int apply_rec(int l, int r) {
-    BddCacheDataI entry;
-    int res;
+      if (VERIFY_ASSERTIONS) {
+        _assert(applyop != bddop_and && applyop != bddop_or);
+      }
 
-    if (VERIFY_ASSERTIONS) {
-      _assert(applyop != bddop_and && applyop != bddop_or);
-    }
-
-    if (ISCONST(l) && ISCONST(r)) {
-      return oprres[applyop][l << 1 | r];
-    }
-
-    switch (applyop) {
-        // case bddop_and: is handled elsehwere
-      case bddop_xor:
-        if (l == r) {
-          return BDDZERO;
-        } else if (ISZERO(l)) {
-          return r;
-        } else if (ISZERO(r)) {
-          return l;
-        } else if (ISONE(l)) {
-          return not_rec(r);
-        } else if (ISONE(r)) {
-          return not_rec(l);
-        } else if (l > r) {
-          // Since XOR is symmetric, maximize caching by ensuring l < r (== handled above).
-          int t = l;
-          l = r;
-          r = t;
-        }
-        break;
-        // case bddop_or: is handled elsehwere
-      case bddop_nand:
-        if (l == r) {
-          return not_rec(l);
-        } else if (ISZERO(l) || ISZERO(r)) {
-          return BDDONE;
-        } else if (ISONE(l)) {
-          return not_rec(r);
-        } else if (ISONE(r)) {
-          return not_rec(l);
-        } else if (l > r) {
-          // Since NAND is symmetric, maximize caching by ensuring l < r (== handled above).
-          int t = l;
-          l = r;
-          r = t;
-        }
-        break;
-      case bddop_nor:
-        if (l == r) {
-          return not_rec(l);
-        } else if (ISONE(l) || ISONE(r)) {
-          return BDDZERO;
-        } else if (ISZERO(l)) {
-          return not_rec(r);
-        } else if (ISZERO(r)) {
-          return not_rec(l);
-        } else if (l > r) {
-          // Since NOR is symmetric, maximize caching by ensuring l < r (== handled above).
-          int t = l;
-          l = r;
-          r = t;
-        }
-        break;
-      case bddop_imp:
-        if (l == r) {
-          return BDDONE;
-        } else if (ISZERO(l)) {
-          return BDDONE;
-        } else if (ISONE(l)) {
-          return r;
-        } else if (ISZERO(r)) {
-          return not_rec(l);
-        } else if (ISONE(r)) {
-          return BDDONE;
-        }
-        break;
-      case bddop_biimp:
-        if (l == r) {
-          return BDDONE;
-        } else if (ISZERO(l)) {
-          return not_rec(r);
-        } else if (ISZERO(r)) {
-          return not_rec(l);
-        } else if (ISONE(l)) {
-          return r;
-        } else if (ISONE(r)) {
-          return l;
-        } else if (l > r) {
-          // Since BIIMP is symmetric, maximize caching by ensuring l < r (== handled above).
-          int t = l;
-          l = r;
-          r = t;
+      if (ISCONST(l) && ISCONST(r)) {
+        return oprres[applyop][l << 1 | r];
+      }
+
+      switch (applyop) {
+          // case bddop_and: is handled elsehwere
+        case bddop_xor:
+          if (l == r) {
+            return BDDZERO;
+          } else if (ISZERO(l)) {
+            return r;
+          } else if (ISZERO(r)) {
+            return l;
+          } else if (ISONE(l)) {
+            return not_rec(r);
+          } else if (ISONE(r)) {
+            return not_rec(l);
+          } else if (l > r) {
+            // Since XOR is symmetric, maximize caching by ensuring l < r (== handled above).
+            int t = l;
+            l = r;
+            r = t;
+          }
+          break;
+          // case bddop_or: is handled elsehwere
+        case bddop_nand:
+          if (l == r) {
+            return not_rec(l);
+          } else if (ISZERO(l) || ISZERO(r)) {
+            return BDDONE;
+          } else if (ISONE(l)) {
+            return not_rec(r);
+          } else if (ISONE(r)) {
+            return not_rec(l);
+          } else if (l > r) {
+            // Since NAND is symmetric, maximize caching by ensuring l < r (== handled above).
+            int t = l;
+            l = r;
+            r = t;
+          }
+          break;
+        case bddop_nor:
+          if (l == r) {
+            return not_rec(l);
+          } else if (ISONE(l) || ISONE(r)) {
+            return BDDZERO;
+          } else if (ISZERO(l)) {
+            return not_rec(r);
+          } else if (ISZERO(r)) {
+            return not_rec(l);
+          } else if (l > r) {
+            // Since NOR is symmetric, maximize caching by ensuring l < r (== handled above).
+            int t = l;
+            l = r;
+            r = t;
+          }
+          break;
+        case bddop_imp:
+          if (l == r) {
+            return BDDONE;
+          } else if (ISZERO(l)) {
+            return BDDONE;
+          } else if (ISONE(l)) {
+            return r;
+          } else if (ISZERO(r)) {
+            return not_rec(l);
+          } else if (ISONE(r)) {
+            return BDDONE;
+          }
+          break;
+        case bddop_biimp:
+          if (l == r) {
+            return BDDONE;
+          } else if (ISZERO(l)) {
+            return not_rec(r);
+          } else if (ISZERO(r)) {
+            return not_rec(l);
+          } else if (ISONE(l)) {
+            return r;
+          } else if (ISONE(r)) {
+            return l;
+          } else if (l > r) {
+            // Since BIIMP is symmetric, maximize caching by ensuring l < r (== handled above).
+            int t = l;
+            l = r;
+            r = t;
+          }
+          break;
+        case bddop_diff:
+          if (l == r) {
+            return BDDZERO;
+          } else if (ISZERO(l)) {
+            return BDDZERO;
+          } else if (ISONE(r)) {
+            return BDDZERO;
+          } else if (ISONE(l)) {
+            return not_rec(r);
+          } else if (ISZERO(r)) {
+            return l;
+          }
+          break;
+        case bddop_less:
+          if (l == r) {
+            return BDDZERO;
+          } else if (ISONE(l)) {
+            return BDDZERO;
+          } else if (ISZERO(r)) {
+            return BDDZERO;
+          } else if (ISZERO(l)) {
+            return r;
+          } else if (ISONE(r)) {
+            return not_rec(l);
+          } else {
+            // Rewrite as equivalent diff to improve caching.
+            applyop = bddop_diff;
+            int t = l;
+            l = r;
+            r = t;
+          }
+          break;
+        case bddop_invimp:
+          if (l == r) {
+            return BDDONE;
+          } else if (ISONE(l)) {
+            return BDDONE;
+          } else if (ISZERO(r)) {
+            return BDDONE;
+          } else if (ISONE(r)) {
+            return l;
+          } else if (ISZERO(l)) {
+            return not_rec(r);
+          } else {
+            // Rewrite as equivalent imp to improve caching.
+            applyop = bddop_imp;
+            int t = l;
+            l = r;
+            r = t;
+          }
+          break;
+      }
+
+      entry = BddCache_lookupI(applycache, APPLYHASH(l, r, applyop));
+
+      if (entry.a == l && entry.b == r && entry.c == applyop) {
+        if (cachestatsEnabled) {
+          cachestats.opHit++;
         }
-        break;
-      case bddop_diff:
-        if (l == r) {
-          return BDDZERO;
-        } else if (ISZERO(l)) {
-          return BDDZERO;
-        } else if (ISONE(r)) {
-          return BDDZERO;
-        } else if (ISONE(l)) {
-          return not_rec(r);
-        } else if (ISZERO(r)) {
-          return l;
+        return entry.res;
+      }
+      applycache.misses++;
+      if (cachestatsEnabled) {
+        cachestats.opMiss++;
+      }
+
+      if (LEVEL(l) == LEVEL(r)) {
+        PUSHREF(apply_rec(LOW(l), LOW(r)));
+        PUSHREF(apply_rec(HIGH(l), HIGH(r)));
+        res = bdd_makenode(LEVEL(l), READREF(2), READREF(1));
+      } else if (LEVEL(l) < LEVEL(r)) {
+        PUSHREF(apply_rec(LOW(l), r));
+        PUSHREF(apply_rec(HIGH(l), r));
+        res = bdd_makenode(LEVEL(l), READREF(2), READREF(1));
+      } else {
+        PUSHREF(apply_rec(l, LOW(r)));
+        PUSHREF(apply_rec(l, HIGH(r)));
+        res = bdd_makenode(LEVEL(r), READREF(2), READREF(1));
+      }
+
+      POPREF(2);
+
+      if (entry.a != -1) {
+        applycache.overwrites++;
+        if (cachestatsEnabled) {
+          cachestats.opOverwrite++;
         }
-        break;
-      case bddop_less:
-        if (l == r) {
-          return BDDZERO;
-        } else if (ISONE(l)) {
-          return BDDZERO;
-        } else if (ISZERO(r)) {
-          return BDDZERO;
-        } else if (ISZERO(l)) {
-          return r;
-        } else if (ISONE(r)) {
-          return not_rec(l);
-        } else {
-          // Rewrite as equivalent diff to improve caching.
-          applyop = bddop_diff;
-          int t = l;
-          l = r;
-          r = t;
+      }
+      entry.a = l;
+      entry.b = r;
+      entry.c = applyop;
+      entry.res = res;
+
+      return res;
+    }
+
+    private int and_rec(int l, int r) {
+      BddCacheDataI entry;
+      int res;
+
+      if (l == r) {
+        return l;
+      } else if (ISZERO(l) || ISZERO(r)) {
+        return BDDZERO;
+      } else if (ISONE(l)) {
+        return r;
+      } else if (ISONE(r)) {
+        return l;
+      } else if (l > r) {
+        // Since AND is symmetric, maximize caching by ensuring l < r (== handled above).
+        int t = l;
+        l = r;
+        r = t;
+      }
+      entry = BddCache_lookupI(applycache, APPLYHASH(l, r, bddop_and));
+
+      if (entry.a == l && entry.b == r && entry.c == bddop_and) {
+        if (cachestatsEnabled) {
+          cachestats.opHit++;
         }
-        break;
-      case bddop_invimp:
-        if (l == r) {
-          return BDDONE;
-        } else if (ISONE(l)) {
-          return BDDONE;
-        } else if (ISZERO(r)) {
-          return BDDONE;
-        } else if (ISONE(r)) {
-          return l;
-        } else if (ISZERO(l)) {
-          return not_rec(r);
-        } else {
-          // Rewrite as equivalent imp to improve caching.
-          applyop = bddop_imp;
-          int t = l;
-          l = r;
-          r = t;
+        return entry.res;
+      }
+      applycache.misses++;
+      if (cachestatsEnabled) {
+        cachestats.opMiss++;
+      }
+
+      if (LEVEL(l) == LEVEL(r)) {
+        PUSHREF(and_rec(LOW(l), LOW(r)));
+        PUSHREF(and_rec(HIGH(l), HIGH(r)));
+        res = bdd_makenode(LEVEL(l), READREF(2), READREF(1));
+      } else if (LEVEL(l) < LEVEL(r)) {
+        PUSHREF(and_rec(LOW(l), r));
+        PUSHREF(and_rec(HIGH(l), r));
+        res = bdd_makenode(LEVEL(l), READREF(2), READREF(1));
+      } else {
+        PUSHREF(and_rec(l, LOW(r)));
+        PUSHREF(and_rec(l, HIGH(r)));
+        res = bdd_makenode(LEVEL(r), READREF(2), READREF(1));
+      }
+
+      POPREF(2);
+
+      if (entry.a != -1) {
+        applycache.overwrites++;
+        if (cachestatsEnabled) {
+          cachestats.opOverwrite++;
         }
-        break;
+      }
+      entry.a = l;
+      entry.b = r;
+      entry.c = bddop_and;
+      entry.res = res;
+
+      return res;
     }
 
-    entry = BddCache_lookupI(applycache, APPLYHASH(l, r, applyop));
+    private boolean diffsat_rec(int l, int r) {
+      if (ISZERO(l) || ISONE(r)) {
+        return false;
+      } else if (ISONE(l) || ISZERO(r)) {
+        return true;
+      } else if (l == r) {
+        return false;
+      }
 
-    if (entry.a == l && entry.b == r && entry.c == applyop) {
-      if (CACHESTATS) {
-        cachestats.opHit++;
+      // TODO: should we also check for diff? For now, don't since diff_sat should be real fast.
+      BddCacheDataI entry = BddCache_lookupI(applycache, APPLYHASH(l, r, bddop_diffsat));
+      if (entry.a == l && entry.b == r && entry.c == bddop_diffsat) {
+        if (cachestatsEnabled) {
+          cachestats.opHit++;
+        }
+        // We set entry.res to BDDZERO for false and BDDONE for true.
+        return entry.res == BDDONE;
+      }
+      applycache.misses++;
+      if (cachestatsEnabled) {
+        cachestats.opMiss++;
       }
-      return entry.res;
-    }
-    if (CACHESTATS) {
-      cachestats.opMiss++;
-    }
 
-    if (LEVEL(l) == LEVEL(r)) {
-      PUSHREF(apply_rec(LOW(l), LOW(r)));
-      PUSHREF(apply_rec(HIGH(l), HIGH(r)));
-      res = bdd_makenode(LEVEL(l), READREF(2), READREF(1));
-    } else if (LEVEL(l) < LEVEL(r)) {
-      PUSHREF(apply_rec(LOW(l), r));
-      PUSHREF(apply_rec(HIGH(l), r));
-      res = bdd_makenode(LEVEL(l), READREF(2), READREF(1));
-    } else {
-      PUSHREF(apply_rec(l, LOW(r)));
-      PUSHREF(apply_rec(l, HIGH(r)));
-      res = bdd_makenode(LEVEL(r), READREF(2), READREF(1));
-    }
+      boolean res;
+      if (LEVEL(l) == LEVEL(r)) {
+        res = diffsat_rec(LOW(l), LOW(r)) || diffsat_rec(HIGH(l), HIGH(r));
+      } else if (LEVEL(l) < LEVEL(r)) {
+        res = diffsat_rec(LOW(l), r) || diffsat_rec(HIGH(l), r);
+      } else {
+        res = diffsat_rec(l, LOW(r)) || diffsat_rec(l, HIGH(r));
+      }
 
-    POPREF(2);
+      if (entry.a != -1) {
+        applycache.overwrites++;
+        if (cachestatsEnabled) {
+          cachestats.opOverwrite++;
+        }
+      }
+      entry.a = l;
+      entry.b = r;
+      entry.c = bddop_diffsat;
+      entry.res = res ? BDDONE : BDDZERO;
 
-    if (CACHESTATS && entry.a != -1) {
-      cachestats.opOverwrite++;
+      return res;
     }
-    entry.a = l;
-    entry.b = r;
-    entry.c = applyop;
-    entry.res = res;
 
-    return res;
-  }
+    private boolean andsat_rec(int l, int r) {
+      if (ISZERO(l) || ISZERO(r)) {
+        return false;
+      } else if (ISONE(l) || ISONE(r)) {
+        return true;
+      } else if (l == r) {
+        return true;
+      } else if (l > r) {
+        // Since AND is symmetric, maximize caching by ensuring l < r (== handled above).
+        int t = l;
+        l = r;
+        r = t;
+      }
 
-  private int and_rec(int l, int r) {
-    BddCacheDataI entry;
-    int res;
+      // TODO: should we also check for and? For now, don't since and_sat should be real fast.
+      BddCacheDataI entry = BddCache_lookupI(applycache, APPLYHASH(l, r, bddop_andsat));
+      if (entry.a == l && entry.b == r && entry.c == bddop_andsat) {
+        if (cachestatsEnabled) {
+          cachestats.opHit++;
+        }
+        // We set entry.res to BDDZERO for false and BDDONE for true.
+        return entry.res == BDDONE;
+      }
+      applycache.misses++;
+      if (cachestatsEnabled) {
+        cachestats.opMiss++;
+      }
 
-    if (l == r) {
-      return l;
-    } else if (ISZERO(l) || ISZERO(r)) {
-      return BDDZERO;
-    } else if (ISONE(l)) {
-      return r;
-    } else if (ISONE(r)) {
-      return l;
-    } else if (l > r) {
-      // Since AND is symmetric, maximize caching by ensuring l < r (== handled above).
-      int t = l;
-      l = r;
-      r = t;
-    }
-    entry = BddCache_lookupI(applycache, APPLYHASH(l, r, bddop_and));
-
-    if (entry.a == l && entry.b == r && entry.c == bddop_and) {
-      if (CACHESTATS) {
-        cachestats.opHit++;
-      }
-      return entry.res;
-    }
-    if (CACHESTATS) {
-      cachestats.opMiss++;
-    }
-
-    if (LEVEL(l) == LEVEL(r)) {
-      PUSHREF(and_rec(LOW(l), LOW(r)));
-      PUSHREF(and_rec(HIGH(l), HIGH(r)));
-      res = bdd_makenode(LEVEL(l), READREF(2), READREF(1));
-    } else if (LEVEL(l) < LEVEL(r)) {
-      PUSHREF(and_rec(LOW(l), r));
-      PUSHREF(and_rec(HIGH(l), r));
-      res = bdd_makenode(LEVEL(l), READREF(2), READREF(1));
-    } else {
-      PUSHREF(and_rec(l, LOW(r)));
-      PUSHREF(and_rec(l, HIGH(r)));
-      res = bdd_makenode(LEVEL(r), READREF(2), READREF(1));
-    }
+      boolean res;
+      if (LEVEL(l) == LEVEL(r)) {
+        res = andsat_rec(LOW(l), LOW(r)) || andsat_rec(HIGH(l), HIGH(r));
+      } else if (LEVEL(l) < LEVEL(r)) {
+        res = andsat_rec(LOW(l), r) || andsat_rec(HIGH(l), r);
+      } else {
+        res = andsat_rec(l, LOW(r)) || andsat_rec(l, HIGH(r));
+      }
 
-    POPREF(2);
+      if (entry.a != -1) {
+        applycache.overwrites++;
+        if (cachestatsEnabled) {
+          cachestats.opOverwrite++;
+        }
+      }
+      entry.a = l;
+      entry.b = r;
+      entry.c = bddop_andsat;
+      entry.res = res ? BDDONE : BDDZERO;
 
-    if (CACHESTATS && entry.a != -1) {
-      cachestats.opOverwrite++;
+      return res;
     }
-    entry.a = l;
-    entry.b = r;
-    entry.c = bddop_and;
-    entry.res = res;
 
-    return res;
-  }
+    private int orAll_rec(int[] operands) {
+      if (operands.length == 0) {
+        return BDDZERO;
+      } else if (operands.length == 1) {
+        return operands[0];
+      } else if (operands.length == 2) {
+        return or_rec(operands[0], operands[1]);
+      }
 
-  private boolean diffsat_rec(int l, int r) {
-    if (ISZERO(l) || ISONE(r)) {
-      return false;
-    } else if (ISONE(l) || ISZERO(r)) {
-      return true;
-    } else if (l == r) {
-      return false;
-    }
+      // sort and dedup the operands to optimize caching
+      Arrays.sort(operands);
+      operands = dedupSorted(operands);
 
-    // TODO: should we also check for diff? For now, don't since diff_sat should be real fast.
-    BddCacheDataI entry = BddCache_lookupI(applycache, APPLYHASH(l, r, bddop_diffsat));
-    if (entry.a == l && entry.b == r && entry.c == bddop_diffsat) {
-      if (CACHESTATS) {
-        cachestats.opHit++;
+      MultiOpBddCacheData entry =
+          BddCache_lookupMultiOp(multiopcache, MULTIOPHASH(operands, bddop_or));
+      if (entry.a == bddop_or && Arrays.equals(operands, entry.operands)) {
+        if (cachestatsEnabled) {
+          cachestats.opHit++;
+        }
+        return entry.b;
+      }
+      multiopcache.misses++;
+      if (cachestatsEnabled) {
+        cachestats.opMiss++;
       }
-      // We set entry.res to BDDZERO for false and BDDONE for true.
-      return entry.res == BDDONE;
-    }
-    if (CACHESTATS) {
-      cachestats.opMiss++;
-    }
 
-    boolean res;
-    if (LEVEL(l) == LEVEL(r)) {
-      res = diffsat_rec(LOW(l), LOW(r)) || diffsat_rec(HIGH(l), HIGH(r));
-    } else if (LEVEL(l) < LEVEL(r)) {
-      res = diffsat_rec(LOW(l), r) || diffsat_rec(HIGH(l), r);
-    } else {
-      res = diffsat_rec(l, LOW(r)) || diffsat_rec(l, HIGH(r));
-    }
+      /* Compute the result in a way that generalizes or_rec. Identify the variable to branch on,
+       * and make two recursive calls (for when that variable is high or low).
+       *
+       * In a single pass over operands:
+       * 1. Find the level of the variable the result BDD should branch on. This is the minimum
+       *    level branched on at the roots of the current operand BDDs.
+       * 2. Compute the size needed for the operand arrays of the two recursive calls. This is
+       *    equal to the number of operands whose root level are greater than the minimum, plus the
+       *    number of operands whose root level is equal to the minimum and whose child (low or
+       *    high, corresponding to if the recursive call is computing the low or high child of the
+       *    result) is not the zero BDD.
+       * 3. Whether either recursive call can be short-circuited because one of the operands is the
+       *    one BDD. This can only happen when the one is a child a BDD whose root level is the
+       *    minimum.
+       */
 
-    if (CACHESTATS && entry.a != -1) {
-      cachestats.opOverwrite++;
-    }
-    entry.a = l;
-    entry.b = r;
-    entry.c = bddop_diffsat;
-    entry.res = res ? BDDONE : BDDZERO;
+      int minLevel = LEVEL(operands[0]);
+      int nodesWithMinLevel = 0;
+      int nodesWithMinLevelLowNonZero = 0;
+      int nodesWithMinLevelHighNonZero = 0;
+      boolean nodeWithMinLevelHasLowOne = false;
+      boolean nodeWithMinLevelHasHighOne = false;
+      for (int n : operands) {
+        int level = LEVEL(n);
+        if (level < minLevel) {
+          minLevel = level;
+          nodesWithMinLevel = 0;
+          nodesWithMinLevelHighNonZero = 0;
+          nodesWithMinLevelLowNonZero = 0;
+          nodeWithMinLevelHasHighOne = false;
+          nodeWithMinLevelHasLowOne = false;
+        } else if (level > minLevel) {
+          continue;
+        }
 
-    return res;
-  }
+        // level == minLevel
+        nodesWithMinLevel++;
 
-  private boolean andsat_rec(int l, int r) {
-    if (ISZERO(l) || ISZERO(r)) {
-      return false;
-    } else if (ISONE(l) || ISONE(r)) {
-      return true;
-    } else if (l == r) {
-      return true;
-    } else if (l > r) {
-      // Since AND is symmetric, maximize caching by ensuring l < r (== handled above).
-      int t = l;
-      l = r;
-      r = t;
-    }
-
-    // TODO: should we also check for and? For now, don't since and_sat should be real fast.
-    BddCacheDataI entry = BddCache_lookupI(applycache, APPLYHASH(l, r, bddop_andsat));
-    if (entry.a == l && entry.b == r && entry.c == bddop_andsat) {
-      if (CACHESTATS) {
-        cachestats.opHit++;
-      }
-      // We set entry.res to BDDZERO for false and BDDONE for true.
-      return entry.res == BDDONE;
-    }
-    if (CACHESTATS) {
-      cachestats.opMiss++;
-    }
-
-    boolean res;
-    if (LEVEL(l) == LEVEL(r)) {
-      res = andsat_rec(LOW(l), LOW(r)) || andsat_rec(HIGH(l), HIGH(r));
-    } else if (LEVEL(l) < LEVEL(r)) {
-      res = andsat_rec(LOW(l), r) || andsat_rec(HIGH(l), r);
-    } else {
-      res = andsat_rec(l, LOW(r)) || andsat_rec(l, HIGH(r));
-    }
+        int high = HIGH(n);
+        nodeWithMinLevelHasHighOne |= ISONE(high);
+        nodesWithMinLevelHighNonZero += ISZERO(high) ? 0 : 1;
 
-    if (CACHESTATS && entry.a != -1) {
-      cachestats.opOverwrite++;
-    }
-    entry.a = l;
-    entry.b = r;
-    entry.c = bddop_andsat;
-    entry.res = res ? BDDONE : BDDZERO;
+        int low = LOW(n);
+        nodeWithMinLevelHasLowOne |= ISONE(low);
+        nodesWithMinLevelLowNonZero += ISZERO(low) ? 0 : 1;
+      }
 
-    return res;
-  }
+      int nodesWithoutMinLevel = operands.length - nodesWithMinLevel;
 
-  /**
-   * Dedup a sorted array. Returns the input array if it contains no duplicates. Mutates the array
-   * if there are duplicates.
-   */
-  static int[] dedupSorted(int[] values) {
-    if (values.length < 2) {
-      return values;
-    }
-    int i = 0; // index last written to
-    int j = 1; // index to read from next
-    while (j < values.length) {
-      if (values[i] != values[j]) {
-        values[++i] = values[j++];
+      int low;
+      if (!nodeWithMinLevelHasLowOne) {
+        /* Make the resursive call for the low branch. None of the operands are 1, so we can't
+         * short-circuit to 1. Allocate and build the array of operands, then make the call and push
+         * the result onto the stack.
+         */
+        int[] lowOperands = new int[nodesWithMinLevelLowNonZero + nodesWithoutMinLevel];
+        int i = 0;
+        for (int operand : operands) {
+          if (LEVEL(operand) == minLevel) {
+            int l = LOW(operand);
+            if (!ISZERO(l)) {
+              assert !ISCONST(l);
+              lowOperands[i++] = l;
+            }
+          } else {
+            assert !ISCONST(operand);
+            lowOperands[i++] = operand;
+          }
+        }
+        assert i == lowOperands.length;
+        low = orAll_rec(lowOperands);
+        PUSHREF(low); // make sure low isn't garbage collected.
       } else {
-        j++;
+        low = BDDONE;
       }
-    }
-
-    int dedupLen = i + 1;
-    if (dedupLen < values.length) {
-      return Arrays.copyOf(values, dedupLen);
-    } else {
-      return values;
-    }
-  }
 
-  private int orAll_rec(int[] operands) {
-    if (operands.length == 0) {
-      return BDDZERO;
-    } else if (operands.length == 1) {
-      return operands[0];
-    } else if (operands.length == 2) {
-      return or_rec(operands[0], operands[1]);
-    }
+      int high;
+      if (!nodeWithMinLevelHasHighOne) {
+        /* Make the resursive call for the high branch. None of the operands are 1, so we can't
+         * short-circuit to 1. Allocate and build the array of operands, then make the call and push
+         * the result onto the stack.
+         */
+        int[] highOperands = new int[nodesWithMinLevelHighNonZero + nodesWithoutMinLevel];
+        int i = 0;
+        for (int operand : operands) {
+          if (LEVEL(operand) == minLevel) {
+            int h = HIGH(operand);
+            if (!ISZERO(h)) {
+              assert !ISCONST(h);
+              highOperands[i++] = h;
+            }
+          } else {
+            assert !ISCONST(operand);
+            highOperands[i++] = operand;
+          }
+        }
+        assert i == highOperands.length;
+        high = orAll_rec(highOperands);
+        PUSHREF(high); // make sure high isn't garbage collected.
+      } else {
+        high = BDDONE;
+      }
 
-    // sort and dedup the operands to optimize caching
-    Arrays.sort(operands);
-    operands = dedupSorted(operands);
+      int res = bdd_makenode(minLevel, low, high);
 
-    MultiOpBddCacheData entry =
-        BddCache_lookupMultiOp(multiopcache, MULTIOPHASH(operands, bddop_or));
-    if (entry.a == bddop_or && Arrays.equals(operands, entry.operands)) {
-      if (CACHESTATS) {
-        cachestats.opHit++;
+      if (!nodeWithMinLevelHasHighOne) {
+        POPREF(1);
+      }
+      if (!nodeWithMinLevelHasLowOne) {
+        POPREF(1);
       }
-      return entry.b;
-    }
-    if (CACHESTATS) {
-      cachestats.opMiss++;
-    }
 
-    /* Compute the result in a way that generalizes or_rec. Identify the variable to branch on, and
-     * make two recursive calls (for when that variable is high or low).
-     *
-     * In a single pass over operands:
-     * 1. Find the level of the variable the result BDD should branch on. This is the minimum level
-     *    branched on at the roots of the current operand BDDs.
-     * 2. Compute the size needed for the operand arrays of the two recursive calls. This is equal
-     *    to the number of operands whose root level are greater than the minimum, plus the number
-     *    of operands whose root level is equal to the minimum and whose child (low or high,
-     *    corresponding to if the recursive call is computing the low or high child of the result)
-     *    is not the zero BDD.
-     * 3. Whether either recursive call can be short-circuited because one of the operands is the
-     *    one BDD. This can only happen when the one is a child a BDD whose root level is the
-     *    minimum.
-     */
+      if (entry.a != -1) {
+        multiopcache.overwrites++;
+        if (cachestatsEnabled) {
+          cachestats.opOverwrite++;
+        }
+      }
+      entry.a = bddop_or;
+      entry.b = res;
+      entry.operands = operands;
+      return res;
+    }
+
+    private int or_rec(int l, int r) {
+      BddCacheDataI entry;
+      int res;
+
+      if (l == r) {
+        return l;
+      } else if (ISONE(l) || ISONE(r)) {
+        return BDDONE;
+      } else if (ISZERO(l)) {
+        return r;
+      } else if (ISZERO(r)) {
+        return l;
+      } else if (l > r) {
+        // Since OR is symmetric, maximize caching by ensuring l < r (== handled above).
+        int t = l;
+        l = r;
+        r = t;
+      }
+      entry = BddCache_lookupI(applycache, APPLYHASH(l, r, bddop_or));
+
+      if (entry.a == l && entry.b == r && entry.c == bddop_or) {
+        if (cachestatsEnabled) {
+          cachestats.opHit++;
+        }
+        return entry.res;
+      }
+      applycache.misses++;
+      if (cachestatsEnabled) {
+        cachestats.opMiss++;
+      }
 
-    int minLevel = LEVEL(operands[0]);
-    int nodesWithMinLevel = 0;
-    int nodesWithMinLevelLowNonZero = 0;
-    int nodesWithMinLevelHighNonZero = 0;
-    boolean nodeWithMinLevelHasLowOne = false;
-    boolean nodeWithMinLevelHasHighOne = false;
-    for (int n : operands) {
-      int level = LEVEL(n);
-      if (level < minLevel) {
-        minLevel = level;
-        nodesWithMinLevel = 0;
-        nodesWithMinLevelHighNonZero = 0;
-        nodesWithMinLevelLowNonZero = 0;
-        nodeWithMinLevelHasHighOne = false;
-        nodeWithMinLevelHasLowOne = false;
-      } else if (level > minLevel) {
-        continue;
+      if (LEVEL(l) == LEVEL(r)) {
+        PUSHREF(or_rec(LOW(l), LOW(r)));
+        PUSHREF(or_rec(HIGH(l), HIGH(r)));
+        res = bdd_makenode(LEVEL(l), READREF(2), READREF(1));
+      } else if (LEVEL(l) < LEVEL(r)) {
+        PUSHREF(or_rec(LOW(l), r));
+        PUSHREF(or_rec(HIGH(l), r));
+        res = bdd_makenode(LEVEL(l), READREF(2), READREF(1));
+      } else {
+        PUSHREF(or_rec(l, LOW(r)));
+        PUSHREF(or_rec(l, HIGH(r)));
+        res = bdd_makenode(LEVEL(r), READREF(2), READREF(1));
       }
 
-      // level == minLevel
-      nodesWithMinLevel++;
+      POPREF(2);
 
-      int high = HIGH(n);
-      nodeWithMinLevelHasHighOne |= ISONE(high);
-      nodesWithMinLevelHighNonZero += ISZERO(high) ? 0 : 1;
+      if (entry.a != -1) {
+        applycache.overwrites++;
+        if (cachestatsEnabled) {
+          cachestats.opOverwrite++;
+        }
+      }
+      entry.a = l;
+      entry.b = r;
+      entry.c = bddop_or;
+      entry.res = res;
 
-      int low = LOW(n);
-      nodeWithMinLevelHasLowOne |= ISONE(low);
-      nodesWithMinLevelLowNonZero += ISZERO(low) ? 0 : 1;
+      return res;
     }
 
-    int nodesWithoutMinLevel = operands.length - nodesWithMinLevel;
+    private int relprod_rec(int l, int r) {
+      BddCacheDataI entry;
+      int res;
 
-    int low;
-    if (!nodeWithMinLevelHasLowOne) {
-      /* Make the resursive call for the low branch. None of the operands are 1, so we can't
-       * short-circuit to 1. Allocate and build the array of operands, then make the call and push
-       * the result onto the stack.
-       */
-      int[] lowOperands = new int[nodesWithMinLevelLowNonZero + nodesWithoutMinLevel];
-      int i = 0;
-      for (int operand : operands) {
-        if (LEVEL(operand) == minLevel) {
-          int l = LOW(operand);
-          if (!ISZERO(l)) {
-            assert !ISCONST(l);
-            lowOperands[i++] = l;
+      if (l == BDDZERO || r == BDDZERO) {
+        return BDDZERO;
+      } else if (l == r) {
+        return quant_rec(l);
+      } else if (l == BDDONE) {
+        return quant_rec(r);
+      } else if (r == BDDONE) {
+        return quant_rec(l);
+      }
+
+      int LEVEL_l = LEVEL(l);
+      int LEVEL_r = LEVEL(r);
+      if (LEVEL_l > quantlast && LEVEL_r > quantlast) {
+        applyop = bddop_and;
+        res = and_rec(l, r);
+        applyop = bddop_or;
+      } else {
+        entry = BddCache_lookupI(appexcache, APPEXHASH(l, r, bddop_and));
+        if (entry.a == l && entry.b == r && entry.c == appexid) {
+          if (cachestatsEnabled) {
+            cachestats.opHit++;
           }
-        } else {
-          assert !ISCONST(operand);
-          lowOperands[i++] = operand;
+          return entry.res;
+        }
+        appexcache.misses++;
+        if (cachestatsEnabled) {
+          cachestats.opMiss++;
         }
-      }
-      assert i == lowOperands.length;
-      low = orAll_rec(lowOperands);
-      PUSHREF(low); // make sure low isn't garbage collected.
-    } else {
-      low = BDDONE;
-    }
 
-    int high;
-    if (!nodeWithMinLevelHasHighOne) {
-      /* Make the resursive call for the high branch. None of the operands are 1, so we can't
-       * short-circuit to 1. Allocate and build the array of operands, then make the call and push
-       * the result onto the stack.
-       */
-      int[] highOperands = new int[nodesWithMinLevelHighNonZero + nodesWithoutMinLevel];
-      int i = 0;
-      for (int operand : operands) {
-        if (LEVEL(operand) == minLevel) {
-          int h = HIGH(operand);
-          if (!ISZERO(h)) {
-            assert !ISCONST(h);
-            highOperands[i++] = h;
+        if (LEVEL_l == LEVEL_r) {
+          PUSHREF(relprod_rec(LOW(l), LOW(r)));
+          PUSHREF(relprod_rec(HIGH(l), HIGH(r)));
+          if (INVARSET(LEVEL_l)) {
+            res = or_rec(READREF(2), READREF(1));
+          } else {
+            res = bdd_makenode(LEVEL_l, READREF(2), READREF(1));
+          }
+        } else if (LEVEL_l < LEVEL_r) {
+          PUSHREF(relprod_rec(LOW(l), r));
+          PUSHREF(relprod_rec(HIGH(l), r));
+          if (INVARSET(LEVEL_l)) {
+            res = or_rec(READREF(2), READREF(1));
+          } else {
+            res = bdd_makenode(LEVEL_l, READREF(2), READREF(1));
           }
         } else {
-          assert !ISCONST(operand);
-          highOperands[i++] = operand;
+          PUSHREF(relprod_rec(l, LOW(r)));
+          PUSHREF(relprod_rec(l, HIGH(r)));
+          if (INVARSET(LEVEL_r)) {
+            res = or_rec(READREF(2), READREF(1));
+          } else {
+            res = bdd_makenode(LEVEL_r, READREF(2), READREF(1));
+          }
         }
-      }
-      assert i == highOperands.length;
-      high = orAll_rec(highOperands);
-      PUSHREF(high); // make sure high isn't garbage collected.
-    } else {
-      high = BDDONE;
-    }
 
-    int res = bdd_makenode(minLevel, low, high);
+        POPREF(2);
 
-    if (!nodeWithMinLevelHasHighOne) {
-      POPREF(1);
-    }
-    if (!nodeWithMinLevelHasLowOne) {
-      POPREF(1);
+        if (entry.a != -1) {
+          appexcache.overwrites++;
+          if (cachestatsEnabled) {
+            cachestats.opOverwrite++;
+          }
+        }
+        entry.a = l;
+        entry.b = r;
+        entry.c = appexid;
+        entry.res = res;
+      }
+
+      return res;
     }
 
-    if (CACHESTATS && entry.a != -1) {
-      cachestats.opOverwrite++;
+    private int bdd_relprod(int a, int b, int var) {
+      return bdd_appex(a, b, bddop_and, var);
     }
-    entry.a = bddop_or;
-    entry.b = res;
-    entry.operands = operands;
-    return res;
-  }
 
-  private int or_rec(int l, int r) {
-    BddCacheDataI entry;
-    int res;
+    private int bdd_appex(int l, int r, int opr, int var) {
+      CHECK(l);
+      CHECK(r);
+      CHECK(var);
 
-    if (l == r) {
-      return l;
-    } else if (ISONE(l) || ISONE(r)) {
-      return BDDONE;
-    } else if (ISZERO(l)) {
-      return r;
-    } else if (ISZERO(r)) {
-      return l;
-    } else if (l > r) {
-      // Since OR is symmetric, maximize caching by ensuring l < r (== handled above).
-      int t = l;
-      l = r;
-      r = t;
-    }
-    entry = BddCache_lookupI(applycache, APPLYHASH(l, r, bddop_or));
-
-    if (entry.a == l && entry.b == r && entry.c == bddop_or) {
-      if (CACHESTATS) {
-        cachestats.opHit++;
-      }
-      return entry.res;
-    }
-    if (CACHESTATS) {
-      cachestats.opMiss++;
-    }
-
-    if (LEVEL(l) == LEVEL(r)) {
-      PUSHREF(or_rec(LOW(l), LOW(r)));
-      PUSHREF(or_rec(HIGH(l), HIGH(r)));
-      res = bdd_makenode(LEVEL(l), READREF(2), READREF(1));
-    } else if (LEVEL(l) < LEVEL(r)) {
-      PUSHREF(or_rec(LOW(l), r));
-      PUSHREF(or_rec(HIGH(l), r));
-      res = bdd_makenode(LEVEL(l), READREF(2), READREF(1));
-    } else {
-      PUSHREF(or_rec(l, LOW(r)));
-      PUSHREF(or_rec(l, HIGH(r)));
-      res = bdd_makenode(LEVEL(r), READREF(2), READREF(1));
-    }
+      if (opr < 0 || opr > bddop_invimp) {
+        bdd_error(BDD_OP);
+        return BDDZERO;
+      }
 
-    POPREF(2);
+      if (var < 2) /* Empty set */ {
+        return bdd_apply(l, r, opr);
+      }
+      if (varset2vartable(var) < 0) {
+        return BDDZERO;
+      }
 
-    if (CACHESTATS && entry.a != -1) {
-      cachestats.opOverwrite++;
+      if (applycache == null) {
+        applycache = BddCacheI_init(cachesize);
+      }
+      if (appexcache == null) {
+        appexcache = BddCacheI_init(cachesize);
+      }
+      if (quantcache == null) {
+        quantcache = BddCacheI_init(cachesize);
+      }
+      applyop = bddop_or;
+      appexop = opr;
+      appexid = (var << 5) | (appexop << 1); /* FIXME: range! */
+      quantid = (appexid << 3) | CACHEID_APPEX;
+
+      INITREF();
+      int res = opr == bddop_and ? relprod_rec(l, r) : appquant_rec(l, r);
+      checkresize();
+
+      return res;
     }
-    entry.a = l;
-    entry.b = r;
-    entry.c = bddop_or;
-    entry.res = res;
 
-    return res;
-  }
+    private int varset2vartable(int r) {
+      if (r < 2) {
+        return bdd_error(BDD_VARSET);
+      }
 
-  private int relprod_rec(int l, int r) {
-    BddCacheDataI entry;
-    int res;
+      quantvarsetID++;
 
-    if (l == BDDZERO || r == BDDZERO) {
-      return BDDZERO;
-    } else if (l == r) {
-      return quant_rec(l);
-    } else if (l == BDDONE) {
-      return quant_rec(r);
-    } else if (r == BDDONE) {
-      return quant_rec(l);
-    }
+      if (quantvarsetID == INT_MAX) {
+        for (int i = 0; i < bddvarnum; ++i) {
+          quantvarset[i] = 0;
+        }
+        quantvarsetID = 1;
+      }
 
-    int LEVEL_l = LEVEL(l);
-    int LEVEL_r = LEVEL(r);
-    if (LEVEL_l > quantlast && LEVEL_r > quantlast) {
-      applyop = bddop_and;
-      res = and_rec(l, r);
-      applyop = bddop_or;
-    } else {
-      entry = BddCache_lookupI(appexcache, APPEXHASH(l, r, bddop_and));
-      if (entry.a == l && entry.b == r && entry.c == appexid) {
-        if (CACHESTATS) {
-          cachestats.opHit++;
+      quantlast = -1;
+      for (int n = r; n > 1; n = HIGH(n)) {
+        quantvarset[LEVEL(n)] = quantvarsetID;
+        if (VERIFY_ASSERTIONS) {
+          _assert(quantlast < LEVEL(n));
         }
-        return entry.res;
+        quantlast = LEVEL(n);
       }
-      if (CACHESTATS) {
-        cachestats.opMiss++;
+
+      return 0;
+    }
+
+    private int varset2svartable(int r) {
+      if (r < 2) {
+        return bdd_error(BDD_VARSET);
       }
 
-      if (LEVEL_l == LEVEL_r) {
-        PUSHREF(relprod_rec(LOW(l), LOW(r)));
-        PUSHREF(relprod_rec(HIGH(l), HIGH(r)));
-        if (INVARSET(LEVEL_l)) {
-          res = or_rec(READREF(2), READREF(1));
-        } else {
-          res = bdd_makenode(LEVEL_l, READREF(2), READREF(1));
+      quantvarsetID++;
+
+      if (quantvarsetID == INT_MAX / 2) {
+        for (int i = 0; i < bddvarnum; ++i) {
+          quantvarset[i] = 0;
         }
-      } else if (LEVEL_l < LEVEL_r) {
-        PUSHREF(relprod_rec(LOW(l), r));
-        PUSHREF(relprod_rec(HIGH(l), r));
-        if (INVARSET(LEVEL_l)) {
-          res = or_rec(READREF(2), READREF(1));
+        quantvarsetID = 1;
+      }
+
+      quantlast = 0;
+      for (int n = r; !ISCONST(n); ) {
+        if (ISZERO(LOW(n))) {
+          quantvarset[LEVEL(n)] = quantvarsetID;
+          n = HIGH(n);
         } else {
-          res = bdd_makenode(LEVEL_l, READREF(2), READREF(1));
+          quantvarset[LEVEL(n)] = -quantvarsetID;
+          n = LOW(n);
         }
-      } else {
-        PUSHREF(relprod_rec(l, LOW(r)));
-        PUSHREF(relprod_rec(l, HIGH(r)));
-        if (INVARSET(LEVEL_r)) {
-          res = or_rec(READREF(2), READREF(1));
-        } else {
-          res = bdd_makenode(LEVEL_r, READREF(2), READREF(1));
+        if (VERIFY_ASSERTIONS) {
+          _assert(quantlast < LEVEL(n));
         }
+        quantlast = LEVEL(n);
       }
 
-      POPREF(2);
+      return 0;
+    }
+
+    private int appquant_rec(int l, int r) {
+      BddCacheDataI entry;
+      int res;
 
-      if (CACHESTATS && entry.a != -1) {
-        cachestats.opOverwrite++;
+      if (VERIFY_ASSERTIONS) {
+        _assert(appexop != bddop_and);
       }
-      entry.a = l;
-      entry.b = r;
-      entry.c = appexid;
-      entry.res = res;
-    }
 
-    return res;
-  }
+      switch (appexop) {
+        case bddop_or:
+          if (l == BDDONE || r == BDDONE) {
+            return BDDONE;
+          } else if (l == r) {
+            return quant_rec(l);
+          } else if (l == BDDZERO) {
+            return quant_rec(r);
+          } else if (r == BDDZERO) {
+            return quant_rec(l);
+          }
+          break;
+        case bddop_xor:
+          if (l == r) {
+            return BDDZERO;
+          } else if (l == BDDZERO) {
+            return quant_rec(r);
+          } else if (r == BDDZERO) {
+            return quant_rec(l);
+          }
+          break;
+        case bddop_nand:
+          if (l == BDDZERO || r == BDDZERO) {
+            return BDDONE;
+          }
+          break;
+        case bddop_nor:
+          if (l == BDDONE || r == BDDONE) {
+            return BDDZERO;
+          }
+          break;
+      }
 
-  private int bdd_relprod(int a, int b, int var) {
-    return bdd_appex(a, b, bddop_and, var);
-  }
+      if (ISCONST(l) && ISCONST(r)) {
+        res = oprres[appexop][(l << 1) | r];
+      } else if (LEVEL(l) > quantlast && LEVEL(r) > quantlast) {
+        int oldop = applyop;
+        applyop = appexop;
+        switch (applyop) {
+          case bddop_and:
+            res = and_rec(l, r);
+            break;
+          case bddop_or:
+            res = or_rec(l, r);
+            break;
+          default:
+            res = apply_rec(l, r);
+            break;
+        }
+        applyop = oldop;
+      } else {
+        entry = BddCache_lookupI(appexcache, APPEXHASH(l, r, appexop));
+        if (entry.a == l && entry.b == r && entry.c == appexid) {
+          if (cachestatsEnabled) {
+            cachestats.opHit++;
+          }
+          return entry.res;
+        }
+        appexcache.misses++;
+        if (cachestatsEnabled) {
+          cachestats.opMiss++;
+        }
 
-  private int bdd_appex(int l, int r, int opr, int var) {
-    CHECK(l);
-    CHECK(r);
-    CHECK(var);
+        int lev;
+        if (LEVEL(l) == LEVEL(r)) {
+          PUSHREF(appquant_rec(LOW(l), LOW(r)));
+          PUSHREF(appquant_rec(HIGH(l), HIGH(r)));
+          lev = LEVEL(l);
+        } else if (LEVEL(l) < LEVEL(r)) {
+          PUSHREF(appquant_rec(LOW(l), r));
+          PUSHREF(appquant_rec(HIGH(l), r));
+          lev = LEVEL(l);
+        } else {
+          PUSHREF(appquant_rec(l, LOW(r)));
+          PUSHREF(appquant_rec(l, HIGH(r)));
+          lev = LEVEL(r);
+        }
+        if (INVARSET(lev)) {
+          int r2 = READREF(2), r1 = READREF(1);
+          switch (applyop) {
+            case bddop_and:
+              res = and_rec(r2, r1);
+              break;
+            case bddop_or:
+              res = or_rec(r2, r1);
+              break;
+            default:
+              res = apply_rec(r2, r1);
+              break;
+          }
+        } else {
+          res = bdd_makenode(lev, READREF(2), READREF(1));
+        }
 
-    if (opr < 0 || opr > bddop_invimp) {
-      bdd_error(BDD_OP);
-      return BDDZERO;
-    }
+        POPREF(2);
 
-    if (var < 2) /* Empty set */ {
-      return bdd_apply(l, r, opr);
-    }
-    if (varset2vartable(var) < 0) {
-      return BDDZERO;
-    }
+        if (entry.a != -1) {
+          appexcache.overwrites++;
+          if (cachestatsEnabled) {
+            cachestats.opOverwrite++;
+          }
+        }
+        entry.a = l;
+        entry.b = r;
+        entry.c = appexid;
+        entry.res = res;
+      }
 
-    if (applycache == null) {
-      applycache = BddCacheI_init(cachesize);
-    }
-    if (appexcache == null) {
-      appexcache = BddCacheI_init(cachesize);
-    }
-    if (quantcache == null) {
-      quantcache = BddCacheI_init(cachesize);
+      return res;
     }
-    applyop = bddop_or;
-    appexop = opr;
-    appexid = (var << 5) | (appexop << 1); /* FIXME: range! */
-    quantid = (appexid << 3) | CACHEID_APPEX;
 
-    INITREF();
-    int res = opr == bddop_and ? relprod_rec(l, r) : appquant_rec(l, r);
-    checkresize();
+    private int appuni_rec(int l, int r, int var) {
+      BddCacheDataI entry;
+      int res;
+
+      int LEVEL_l, LEVEL_r, LEVEL_var;
+      LEVEL_l = LEVEL(l);
+      LEVEL_r = LEVEL(r);
+      LEVEL_var = LEVEL(var);
+
+      if (LEVEL_l > LEVEL_var && LEVEL_r > LEVEL_var) {
+        // Skipped a quantified node, answer is zero.
+        return BDDZERO;
+      }
+
+      if (ISCONST(l) && ISCONST(r)) {
+        res = oprres[appexop][(l << 1) | r];
+      } else if (ISCONST(var)) {
+        int oldop = applyop;
+        applyop = appexop;
+        switch (applyop) {
+          case bddop_and:
+            res = and_rec(l, r);
+            break;
+          case bddop_or:
+            res = or_rec(l, r);
+            break;
+          default:
+            res = apply_rec(l, r);
+            break;
+        }
+        applyop = oldop;
+      } else {
+        entry = BddCache_lookupI(appexcache, APPEXHASH(l, r, appexop));
+        if (entry.a == l && entry.b == r && entry.c == appexid) {
+          if (cachestatsEnabled) {
+            cachestats.opHit++;
+          }
+          return entry.res;
+        }
+        appexcache.misses++;
+        if (cachestatsEnabled) {
+          cachestats.opMiss++;
+        }
+
+        int lev;
+        if (LEVEL_l == LEVEL_r) {
+          if (LEVEL_l == LEVEL_var) {
+            lev = -1;
+            var = HIGH(var);
+          } else {
+            lev = LEVEL_l;
+          }
+          PUSHREF(appuni_rec(LOW(l), LOW(r), var));
+          PUSHREF(appuni_rec(HIGH(l), HIGH(r), var));
+          lev = LEVEL_l;
+        } else if (LEVEL_l < LEVEL_r) {
+          if (LEVEL_l == LEVEL_var) {
+            lev = -1;
+            var = HIGH(var);
+          } else {
+            lev = LEVEL_l;
+          }
+          PUSHREF(appuni_rec(LOW(l), r, var));
+          PUSHREF(appuni_rec(HIGH(l), r, var));
+        } else {
+          if (LEVEL_r == LEVEL_var) {
+            lev = -1;
+            var = HIGH(var);
+          } else {
+            lev = LEVEL_r;
+          }
+          PUSHREF(appuni_rec(l, LOW(r), var));
+          PUSHREF(appuni_rec(l, HIGH(r), var));
+        }
+        if (lev == -1) {
+          int r2 = READREF(2), r1 = READREF(1);
+          switch (applyop) {
+            case bddop_and:
+              res = and_rec(r2, r1);
+              break;
+            case bddop_or:
+              res = or_rec(r2, r1);
+              break;
+            default:
+              res = apply_rec(r2, r1);
+              break;
+          }
+        } else {
+          res = bdd_makenode(lev, READREF(2), READREF(1));
+        }
+
+        POPREF(2);
 
-    return res;
-  }
+        if (entry.a != -1) {
+          appexcache.overwrites++;
+          if (cachestatsEnabled) {
+            cachestats.opOverwrite++;
+          }
+        }
+        entry.a = l;
+        entry.b = r;
+        entry.c = appexid;
+        entry.res = res;
+      }
 
-  private int varset2vartable(int r) {
-    if (r < 2) {
-      return bdd_error(BDD_VARSET);
+      return res;
     }
 
-    quantvarsetID++;
+    private int unique_rec(int r, int q) {
+      BddCacheDataI entry;
+      int res;
+      int LEVEL_r, LEVEL_q;
 
-    if (quantvarsetID == INT_MAX) {
-      for (int i = 0; i < bddvarnum; ++i) {
-        quantvarset[i] = 0;
+      LEVEL_r = LEVEL(r);
+      LEVEL_q = LEVEL(q);
+      if (LEVEL_r > LEVEL_q) {
+        // Skipped a quantified node, answer is zero.
+        return BDDZERO;
       }
-      quantvarsetID = 1;
-    }
 
-    quantlast = -1;
-    for (int n = r; n > 1; n = HIGH(n)) {
-      quantvarset[LEVEL(n)] = quantvarsetID;
-      if (VERIFY_ASSERTIONS) {
-        _assert(quantlast < LEVEL(n));
+      if (r < 2 || q < 2) {
+        return r;
       }
-      quantlast = LEVEL(n);
-    }
-
-    return 0;
-  }
-
-  private static final int INT_MAX = Integer.MAX_VALUE;
-
-  private int varset2svartable(int r) {
-    if (r < 2) {
-      return bdd_error(BDD_VARSET);
-    }
 
-    quantvarsetID++;
-
-    if (quantvarsetID == INT_MAX / 2) {
-      for (int i = 0; i < bddvarnum; ++i) {
-        quantvarset[i] = 0;
+      entry = BddCache_lookupI(quantcache, QUANTHASH(r));
+      if (entry.a == r && entry.c == quantid) {
+        if (cachestatsEnabled) {
+          cachestats.opHit++;
+        }
+        return entry.res;
+      }
+      quantcache.misses++;
+      if (cachestatsEnabled) {
+        cachestats.opMiss++;
       }
-      quantvarsetID = 1;
-    }
 
-    quantlast = 0;
-    for (int n = r; !ISCONST(n); ) {
-      if (ISZERO(LOW(n))) {
-        quantvarset[LEVEL(n)] = quantvarsetID;
-        n = HIGH(n);
+      if (LEVEL_r == LEVEL_q) {
+        PUSHREF(unique_rec(LOW(r), HIGH(q)));
+        PUSHREF(unique_rec(HIGH(r), HIGH(q)));
+        res = apply_rec(READREF(2), READREF(1));
       } else {
-        quantvarset[LEVEL(n)] = -quantvarsetID;
-        n = LOW(n);
-      }
-      if (VERIFY_ASSERTIONS) {
-        _assert(quantlast < LEVEL(n));
+        PUSHREF(unique_rec(LOW(r), q));
+        PUSHREF(unique_rec(HIGH(r), q));
+        res = bdd_makenode(LEVEL(r), READREF(2), READREF(1));
       }
-      quantlast = LEVEL(n);
-    }
-
-    return 0;
-  }
 
-  private int appquant_rec(int l, int r) {
-    BddCacheDataI entry;
-    int res;
+      POPREF(2);
 
-    if (VERIFY_ASSERTIONS) {
-      _assert(appexop != bddop_and);
-    }
-
-    switch (appexop) {
-      case bddop_or:
-        if (l == BDDONE || r == BDDONE) {
-          return BDDONE;
-        } else if (l == r) {
-          return quant_rec(l);
-        } else if (l == BDDZERO) {
-          return quant_rec(r);
-        } else if (r == BDDZERO) {
-          return quant_rec(l);
-        }
-        break;
-      case bddop_xor:
-        if (l == r) {
-          return BDDZERO;
-        } else if (l == BDDZERO) {
-          return quant_rec(r);
-        } else if (r == BDDZERO) {
-          return quant_rec(l);
-        }
-        break;
-      case bddop_nand:
-        if (l == BDDZERO || r == BDDZERO) {
-          return BDDONE;
-        }
-        break;
-      case bddop_nor:
-        if (l == BDDONE || r == BDDONE) {
-          return BDDZERO;
+      if (entry.a != -1) {
+        quantcache.overwrites++;
+        if (cachestatsEnabled) {
+          cachestats.opOverwrite++;
         }
-        break;
+      }
+      entry.a = r;
+      entry.c = quantid;
+      entry.res = res;
+
+      return res;
     }
 
-    if (ISCONST(l) && ISCONST(r)) {
-      res = oprres[appexop][(l << 1) | r];
-    } else if (LEVEL(l) > quantlast && LEVEL(r) > quantlast) {
-      int oldop = applyop;
-      applyop = appexop;
-      switch (applyop) {
-        case bddop_and:
-          res = and_rec(l, r);
-          break;
-        case bddop_or:
-          res = or_rec(l, r);
-          break;
-        default:
-          res = apply_rec(l, r);
-          break;
+    private int quant_rec(int r) {
+      BddCacheDataI entry;
+      int res;
+
+      if (r < 2 || LEVEL(r) > quantlast) {
+        return r;
       }
-      applyop = oldop;
-    } else {
-      entry = BddCache_lookupI(appexcache, APPEXHASH(l, r, appexop));
-      if (entry.a == l && entry.b == r && entry.c == appexid) {
-        if (CACHESTATS) {
+
+      entry = BddCache_lookupI(quantcache, QUANTHASH(r));
+      if (entry.a == r && entry.c == quantid) {
+        if (cachestatsEnabled) {
           cachestats.opHit++;
         }
         return entry.res;
       }
-      if (CACHESTATS) {
+      quantcache.misses++;
+      if (cachestatsEnabled) {
         cachestats.opMiss++;
       }
 
-      int lev;
-      if (LEVEL(l) == LEVEL(r)) {
-        PUSHREF(appquant_rec(LOW(l), LOW(r)));
-        PUSHREF(appquant_rec(HIGH(l), HIGH(r)));
-        lev = LEVEL(l);
-      } else if (LEVEL(l) < LEVEL(r)) {
-        PUSHREF(appquant_rec(LOW(l), r));
-        PUSHREF(appquant_rec(HIGH(l), r));
-        lev = LEVEL(l);
-      } else {
-        PUSHREF(appquant_rec(l, LOW(r)));
-        PUSHREF(appquant_rec(l, HIGH(r)));
-        lev = LEVEL(r);
-      }
-      if (INVARSET(lev)) {
+      PUSHREF(quant_rec(LOW(r)));
+      PUSHREF(quant_rec(HIGH(r)));
+
+      if (INVARSET(LEVEL(r))) {
         int r2 = READREF(2), r1 = READREF(1);
         switch (applyop) {
           case bddop_and:
@@ -2075,935 +2802,1214 @@ public final class JFactory extends BDDFactory {
             break;
         }
       } else {
-        res = bdd_makenode(lev, READREF(2), READREF(1));
+        res = bdd_makenode(LEVEL(r), READREF(2), READREF(1));
       }
 
       POPREF(2);
 
-      if (CACHESTATS && entry.a != -1) {
-        cachestats.opOverwrite++;
+      if (entry.a != -1) {
+        quantcache.overwrites++;
+        if (cachestatsEnabled) {
+          cachestats.opOverwrite++;
+        }
       }
-      entry.a = l;
-      entry.b = r;
-      entry.c = appexid;
+      entry.a = r;
+      entry.c = quantid;
       entry.res = res;
+
+      return res;
     }
 
-    return res;
-  }
+    private int bdd_constrain(int f, int c) {
+      CHECK(f);
+      CHECK(c);
 
-  private int appuni_rec(int l, int r, int var) {
-    BddCacheDataI entry;
-    int res;
+      if (misccache == null) {
+        misccache = BddCacheI_init(cachesize);
+      }
+      miscid = CACHEID_CONSTRAIN;
 
-    int LEVEL_l, LEVEL_r, LEVEL_var;
-    LEVEL_l = LEVEL(l);
-    LEVEL_r = LEVEL(r);
-    LEVEL_var = LEVEL(var);
+      INITREF();
+      int res = constrain_rec(f, c);
+      checkresize();
 
-    if (LEVEL_l > LEVEL_var && LEVEL_r > LEVEL_var) {
-      // Skipped a quantified node, answer is zero.
-      return BDDZERO;
+      return res;
     }
 
-    if (ISCONST(l) && ISCONST(r)) {
-      res = oprres[appexop][(l << 1) | r];
-    } else if (ISCONST(var)) {
-      int oldop = applyop;
-      applyop = appexop;
-      switch (applyop) {
-        case bddop_and:
-          res = and_rec(l, r);
-          break;
-        case bddop_or:
-          res = or_rec(l, r);
-          break;
-        default:
-          res = apply_rec(l, r);
-          break;
+    private int constrain_rec(int f, int c) {
+      BddCacheDataI entry;
+      int res;
+
+      if (ISONE(c)) {
+        return f;
+      } else if (ISCONST(f)) {
+        return f;
+      } else if (c == f) {
+        return BDDONE;
+      } else if (ISZERO(c)) {
+        return BDDZERO;
       }
-      applyop = oldop;
-    } else {
-      entry = BddCache_lookupI(appexcache, APPEXHASH(l, r, appexop));
-      if (entry.a == l && entry.b == r && entry.c == appexid) {
-        if (CACHESTATS) {
+
+      entry = BddCache_lookupI(misccache, CONSTRAINHASH(f, c));
+      if (entry.a == f && entry.b == c && entry.c == miscid) {
+        if (cachestatsEnabled) {
           cachestats.opHit++;
         }
         return entry.res;
       }
-      if (CACHESTATS) {
+      misccache.misses++;
+      if (cachestatsEnabled) {
         cachestats.opMiss++;
       }
 
-      int lev;
-      if (LEVEL_l == LEVEL_r) {
-        if (LEVEL_l == LEVEL_var) {
-          lev = -1;
-          var = HIGH(var);
-        } else {
-          lev = LEVEL_l;
-        }
-        PUSHREF(appuni_rec(LOW(l), LOW(r), var));
-        PUSHREF(appuni_rec(HIGH(l), HIGH(r), var));
-        lev = LEVEL_l;
-      } else if (LEVEL_l < LEVEL_r) {
-        if (LEVEL_l == LEVEL_var) {
-          lev = -1;
-          var = HIGH(var);
+      if (LEVEL(f) == LEVEL(c)) {
+        if (ISZERO(LOW(c))) {
+          res = constrain_rec(HIGH(f), HIGH(c));
+        } else if (ISZERO(HIGH(c))) {
+          res = constrain_rec(LOW(f), LOW(c));
         } else {
-          lev = LEVEL_l;
+          PUSHREF(constrain_rec(LOW(f), LOW(c)));
+          PUSHREF(constrain_rec(HIGH(f), HIGH(c)));
+          res = bdd_makenode(LEVEL(f), READREF(2), READREF(1));
+          POPREF(2);
         }
-        PUSHREF(appuni_rec(LOW(l), r, var));
-        PUSHREF(appuni_rec(HIGH(l), r, var));
+      } else if (LEVEL(f) < LEVEL(c)) {
+        PUSHREF(constrain_rec(LOW(f), c));
+        PUSHREF(constrain_rec(HIGH(f), c));
+        res = bdd_makenode(LEVEL(f), READREF(2), READREF(1));
+        POPREF(2);
       } else {
-        if (LEVEL_r == LEVEL_var) {
-          lev = -1;
-          var = HIGH(var);
+        if (ISZERO(LOW(c))) {
+          res = constrain_rec(f, HIGH(c));
+        } else if (ISZERO(HIGH(c))) {
+          res = constrain_rec(f, LOW(c));
         } else {
-          lev = LEVEL_r;
+          PUSHREF(constrain_rec(f, LOW(c)));
+          PUSHREF(constrain_rec(f, HIGH(c)));
+          res = bdd_makenode(LEVEL(c), READREF(2), READREF(1));
+          POPREF(2);
         }
-        PUSHREF(appuni_rec(l, LOW(r), var));
-        PUSHREF(appuni_rec(l, HIGH(r), var));
       }
-      if (lev == -1) {
-        int r2 = READREF(2), r1 = READREF(1);
-        switch (applyop) {
-          case bddop_and:
-            res = and_rec(r2, r1);
-            break;
-          case bddop_or:
-            res = or_rec(r2, r1);
-            break;
-          default:
-            res = apply_rec(r2, r1);
-            break;
+
+      if (entry.a != -1) {
+        misccache.overwrites++;
+        if (cachestatsEnabled) {
+          cachestats.opOverwrite++;
         }
-      } else {
-        res = bdd_makenode(lev, READREF(2), READREF(1));
       }
+      entry.a = f;
+      entry.b = c;
+      entry.c = miscid;
+      entry.res = res;
 
-      POPREF(2);
+      return res;
+    }
 
-      if (CACHESTATS && entry.a != -1) {
-        cachestats.opOverwrite++;
+    private int bdd_compose(int f, int g, int var) {
+      CHECK(f);
+      CHECK(g);
+      if (var < 0 || var >= bddvarnum) {
+        bdd_error(BDD_VAR);
+        return BDDZERO;
       }
-      entry.a = l;
-      entry.b = r;
-      entry.c = appexid;
-      entry.res = res;
+
+      if (replacecache == null) {
+        // compose_rec uses replacecache
+        replacecache = BddCacheI_init(cachesize);
+      }
+      if (applycache == null) {
+        // compose_rec can call ite_rec, which uses applycache
+        applycache = BddCacheI_init(cachesize);
+      }
+      composelevel = bddvar2level[var];
+      replaceid = (composelevel << 2) | CACHEID_COMPOSE;
+
+      INITREF();
+      int res = compose_rec(f, g);
+      checkresize();
+      return res;
     }
 
-    return res;
-  }
+    private int compose_rec(int f, int g) {
+      BddCacheDataI entry;
+      int res;
 
-  private int unique_rec(int r, int q) {
-    BddCacheDataI entry;
-    int res;
-    int LEVEL_r, LEVEL_q;
+      if (LEVEL(f) > composelevel) {
+        return f;
+      }
 
-    LEVEL_r = LEVEL(r);
-    LEVEL_q = LEVEL(q);
-    if (LEVEL_r > LEVEL_q) {
-      // Skipped a quantified node, answer is zero.
-      return BDDZERO;
-    }
+      entry = BddCache_lookupI(replacecache, COMPOSEHASH(replaceid, f, g));
+      if (entry.a == f && entry.b == g && entry.c == replaceid) {
+        if (cachestatsEnabled) {
+          cachestats.opHit++;
+        }
+        return entry.res;
+      }
+      replacecache.misses++;
+      if (cachestatsEnabled) {
+        cachestats.opMiss++;
+      }
 
-    if (r < 2 || q < 2) {
-      return r;
-    }
+      if (LEVEL(f) < composelevel) {
+        if (LEVEL(f) == LEVEL(g)) {
+          PUSHREF(compose_rec(LOW(f), LOW(g)));
+          PUSHREF(compose_rec(HIGH(f), HIGH(g)));
+          res = bdd_makenode(LEVEL(f), READREF(2), READREF(1));
+        } else if (LEVEL(f) < LEVEL(g)) {
+          PUSHREF(compose_rec(LOW(f), g));
+          PUSHREF(compose_rec(HIGH(f), g));
+          res = bdd_makenode(LEVEL(f), READREF(2), READREF(1));
+        } else {
+          PUSHREF(compose_rec(f, LOW(g)));
+          PUSHREF(compose_rec(f, HIGH(g)));
+          res = bdd_makenode(LEVEL(g), READREF(2), READREF(1));
+        }
+        POPREF(2);
+      } else
+      /*if (LEVEL(f) == composelevel) changed 2-nov-98 */ {
+        res = ite_rec(g, HIGH(f), LOW(f));
+      }
 
-    entry = BddCache_lookupI(quantcache, QUANTHASH(r));
-    if (entry.a == r && entry.c == quantid) {
-      if (CACHESTATS) {
-        cachestats.opHit++;
+      if (entry.a != -1) {
+        replacecache.overwrites++;
+        if (cachestatsEnabled) {
+          cachestats.opOverwrite++;
+        }
       }
-      return entry.res;
-    }
-    if (CACHESTATS) {
-      cachestats.opMiss++;
-    }
+      entry.a = f;
+      entry.b = g;
+      entry.c = replaceid;
+      entry.res = res;
 
-    if (LEVEL_r == LEVEL_q) {
-      PUSHREF(unique_rec(LOW(r), HIGH(q)));
-      PUSHREF(unique_rec(HIGH(r), HIGH(q)));
-      res = apply_rec(READREF(2), READREF(1));
-    } else {
-      PUSHREF(unique_rec(LOW(r), q));
-      PUSHREF(unique_rec(HIGH(r), q));
-      res = bdd_makenode(LEVEL(r), READREF(2), READREF(1));
+      return res;
     }
 
-    POPREF(2);
+    private int bdd_veccompose(int f, bddPair pair) {
+      CHECK(f);
+
+      if (applycache == null) {
+        applycache = BddCacheI_init(cachesize);
+      }
+      if (replacecache == null) {
+        replacecache = BddCacheI_init(cachesize);
+      }
+      replacepair = pair.result;
+      replaceid = (pair.id << 2) | CACHEID_VECCOMPOSE;
+      replacelast = pair.last;
+
+      INITREF();
+      int res = veccompose_rec(f);
+      checkresize();
 
-    if (CACHESTATS && entry.a != -1) {
-      cachestats.opOverwrite++;
+      return res;
     }
-    entry.a = r;
-    entry.c = quantid;
-    entry.res = res;
 
-    return res;
-  }
+    private int veccompose_rec(int f) {
+      BddCacheDataI entry;
+      int res;
 
-  private int quant_rec(int r) {
-    BddCacheDataI entry;
-    int res;
+      if (LEVEL(f) > replacelast) {
+        return f;
+      }
 
-    if (r < 2 || LEVEL(r) > quantlast) {
-      return r;
-    }
+      entry = BddCache_lookupI(replacecache, VECCOMPOSEHASH(replaceid, f));
+      if (entry.a == f && entry.c == replaceid) {
+        if (cachestatsEnabled) {
+          cachestats.opHit++;
+        }
+        return entry.res;
+      }
+      replacecache.misses++;
+      if (cachestatsEnabled) {
+        cachestats.opMiss++;
+      }
 
-    entry = BddCache_lookupI(quantcache, QUANTHASH(r));
-    if (entry.a == r && entry.c == quantid) {
-      if (CACHESTATS) {
-        cachestats.opHit++;
+      PUSHREF(veccompose_rec(LOW(f)));
+      PUSHREF(veccompose_rec(HIGH(f)));
+      res = ite_rec(replacepair[LEVEL(f)], READREF(1), READREF(2));
+      POPREF(2);
+
+      if (entry.a != -1) {
+        replacecache.overwrites++;
+        if (cachestatsEnabled) {
+          cachestats.opOverwrite++;
+        }
       }
-      return entry.res;
-    }
-    if (CACHESTATS) {
-      cachestats.opMiss++;
+      entry.a = f;
+      entry.c = replaceid;
+      entry.res = res;
+
+      return res;
     }
 
-    PUSHREF(quant_rec(LOW(r)));
-    PUSHREF(quant_rec(HIGH(r)));
+    private int bdd_exist(int r, int var) {
+      CHECK(r);
+      CHECK(var);
 
-    if (INVARSET(LEVEL(r))) {
-      int r2 = READREF(2), r1 = READREF(1);
-      switch (applyop) {
-        case bddop_and:
-          res = and_rec(r2, r1);
-          break;
-        case bddop_or:
-          res = or_rec(r2, r1);
-          break;
-        default:
-          res = apply_rec(r2, r1);
-          break;
+      if (var < 2) /* Empty set */ {
+        return r;
       }
-    } else {
-      res = bdd_makenode(LEVEL(r), READREF(2), READREF(1));
-    }
+      if (varset2vartable(var) < 0) {
+        return BDDZERO;
+      }
+
+      if (applycache == null) {
+        applycache = BddCacheI_init(cachesize);
+      }
+      if (quantcache == null) {
+        quantcache = BddCacheI_init(cachesize);
+      }
+      applyop = bddop_or;
+      quantid = (var << 3) | CACHEID_EXIST; /* FIXME: range */
 
-    POPREF(2);
+      INITREF();
+      int res = quant_rec(r);
+      checkresize();
 
-    if (CACHESTATS && entry.a != -1) {
-      cachestats.opOverwrite++;
+      return res;
     }
-    entry.a = r;
-    entry.c = quantid;
-    entry.res = res;
 
-    return res;
-  }
+    private int bdd_forall(int r, int var) {
+      CHECK(r);
+      CHECK(var);
+
+      if (var < 2) /* Empty set */ {
+        return r;
+      }
+      if (varset2vartable(var) < 0) {
+        return BDDZERO;
+      }
 
-  private int bdd_constrain(int f, int c) {
-    CHECK(f);
-    CHECK(c);
+      if (applycache == null) {
+        applycache = BddCacheI_init(cachesize);
+      }
+      if (quantcache == null) {
+        quantcache = BddCacheI_init(cachesize);
+      }
+      quantid = (var << 3) | CACHEID_FORALL;
+      applyop = bddop_and;
+
+      INITREF();
+      int res = quant_rec(r);
+      checkresize();
 
-    if (misccache == null) {
-      misccache = BddCacheI_init(cachesize);
+      return res;
     }
-    miscid = CACHEID_CONSTRAIN;
 
-    INITREF();
-    int res = constrain_rec(f, c);
-    checkresize();
+    private int bdd_unique(int r, int var) {
+      CHECK(r);
+      CHECK(var);
 
-    return res;
-  }
+      if (var < 2) /* Empty set */ {
+        return r;
+      }
 
-  private int constrain_rec(int f, int c) {
-    BddCacheDataI entry;
-    int res;
+      if (applycache == null) {
+        applycache = BddCacheI_init(cachesize);
+      }
+      if (quantcache == null) {
+        quantcache = BddCacheI_init(cachesize);
+      }
+      quantid = (var << 3) | CACHEID_UNIQUE;
+      applyop = bddop_xor;
 
-    if (ISONE(c)) {
-      return f;
-    } else if (ISCONST(f)) {
-      return f;
-    } else if (c == f) {
-      return BDDONE;
-    } else if (ISZERO(c)) {
-      return BDDZERO;
+      INITREF();
+      int res = unique_rec(r, var);
+      checkresize();
+
+      return res;
     }
 
-    entry = BddCache_lookupI(misccache, CONSTRAINHASH(f, c));
-    if (entry.a == f && entry.b == c && entry.c == miscid) {
-      if (CACHESTATS) {
-        cachestats.opHit++;
+    private int bdd_restrict(int r, int var) {
+      CHECK(r);
+      CHECK(var);
+
+      if (var < 2) /* Empty set */ {
+        return r;
       }
-      return entry.res;
-    }
-    if (CACHESTATS) {
-      cachestats.opMiss++;
+      if (varset2svartable(var) < 0) {
+        return BDDZERO;
+      }
+
+      if (misccache == null) {
+        misccache = BddCacheI_init(cachesize);
+      }
+      miscid = (var << 3) | CACHEID_RESTRICT;
+
+      INITREF();
+      int res = restrict_rec(r);
+      checkresize();
+
+      return res;
     }
 
-    if (LEVEL(f) == LEVEL(c)) {
-      if (ISZERO(LOW(c))) {
-        res = constrain_rec(HIGH(f), HIGH(c));
-      } else if (ISZERO(HIGH(c))) {
-        res = constrain_rec(LOW(f), LOW(c));
-      } else {
-        PUSHREF(constrain_rec(LOW(f), LOW(c)));
-        PUSHREF(constrain_rec(HIGH(f), HIGH(c)));
-        res = bdd_makenode(LEVEL(f), READREF(2), READREF(1));
-        POPREF(2);
+    private int restrict_rec(int r) {
+      BddCacheDataI entry;
+      int res;
+
+      if (ISCONST(r) || LEVEL(r) > quantlast) {
+        return r;
       }
-    } else if (LEVEL(f) < LEVEL(c)) {
-      PUSHREF(constrain_rec(LOW(f), c));
-      PUSHREF(constrain_rec(HIGH(f), c));
-      res = bdd_makenode(LEVEL(f), READREF(2), READREF(1));
-      POPREF(2);
-    } else {
-      if (ISZERO(LOW(c))) {
-        res = constrain_rec(f, HIGH(c));
-      } else if (ISZERO(HIGH(c))) {
-        res = constrain_rec(f, LOW(c));
+
+      entry = BddCache_lookupI(misccache, RESTRHASH(r, miscid));
+      if (entry.a == r && entry.c == miscid) {
+        if (cachestatsEnabled) {
+          cachestats.opHit++;
+        }
+        return entry.res;
+      }
+      misccache.misses++;
+      if (cachestatsEnabled) {
+        cachestats.opMiss++;
+      }
+
+      if (INSVARSET(LEVEL(r))) {
+        if (quantvarset[LEVEL(r)] > 0) {
+          res = restrict_rec(HIGH(r));
+        } else {
+          res = restrict_rec(LOW(r));
+        }
       } else {
-        PUSHREF(constrain_rec(f, LOW(c)));
-        PUSHREF(constrain_rec(f, HIGH(c)));
-        res = bdd_makenode(LEVEL(c), READREF(2), READREF(1));
+        PUSHREF(restrict_rec(LOW(r)));
+        PUSHREF(restrict_rec(HIGH(r)));
+        res = bdd_makenode(LEVEL(r), READREF(2), READREF(1));
         POPREF(2);
       }
-    }
 
-    if (CACHESTATS && entry.a != -1) {
-      cachestats.opOverwrite++;
+      if (entry.a != -1) {
+        misccache.overwrites++;
+        if (cachestatsEnabled) {
+          cachestats.opOverwrite++;
+        }
+      }
+      entry.a = r;
+      entry.c = miscid;
+      entry.res = res;
+
+      return res;
     }
-    entry.a = f;
-    entry.b = c;
-    entry.c = miscid;
-    entry.res = res;
 
-    return res;
-  }
+    private int bdd_simplify(int f, int d) {
+      CHECK(f);
+      CHECK(d);
 
-  private int bdd_compose(int f, int g, int var) {
-    CHECK(f);
-    CHECK(g);
-    if (var < 0 || var >= bddvarnum) {
-      bdd_error(BDD_VAR);
-      return BDDZERO;
-    }
+      if (applycache == null) {
+        applycache = BddCacheI_init(cachesize);
+      }
+      applyop = bddop_or;
 
-    if (replacecache == null) {
-      // compose_rec uses replacecache
-      replacecache = BddCacheI_init(cachesize);
-    }
-    if (applycache == null) {
-      // compose_rec can call ite_rec, which uses applycache
-      applycache = BddCacheI_init(cachesize);
+      INITREF();
+      int res = simplify_rec(f, d);
+      checkresize();
+
+      return res;
     }
-    composelevel = bddvar2level[var];
-    replaceid = (composelevel << 2) | CACHEID_COMPOSE;
 
-    INITREF();
-    int res = compose_rec(f, g);
-    checkresize();
-    return res;
-  }
+    private int simplify_rec(int f, int d) {
+      BddCacheDataI entry;
+      int res;
 
-  private int compose_rec(int f, int g) {
-    BddCacheDataI entry;
-    int res;
+      if (ISONE(d) || ISCONST(f)) {
+        return f;
+      } else if (d == f) {
+        return BDDONE;
+      } else if (ISZERO(d)) {
+        return BDDZERO;
+      }
 
-    if (LEVEL(f) > composelevel) {
-      return f;
-    }
+      entry = BddCache_lookupI(applycache, APPLYHASH(f, d, bddop_simplify));
 
-    entry = BddCache_lookupI(replacecache, COMPOSEHASH(replaceid, f, g));
-    if (entry.a == f && entry.b == g && entry.c == replaceid) {
-      if (CACHESTATS) {
-        cachestats.opHit++;
+      if (entry.a == f && entry.b == d && entry.c == bddop_simplify) {
+        if (cachestatsEnabled) {
+          cachestats.opHit++;
+        }
+        return entry.res;
+      }
+      applycache.misses++;
+      if (cachestatsEnabled) {
+        cachestats.opMiss++;
       }
-      return entry.res;
-    }
-    if (CACHESTATS) {
-      cachestats.opMiss++;
-    }
 
-    if (LEVEL(f) < composelevel) {
-      if (LEVEL(f) == LEVEL(g)) {
-        PUSHREF(compose_rec(LOW(f), LOW(g)));
-        PUSHREF(compose_rec(HIGH(f), HIGH(g)));
-        res = bdd_makenode(LEVEL(f), READREF(2), READREF(1));
-      } else if (LEVEL(f) < LEVEL(g)) {
-        PUSHREF(compose_rec(LOW(f), g));
-        PUSHREF(compose_rec(HIGH(f), g));
+      if (LEVEL(f) == LEVEL(d)) {
+        if (ISZERO(LOW(d))) {
+          res = simplify_rec(HIGH(f), HIGH(d));
+        } else if (ISZERO(HIGH(d))) {
+          res = simplify_rec(LOW(f), LOW(d));
+        } else {
+          PUSHREF(simplify_rec(LOW(f), LOW(d)));
+          PUSHREF(simplify_rec(HIGH(f), HIGH(d)));
+          res = bdd_makenode(LEVEL(f), READREF(2), READREF(1));
+          POPREF(2);
+        }
+      } else if (LEVEL(f) < LEVEL(d)) {
+        PUSHREF(simplify_rec(LOW(f), d));
+        PUSHREF(simplify_rec(HIGH(f), d));
         res = bdd_makenode(LEVEL(f), READREF(2), READREF(1));
-      } else {
-        PUSHREF(compose_rec(f, LOW(g)));
-        PUSHREF(compose_rec(f, HIGH(g)));
-        res = bdd_makenode(LEVEL(g), READREF(2), READREF(1));
+        POPREF(2);
+      } else /* LEVEL(d) < LEVEL(f) */ {
+        PUSHREF(or_rec(LOW(d), HIGH(d))); /* Exist quant */
+        res = simplify_rec(f, READREF(1));
+        POPREF(1);
       }
-      POPREF(2);
-    } else
-    /*if (LEVEL(f) == composelevel) changed 2-nov-98 */ {
-      res = ite_rec(g, HIGH(f), LOW(f));
-    }
 
-    if (CACHESTATS && entry.a != -1) {
-      cachestats.opOverwrite++;
+      if (entry.a != -1) {
+        applycache.overwrites++;
+        if (cachestatsEnabled) {
+          cachestats.opOverwrite++;
+        }
+      }
+      entry.a = f;
+      entry.b = d;
+      entry.c = bddop_simplify;
+      entry.res = res;
+
+      return res;
     }
-    entry.a = f;
-    entry.b = g;
-    entry.c = replaceid;
-    entry.res = res;
 
-    return res;
-  }
+    private int bdd_support(int r) {
+      int res = 1;
 
-  private int bdd_veccompose(int f, bddPair pair) {
-    CHECK(f);
+      CHECK(r);
 
-    if (applycache == null) {
-      applycache = BddCacheI_init(cachesize);
-    }
-    if (replacecache == null) {
-      replacecache = BddCacheI_init(cachesize);
-    }
-    replacepair = pair.result;
-    replaceid = (pair.id << 2) | CACHEID_VECCOMPOSE;
-    replacelast = pair.last;
+      if (r < 2) {
+        return BDDONE;
+      }
 
-    INITREF();
-    int res = veccompose_rec(f);
-    checkresize();
+      /* On-demand allocation of support set */
+      if (supportSet.length < bddvarnum) {
+        supportSet = new int[bddvarnum];
+        supportID = 0;
+      }
 
-    return res;
-  }
+      /* Update global variables used to speed up bdd_support()
+       * - instead of always memsetting support to zero, we use
+       *   a change counter.
+       * - and instead of reading the whole array afterwards, we just
+       *   look from 'min' to 'max' used BDD variables.
+       */
+      if (supportID == 0x0FFFFFFF) {
+        /* We probably don't get here -- but let's just be sure */
+        for (int i = 0; i < bddvarnum; ++i) {
+          supportSet[i] = 0;
+        }
+        supportID = 0;
+      }
+      ++supportID;
+      supportMin = LEVEL(r);
+      supportMax = supportMin;
+
+      /* Marking nodes needs the node table for itself */
+      boolean stopped = stopWorld(this);
+      try {
+        support_rec(r, supportSet);
+        bdd_unmark(r);
+      } finally {
+        if (stopped) {
+          resumeWorld();
+        }
+      }
 
-  private int veccompose_rec(int f) {
-    BddCacheDataI entry;
-    int res;
+      for (int n = supportMax; n >= supportMin; --n) {
+        if (supportSet[n] == supportID) {
+          int tmp;
+          bdd_addref(res);
+          tmp = bdd_makenode(n, BDDZERO, res);
+          bdd_delref(res);
+          res = tmp;
+        }
+      }
 
-    if (LEVEL(f) > replacelast) {
-      return f;
+      return res;
     }
 
-    entry = BddCache_lookupI(replacecache, VECCOMPOSEHASH(replaceid, f));
-    if (entry.a == f && entry.c == replaceid) {
-      if (CACHESTATS) {
-        cachestats.opHit++;
+    private void support_rec(int r, int[] support) {
+
+      if (r < 2) {
+        return;
       }
-      return entry.res;
-    }
-    if (CACHESTATS) {
-      cachestats.opMiss++;
-    }
 
-    PUSHREF(veccompose_rec(LOW(f)));
-    PUSHREF(veccompose_rec(HIGH(f)));
-    res = ite_rec(replacepair[LEVEL(f)], READREF(1), READREF(2));
-    POPREF(2);
+      if (MARKED(r) || LOW(r) == INVALID_BDD) {
+        return;
+      }
 
-    if (CACHESTATS && entry.a != -1) {
-      cachestats.opOverwrite++;
-    }
-    entry.a = f;
-    entry.c = replaceid;
-    entry.res = res;
+      support[LEVEL(r)] = supportID;
 
-    return res;
-  }
+      if (LEVEL(r) > supportMax) {
+        supportMax = LEVEL(r);
+      }
 
-  private int bdd_exist(int r, int var) {
-    CHECK(r);
-    CHECK(var);
+      SETMARK(r);
 
-    if (var < 2) /* Empty set */ {
-      return r;
-    }
-    if (varset2vartable(var) < 0) {
-      return BDDZERO;
+      support_rec(LOW(r), support);
+      support_rec(HIGH(r), support);
     }
 
-    if (applycache == null) {
-      applycache = BddCacheI_init(cachesize);
-    }
-    if (quantcache == null) {
-      quantcache = BddCacheI_init(cachesize);
-    }
-    applyop = bddop_or;
-    quantid = (var << 3) | CACHEID_EXIST; /* FIXME: range */
+    private int bdd_appall(int l, int r, int opr, int var) {
+      CHECK(l);
+      CHECK(r);
+      CHECK(var);
 
-    INITREF();
-    int res = quant_rec(r);
-    checkresize();
+      if (opr < 0 || opr > bddop_invimp) {
+        bdd_error(BDD_OP);
+        return BDDZERO;
+      }
 
-    return res;
-  }
+      if (var < 2) /* Empty set */ {
+        return bdd_apply(l, r, opr);
+      }
+      if (varset2vartable(var) < 0) {
+        return BDDZERO;
+      }
 
-  private int bdd_forall(int r, int var) {
-    CHECK(r);
-    CHECK(var);
+      if (applycache == null) {
+        applycache = BddCacheI_init(cachesize);
+      }
+      if (appexcache == null) {
+        appexcache = BddCacheI_init(cachesize);
+      }
+      if (quantcache == null) {
+        quantcache = BddCacheI_init(cachesize);
+      }
+      applyop = bddop_and;
+      appexop = opr;
+      appexid = (var << 5) | (appexop << 1) | 1; /* FIXME: range! */
+      quantid = (appexid << 3) | CACHEID_APPAL;
 
-    if (var < 2) /* Empty set */ {
-      return r;
-    }
-    if (varset2vartable(var) < 0) {
-      return BDDZERO;
-    }
+      INITREF();
+      int res = appquant_rec(l, r);
+      checkresize();
 
-    if (applycache == null) {
-      applycache = BddCacheI_init(cachesize);
-    }
-    if (quantcache == null) {
-      quantcache = BddCacheI_init(cachesize);
+      return res;
     }
-    quantid = (var << 3) | CACHEID_FORALL;
-    applyop = bddop_and;
 
-    INITREF();
-    int res = quant_rec(r);
-    checkresize();
+    private int bdd_appuni(int l, int r, int opr, int var) {
+      CHECK(l);
+      CHECK(r);
+      CHECK(var);
 
-    return res;
-  }
+      if (opr < 0 || opr > bddop_invimp) {
+        bdd_error(BDD_OP);
+        return BDDZERO;
+      }
 
-  private int bdd_unique(int r, int var) {
-    CHECK(r);
-    CHECK(var);
+      if (var < 2) /* Empty set */ {
+        return bdd_apply(l, r, opr);
+      }
 
-    if (var < 2) /* Empty set */ {
-      return r;
-    }
+      if (applycache == null) {
+        applycache = BddCacheI_init(cachesize);
+      }
+      if (appexcache == null) {
+        appexcache = BddCacheI_init(cachesize);
+      }
+      if (quantcache == null) {
+        quantcache = BddCacheI_init(cachesize);
+      }
+      applyop = bddop_xor;
+      appexop = opr;
+      appexid = (var << 5) | (appexop << 1) | 1; /* FIXME: range! */
+      quantid = (appexid << 3) | CACHEID_APPUN;
 
-    if (applycache == null) {
-      applycache = BddCacheI_init(cachesize);
-    }
-    if (quantcache == null) {
-      quantcache = BddCacheI_init(cachesize);
+      INITREF();
+      int res = appuni_rec(l, r, var);
+      checkresize();
+
+      return res;
     }
-    quantid = (var << 3) | CACHEID_UNIQUE;
-    applyop = bddop_xor;
 
-    INITREF();
-    int res = unique_rec(r, var);
-    checkresize();
+    private int bdd_satone(int r) {
+      int res;
 
-    return res;
-  }
+      CHECK(r);
+      if (r < 2) {
+        return r;
+      }
 
-  private int bdd_restrict(int r, int var) {
-    CHECK(r);
-    CHECK(var);
+      INITREF();
+      res = satone_rec(r);
 
-    if (var < 2) /* Empty set */ {
-      return r;
-    }
-    if (varset2svartable(var) < 0) {
-      return BDDZERO;
+      checkresize();
+      return res;
     }
 
-    if (misccache == null) {
-      misccache = BddCacheI_init(cachesize);
+    private int satone_rec(int r) {
+      if (ISCONST(r)) {
+        return r;
+      }
+
+      if (ISZERO(LOW(r))) {
+        int res = satone_rec(HIGH(r));
+        int m = bdd_makenode(LEVEL(r), BDDZERO, res);
+        PUSHREF(m);
+        return m;
+      } else {
+        int res = satone_rec(LOW(r));
+        int m = bdd_makenode(LEVEL(r), res, BDDZERO);
+        PUSHREF(m);
+        return m;
+      }
     }
-    miscid = (var << 3) | CACHEID_RESTRICT;
 
-    INITREF();
-    int res = restrict_rec(r);
-    checkresize();
+    private int bdd_satoneset(int r, int var, int pol) {
+      int res;
 
-    return res;
-  }
+      CHECK(r);
+      if (ISZERO(r)) {
+        return r;
+      }
+      if (!ISCONST(pol)) {
+        bdd_error(BDD_ILLBDD);
+        return BDDZERO;
+      }
 
-  private int restrict_rec(int r) {
-    BddCacheDataI entry;
-    int res;
+      INITREF();
+      satPolarity = pol;
+      res = satoneset_rec(r, var);
 
-    if (ISCONST(r) || LEVEL(r) > quantlast) {
-      return r;
+      checkresize();
+      return res;
     }
 
-    entry = BddCache_lookupI(misccache, RESTRHASH(r, miscid));
-    if (entry.a == r && entry.c == miscid) {
-      if (CACHESTATS) {
-        cachestats.opHit++;
+    private int satoneset_rec(int r, int var) {
+      if (ISCONST(r) && ISCONST(var)) {
+        return r;
       }
-      return entry.res;
-    }
-    if (CACHESTATS) {
-      cachestats.opMiss++;
-    }
 
-    if (INSVARSET(LEVEL(r))) {
-      if (quantvarset[LEVEL(r)] > 0) {
-        res = restrict_rec(HIGH(r));
-      } else {
-        res = restrict_rec(LOW(r));
+      if (LEVEL(r) < LEVEL(var)) {
+        if (ISZERO(LOW(r))) {
+          int res = satoneset_rec(HIGH(r), var);
+          int m = bdd_makenode(LEVEL(r), BDDZERO, res);
+          PUSHREF(m);
+          return m;
+        } else {
+          int res = satoneset_rec(LOW(r), var);
+          int m = bdd_makenode(LEVEL(r), res, BDDZERO);
+          PUSHREF(m);
+          return m;
+        }
+      } else if (LEVEL(var) < LEVEL(r)) {
+        int res = satoneset_rec(r, HIGH(var));
+        if (satPolarity == BDDONE) {
+          int m = bdd_makenode(LEVEL(var), BDDZERO, res);
+          PUSHREF(m);
+          return m;
+        } else {
+          int m = bdd_makenode(LEVEL(var), res, BDDZERO);
+          PUSHREF(m);
+          return m;
+        }
+      } else /* LEVEL(r) == LEVEL(var) */ {
+        if (ISZERO(LOW(r))) {
+          int res = satoneset_rec(HIGH(r), HIGH(var));
+          int m = bdd_makenode(LEVEL(r), BDDZERO, res);
+          PUSHREF(m);
+          return m;
+        } else {
+          int res = satoneset_rec(LOW(r), HIGH(var));
+          int m = bdd_makenode(LEVEL(r), res, BDDZERO);
+          PUSHREF(m);
+          return m;
+        }
       }
-    } else {
-      PUSHREF(restrict_rec(LOW(r)));
-      PUSHREF(restrict_rec(HIGH(r)));
-      res = bdd_makenode(LEVEL(r), READREF(2), READREF(1));
-      POPREF(2);
     }
 
-    if (CACHESTATS && entry.a != -1) {
-      cachestats.opOverwrite++;
-    }
-    entry.a = r;
-    entry.c = miscid;
-    entry.res = res;
+    private int bdd_fullsatone(int r) {
+      int res;
 
-    return res;
-  }
+      CHECK(r);
+      if (r == BDDZERO) {
+        return 0;
+      }
 
-  private int bdd_simplify(int f, int d) {
-    CHECK(f);
-    CHECK(d);
+      INITREF();
+      res = fullsatone_rec(r);
+
+      for (int v = LEVEL(r) - 1; v >= 0; v--) {
+        res = PUSHREF(bdd_makenode(v, res, BDDZERO));
+      }
 
-    if (applycache == null) {
-      applycache = BddCacheI_init(cachesize);
+      checkresize();
+      return res;
     }
-    applyop = bddop_or;
 
-    INITREF();
-    int res = simplify_rec(f, d);
-    checkresize();
+    private int fullsatone_rec(int r) {
+      if (r < 2) {
+        return r;
+      }
 
-    return res;
-  }
+      if (LOW(r) != BDDZERO) {
+        int res = fullsatone_rec(LOW(r));
 
-  private int simplify_rec(int f, int d) {
-    BddCacheDataI entry;
-    int res;
+        for (int v = LEVEL(LOW(r)) - 1; v > LEVEL(r); v--) {
+          res = PUSHREF(bdd_makenode(v, res, BDDZERO));
+        }
 
-    if (ISONE(d) || ISCONST(f)) {
-      return f;
-    } else if (d == f) {
-      return BDDONE;
-    } else if (ISZERO(d)) {
-      return BDDZERO;
-    }
+        return PUSHREF(bdd_makenode(LEVEL(r), res, BDDZERO));
+      } else {
+        int res = fullsatone_rec(HIGH(r));
 
-    entry = BddCache_lookupI(applycache, APPLYHASH(f, d, bddop_simplify));
+        for (int v = LEVEL(HIGH(r)) - 1; v > LEVEL(r); v--) {
+          res = PUSHREF(bdd_makenode(v, res, BDDZERO));
+        }
 
-    if (entry.a == f && entry.b == d && entry.c == bddop_simplify) {
-      if (CACHESTATS) {
-        cachestats.opHit++;
+        return PUSHREF(bdd_makenode(LEVEL(r), BDDZERO, res));
       }
-      return entry.res;
     }
-    if (CACHESTATS) {
-      cachestats.opMiss++;
+
+    private void INITREF() {
+      bddrefstacktop = 0;
     }
 
-    if (LEVEL(f) == LEVEL(d)) {
-      if (ISZERO(LOW(d))) {
-        res = simplify_rec(HIGH(f), HIGH(d));
-      } else if (ISZERO(HIGH(d))) {
-        res = simplify_rec(LOW(f), LOW(d));
-      } else {
-        PUSHREF(simplify_rec(LOW(f), LOW(d)));
-        PUSHREF(simplify_rec(HIGH(f), HIGH(d)));
-        res = bdd_makenode(LEVEL(f), READREF(2), READREF(1));
-        POPREF(2);
-      }
-    } else if (LEVEL(f) < LEVEL(d)) {
-      PUSHREF(simplify_rec(LOW(f), d));
-      PUSHREF(simplify_rec(HIGH(f), d));
-      res = bdd_makenode(LEVEL(f), READREF(2), READREF(1));
-      POPREF(2);
-    } else /* LEVEL(d) < LEVEL(f) */ {
-      PUSHREF(or_rec(LOW(d), HIGH(d))); /* Exist quant */
-      res = simplify_rec(f, READREF(1));
-      POPREF(1);
+    private int PUSHREF(int a) {
+      bddrefstack[bddrefstacktop++] = a;
+      return a;
     }
 
-    if (CACHESTATS && entry.a != -1) {
-      cachestats.opOverwrite++;
+    private int READREF(int a) {
+      return bddrefstack[bddrefstacktop - a];
     }
-    entry.a = f;
-    entry.b = d;
-    entry.c = bddop_simplify;
-    entry.res = res;
 
-    return res;
-  }
+    private void POPREF(int a) {
+      bddrefstacktop -= a;
+    }
 
-  private int bdd_support(int r) {
-    int res = 1;
+    private double bdd_pathcount(int r) {
+      CHECK(r);
 
-    CHECK(r);
+      miscid = CACHEID_PATHCOU;
 
-    if (r < 2) {
-      return BDDONE;
-    }
+      if (countcache == null) {
+        countcache = BddCacheBigInteger_init(cachesize);
+      }
 
-    /* On-demand allocation of support set */
-    if (supportSet.length < bddvarnum) {
-      supportSet = new int[bddvarnum];
-      supportID = 0;
+      return bdd_pathcount_rec(r).doubleValue();
     }
 
-    /* Update global variables used to speed up bdd_support()
-     * - instead of always memsetting support to zero, we use
-     *   a change counter.
-     * - and instead of reading the whole array afterwards, we just
-     *   look from 'min' to 'max' used BDD variables.
-     */
-    if (supportID == 0x0FFFFFFF) {
-      /* We probably don't get here -- but let's just be sure */
-      for (int i = 0; i < bddvarnum; ++i) {
-        supportSet[i] = 0;
+    private BigInteger bdd_pathcount_rec(int r) {
+      if (ISZERO(r)) {
+        return BigInteger.ZERO;
+      } else if (ISONE(r)) {
+        return BigInteger.ONE;
       }
-      supportID = 0;
-    }
-    ++supportID;
-    supportMin = LEVEL(r);
-    supportMax = supportMin;
-
-    support_rec(r, supportSet);
-    bdd_unmark(r);
 
-    for (int n = supportMax; n >= supportMin; --n) {
-      if (supportSet[n] == supportID) {
-        int tmp;
-        bdd_addref(res);
-        tmp = bdd_makenode(n, BDDZERO, res);
-        bdd_delref(res);
-        res = tmp;
+      BigIntegerBddCacheData entry = BddCache_lookupBigInteger(countcache, PATHCOUHASH(r, miscid));
+      if (entry.a == r && entry.c == miscid) {
+        if (cachestatsEnabled) {
+          cachestats.opHit++;
+        }
+        return entry.value;
       }
-    }
 
-    return res;
-  }
+      countcache.misses++;
+      if (cachestatsEnabled) {
+        cachestats.opMiss++;
+      }
+      BigInteger size = bdd_pathcount_rec(LOW(r)).add(bdd_pathcount_rec(HIGH(r)));
 
-  private void support_rec(int r, int[] support) {
+      if (entry.a != -1) {
+        countcache.overwrites++;
+        if (cachestatsEnabled) {
+          cachestats.opOverwrite++;
+        }
+      }
+      entry.a = r;
+      entry.c = miscid;
+      entry.value = size;
 
-    if (r < 2) {
-      return;
+      return size;
     }
 
-    if (MARKED(r) || LOW(r) == INVALID_BDD) {
-      return;
-    }
+    private BigInteger bdd_satcount(int r) {
+      CHECK(r);
 
-    support[LEVEL(r)] = supportID;
+      if (countcache == null) {
+        countcache = BddCacheBigInteger_init(cachesize);
+      }
 
-    if (LEVEL(r) > supportMax) {
-      supportMax = LEVEL(r);
+      miscid = CACHEID_SATCOU;
+      return satcount_rec(r).shiftLeft(LEVEL(r));
     }
 
-    SETMARK(r);
+    private BigInteger satcount_rec(int root) {
+      if (ISZERO(root)) {
+        return BigInteger.ZERO;
+      } else if (ISONE(root)) {
+        return BigInteger.ONE;
+      }
 
-    support_rec(LOW(r), support);
-    support_rec(HIGH(r), support);
-  }
+      BigIntegerBddCacheData entry =
+          BddCache_lookupBigInteger(countcache, SATCOUHASH(root, miscid));
+      if (entry.a == root && entry.c == miscid) {
+        if (cachestatsEnabled) {
+          cachestats.opHit++;
+        }
+        return entry.value;
+      }
 
-  private int bdd_appall(int l, int r, int opr, int var) {
-    CHECK(l);
-    CHECK(r);
-    CHECK(var);
+      countcache.misses++;
+      if (cachestatsEnabled) {
+        cachestats.opMiss++;
+      }
 
-    if (opr < 0 || opr > bddop_invimp) {
-      bdd_error(BDD_OP);
-      return BDDZERO;
-    }
+      int low = LOW(root);
+      int high = HIGH(root);
+      BigInteger size =
+          satcount_rec(low)
+              .shiftLeft(LEVEL(low) - LEVEL(root) - 1)
+              .add(satcount_rec(high).shiftLeft(LEVEL(high) - LEVEL(root) - 1));
 
-    if (var < 2) /* Empty set */ {
-      return bdd_apply(l, r, opr);
-    }
-    if (varset2vartable(var) < 0) {
-      return BDDZERO;
-    }
+      if (entry.a != -1) {
+        countcache.overwrites++;
+        if (cachestatsEnabled) {
+          cachestats.opOverwrite++;
+        }
+      }
+      entry.a = root;
+      entry.c = miscid;
+      entry.value = size;
 
-    if (applycache == null) {
-      applycache = BddCacheI_init(cachesize);
-    }
-    if (appexcache == null) {
-      appexcache = BddCacheI_init(cachesize);
+      return size;
     }
-    if (quantcache == null) {
-      quantcache = BddCacheI_init(cachesize);
-    }
-    applyop = bddop_and;
-    appexop = opr;
-    appexid = (var << 5) | (appexop << 1) | 1; /* FIXME: range! */
-    quantid = (appexid << 3) | CACHEID_APPAL;
 
-    INITREF();
-    int res = appquant_rec(l, r);
-    checkresize();
+    private int bdd_makenode(int level, int low, int high) {
+      assert (ISCONST(low) || level < LEVEL(low)) && (ISCONST(high) || level < LEVEL(high));
 
-    return res;
-  }
+      /* check whether childs are equal */
+      if (low == high) {
+        if (cachestatsEnabled) {
+          cachestats.uniqueTrivial++;
+        }
+        return low;
+      }
 
-  private int bdd_appuni(int l, int r, int opr, int var) {
-    CHECK(l);
-    CHECK(r);
-    CHECK(var);
+      if (cachestatsEnabled) {
+        cachestats.uniqueAccess++;
+      }
 
-    if (opr < 0 || opr > bddop_invimp) {
-      bdd_error(BDD_OP);
-      return BDDZERO;
-    }
+      if (concurrent) {
+        return bdd_makenode_concurrent(level, low, high);
+      }
 
-    if (var < 2) /* Empty set */ {
-      return bdd_apply(l, r, opr);
-    }
+      /* Try to find an existing node of this kind */
+      int hash2 = NODEHASH(level, low, high);
+      int res = HASH(hash2);
 
-    if (applycache == null) {
-      applycache = BddCacheI_init(cachesize);
-    }
-    if (appexcache == null) {
-      appexcache = BddCacheI_init(cachesize);
-    }
-    if (quantcache == null) {
-      quantcache = BddCacheI_init(cachesize);
-    }
-    applyop = bddop_xor;
-    appexop = opr;
-    appexid = (var << 5) | (appexop << 1) | 1; /* FIXME: range! */
-    quantid = (appexid << 3) | CACHEID_APPUN;
+      while (res != 0) {
+        if (LEVEL(res) == level && LOW(res) == low && HIGH(res) == high) {
+          if (cachestatsEnabled) {
+            cachestats.uniqueHit++;
+          }
+          return res;
+        }
 
-    INITREF();
-    int res = appuni_rec(l, r, var);
-    checkresize();
+        res = NEXT(res);
+        if (cachestatsEnabled) {
+          cachestats.uniqueChain++;
+        }
+      }
 
-    return res;
-  }
+      /* No existing node => build one */
+      if (cachestatsEnabled) {
+        cachestats.uniqueMiss++;
+      }
 
-  private int bdd_satone(int r) {
-    int res;
+      /* Any free nodes to use ? */
+      if (bddfreepos == 0) {
+        if (bdderrorcond != 0) {
+          return 0;
+        }
 
-    CHECK(r);
-    if (r < 2) {
-      return r;
-    }
+        /* Try to allocate more nodes */
+        bdd_gbc();
 
-    INITREF();
-    res = satone_rec(r);
+        if ((bddfreenum * 100) / bddnodesize <= minfreenodes) {
+          bdd_noderesize(true);
+          hash2 = NODEHASH(level, low, high);
+        }
 
-    checkresize();
-    return res;
-  }
+        /* Panic if that is not possible */
+        if (bddfreepos == 0) {
+          bdd_error(BDD_NODENUM);
+          bdderrorcond = Math.abs(BDD_NODENUM);
+          return 0;
+        }
+      }
 
-  private int satone_rec(int r) {
-    if (ISCONST(r)) {
-      return r;
-    }
+      /* Build new node */
+      res = bddfreepos;
+      bddfreepos = NEXT(bddfreepos);
+      bddfreenum--;
+      bddproduced++;
 
-    if (ISZERO(LOW(r))) {
-      int res = satone_rec(HIGH(r));
-      int m = bdd_makenode(LEVEL(r), BDDZERO, res);
-      PUSHREF(m);
-      return m;
-    } else {
-      int res = satone_rec(LOW(r));
-      int m = bdd_makenode(LEVEL(r), res, BDDZERO);
-      PUSHREF(m);
-      return m;
-    }
-  }
+      SETLEVELANDMARK(res, level);
+      SETLOW(res, low);
+      SETHIGH(res, high);
 
-  private int bdd_satoneset(int r, int var, int pol) {
-    int res;
+      /* Insert node */
+      SETNEXT(res, HASH(hash2));
+      SETHASH(hash2, res);
 
-    CHECK(r);
-    if (ISZERO(r)) {
-      return r;
-    }
-    if (!ISCONST(pol)) {
-      bdd_error(BDD_ILLBDD);
-      return BDDZERO;
+      return res;
     }
 
-    INITREF();
-    satPolarity = pol;
-    res = satoneset_rec(r, var);
+    /**
+     * Finds or builds a node in a concurrent factory. Looking up and inserting a node are atomic
+     * per unique table bucket, and new nodes are taken from a chunk of the free list that only this
+     * worker uses. This is also the safepoint where the worker stops for garbage collections of
+     * other workers. As for a garbage collection in a factory that is not concurrent, the caller
+     * must have pushed the live nodes that are not referenced otherwise on the reference stack.
+     */
+    private int bdd_makenode_concurrent(int level, int low, int high) {
+      while (true) {
+        if (safepointRequested && leader != this) {
+          safepoint(this);
+        }
 
-    checkresize();
-    return res;
-  }
+        int hash2 = NODEHASH(level, low, high);
+        synchronized (nodeLocks[hash2 & (NODE_LOCKS - 1)]) {
+          int res = HASH(hash2);
+          while (res != 0) {
+            if (LEVEL(res) == level && LOW(res) == low && HIGH(res) == high) {
+              if (cachestatsEnabled) {
+                cachestats.uniqueHit++;
+              }
+              return res;
+            }
+
+            res = NEXT(res);
+            if (cachestatsEnabled) {
+              cachestats.uniqueChain++;
+            }
+          }
+
+          if (freepos == 0) {
+            takeFreeChunk();
+          }
+          if (freepos != 0) {
+            if (cachestatsEnabled) {
+              cachestats.uniqueMiss++;
+            }
+            res = freepos;
+            freepos = NEXT(freepos);
+            freenum--;
+
+            SETLEVELANDMARK(res, level);
+            SETLOW(res, low);
+            SETHIGH(res, high);
+
+            SETNEXT(res, HASH(hash2));
+            SETHASH(hash2, res);
+            return res;
+          }
+        }
 
-  private int satoneset_rec(int r, int var) {
-    if (ISCONST(r) && ISCONST(var)) {
-      return r;
+        if (bdderrorcond != 0) {
+          return 0;
+        }
+        collectGarbage();
+      }
     }
 
-    if (LEVEL(r) < LEVEL(var)) {
-      if (ISZERO(LOW(r))) {
-        int res = satoneset_rec(HIGH(r), var);
-        int m = bdd_makenode(LEVEL(r), BDDZERO, res);
-        PUSHREF(m);
-        return m;
-      } else {
-        int res = satoneset_rec(LOW(r), var);
-        int m = bdd_makenode(LEVEL(r), res, BDDZERO);
-        PUSHREF(m);
-        return m;
+    /** Takes up to {@link #FREE_CHUNK} nodes from the free list. */
+    private void takeFreeChunk() {
+      synchronized (freeListLock) {
+        if (bddfreepos == 0) {
+          return;
+        }
+        int last = bddfreepos;
+        int num = 1;
+        while (num < FREE_CHUNK && NEXT(last) != 0) {
+          last = NEXT(last);
+          num++;
+        }
+        freepos = bddfreepos;
+        freenum = num;
+        bddfreepos = NEXT(last);
+        SETNEXT(last, 0);
+        bddfreenum -= num;
+        bddproduced += num;
       }
-    } else if (LEVEL(var) < LEVEL(r)) {
-      int res = satoneset_rec(r, HIGH(var));
-      if (satPolarity == BDDONE) {
-        int m = bdd_makenode(LEVEL(var), BDDZERO, res);
-        PUSHREF(m);
-        return m;
-      } else {
-        int m = bdd_makenode(LEVEL(var), res, BDDZERO);
-        PUSHREF(m);
-        return m;
+    }
+
+    /**
+     * Collects garbage and grows the node table if too few nodes are free, after stopping all other
+     * workers. Does nothing if another worker collected garbage in the meantime.
+     */
+    private void collectGarbage() {
+      boolean stopped = stopWorld(this);
+      try {
+        if (stopped && bddfreepos != 0) {
+          return;
+        }
+
+        bdd_gbc();
+
+        if ((bddfreenum * 100) / bddnodesize <= minfreenodes) {
+          bdd_noderesize(true);
+        }
+
+        if (bddfreepos == 0) {
+          bdd_error(BDD_NODENUM);
+          bdderrorcond = Math.abs(BDD_NODENUM);
+        }
+      } finally {
+        if (stopped) {
+          resumeWorld();
+        }
       }
-    } else /* LEVEL(r) == LEVEL(var) */ {
-      if (ISZERO(LOW(r))) {
-        int res = satoneset_rec(HIGH(r), HIGH(var));
-        int m = bdd_makenode(LEVEL(r), BDDZERO, res);
-        PUSHREF(m);
-        return m;
-      } else {
-        int res = satoneset_rec(LOW(r), HIGH(var));
-        int m = bdd_makenode(LEVEL(r), res, BDDZERO);
-        PUSHREF(m);
-        return m;
+    }
+
+    private void bdd_operator_done() {
+      if (quantvarset != null) {
+        quantvarset = null;
       }
-    }
-  }
 
-  private int bdd_fullsatone(int r) {
-    int res;
+      BddCache_done(applycache);
+      applycache = null;
+      BddCache_done(quantcache);
+      quantcache = null;
+      BddCache_done(appexcache);
+      appexcache = null;
+      BddCache_done(replacecache);
+      replacecache = null;
+      BddCache_done(misccache);
+      misccache = null;
+      BddCache_done(multiopcache);
+      multiopcache = null;
+      BddCache_done(countcache);
+      countcache = null;
 
-    CHECK(r);
-    if (r == BDDZERO) {
-      return 0;
+      if (supportSet.length > 0) {
+        supportSet = new int[0];
+      }
+    }
+
+    private void bdd_operator_reset() {
+      BddCache_reset(applycache);
+      BddCache_reset(quantcache);
+      BddCache_reset(appexcache);
+      BddCache_reset(replacecache);
+      BddCache_reset(misccache);
+      BddCache_reset(multiopcache);
+      BddCache_reset(countcache);
     }
 
-    INITREF();
-    res = fullsatone_rec(r);
+    private void bdd_operator_clean() {
+      BddCache_clean_ab(applycache);
+      BddCache_clean_a(quantcache);
+      BddCache_clean_ab(appexcache);
+      BddCache_clean_ab(replacecache);
+      BddCache_clean_ab(misccache);
+      BddCache_clean_multiop(multiopcache);
+      BddCache_clean_d(countcache);
+    }
 
-    for (int v = LEVEL(r) - 1; v >= 0; v--) {
-      res = PUSHREF(bdd_makenode(v, res, BDDZERO));
+    /** Resizes the per-variable state if variables were added since this worker last ran. */
+    private void checkvarnum() {
+      if (quantvarset == null || quantvarset.length != bddvarnum) {
+        bdd_operator_varresize();
+      }
     }
 
-    checkresize();
-    return res;
-  }
+    private void bdd_operator_varresize() {
+      bddrefstack = new int[bddvarnum * 2 + 1];
+      bddrefstacktop = 0;
+      quantvarset = new int[bddvarnum];
 
-  private int fullsatone_rec(int r) {
-    if (r < 2) {
-      return r;
+      // memset(quantvarset, 0, sizeof(int)*bddvarnum);
+      quantvarsetID = 0;
+
+      BddCache_reset(countcache);
     }
 
-    if (LOW(r) != BDDZERO) {
-      int res = fullsatone_rec(LOW(r));
+    /** Returns the operator caches. Caches that have not been used yet are {@code null}. */
+    private BddCache[] operatorCaches() {
+      return new BddCache[] {
+        applycache, quantcache, appexcache, replacecache, misccache, multiopcache, countcache
+      };
+    }
 
-      for (int v = LEVEL(LOW(r)) - 1; v > LEVEL(r); v--) {
-        res = PUSHREF(bdd_makenode(v, res, BDDZERO));
+    private void bdd_operator_noderesize() {
+      long c1 = System.currentTimeMillis();
+      for (BddCache cache : operatorCaches()) {
+        if (cache == null) {
+          continue;
+        }
+        int newcachesize = Math.max(cacheratio > 0 ? cachesize : 0, cache.adaptedsize);
+        if (newcachesize > 0 && bdd_prime_gte(newcachesize) != cache.tablesize) {
+          BddCache_resize(cache, newcachesize);
+        }
       }
+      cachestats.resizeTime += System.currentTimeMillis() - c1;
+    }
 
-      return PUSHREF(bdd_makenode(LEVEL(r), res, BDDZERO));
-    } else {
-      int res = fullsatone_rec(HIGH(r));
+    /**
+     * Grows the operator caches that are too small for the working set. A cache is too small if,
+     * since the previous garbage collection, it missed at least as many lookups as it has entries
+     * and more than half of its insertions evicted an entry. Such a cache doubles in size at the
+     * next resize point, unless that would make all operator caches together hold more entries than
+     * the node table has nodes. See {@link #setCacheAdaptive(boolean)}.
+     */
+    private void bdd_operator_adapt() {
+      BddCache[] caches = operatorCaches();
+      long totalsize = 0;
+      for (BddCache cache : caches) {
+        if (cache != null) {
+          totalsize += Math.max(cache.tablesize, cache.adaptedsize);
+        }
+      }
+      for (BddCache cache : caches) {
+        if (cache == null) {
+          continue;
+        }
+        long misses = cache.misses;
+        long overwrites = cache.overwrites;
+        cache.misses = 0;
+        cache.overwrites = 0;
+        if (!cacheAdaptive || misses < cache.tablesize || overwrites * 2 <= misses) {
+          continue;
+        }
+        int size = Math.max(cache.tablesize, cache.adaptedsize);
+        int newsize = bdd_prime_gte(2 * size);
+        if (totalsize - size + newsize > bddnodesize) {
+          continue;
+        }
+        cache.adaptedsize = newsize;
+        totalsize += newsize - size;
+        // like node table resizes, defer resizing the cache until the current operation is done
+        bddresized = true;
+      }
+    }
+  }
 
-      for (int v = LEVEL(HIGH(r)) - 1; v > LEVEL(r); v--) {
-        res = PUSHREF(bdd_makenode(v, res, BDDZERO));
+  /**
+   * Dedup a sorted array. Returns the input array if it contains no duplicates. Mutates the array
+   * if there are duplicates.
+   */
+  static int[] dedupSorted(int[] values) {
+    if (values.length < 2) {
+      return values;
+    }
+    int i = 0; // index last written to
+    int j = 1; // index to read from next
+    while (j < values.length) {
+      if (values[i] != values[j]) {
+        values[++i] = values[j++];
+      } else {
+        j++;
       }
+    }
 
-      return PUSHREF(bdd_makenode(LEVEL(r), BDDZERO, res));
+    int dedupLen = i + 1;
+    if (dedupLen < values.length) {
+      return Arrays.copyOf(values, dedupLen);
+    } else {
+      return values;
     }
   }
 
+  private static final int INT_MAX = Integer.MAX_VALUE;
+
   private void bdd_gbc_rehash() {
     bddfreepos = 0;
     bddfreenum = 0;
@@ -3023,23 +4029,6 @@ public final class JFactory extends BDDFactory {
     }
   }
 
-  private void INITREF() {
-    bddrefstacktop = 0;
-  }
-
-  private int PUSHREF(int a) {
-    bddrefstack[bddrefstacktop++] = a;
-    return a;
-  }
-
-  private int READREF(int a) {
-    return bddrefstack[bddrefstacktop - a];
-  }
-
-  private void POPREF(int a) {
-    bddrefstacktop -= a;
-  }
-
   private int bdd_nodecount(int r) {
     int[] num = new int[1];
 
@@ -3092,95 +4081,6 @@ public final class JFactory extends BDDFactory {
     varprofile_rec(HIGH(r), varprofile);
   }
 
-  private double bdd_pathcount(int r) {
-    CHECK(r);
-
-    miscid = CACHEID_PATHCOU;
-
-    if (countcache == null) {
-      countcache = BddCacheBigInteger_init(cachesize);
-    }
-
-    return bdd_pathcount_rec(r).doubleValue();
-  }
-
-  private BigInteger bdd_pathcount_rec(int r) {
-    if (ISZERO(r)) {
-      return BigInteger.ZERO;
-    } else if (ISONE(r)) {
-      return BigInteger.ONE;
-    }
-
-    BigIntegerBddCacheData entry = BddCache_lookupBigInteger(countcache, PATHCOUHASH(r, miscid));
-    if (entry.a == r && entry.c == miscid) {
-      if (CACHESTATS) {
-        cachestats.opHit++;
-      }
-      return entry.value;
-    }
-
-    if (CACHESTATS) {
-      cachestats.opMiss++;
-    }
-    BigInteger size = bdd_pathcount_rec(LOW(r)).add(bdd_pathcount_rec(HIGH(r)));
-
-    if (CACHESTATS && entry.a != -1) {
-      cachestats.opOverwrite++;
-    }
-    entry.a = r;
-    entry.c = miscid;
-    entry.value = size;
-
-    return size;
-  }
-
-  private BigInteger bdd_satcount(int r) {
-    CHECK(r);
-
-    if (countcache == null) {
-      countcache = BddCacheBigInteger_init(cachesize);
-    }
-
-    miscid = CACHEID_SATCOU;
-    return satcount_rec(r).shiftLeft(LEVEL(r));
-  }
-
-  private BigInteger satcount_rec(int root) {
-    if (ISZERO(root)) {
-      return BigInteger.ZERO;
-    } else if (ISONE(root)) {
-      return BigInteger.ONE;
-    }
-
-    BigIntegerBddCacheData entry = BddCache_lookupBigInteger(countcache, SATCOUHASH(root, miscid));
-    if (entry.a == root && entry.c == miscid) {
-      if (CACHESTATS) {
-        cachestats.opHit++;
-      }
-      return entry.value;
-    }
-
-    if (CACHESTATS) {
-      cachestats.opMiss++;
-    }
-
-    int low = LOW(root);
-    int high = HIGH(root);
-    BigInteger size =
-        satcount_rec(low)
-            .shiftLeft(LEVEL(low) - LEVEL(root) - 1)
-            .add(satcount_rec(high).shiftLeft(LEVEL(high) - LEVEL(root) - 1));
-
-    if (CACHESTATS && entry.a != -1) {
-      cachestats.opOverwrite++;
-    }
-    entry.a = root;
-    entry.c = miscid;
-    entry.value = size;
-
-    return size;
-  }
-
   private void bdd_gbc() {
     long c2, c1 = System.currentTimeMillis();
 
@@ -3194,8 +4094,10 @@ public final class JFactory extends BDDFactory {
       gbc_handler(true, gcstats);
     }
 
-    for (int r = 0; r < bddrefstacktop; r++) {
-      bdd_mark(bddrefstack[r]);
+    for (Worker w : workers) {
+      for (int r = 0; r < w.bddrefstacktop; r++) {
+        bdd_mark(w.bddrefstack[r]);
+      }
     }
 
     for (int n = 0; n < bddnodesize; n++) {
@@ -3225,13 +4127,17 @@ public final class JFactory extends BDDFactory {
       }
     }
 
-    if (bddfreenum > 0) {
-      // Don't reset or clean caches if we didn't free any nodes.
+    for (Worker w : workers) {
+      w.bdd_operator_adapt();
 
-      if (FLUSH_CACHE_ON_GC) {
-        bdd_operator_reset();
-      } else {
-        bdd_operator_clean();
+      if (bddfreenum > 0) {
+        // Don't reset or clean caches if we didn't free any nodes.
+
+        if (FLUSH_CACHE_ON_GC) {
+          w.bdd_operator_reset();
+        } else {
+          w.bdd_operator_clean();
+        }
       }
     }
 
@@ -3266,7 +4172,13 @@ public final class JFactory extends BDDFactory {
       return bdd_error(BDD_ILLBDD);
     }
 
-    INCREF(root);
+    if (concurrent) {
+      synchronized (refLocks[root & (REF_LOCKS - 1)]) {
+        INCREF(root);
+      }
+    } else {
+      INCREF(root);
+    }
     return root;
   }
 
@@ -3284,13 +4196,23 @@ public final class JFactory extends BDDFactory {
       return bdd_error(BDD_ILLBDD);
     }
 
+    if (concurrent) {
+      synchronized (refLocks[root & (REF_LOCKS - 1)]) {
+        bdd_decref(root);
+      }
+    } else {
+      bdd_decref(root);
+    }
+    return root;
+  }
+
+  private void bdd_decref(int root) {
     /* if the following line is present, fails there much earlier */
     if (!HASREF(root)) {
       bdd_error(BDD_BREAK); /* distinctive */
     }
 
     DECREF(root);
-    return root;
   }
 
   private void bdd_mark(int i) {
@@ -3341,83 +4263,6 @@ public final class JFactory extends BDDFactory {
     bdd_unmark(HIGH(i));
   }
 
-  private int bdd_makenode(int level, int low, int high) {
-    assert (ISCONST(low) || level < LEVEL(low)) && (ISCONST(high) || level < LEVEL(high));
-
-    /* check whether childs are equal */
-    if (low == high) {
-      if (CACHESTATS) {
-        cachestats.uniqueTrivial++;
-      }
-      return low;
-    }
-
-    if (CACHESTATS) {
-      cachestats.uniqueAccess++;
-    }
-
-    /* Try to find an existing node of this kind */
-    int hash2 = NODEHASH(level, low, high);
-    int res = HASH(hash2);
-
-    while (res != 0) {
-      if (LEVEL(res) == level && LOW(res) == low && HIGH(res) == high) {
-        if (CACHESTATS) {
-          cachestats.uniqueHit++;
-        }
-        return res;
-      }
-
-      res = NEXT(res);
-      if (CACHESTATS) {
-        cachestats.uniqueChain++;
-      }
-    }
-
-    /* No existing node => build one */
-    if (CACHESTATS) {
-      cachestats.uniqueMiss++;
-    }
-
-    /* Any free nodes to use ? */
-    if (bddfreepos == 0) {
-      if (bdderrorcond != 0) {
-        return 0;
-      }
-
-      /* Try to allocate more nodes */
-      bdd_gbc();
-
-      if ((bddfreenum * 100) / bddnodesize <= minfreenodes) {
-        bdd_noderesize(true);
-        hash2 = NODEHASH(level, low, high);
-      }
-
-      /* Panic if that is not possible */
-      if (bddfreepos == 0) {
-        bdd_error(BDD_NODENUM);
-        bdderrorcond = Math.abs(BDD_NODENUM);
-        return 0;
-      }
-    }
-
-    /* Build new node */
-    res = bddfreepos;
-    bddfreepos = NEXT(bddfreepos);
-    bddfreenum--;
-    bddproduced++;
-
-    SETLEVELANDMARK(res, level);
-    SETLOW(res, low);
-    SETHIGH(res, high);
-
-    /* Insert node */
-    SETNEXT(res, HASH(hash2));
-    SETHASH(hash2, res);
-
-    return res;
-  }
-
   private int bdd_noderesize(boolean doRehash) {
     int oldsize = bddnodesize;
     int newsize = bddnodesize;
@@ -3451,9 +4296,14 @@ public final class JFactory extends BDDFactory {
 
   @Override
   public int setNodeTableSize(int size) {
-    int old = bddnodesize;
-    doResize(true, old, size);
-    return old;
+    Worker self = beginExclusive();
+    try {
+      int old = bddnodesize;
+      doResize(true, old, size);
+      return old;
+    } finally {
+      endExclusive(self);
+    }
   }
 
   private int doResize(boolean doRehash, int oldsize, int newsize) {
@@ -3465,6 +4315,7 @@ public final class JFactory extends BDDFactory {
     }
 
     resize_handler(oldsize, newsize);
+    long c1 = System.currentTimeMillis();
 
     int[] newnodes;
     newnodes = new int[newsize * __node_size];
@@ -3493,7 +4344,14 @@ public final class JFactory extends BDDFactory {
       bdd_gbc_rehash();
     }
 
-    bddresized = true;
+    if (cacheratio > 0) {
+      cachesize = bddnodesize / cacheratio;
+    }
+    for (Worker w : workers) {
+      w.bddresized = true;
+    }
+    cachestats.resizeNum++;
+    cachestats.resizeTime += System.currentTimeMillis() - c1;
 
     return 0;
   }
@@ -3508,8 +4366,6 @@ public final class JFactory extends BDDFactory {
 
     bddnodes = new int[bddnodesize * __node_size];
 
-    bddresized = false;
-
     for (int n = 0; n < bddnodesize; n++) {
       SETLOW(n, INVALID_BDD);
       // SETREFCOU(n, 0);
@@ -3584,122 +4440,31 @@ public final class JFactory extends BDDFactory {
     {1, 1, 0, 0} /* not                       ( ! )         */
   };
 
-  private int applyop; /* Current operator for apply */
-  private int appexop; /* Current operator for appex */
-  private int appexid; /* Current cache id for appex */
-  private int quantid; /* Current cache id for quantifications */
-  private int[] quantvarset; /* Current variable set for quant. */
-  private int quantvarsetID; /* Current id used in quantvarset */
-  private int quantlast; /* Current last variable to be quant. */
-  private int replaceid; /* Current cache id for replace */
-  private int[] replacepair; /* Current replace pair */
-  private int replacelast; /* Current last var. level to replace */
-  private int composelevel; /* Current variable used for compose */
-  private int miscid; /* Current cache id for other results */
-  private int supportID; /* Current ID (true value) for support */
-  private int supportMin; /* Min. used level in support calc. */
-  private int supportMax; /* Max. used level in support calc. */
-  @Nonnull private int[] supportSet; /* The found support set */
-  private BddCache applycache; /* Cache for apply and ite results. See note in ite_rec. */
-  private BddCache quantcache; /* Cache for exist/forall results */
-  private BddCache appexcache; /* Cache for appex/appall results */
-  private BddCache replacecache; /* Cache for replace results */
-  private BddCache misccache; /* Cache for other results */
-  private BddCache multiopcache; /* Cache for varargs operators */
-  private BddCache countcache; /* Cache for count results */
   private int cacheratio;
-  private int satPolarity;
-  /* Used instead of local variable in order
-  to avoid compiler warning about 'first'
-  being clobbered by setjmp */
+  private boolean cachestatsEnabled; /* Maintain statistics about the cache use */
+  private boolean cacheAdaptive; /* Grow the caches that thrash */
 
   private void bdd_operator_init() {
-    quantvarsetID = 0;
-    quantvarset = null;
     cacheratio = 0;
-    supportSet = new int[0];
-  }
-
-  private void bdd_operator_done() {
-    if (quantvarset != null) {
-      quantvarset = null;
-    }
-
-    BddCache_done(applycache);
-    applycache = null;
-    BddCache_done(quantcache);
-    quantcache = null;
-    BddCache_done(appexcache);
-    appexcache = null;
-    BddCache_done(replacecache);
-    replacecache = null;
-    BddCache_done(misccache);
-    misccache = null;
-    BddCache_done(multiopcache);
-    multiopcache = null;
-    BddCache_done(countcache);
-    countcache = null;
-
-    if (supportSet.length > 0) {
-      supportSet = new int[0];
-    }
-  }
-
-  private void bdd_operator_reset() {
-    BddCache_reset(applycache);
-    BddCache_reset(quantcache);
-    BddCache_reset(appexcache);
-    BddCache_reset(replacecache);
-    BddCache_reset(misccache);
-    BddCache_reset(multiopcache);
-    BddCache_reset(countcache);
-  }
-
-  private void bdd_operator_clean() {
-    BddCache_clean_ab(applycache);
-    BddCache_clean_a(quantcache);
-    BddCache_clean_ab(appexcache);
-    BddCache_clean_ab(replacecache);
-    BddCache_clean_ab(misccache);
-    BddCache_clean_multiop(multiopcache);
-    BddCache_clean_d(countcache);
-  }
-
-  private void bdd_operator_varresize() {
-    quantvarset = new int[bddvarnum];
-
-    // memset(quantvarset, 0, sizeof(int)*bddvarnum);
-    quantvarsetID = 0;
-
-    BddCache_reset(countcache);
   }
 
   @Override
   public int setCacheSize(int newcachesize) {
-    int old = cachesize;
-    BddCache_resize(applycache, newcachesize);
-    BddCache_resize(quantcache, newcachesize);
-    BddCache_resize(appexcache, newcachesize);
-    BddCache_resize(replacecache, newcachesize);
-    BddCache_resize(misccache, newcachesize);
-    BddCache_resize(multiopcache, newcachesize);
-    BddCache_resize(countcache, newcachesize);
-    return old;
-  }
-
-  private void bdd_operator_noderesize() {
-    if (cacheratio > 0) {
-      int newcachesize = bddnodesize / cacheratio;
-
-      BddCache_resize(applycache, newcachesize);
-      BddCache_resize(quantcache, newcachesize);
-      BddCache_resize(appexcache, newcachesize);
-      BddCache_resize(replacecache, newcachesize);
-      BddCache_resize(misccache, newcachesize);
-      BddCache_resize(multiopcache, newcachesize);
-      BddCache_resize(countcache, newcachesize);
-
+    Worker self = beginExclusive();
+    try {
+      int old = cachesize;
+      for (Worker w : workers) {
+        for (BddCache cache : w.operatorCaches()) {
+          if (cache != null) {
+            cache.adaptedsize = 0;
+            BddCache_resize(cache, newcachesize);
+          }
+        }
+      }
       cachesize = newcachesize;
+      return old;
+    } finally {
+      endExclusive(self);
     }
   }
 
@@ -3757,42 +4522,11 @@ public final class JFactory extends BDDFactory {
     cache.tablesize = 0;
   }
 
-  /**
-   * Returns the name of the type of {@link BddCache} that {@code cache} represents.
-   *
-   * <p>Slow. Should only be used in debugging contexts.
-   */
-  private String getCacheName(BddCache cache) {
-    if (cache == applycache) {
-      return "apply";
-    } else if (cache == appexcache) {
-      return "appex";
-    } else if (cache == countcache) {
-      return "count";
-    } else if (cache == misccache) {
-      return "misc";
-    } else if (cache == multiopcache) {
-      return "multiop";
-    } else if (cache == quantcache) {
-      return "quant";
-    } else if (cache == replacecache) {
-      return "replace";
-    } else {
-      return "unknown";
-    }
-  }
-
   private int BddCache_resize(BddCache cache, int newsize) {
     if (cache == null) {
       return 0;
     }
 
-    if (CACHESTATS) {
-      System.err.printf(
-          "Cache %s resize: %d/%d slots used%n",
-          getCacheName(cache), cache.used(), cache.table.length);
-    }
-
     newsize = bdd_prime_gte(newsize);
 
     if (cache.table instanceof BddCacheDataI[]) {
@@ -3838,11 +4572,6 @@ public final class JFactory extends BDDFactory {
     if (cache == null) {
       return;
     }
-    if (CACHESTATS) {
-      System.err.printf(
-          "Cache %s reset: %d/%d slots used%n",
-          getCacheName(cache), cache.used(), cache.table.length);
-    }
 
     for (int n = 0; n < cache.tablesize; n++) {
       cache.table[n].a = -1;
@@ -3973,17 +4702,32 @@ public final class JFactory extends BDDFactory {
 
     @Override
     public void set(int oldvar, int newvar) {
-      bdd_setpair(this, oldvar, newvar);
+      Worker self = beginExclusive();
+      try {
+        bdd_setpair(this, oldvar, newvar);
+      } finally {
+        endExclusive(self);
+      }
     }
 
     @Override
     public void set(int oldvar, BDD newvar) {
-      bdd_setbddpair(this, oldvar, ((BDDImpl) newvar)._index);
+      Worker self = beginExclusive();
+      try {
+        bdd_setbddpair(this, oldvar, ((BDDImpl) newvar)._index);
+      } finally {
+        endExclusive(self);
+      }
     }
 
     @Override
     public void reset() {
-      bdd_resetpair(this);
+      Worker self = beginExclusive();
+      try {
+        bdd_resetpair(this);
+      } finally {
+        endExclusive(self);
+      }
     }
 
     @Override
@@ -4043,7 +4787,9 @@ public final class JFactory extends BDDFactory {
         p.id = pairsid++;
       }
       // bdd_operator_reset();
-      BddCache_reset(replacecache);
+      for (Worker w : workers) {
+        BddCache_reset(w.replacecache);
+      }
     }
 
     return pairsid;
@@ -4089,7 +4835,12 @@ public final class JFactory extends BDDFactory {
 
   @Override
   public void done() {
-    bdd_done();
+    Worker self = beginExclusive();
+    try {
+      bdd_done();
+    } finally {
+      endExclusive(self);
+    }
   }
 
   private void bdd_done() {
@@ -4099,12 +4850,13 @@ public final class JFactory extends BDDFactory {
     bdd_pairs_done();
 
     bddnodes = null;
-    bddrefstack = null;
     bddvarset = null;
     bddvar2level = null;
     bddlevel2var = null;
 
-    bdd_operator_done();
+    for (Worker w : workers) {
+      w.bdd_operator_done();
+    }
 
     bddrunning = false;
     bddnodesize = 0;
@@ -4186,9 +4938,28 @@ public final class JFactory extends BDDFactory {
     return old;
   }
 
+  @Override
+  public boolean setCacheStatsEnabled(boolean enabled) {
+    boolean old = cachestatsEnabled;
+    cachestatsEnabled = enabled;
+    return old;
+  }
+
+  @Override
+  public boolean setCacheAdaptive(boolean adaptive) {
+    boolean old = cacheAdaptive;
+    cacheAdaptive = adaptive;
+    return old;
+  }
+
   @Override
   public int setCacheRatio(int r) {
-    return bdd_setcacheratio(r);
+    Worker self = beginExclusive();
+    try {
+      return bdd_setcacheratio(r);
+    } finally {
+      endExclusive(self);
+    }
   }
 
   private int bdd_setcacheratio(int r) {
@@ -4202,7 +4973,10 @@ public final class JFactory extends BDDFactory {
     }
 
     cacheratio = r;
-    bdd_operator_noderesize();
+    cachesize = bddnodesize / cacheratio;
+    for (Worker w : workers) {
+      w.bdd_operator_noderesize();
+    }
     return old;
   }
 
@@ -4213,11 +4987,25 @@ public final class JFactory extends BDDFactory {
 
   @Override
   public int setVarNum(int num) {
-    return bdd_setvarnum(num);
+    Worker self = beginExclusive();
+    try {
+      return bdd_setvarnum(num);
+    } finally {
+      endExclusive(self);
+    }
   }
 
   @Override
   public int duplicateVar(int var) {
+    Worker self = beginExclusive();
+    try {
+      return bdd_duplicatevar(self, var);
+    } finally {
+      endExclusive(self);
+    }
+  }
+
+  private int bdd_duplicatevar(Worker w, int var) {
     if (var < 0 || var >= bddvarnum) {
       bdd_error(BDD_VAR);
       return BDDZERO;
@@ -4245,9 +5033,9 @@ public final class JFactory extends BDDFactory {
     bddlevel2var[lev + 1] = newVar;
     // Fix up bddvarset
     for (int bdv = 0; bdv < bddvarnum; bdv++) {
-      bddvarset[bdv * 2] = PUSHREF(bdd_makenode(bddvar2level[bdv], BDDZERO, BDDONE));
-      bddvarset[bdv * 2 + 1] = bdd_makenode(bddvar2level[bdv], BDDONE, BDDZERO);
-      POPREF(1);
+      bddvarset[bdv * 2] = w.PUSHREF(w.bdd_makenode(bddvar2level[bdv], BDDZERO, BDDONE));
+      bddvarset[bdv * 2 + 1] = w.bdd_makenode(bddvar2level[bdv], BDDONE, BDDZERO);
+      w.POPREF(1);
 
       SETMAXREF(bddvarset[bdv * 2]);
       SETMAXREF(bddvarset[bdv * 2 + 1]);
@@ -4300,13 +5088,14 @@ public final class JFactory extends BDDFactory {
       bddvar2level = bddvar2level2;
     }
 
-    bddrefstack = new int[num * 2 + 1];
-    bddrefstacktop = 0;
+    Worker w = worker();
+    w.bddrefstack = new int[num * 2 + 1];
+    w.bddrefstacktop = 0;
 
     for (bdv = bddvarnum; bddvarnum < num; bddvarnum++) {
-      bddvarset[bddvarnum * 2] = PUSHREF(bdd_makenode(bddvarnum, BDDZERO, BDDONE));
-      bddvarset[bddvarnum * 2 + 1] = bdd_makenode(bddvarnum, BDDONE, BDDZERO);
-      POPREF(1);
+      bddvarset[bddvarnum * 2] = w.PUSHREF(w.bdd_makenode(bddvarnum, BDDZERO, BDDONE));
+      bddvarset[bddvarnum * 2 + 1] = w.bdd_makenode(bddvarnum, BDDONE, BDDZERO);
+      w.POPREF(1);
 
       if (bdderrorcond != 0) {
         bddvarnum = bdv;
@@ -4325,7 +5114,7 @@ public final class JFactory extends BDDFactory {
     bddlevel2var[num] = num;
 
     bdd_pairs_resize(oldbddvarnum, bddvarnum);
-    bdd_operator_varresize();
+    w.bdd_operator_varresize();
 
     return 0;
   }
@@ -4342,25 +5131,45 @@ public final class JFactory extends BDDFactory {
 
   @Override
   public void printAll() {
-    bdd_fprintall(System.out);
+    Worker self = beginExclusive();
+    try {
+      bdd_fprintall(System.out);
+    } finally {
+      endExclusive(self);
+    }
   }
 
   @Override
   public void printTable(BDD b) {
     int x = ((BDDImpl) b)._index;
-    bdd_fprinttable(System.out, x);
+    Worker self = beginExclusive();
+    try {
+      bdd_fprinttable(System.out, x);
+    } finally {
+      endExclusive(self);
+    }
   }
 
   @Override
   public BDD load(BufferedReader in, int[] translate) throws IOException {
-    int result = bdd_load(in, translate);
-    return makeBDD(result);
+    Worker self = beginExclusive();
+    try {
+      int result = bdd_load(in, translate);
+      return makeBDD(result);
+    } finally {
+      endExclusive(self);
+    }
   }
 
   @Override
   public void save(BufferedWriter out, BDD b) throws IOException {
     int x = ((BDDImpl) b)._index;
-    bdd_save(out, x);
+    Worker self = beginExclusive();
+    try {
+      bdd_save(out, x);
+    } finally {
+      endExclusive(self);
+    }
   }
 
   @Override
@@ -4375,7 +5184,12 @@ public final class JFactory extends BDDFactory {
 
   @Override
   public void setVarOrder(int[] neworder) {
-    bdd_setvarorder(neworder);
+    Worker self = beginExclusive();
+    try {
+      bdd_setvarorder(neworder);
+    } finally {
+      endExclusive(self);
+    }
   }
 
   private int[] extroots;
@@ -4568,7 +5382,7 @@ public final class JFactory extends BDDFactory {
           /* Node depends on next var - save it for later procesing */
           SETNEXT(r, toBeProcessed);
           toBeProcessed = r;
-          if (CACHESTATS) {
+          if (cachestatsEnabled) {
             cachestats.swapCount++;
           }
         }
@@ -4755,13 +5569,13 @@ public final class JFactory extends BDDFactory {
       /* Note: We know that low,high has a refcou greater than zero, so
       there is no need to add reference *recursively* */
       INCREF(low);
-      if (CACHESTATS) {
+      if (cachestatsEnabled) {
         cachestats.uniqueTrivial++;
       }
       return low;
     }
 
-    if (CACHESTATS) {
+    if (cachestatsEnabled) {
       cachestats.uniqueAccess++;
     }
 
@@ -4771,7 +5585,7 @@ public final class JFactory extends BDDFactory {
 
     while (res != 0) {
       if (LOW(res) == low && HIGH(res) == high) {
-        if (CACHESTATS) {
+        if (cachestatsEnabled) {
           cachestats.uniqueHit++;
         }
         INCREF(res);
@@ -4779,13 +5593,13 @@ public final class JFactory extends BDDFactory {
       }
       res = NEXT(res);
 
-      if (CACHESTATS) {
+      if (cachestatsEnabled) {
         cachestats.uniqueChain++;
       }
     }
 
     /* No existing node -> build one */
-    if (CACHESTATS) {
+    if (cachestatsEnabled) {
       cachestats.uniqueMiss++;
     }
 
@@ -4908,6 +5722,7 @@ public final class JFactory extends BDDFactory {
   }
 
   private void dup_level(int levToInsert, int val) {
+    Worker w = worker();
     for (int n = 2; n < bddnodesize; n++) {
       if (LOW(n) == INVALID_BDD) {
         continue;
@@ -4926,8 +5741,8 @@ public final class JFactory extends BDDFactory {
       int n_low, n_high;
       bdd_addref(n);
       // 0 = var is zero, 1 = var is one, -1 = var equals other
-      n_low = bdd_makenode(levToInsert + 1, val <= 0 ? lo : 0, val <= 0 ? 0 : lo);
-      n_high = bdd_makenode(levToInsert + 1, val == 0 ? hi : 0, val == 0 ? 0 : hi);
+      n_low = w.bdd_makenode(levToInsert + 1, val <= 0 ? lo : 0, val <= 0 ? 0 : lo);
+      n_high = w.bdd_makenode(levToInsert + 1, val == 0 ? hi : 0, val == 0 ? 0 : hi);
       bdd_delref(n);
       // System.out.println("Lev = "+lev+" old low = "+lo+" old high = "+hi+" new low = "+n_low+"
       // ("+new bdd(n_low)+") new high = "+n_high+" ("+new bdd(n_high)+")");
@@ -5132,7 +5947,16 @@ public final class JFactory extends BDDFactory {
       BDDImpl b = (BDDImpl) o;
       a[j++] = b._index;
     }
-    return bdd_anodecount(a);
+    Worker w = enter();
+    boolean stopped = stopWorld(w);
+    try {
+      return bdd_anodecount(a);
+    } finally {
+      if (stopped) {
+        resumeWorld();
+      }
+      exit(w);
+    }
   }
 
   @Override
@@ -5154,6 +5978,47 @@ public final class JFactory extends BDDFactory {
     return cachesize;
   }
 
+  @Override
+  public long getCacheEntries() {
+    long entries = 0;
+    for (Worker w : workers) {
+      for (BddCache cache : w.operatorCaches()) {
+        if (cache != null) {
+          entries += cache.tablesize;
+        }
+      }
+    }
+    return entries;
+  }
+
+  @Override
+  public CacheStats getCacheStats() {
+    if (!concurrent) {
+      return cachestats;
+    }
+    CacheStats stats = new CacheStats();
+    stats.copyFrom(cachestats);
+    addStats(stats, retiredstats);
+    for (Worker w : workers) {
+      addStats(stats, w.cachestats);
+    }
+    return stats;
+  }
+
+  private static void addStats(CacheStats to, CacheStats from) {
+    to.uniqueAccess += from.uniqueAccess;
+    to.uniqueChain += from.uniqueChain;
+    to.uniqueHit += from.uniqueHit;
+    to.uniqueMiss += from.uniqueMiss;
+    to.uniqueTrivial += from.uniqueTrivial;
+    to.opHit += from.opHit;
+    to.opMiss += from.opMiss;
+    to.opOverwrite += from.opOverwrite;
+    to.swapCount += from.swapCount;
+    to.resizeNum += from.resizeNum;
+    to.resizeTime += from.resizeTime;
+  }
+
   @Override
   public void printStat() {
     bdd_fprintstat(System.out);
@@ -5161,17 +6026,22 @@ public final class JFactory extends BDDFactory {
 
   @Override
   public BDDPairing makePair() {
-    bddPair p = new bddPair();
-    p.result = new int[bddvarnum];
-    for (int n = 0; n < bddvarnum; n++) {
-      p.result[n] = bdd_ithvar(bddlevel2var[n]);
-    }
+    Worker self = beginExclusive();
+    try {
+      bddPair p = new bddPair();
+      p.result = new int[bddvarnum];
+      for (int n = 0; n < bddvarnum; n++) {
+        p.result[n] = bdd_ithvar(bddlevel2var[n]);
+      }
 
-    p.id = update_pairsid();
-    p.last = -1;
+      p.id = update_pairsid();
+      p.last = -1;
 
-    bdd_register_pair(p);
-    return p;
+      bdd_register_pair(p);
+      return p;
+    } finally {
+      endExclusive(self);
+    }
   }
 
   private void bdd_fprintall(PrintStream out) {
@@ -5290,7 +6160,7 @@ public final class JFactory extends BDDFactory {
         return bdd_error(BDD_FORMAT);
       }
 
-      root = bdd_addref(bdd_ite(bdd_ithvar(var), high, low));
+      root = bdd_addref(worker().bdd_ite(bdd_ithvar(var), high, low));
 
       loadhash_add(key, root);
     }
@@ -1,12 +1,21 @@
 package net.sf.javabdd;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.Test;
 
 /** Tests of {@link JFactory}. */
@@ -446,4 +455,159 @@ public class JFactoryTest {
     int[] a4 = {1};
     assertEquals(JFactory.dedupSorted(a4), a4);
   }
+
+  /**
+   * Computes a BDD from a few hundred operations, freeing intermediate results so that the factory
+   * garbage collects and resizes its node table.
+   */
+  private static double churn(BDDFactory factory, int seed) {
+    BDD result = churnBdd(factory, seed);
+    double satCount = result.satCount();
+    result.free();
+    return satCount;
+  }
+
+  private static BDD churnBdd(BDDFactory factory, int seed) {
+    BDD result = factory.zero();
+    for (int i = 0; i < 200; i++) {
+      BDD cube = factory.one();
+      for (int var = 0; var < factory.varNum(); var++) {
+        if (((seed + i) * 31 + var * 17) % 3 == 0) {
+          cube.andWith(((i >> (var % 8)) & 1) == 0 ? factory.nithVar(var) : factory.ithVar(var));
+        }
+      }
+      result.orWith(cube);
+    }
+    return result;
+  }
+
+  @Test
+  public void testCacheStats() {
+    BDDFactory factory = JFactory.init(1000, 1000);
+    factory.setVarNum(20);
+    churn(factory, 0);
+    assertThat(factory.getCacheStats().opHit + factory.getCacheStats().opMiss, equalTo(0L));
+
+    assertFalse(factory.setCacheStatsEnabled(true));
+    churn(factory, 0);
+    assertThat(factory.getCacheStats().opMiss, greaterThan(0L));
+    assertThat(factory.getCacheStats().opHitRate(), lessThan(1.0));
+    assertTrue(factory.setCacheStatsEnabled(false));
+  }
+
+  @Test
+  public void testAdaptiveCacheSize() {
+    BDDFactory fixed = JFactory.init(1000, 10);
+    fixed.setVarNum(20);
+    churn(fixed, 0);
+    long fixedEntries = fixed.getCacheEntries();
+
+    BDDFactory adaptive = JFactory.init(1000, 10);
+    adaptive.setVarNum(20);
+    // adaptive sizing is opt-in
+    assertFalse(adaptive.setCacheAdaptive(true));
+    churn(adaptive, 0);
+    assertThat(adaptive.getCacheEntries(), greaterThan(fixedEntries));
+    assertThat(adaptive.getCacheStats().resizeNum, greaterThan(0));
+    // all operator caches together never outgrow the node table
+    assertThat(adaptive.getCacheEntries(), lessThanOrEqualTo((long) adaptive.getNodeTableSize()));
+  }
+
+  @Test
+  public void testAdaptiveCacheSizeWithCacheRatio() {
+    int cacheRatio = 64;
+    BDDFactory fixed = JFactory.init(1000, 1000);
+    fixed.setVarNum(20);
+    fixed.setCacheRatio(cacheRatio);
+    churn(fixed, 0);
+
+    BDDFactory adaptive = JFactory.init(1000, 1000);
+    adaptive.setVarNum(20);
+    adaptive.setCacheRatio(cacheRatio);
+    adaptive.setCacheAdaptive(true);
+    churn(adaptive, 0);
+    // thrashing caches grow individually; the ratio for the others is unchanged
+    assertThat(adaptive.getCacheSize(), equalTo(fixed.getCacheSize()));
+    assertThat(adaptive.getCacheEntries(), greaterThan(fixed.getCacheEntries()));
+    assertThat(adaptive.getCacheEntries(), lessThanOrEqualTo((long) adaptive.getNodeTableSize()));
+  }
+
+  @Test
+  public void testIsThreadSafe() {
+    assertFalse(_factory.isThreadSafe());
+    assertTrue(JFactory.initConcurrent(1000, 1000).isThreadSafe());
+  }
+
+  @Test
+  public void testConcurrentOperations() throws Exception {
+    int threads = 4;
+    int rounds = 20;
+    BDDFactory reference = JFactory.init(1000, 1000);
+    reference.setVarNum(20);
+    double[] expected = new double[threads + rounds];
+    for (int seed = 0; seed < expected.length; seed++) {
+      expected[seed] = churn(reference, seed);
+    }
+    // a small node table, so that the threads garbage collect and resize it while others operate
+    BDDFactory factory = JFactory.initConcurrent(1000, 1000);
+    factory.setVarNum(20);
+    BDD shared = churnBdd(factory, 0);
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<BDD>> results = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int seed = t;
+        results.add(
+            executor.submit(
+                () -> {
+                  for (int i = 0; i < rounds; i++) {
+                    assertThat(churn(factory, seed + i), equalTo(expected[seed + i]));
+                  }
+                  return churnBdd(factory, 0);
+                }));
+      }
+      for (Future<BDD> result : results) {
+        // BDDs are canonical across threads
+        assertThat(result.get(), equalTo(shared));
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertThat(factory.getGCStats().num, greaterThan(0));
+    assertThat(factory.getCacheStats().resizeNum, greaterThan(0));
+  }
+
+  @Test
+  public void testConcurrentFactoryChanges() throws Exception {
+    BDDFactory factory = JFactory.initConcurrent(1000, 1000);
+    factory.setVarNum(20);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<?> churning =
+          executor.submit(
+              () -> {
+                for (int i = 0; i < 20; i++) {
+                  churn(factory, i);
+                }
+              });
+      Future<?> changing =
+          executor.submit(
+              () -> {
+                for (int i = 0; i < 20; i++) {
+                  // pairings and variables can be changed while other threads operate
+                  factory.setVarNum(21 + i);
+                  BDDPairing pairing = factory.makePair(i, 20 + i);
+                  BDD var = factory.ithVar(i);
+                  assertThat(var.replace(pairing), equalTo(factory.ithVar(20 + i)));
+                  var.free();
+                }
+              });
+      churning.get();
+      changing.get();
+    } finally {
+      executor.shutdown();
+    }
+    assertThat(factory.varNum(), equalTo(40));
+  }
 }
@@ -0,0 +1,95 @@
+package org.batfish.benchmarks;
+
+import static org.batfish.datamodel.acl.AclLineMatchExprs.matchDst;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import net.sf.javabdd.BDD;
+import org.batfish.bddreachability.BDDReachabilityAnalysis;
+import org.batfish.common.NetworkSnapshot;
+import org.batfish.common.bdd.BDDPacket;
+import org.batfish.datamodel.FlowDisposition;
+import org.batfish.datamodel.UniverseIpSpace;
+import org.batfish.main.Batfish;
+import org.batfish.symbolic.state.Query;
+import org.batfish.symbolic.state.StateExpr;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the forward and backward fixpoints of {@link BDDReachabilityAnalysis} over the whole
+ * network, starting from every interface and interface link.
+ *
+ * <p>The data plane and the reachability graph are built once per trial, so only the fixpoint is
+ * measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+public class BDDReachabilityBenchmark {
+
+  @Param({"example/live", "fabric-4x32"})
+  public String snapshot;
+
+  private BenchmarkSnapshot _snapshot;
+  private BDDReachabilityAnalysis _analysis;
+  private Map<StateExpr, BDD> _forwardRoots;
+  private Map<StateExpr, BDD> _backwardRoots;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    _snapshot = BenchmarkSnapshot.load(snapshot);
+    Batfish batfish = _snapshot.getBatfish();
+    NetworkSnapshot networkSnapshot = _snapshot.getSnapshot();
+    batfish.computeDataPlane(networkSnapshot);
+    BDDPacket pkt = new BDDPacket();
+    _analysis =
+        batfish.getBddReachabilityAnalysis(
+            networkSnapshot,
+            pkt,
+            batfish.getAllSourcesInferFromLocationIpSpaceAssignment(networkSnapshot),
+            matchDst(UniverseIpSpace.INSTANCE),
+            ImmutableSet.of(),
+            ImmutableSet.of(),
+            batfish.loadConfigurations(networkSnapshot).keySet(),
+            ImmutableSet.of(FlowDisposition.ACCEPTED),
+            false);
+    BDD one = pkt.getFactory().one();
+    _forwardRoots =
+        _analysis.getIngressLocationStates().stream()
+            .collect(ImmutableMap.toImmutableMap(state -> state, state -> one));
+    _backwardRoots = ImmutableMap.of(Query.INSTANCE, one);
+  }
+
+  @TearDown(Level.Trial)
+  public void cleanup() {
+    _snapshot.close();
+  }
+
+  @Benchmark
+  public Map<StateExpr, BDD> computeForwardReachableStates() {
+    return _analysis.computeForwardReachableStates(_forwardRoots);
+  }
+
+  @Benchmark
+  public Map<StateExpr, BDD> computeReverseReachableStates() {
+    return _analysis.computeReverseReachableStates(_backwardRoots);
+  }
+}
@@ -0,0 +1,113 @@
+package org.batfish.benchmarks;
+
+import com.google.common.collect.ImmutableSortedMap;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SortedMap;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import org.batfish.common.BatfishLogger;
+import org.batfish.common.NetworkSnapshot;
+import org.batfish.config.Settings;
+import org.batfish.main.Batfish;
+import org.batfish.main.BatfishTestUtils;
+import org.batfish.main.TestrigText;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * A {@link Batfish} instance initialized with a single snapshot for benchmarking, backed by a
+ * temporary storage directory that is removed on {@link #close()}.
+ *
+ * <p>Snapshots are selected by name. Names of the form {@code fabric-<spines>x<leaves>} generate a
+ * {@link SyntheticFabric}; any other name is resolved as a snapshot directory (containing {@code
+ * configs/}, and optionally {@code hosts/} and {@code iptables/}) relative to the sample networks
+ * directory. That directory defaults to {@code networks} in the working directory and can be
+ * overridden with the {@value #NETWORKS_DIR_PROPERTY} system property.
+ */
+final class BenchmarkSnapshot implements Closeable {
+
+  static final String NETWORKS_DIR_PROPERTY = "batfish.benchmarks.networks";
+
+  private static final String SYNTHETIC_FABRIC_PREFIX = "fabric-";
+
+  private final Batfish _batfish;
+  private final TemporaryFolder _folder;
+
+  private BenchmarkSnapshot(Batfish batfish, TemporaryFolder folder) {
+    _batfish = batfish;
+    _folder = folder;
+  }
+
+  /** Creates a new {@link Batfish} for the snapshot with the given name. */
+  static @Nonnull BenchmarkSnapshot load(String name) throws IOException {
+    TestrigText testrigText =
+        name.startsWith(SYNTHETIC_FABRIC_PREFIX)
+            ? TestrigText.builder()
+                .setConfigurationText(SyntheticFabric.parse(name).getConfigurationText())
+                .build()
+            : readSnapshotDir(
+                Paths.get(System.getProperty(NETWORKS_DIR_PROPERTY, "networks")).resolve(name));
+    TemporaryFolder folder = new TemporaryFolder();
+    folder.create();
+    Batfish batfish = BatfishTestUtils.getBatfishFromTestrigText(testrigText, folder);
+    // The test settings are strict and verbose; benchmarks should tolerate real-world configs and
+    // keep logging out of the measurement.
+    Settings settings = batfish.getSettings();
+    settings.setDisableUnrecognized(false);
+    settings.setHaltOnConvertError(false);
+    settings.setHaltOnParseError(false);
+    settings.setThrowOnLexerError(false);
+    settings.setThrowOnParserError(false);
+    settings.setVerboseParse(false);
+    batfish.getLogger().setLogLevel(BatfishLogger.LEVELSTR_WARN);
+    return new BenchmarkSnapshot(batfish, folder);
+  }
+
+  @Nonnull
+  Batfish getBatfish() {
+    return _batfish;
+  }
+
+  @Nonnull
+  NetworkSnapshot getSnapshot() {
+    return _batfish.getSnapshot();
+  }
+
+  @Override
+  public void close() {
+    _folder.delete();
+  }
+
+  private static TestrigText readSnapshotDir(Path snapshotDir) throws IOException {
+    if (!Files.isDirectory(snapshotDir.resolve("configs"))) {
+      throw new IOException(
+          String.format(
+              "No snapshot at %s. Run from the repository root or set -D%s",
+              snapshotDir.toAbsolutePath(), NETWORKS_DIR_PROPERTY));
+    }
+    return TestrigText.builder()
+        .setConfigurationText(readFiles(snapshotDir.resolve("configs")))
+        .setHostsText(readFiles(snapshotDir.resolve("hosts")))
+        .setIptablesFilesText(readFiles(snapshotDir.resolve("iptables")))
+        .build();
+  }
+
+  private static SortedMap<String, String> readFiles(Path dir) throws IOException {
+    ImmutableSortedMap.Builder<String, String> files = ImmutableSortedMap.naturalOrder();
+    if (!Files.isDirectory(dir)) {
+      return files.build();
+    }
+    try (Stream<Path> paths = Files.list(dir)) {
+      for (Path path : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+        files.put(
+            path.getFileName().toString(),
+            new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+      }
+    }
+    return files.build();
+  }
+}
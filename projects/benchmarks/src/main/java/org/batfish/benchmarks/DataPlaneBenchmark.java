@@ -0,0 +1,57 @@
+package org.batfish.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.batfish.common.plugin.DataPlanePlugin.ComputeDataPlaneResult;
+import org.batfish.main.Batfish;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures computation of the data plane by the incremental batfish data plane engine.
+ *
+ * <p>Configurations and initial topologies are loaded (and cached by {@link Batfish}) during setup,
+ * so only the routing fixed point and FIB computation are measured.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@Fork(1)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+public class DataPlaneBenchmark {
+
+  @Param({"example/live", "fabric-4x32"})
+  public String snapshot;
+
+  private BenchmarkSnapshot _snapshot;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    _snapshot = BenchmarkSnapshot.load(snapshot);
+    Batfish batfish = _snapshot.getBatfish();
+    batfish.loadConfigurations(_snapshot.getSnapshot());
+    batfish.getTopologyProvider().getInitialLayer3Topology(_snapshot.getSnapshot());
+  }
+
+  @TearDown(Level.Trial)
+  public void cleanup() {
+    _snapshot.close();
+  }
+
+  @Benchmark
+  public ComputeDataPlaneResult computeDataPlane() {
+    return _snapshot.getBatfish().getDataPlanePlugin().computeDataPlane(_snapshot.getSnapshot());
+  }
+}
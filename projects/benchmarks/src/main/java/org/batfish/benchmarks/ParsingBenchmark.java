@@ -0,0 +1,55 @@
+package org.batfish.benchmarks;
+
+import java.io.IOException;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+import org.batfish.datamodel.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing of vendor configurations and their conversion to vendor-independent {@link
+ * Configuration Configurations}, including serialization of both to snapshot storage.
+ *
+ * <p>A fresh snapshot is created before every invocation since {@link
+ * org.batfish.main.Batfish#loadConfigurations} caches its result.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@Fork(1)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+public class ParsingBenchmark {
+
+  @Param({"example/live", "fabric-4x32"})
+  public String snapshot;
+
+  private BenchmarkSnapshot _snapshot;
+
+  @Setup(Level.Invocation)
+  public void setup() throws IOException {
+    _snapshot = BenchmarkSnapshot.load(snapshot);
+  }
+
+  @TearDown(Level.Invocation)
+  public void cleanup() {
+    _snapshot.close();
+  }
+
+  @Benchmark
+  public SortedMap<String, Configuration> parseAndConvert() {
+    return _snapshot.getBatfish().loadConfigurations(_snapshot.getSnapshot());
+  }
+}
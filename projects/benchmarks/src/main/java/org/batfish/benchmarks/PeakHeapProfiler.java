@@ -0,0 +1,52 @@
+package org.batfish.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * JMH profiler reporting the peak heap usage of each measured iteration, for sizing worker nodes.
+ *
+ * <p>Enable with {@code -prof org.batfish.benchmarks.PeakHeapProfiler}, typically alongside {@code
+ * -prof gc} for allocation rates. The reported value is the sum of the peak usage of every heap
+ * memory pool, which is an upper bound on the true simultaneous peak.
+ */
+public final class PeakHeapProfiler implements InternalProfiler {
+
+  private static final double MEGABYTE = 1024.0 * 1024.0;
+
+  private final List<MemoryPoolMXBean> _heapPools =
+      ManagementFactory.getMemoryPoolMXBeans().stream()
+          .filter(pool -> pool.getType() == MemoryType.HEAP && pool.isValid())
+          .collect(Collectors.toList());
+
+  @Override
+  public String getDescription() {
+    return "Peak heap usage per iteration";
+  }
+
+  @Override
+  public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+    _heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+  }
+
+  @Override
+  @SuppressWarnings("rawtypes") // JMH's profiler API uses the raw Result type
+  public Collection<? extends Result> afterIteration(
+      BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
+    long peakBytes = _heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+    return ImmutableList.of(
+        new ScalarResult("·heap.peak", peakBytes / MEGABYTE, "MB", AggregationPolicy.MAX));
+  }
+}
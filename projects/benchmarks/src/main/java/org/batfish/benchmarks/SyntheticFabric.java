@@ -0,0 +1,130 @@
+package org.batfish.benchmarks;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableSortedMap;
+import java.util.SortedMap;
+import javax.annotation.Nonnull;
+import org.batfish.datamodel.Ip;
+
+/**
+ * Generates text configurations for a synthetic two-tier leaf-spine fabric running OSPF, so that
+ * benchmarks can be scaled well past the size of the sample {@code networks/}.
+ *
+ * <p>Every leaf is connected to every spine by a point-to-point /31 link. Each leaf also owns a /24
+ * host subnet and every device has a /32 loopback, all advertised into OSPF area 0. The resulting
+ * data plane has {@code spines * leaves} equal-cost paths between any pair of leaves.
+ */
+final class SyntheticFabric {
+
+  private static final long LINK_BASE = Ip.parse("10.0.0.0").asLong();
+  private static final long LOOPBACK_BASE = Ip.parse("192.168.0.0").asLong();
+  private static final long HOST_SUBNET_BASE = Ip.parse("172.16.0.0").asLong();
+
+  private final int _numSpines;
+  private final int _numLeaves;
+
+  SyntheticFabric(int numSpines, int numLeaves) {
+    checkArgument(numSpines > 0 && numSpines <= 256, "numSpines must be in [1, 256]");
+    checkArgument(numLeaves > 0 && numLeaves <= 4096, "numLeaves must be in [1, 4096]");
+    _numSpines = numSpines;
+    _numLeaves = numLeaves;
+  }
+
+  /**
+   * Parses a fabric specification of the form {@code fabric-<spines>x<leaves>}, e.g. {@code
+   * fabric-4x32}.
+   */
+  static @Nonnull SyntheticFabric parse(String spec) {
+    String[] parts = spec.substring(spec.indexOf('-') + 1).split("x");
+    checkArgument(parts.length == 2, "Invalid fabric specification: %s", spec);
+    return new SyntheticFabric(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+  }
+
+  /** Returns a map from config filename to config text for every device in the fabric. */
+  @Nonnull
+  SortedMap<String, String> getConfigurationText() {
+    ImmutableSortedMap.Builder<String, String> configs = ImmutableSortedMap.naturalOrder();
+    for (int s = 0; s < _numSpines; s++) {
+      configs.put(spineName(s) + ".cfg", spineConfig(s));
+    }
+    for (int l = 0; l < _numLeaves; l++) {
+      configs.put(leafName(l) + ".cfg", leafConfig(l));
+    }
+    return configs.build();
+  }
+
+  private static String spineName(int spine) {
+    return "spine" + spine;
+  }
+
+  private static String leafName(int leaf) {
+    return "leaf" + leaf;
+  }
+
+  /** Address of the leaf end of the link between {@code leaf} and {@code spine}. */
+  private Ip leafLinkIp(int leaf, int spine) {
+    return Ip.create(LINK_BASE + 2L * ((long) leaf * _numSpines + spine));
+  }
+
+  /** Address of the spine end of the link between {@code leaf} and {@code spine}. */
+  private Ip spineLinkIp(int leaf, int spine) {
+    return Ip.create(leafLinkIp(leaf, spine).asLong() + 1);
+  }
+
+  private static Ip spineLoopback(int spine) {
+    return Ip.create(LOOPBACK_BASE + spine);
+  }
+
+  private static Ip leafLoopback(int leaf) {
+    return Ip.create(LOOPBACK_BASE + 256 + leaf);
+  }
+
+  private static Ip leafHostGateway(int leaf) {
+    return Ip.create(HOST_SUBNET_BASE + 256L * leaf + 1);
+  }
+
+  private String spineConfig(int spine) {
+    StringBuilder sb = new StringBuilder();
+    header(sb, spineName(spine));
+    iface(sb, "Loopback0", spineLoopback(spine), "255.255.255.255", false);
+    for (int l = 0; l < _numLeaves; l++) {
+      iface(sb, "Ethernet" + (l + 1), spineLinkIp(l, spine), "255.255.255.254", true);
+    }
+    ospf(sb, spineLoopback(spine));
+    return sb.toString();
+  }
+
+  private String leafConfig(int leaf) {
+    StringBuilder sb = new StringBuilder();
+    header(sb, leafName(leaf));
+    iface(sb, "Loopback0", leafLoopback(leaf), "255.255.255.255", false);
+    iface(sb, "Ethernet0", leafHostGateway(leaf), "255.255.255.0", false);
+    for (int s = 0; s < _numSpines; s++) {
+      iface(sb, "Ethernet" + (s + 1), leafLinkIp(leaf, s), "255.255.255.254", true);
+    }
+    ospf(sb, leafLoopback(leaf));
+    return sb.toString();
+  }
+
+  private static void header(StringBuilder sb, String hostname) {
+    sb.append("!\n").append("hostname ").append(hostname).append("\n!\n");
+  }
+
+  private static void iface(
+      StringBuilder sb, String name, Ip address, String mask, boolean pointToPoint) {
+    sb.append("interface ").append(name).append('\n');
+    sb.append(" ip address ").append(address).append(' ').append(mask).append('\n');
+    if (pointToPoint) {
+      sb.append(" ip ospf network point-to-point\n");
+    }
+    sb.append("!\n");
+  }
+
+  private static void ospf(StringBuilder sb, Ip routerId) {
+    sb.append("router ospf 1\n");
+    sb.append(" router-id ").append(routerId).append('\n');
+    sb.append(" network 0.0.0.0 255.255.255.255 area 0\n");
+    sb.append("!\n");
+  }
+}
@@ -0,0 +1,112 @@
+package org.batfish.benchmarks;
+
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+import org.batfish.common.NetworkSnapshot;
+import org.batfish.common.plugin.TracerouteEngine;
+import org.batfish.datamodel.ConcreteInterfaceAddress;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.Interface;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpProtocol;
+import org.batfish.datamodel.flow.TraceAndReverseFlow;
+import org.batfish.dataplane.TracerouteEngineImpl;
+import org.batfish.main.Batfish;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures tracing of concrete flows through {@link TracerouteEngineImpl} (and thus {@code
+ * FlowTracer}).
+ *
+ * <p>The flow set contains a TCP flow from the default VRF of every node to every active interface
+ * address in the network, truncated to {@link #maxFlows} flows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+public class TracerouteBenchmark {
+
+  @Param({"example/live", "fabric-4x32"})
+  public String snapshot;
+
+  @Param({"10000"})
+  public int maxFlows;
+
+  private BenchmarkSnapshot _snapshot;
+  private TracerouteEngine _engine;
+  private Set<Flow> _flows;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    _snapshot = BenchmarkSnapshot.load(snapshot);
+    Batfish batfish = _snapshot.getBatfish();
+    NetworkSnapshot networkSnapshot = _snapshot.getSnapshot();
+    batfish.computeDataPlane(networkSnapshot);
+    _engine =
+        new TracerouteEngineImpl(
+            batfish.loadDataPlane(networkSnapshot),
+            batfish.getTopologyProvider().getLayer3Topology(networkSnapshot));
+    _flows = computeFlows(batfish.loadConfigurations(networkSnapshot), maxFlows);
+  }
+
+  @TearDown(Level.Trial)
+  public void cleanup() {
+    _snapshot.close();
+  }
+
+  @Benchmark
+  public SortedMap<Flow, List<TraceAndReverseFlow>> computeTracesAndReverseFlows() {
+    return _engine.computeTracesAndReverseFlows(_flows, ImmutableSet.of(), false);
+  }
+
+  private static Set<Flow> computeFlows(Map<String, Configuration> configs, int maxFlows) {
+    Set<Ip> dstIps =
+        configs.values().stream()
+            .flatMap(c -> c.getActiveInterfaces().values().stream())
+            .map(Interface::getConcreteAddress)
+            .filter(address -> address != null)
+            .map(ConcreteInterfaceAddress::getIp)
+            .collect(ImmutableSet.toImmutableSet());
+    ImmutableSet.Builder<Flow> flows = ImmutableSet.builder();
+    int numFlows = 0;
+    for (String node : configs.keySet()) {
+      for (Ip dstIp : dstIps) {
+        if (numFlows++ >= maxFlows) {
+          return flows.build();
+        }
+        flows.add(
+            Flow.builder()
+                .setIngressNode(node)
+                .setIngressVrf(Configuration.DEFAULT_VRF_NAME)
+                .setSrcIp(Ip.parse("1.1.1.1"))
+                .setDstIp(dstIp)
+                .setIpProtocol(IpProtocol.TCP)
+                .setSrcPort(49152)
+                .setDstPort(22)
+                .build());
+      }
+    }
+    return flows.build();
+  }
+}
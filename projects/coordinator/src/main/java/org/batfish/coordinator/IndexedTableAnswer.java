@@ -0,0 +1,237 @@
+package org.batfish.coordinator;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.common.AnswerRowsOptions;
+import org.batfish.common.ColumnFilter;
+import org.batfish.common.ColumnSortOption;
+import org.batfish.datamodel.answers.AnswerSummary;
+import org.batfish.datamodel.table.ColumnMetadata;
+import org.batfish.datamodel.table.Row;
+import org.batfish.datamodel.table.TableAnswerElement;
+import org.batfish.datamodel.table.TableMetadata;
+import org.batfish.datamodel.table.TableView;
+import org.batfish.datamodel.table.TableViewRow;
+
+/**
+ * A {@link TableAnswerElement} indexed for serving pages of its rows, as requested by {@link
+ * AnswerRowsOptions}.
+ *
+ * <p>Column values are indexed column by column, on first use: the lower-cased text of each value
+ * (for {@link ColumnFilter filters}), and the rank of each value in the column's sort order (for
+ * {@link ColumnSortOption sorting}). The order of the rows selected by a combination of filters and
+ * sort order is memoized, so paging through that selection only materializes the requested rows.
+ */
+@ParametersAreNonnullByDefault
+final class IndexedTableAnswer {
+
+  /** The rows selected by a combination of filters and sort order. */
+  private static final class Selection {
+    private final @Nonnull List<ColumnFilter> _filters;
+    private final @Nonnull List<ColumnSortOption> _sortOrder;
+
+    private Selection(List<ColumnFilter> filters, List<ColumnSortOption> sortOrder) {
+      _filters = filters;
+      _sortOrder = sortOrder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      } else if (!(o instanceof Selection)) {
+        return false;
+      }
+      Selection selection = (Selection) o;
+      return _filters.equals(selection._filters) && _sortOrder.equals(selection._sortOrder);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_filters, _sortOrder);
+    }
+  }
+
+  private final @Nonnull Function<ColumnMetadata, Comparator<Row>> _columnComparator;
+  private final @Nonnull Map<String, ColumnMetadata> _columnMap;
+  private final @Nonnull List<Row> _rows;
+  private final @Nonnull TableAnswerElement _table;
+
+  /** Column name -> lower-cased text of each row's value in the column. */
+  private final @Nonnull Map<String, String[]> _filterTexts;
+
+  /** Column name -> rank of each row's value in the column's sort order. */
+  private final @Nonnull Map<String, int[]> _sortRanks;
+
+  // Maximum size 16: Just some upper bound on the number of ways a table is viewed at once.
+  private final @Nonnull Cache<Selection, int[]> _selections;
+
+  /**
+   * @param table the table to index
+   * @param columnComparator the comparator of rows by their values in a given column
+   */
+  IndexedTableAnswer(
+      TableAnswerElement table, Function<ColumnMetadata, Comparator<Row>> columnComparator) {
+    _table = table;
+    _columnComparator = columnComparator;
+    _columnMap = table.getMetadata().toColumnMap();
+    _rows = ImmutableList.copyOf(table.getRowsList());
+    _filterTexts = new ConcurrentHashMap<>();
+    _sortRanks = new ConcurrentHashMap<>();
+    _selections = CacheBuilder.newBuilder().maximumSize(16).build();
+  }
+
+  /**
+   * Return a table of the rows selected by {@code options}. Its summary reports the number of rows
+   * that matched the filters.
+   */
+  @Nonnull
+  TableAnswerElement getTable(AnswerRowsOptions options) {
+    int[] selected = select(options);
+    TableAnswerElement table = new TableAnswerElement(getTableMetadata(options));
+    page(selected, options).forEach(i -> table.addRow(getRow(i, options)));
+    table.setSummary(getSummary(selected.length));
+    return table;
+  }
+
+  /**
+   * Return a view of the rows selected by {@code options}, identified by their index in the
+   * original table. Its summary reports the number of rows that matched the filters.
+   */
+  @Nonnull
+  TableView getTableView(AnswerRowsOptions options) {
+    int[] selected = select(options);
+    TableView tableView =
+        new TableView(
+            options,
+            page(selected, options)
+                .mapToObj(i -> new TableViewRow(i, getRow(i, options)))
+                .collect(ImmutableList.toImmutableList()),
+            getTableMetadata(options));
+    tableView.setSummary(getSummary(selected.length));
+    return tableView;
+  }
+
+  /** Return the indices of the rows matching the filters of {@code options}, in sorted order. */
+  private @Nonnull int[] select(AnswerRowsOptions options) {
+    Selection selection = new Selection(options.getFilters(), options.getSortOrder());
+    int[] selected = _selections.getIfPresent(selection);
+    if (selected == null) {
+      selected = sort(filter(options.getFilters()), options.getSortOrder());
+      _selections.put(selection, selected);
+    }
+    return selected;
+  }
+
+  private @Nonnull int[] filter(List<ColumnFilter> filters) {
+    IntStream rowIds = IntStream.range(0, _rows.size());
+    for (ColumnFilter filter : filters) {
+      String[] texts = getFilterTexts(filter.getColumn());
+      String filterText = filter.getFilterText().toLowerCase();
+      rowIds = rowIds.filter(i -> texts[i].contains(filterText));
+    }
+    return rowIds.toArray();
+  }
+
+  /** Stable sort of the given rows. */
+  private @Nonnull int[] sort(int[] rowIds, List<ColumnSortOption> sortOrder) {
+    if (sortOrder.isEmpty()) {
+      return rowIds;
+    }
+    Comparator<Integer> comparator = null;
+    for (ColumnSortOption columnSortOption : sortOrder) {
+      int[] ranks = getSortRanks(columnSortOption.getColumn());
+      Comparator<Integer> columnComparator = Comparator.comparingInt(i -> ranks[i]);
+      if (columnSortOption.getReversed()) {
+        columnComparator = columnComparator.reversed();
+      }
+      comparator =
+          comparator == null ? columnComparator : comparator.thenComparing(columnComparator);
+    }
+    Integer[] sorted = Arrays.stream(rowIds).boxed().toArray(Integer[]::new);
+    Arrays.sort(sorted, comparator);
+    return Arrays.stream(sorted).mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Return the indices of the selected rows on the page requested by {@code options}, dropping
+   * duplicate rows if requested.
+   */
+  private @Nonnull IntStream page(int[] selected, AnswerRowsOptions options) {
+    IntStream rowIds = Arrays.stream(selected);
+    if (options.getUniqueRows()) {
+      Set<Row> seen = new HashSet<>();
+      rowIds = rowIds.filter(i -> seen.add(getRow(i, options)));
+    }
+    return rowIds.skip(options.getRowOffset()).limit(options.getMaxRows());
+  }
+
+  /** Return the given row, projected to the columns requested by {@code options}. */
+  private @Nonnull Row getRow(int rowId, AnswerRowsOptions options) {
+    Row row = _rows.get(rowId);
+    return options.getColumns().isEmpty()
+        ? row
+        : Row.builder().putAll(row, options.getColumns()).build();
+  }
+
+  private @Nonnull TableMetadata getTableMetadata(AnswerRowsOptions options) {
+    if (options.getColumns().isEmpty()) {
+      return _table.getMetadata();
+    }
+    Map<String, ColumnMetadata> columnMap = new LinkedHashMap<>(_columnMap);
+    columnMap.keySet().retainAll(options.getColumns());
+    return new TableMetadata(
+        ImmutableList.copyOf(columnMap.values()), _table.getMetadata().getTextDesc());
+  }
+
+  /** Return a copy of the table's summary, so that the table itself is not modified. */
+  private @Nonnull AnswerSummary getSummary(int numResults) {
+    AnswerSummary summary = _table.getSummary();
+    return summary == null
+        ? new AnswerSummary("", 0, 0, numResults)
+        : new AnswerSummary(
+            summary.getNotes(), summary.getNumFailed(), summary.getNumPassed(), numResults);
+  }
+
+  private @Nonnull String[] getFilterTexts(String column) {
+    return _filterTexts.computeIfAbsent(
+        column,
+        c -> _rows.stream().map(row -> row.get(c).toString().toLowerCase()).toArray(String[]::new));
+  }
+
+  /**
+   * Return the rank of each row's value in {@code column}, such that comparing ranks is equivalent
+   * to comparing values.
+   */
+  private @Nonnull int[] getSortRanks(String column) {
+    return _sortRanks.computeIfAbsent(
+        column,
+        c -> {
+          Comparator<Row> comparator = _columnComparator.apply(_columnMap.get(c));
+          Integer[] sorted = IntStream.range(0, _rows.size()).boxed().toArray(Integer[]::new);
+          Arrays.sort(sorted, (i, j) -> comparator.compare(_rows.get(i), _rows.get(j)));
+          int[] ranks = new int[sorted.length];
+          for (int k = 1; k < sorted.length; k++) {
+            Row previous = _rows.get(sorted[k - 1]);
+            Row current = _rows.get(sorted[k]);
+            ranks[sorted[k]] =
+                ranks[sorted[k - 1]] + (comparator.compare(previous, current) == 0 ? 0 : 1);
+          }
+          return ranks;
+        });
+  }
+}
@@ -20,12 +20,13 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Comparators;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.ImmutableSortedSet;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.errorprone.annotations.MustBeClosed;
 import io.opentracing.ActiveSpan;
@@ -49,7 +50,6 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -80,7 +80,6 @@ import org.batfish.common.BatfishException;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.BfConsts;
 import org.batfish.common.BfConsts.TaskStatus;
-import org.batfish.common.ColumnSortOption;
 import org.batfish.common.CompletionMetadata;
 import org.batfish.common.Container;
 import org.batfish.common.CoordConsts.WorkStatusCode;
@@ -112,7 +111,6 @@ import org.batfish.datamodel.answers.AnswerElement;
 import org.batfish.datamodel.answers.AnswerMetadata;
 import org.batfish.datamodel.answers.AnswerMetadataUtil;
 import org.batfish.datamodel.answers.AnswerStatus;
-import org.batfish.datamodel.answers.AnswerSummary;
 import org.batfish.datamodel.answers.AutoCompleteUtils;
 import org.batfish.datamodel.answers.AutocompleteSuggestion;
 import org.batfish.datamodel.answers.InputValidationNotes;
@@ -138,7 +136,6 @@ import org.batfish.datamodel.table.Row;
 import org.batfish.datamodel.table.TableAnswerElement;
 import org.batfish.datamodel.table.TableMetadata;
 import org.batfish.datamodel.table.TableView;
-import org.batfish.datamodel.table.TableViewRow;
 import org.batfish.identifiers.AnalysisId;
 import org.batfish.identifiers.AnswerId;
 import org.batfish.identifiers.IssueSettingsId;
@@ -247,6 +244,16 @@ public class WorkMgr extends AbstractCoordinator {
 
   private final StorageProvider _storage;
 
+  /**
+   * Successful answers whose rows were recently requested, keyed by their final answer ID, with
+   * their tables indexed for serving further requests for rows. Answer IDs are derived from all
+   * inputs to an answer, so a cached answer is never stale.
+   */
+  // Soft values: let it be garbage collected in times of pressure.
+  // Maximum size 16: Just some upper bound on the number of answers paged through at once.
+  private final Cache<AnswerId, IndexedAnswer> _indexedAnswers =
+      CacheBuilder.newBuilder().softValues().maximumSize(16).build();
+
   public WorkMgr(
       Settings settings,
       BatfishLogger logger,
@@ -855,21 +862,96 @@ public class WorkMgr extends AbstractCoordinator {
       }
       return answer;
     } catch (IOException e) {
-      String message =
-          String.format(
-              "Could not get answer: network=%s, snapshot=%s, question=%s, referenceSnapshot=%s, analysis=%s: %s",
-              network,
-              snapshot,
-              question,
-              referenceSnapshot,
-              analysis,
-              Throwables.getStackTraceAsString(e));
-      Answer ans = Answer.failureAnswer(message, null);
-      ans.setStatus(AnswerStatus.FAILURE);
-      return BatfishObjectMapper.writeString(ans);
+      return BatfishObjectMapper.writeString(
+          loadAnswerFailure(network, snapshot, question, referenceSnapshot, analysis, e));
     }
   }
 
+  private static @Nonnull Answer loadAnswerFailure(
+      String network,
+      String snapshot,
+      String question,
+      @Nullable String referenceSnapshot,
+      @Nullable String analysis,
+      IOException e) {
+    String message =
+        String.format(
+            "Could not get answer: network=%s, snapshot=%s, question=%s, referenceSnapshot=%s, analysis=%s: %s",
+            network,
+            snapshot,
+            question,
+            referenceSnapshot,
+            analysis,
+            Throwables.getStackTraceAsString(e));
+    Answer ans = Answer.failureAnswer(message, null);
+    ans.setStatus(AnswerStatus.FAILURE);
+    return ans;
+  }
+
+  /**
+   * Get the rows of the answer to the specified question, filtered, sorted, and paged according to
+   * {@code options}. The answer is loaded and indexed only on the first request for its rows, so
+   * paging through a large answer does not read it from storage again for each page.
+   *
+   * @throws IllegalArgumentException if the network, question, analysis, or snapshots cannot be
+   *     found
+   */
+  public @Nonnull Answer getAnswerRows(
+      String network,
+      String snapshot,
+      String question,
+      @Nullable String referenceSnapshot,
+      @Nullable String analysis,
+      AnswerRowsOptions options) {
+    try {
+      return processAnswerRows(
+          getIndexedAnswer(network, snapshot, question, referenceSnapshot, analysis), options);
+    } catch (IOException e) {
+      return loadAnswerFailure(network, snapshot, question, referenceSnapshot, analysis, e);
+    }
+  }
+
+  /**
+   * Like {@link #getAnswerRows}, but returns the selected rows as a {@link TableView}.
+   *
+   * @throws IllegalArgumentException if the network, question, analysis, or snapshots cannot be
+   *     found
+   */
+  public @Nonnull Answer getAnswerRows2(
+      String network,
+      String snapshot,
+      String question,
+      @Nullable String referenceSnapshot,
+      @Nullable String analysis,
+      AnswerRowsOptions options) {
+    try {
+      return processAnswerRows2(
+          getIndexedAnswer(network, snapshot, question, referenceSnapshot, analysis), options);
+    } catch (IOException e) {
+      return loadAnswerFailure(network, snapshot, question, referenceSnapshot, analysis, e);
+    }
+  }
+
+  /**
+   * Get a stream from which the JSON-serialized answer for the specified question may be read.
+   * Returns {@code null} if the question is not answered.
+   *
+   * @throws IllegalArgumentException if the network, question, analysis, or snapshots cannot be
+   *     found
+   * @throws IOException if there are any other errors
+   */
+  @MustBeClosed
+  public @Nullable InputStream getAnswerStream(
+      String network,
+      String snapshot,
+      String question,
+      @Nullable String referenceSnapshot,
+      @Nullable String analysis)
+      throws IOException {
+    AnswerId answerId = getFinalAnswerId(network, snapshot, question, referenceSnapshot, analysis);
+    return answerId == null ? null : _storage.loadAnswerStream(answerId);
+  }
+
   /**
    * Get the answer string for the specified question. Returns {@code null} if the question is not
    * answered.
@@ -881,6 +963,21 @@ public class WorkMgr extends AbstractCoordinator {
       @Nullable String referenceSnapshot,
       @Nullable String analysis)
       throws IOException {
+    AnswerId answerId = getFinalAnswerId(network, snapshot, question, referenceSnapshot, analysis);
+    return answerId == null ? null : _storage.loadAnswer(answerId);
+  }
+
+  /**
+   * Get the ID of the up-to-date answer for the specified question. Returns {@code null} if the
+   * question is not answered.
+   */
+  private @Nullable AnswerId getFinalAnswerId(
+      String network,
+      String snapshot,
+      String question,
+      @Nullable String referenceSnapshot,
+      @Nullable String analysis)
+      throws IOException {
     NetworkId networkId = _idManager.getNetworkId(network);
     AnalysisId analysisId = analysis != null ? _idManager.getAnalysisId(analysis, networkId) : null;
     QuestionId questionId = _idManager.getQuestionId(question, networkId, analysisId);
@@ -904,16 +1001,14 @@ public class WorkMgr extends AbstractCoordinator {
       return null;
     }
     AnswerMetadata baseAnswerMetadata = _storage.loadAnswerMetadata(baseAnswerId);
-    AnswerId finalAnswerId =
-        computeFinalAnswerAndId(
-            baseAnswerMetadata,
-            networkId,
-            snapshotId,
-            questionId,
-            baseAnswerId,
-            referenceSnapshotId,
-            analysisId);
-    return _storage.loadAnswer(finalAnswerId);
+    return computeFinalAnswerAndId(
+        baseAnswerMetadata,
+        networkId,
+        snapshotId,
+        questionId,
+        baseAnswerId,
+        referenceSnapshotId,
+        analysisId);
   }
 
   /**
@@ -1077,6 +1172,41 @@ public class WorkMgr extends AbstractCoordinator {
     return result.build();
   }
 
+  /**
+   * Get the rows of the answers to the specified analysis questions, filtered, sorted, and paged
+   * according to the options in {@code answersRowsOptions}. See {@link #getAnswerRows}.
+   */
+  public @Nonnull Map<String, Answer> getAnalysisAnswersRows(
+      String network,
+      String snapshot,
+      @Nullable String referenceSnapshot,
+      String analysis,
+      Map<String, AnswerRowsOptions> answersRowsOptions) {
+    Set<String> questions =
+        answersRowsOptions.isEmpty()
+            ? listAnalysisQuestions(network, analysis)
+            : answersRowsOptions.keySet();
+    ImmutableSortedMap.Builder<String, Answer> result = ImmutableSortedMap.naturalOrder();
+    for (String questionName : questions) {
+      try {
+        result.put(
+            questionName,
+            getAnswerRows(
+                network,
+                snapshot,
+                questionName,
+                referenceSnapshot,
+                analysis,
+                answersRowsOptions.get(questionName)));
+      } catch (Exception e) {
+        _logger.errorf(
+            "Got exception in getAnalysisAnswersRows: %s\n", Throwables.getStackTraceAsString(e));
+        result.put(questionName, Answer.failureAnswer(e.getMessage(), null));
+      }
+    }
+    return result.build();
+  }
+
   public @Nonnull Map<String, AnswerMetadata> getAnalysisAnswersMetadata(
       String network,
       String snapshot,
@@ -2443,29 +2573,102 @@ public class WorkMgr extends AbstractCoordinator {
                 rawAnswersEntry.getValue(), answersRowsOptions.get(rawAnswersEntry.getKey())));
   }
 
+  /** A parsed answer, with its table (if it is a successful table answer) indexed. */
+  private static final class IndexedAnswer {
+    private final @Nonnull Answer _answer;
+    private final @Nullable IndexedTableAnswer _table;
+
+    private IndexedAnswer(Answer answer, @Nullable IndexedTableAnswer table) {
+      _answer = answer;
+      _table = table;
+    }
+  }
+
+  /**
+   * Get the indexed up-to-date answer for the specified question, loading it from storage unless
+   * it was recently requested. Returns {@code null} if the question is not answered.
+   */
+  private @Nullable IndexedAnswer getIndexedAnswer(
+      String network,
+      String snapshot,
+      String question,
+      @Nullable String referenceSnapshot,
+      @Nullable String analysis)
+      throws IOException {
+    AnswerId answerId = getFinalAnswerId(network, snapshot, question, referenceSnapshot, analysis);
+    if (answerId == null) {
+      return null;
+    }
+    IndexedAnswer indexedAnswer = _indexedAnswers.getIfPresent(answerId);
+    if (indexedAnswer != null) {
+      return indexedAnswer;
+    }
+    indexedAnswer = indexAnswer(_storage.loadAnswer(answerId));
+    // Unsuccessful answers have no rows to page through, so are not worth caching
+    if (indexedAnswer._answer.getStatus() == AnswerStatus.SUCCESS) {
+      _indexedAnswers.put(answerId, indexedAnswer);
+    }
+    return indexedAnswer;
+  }
+
+  private @Nonnull IndexedAnswer indexAnswer(String rawAnswerStr) throws IOException {
+    Answer answer =
+        BatfishObjectMapper.mapper().readValue(rawAnswerStr, new TypeReference<Answer>() {});
+    if (answer.getStatus() != AnswerStatus.SUCCESS) {
+      return new IndexedAnswer(answer, null);
+    }
+    AnswerElement answerElement = answer.getAnswerElements().get(0);
+    return new IndexedAnswer(
+        answer,
+        answerElement instanceof TableAnswerElement
+            ? new IndexedTableAnswer((TableAnswerElement) answerElement, this::columnComparator)
+            : null);
+  }
+
+  private static @Nonnull Answer notFoundAnswer() {
+    Answer answer = Answer.failureAnswer("Not found", null);
+    answer.setStatus(AnswerStatus.NOTFOUND);
+    return answer;
+  }
+
   @VisibleForTesting
   @Nonnull
   Answer processAnswerRows(String rawAnswerStr, AnswerRowsOptions options) {
     if (rawAnswerStr == null) {
-      Answer answer = Answer.failureAnswer("Not found", null);
-      answer.setStatus(AnswerStatus.NOTFOUND);
-      return answer;
+      return notFoundAnswer();
+    }
+    IndexedAnswer indexedAnswer;
+    try {
+      indexedAnswer = indexAnswer(rawAnswerStr);
+    } catch (Exception e) {
+      _logger.errorf("Failed to convert answer string to Answer: %s", e.getMessage());
+      return Answer.failureAnswer(e.getMessage(), null);
+    }
+    return processAnswerRows(indexedAnswer, options);
+  }
+
+  private @Nonnull Answer processAnswerRows(
+      @Nullable IndexedAnswer indexedAnswer, AnswerRowsOptions options) {
+    if (indexedAnswer == null) {
+      return notFoundAnswer();
+    }
+    Answer rawAnswer = indexedAnswer._answer;
+    // If the AnswerStatus is not SUCCESS, the answer cannot have any AnswerElements related to
+    // actual answers (but, e.g., it might have a BatfishStackTrace). Return that as-is.
+    if (rawAnswer.getStatus() != AnswerStatus.SUCCESS) {
+      return rawAnswer;
+    }
+    if (indexedAnswer._table == null) {
+      _logger.errorf("Answer is not a table\n");
+      return Answer.failureAnswer("Answer is not a table", null);
     }
     try {
-      Answer rawAnswer =
-          BatfishObjectMapper.mapper().readValue(rawAnswerStr, new TypeReference<Answer>() {});
-      // If the AnswerStatus is not SUCCESS, the answer cannot have any AnswerElements related to
-      // actual answers (but, e.g., it might have a BatfishStackTrace). Return that as-is.
-      if (rawAnswer.getStatus() != AnswerStatus.SUCCESS) {
-        return rawAnswer;
-      }
-      TableAnswerElement rawTable = (TableAnswerElement) rawAnswer.getAnswerElements().get(0);
       Answer answer = new Answer();
       answer.setStatus(rawAnswer.getStatus());
-      answer.addAnswerElement(processAnswerTable(rawTable, options));
+      answer.addAnswerElement(indexedAnswer._table.getTable(options));
       return answer;
     } catch (Exception e) {
-      _logger.errorf("Failed to convert answer string to Answer: %s", e.getMessage());
+      _logger.errorf("Failed to process answer rows: %s", e.getMessage());
       return Answer.failureAnswer(e.getMessage(), null);
     }
   }
@@ -2474,24 +2677,39 @@ public class WorkMgr extends AbstractCoordinator {
   @Nonnull
   Answer processAnswerRows2(String rawAnswerStr, AnswerRowsOptions options) {
     if (rawAnswerStr == null) {
-      Answer answer = Answer.failureAnswer("Not found", null);
-      answer.setStatus(AnswerStatus.NOTFOUND);
-      return answer;
+      return notFoundAnswer();
     }
+    IndexedAnswer indexedAnswer;
     try {
-      Answer rawAnswer =
-          BatfishObjectMapper.mapper().readValue(rawAnswerStr, new TypeReference<Answer>() {});
-      // If the AnswerStatus is not SUCCESS, the answer cannot have any AnswerElements related to
-      // actual answers (but, e.g., it might have a BatfishStackTrace). Return that as-is.
-      if (rawAnswer.getStatus() != AnswerStatus.SUCCESS) {
-        return rawAnswer;
-      }
-      return filterAnswer(rawAnswer, options);
+      indexedAnswer = indexAnswer(rawAnswerStr);
     } catch (Exception e) {
       _logger.errorf(
           "Failed to convert answer string to Answer: %s\n", Throwables.getStackTraceAsString(e));
       return Answer.failureAnswer(e.getMessage(), null);
     }
+    return processAnswerRows2(indexedAnswer, options);
+  }
+
+  private @Nonnull Answer processAnswerRows2(
+      @Nullable IndexedAnswer indexedAnswer, AnswerRowsOptions options) {
+    if (indexedAnswer == null) {
+      return notFoundAnswer();
+    }
+    Answer rawAnswer = indexedAnswer._answer;
+    // If the AnswerStatus is not SUCCESS, the answer cannot have any AnswerElements related to
+    // actual answers (but, e.g., it might have a BatfishStackTrace). Return that as-is.
+    if (rawAnswer.getStatus() != AnswerStatus.SUCCESS || indexedAnswer._table == null) {
+      return rawAnswer;
+    }
+    try {
+      Answer answer = new Answer();
+      answer.setStatus(rawAnswer.getStatus());
+      answer.addAnswerElement(indexedAnswer._table.getTableView(options));
+      return answer;
+    } catch (Exception e) {
+      _logger.errorf("Failed to process answer rows: %s\n", Throwables.getStackTraceAsString(e));
+      return Answer.failureAnswer(e.getMessage(), null);
+    }
   }
 
   /** Filter the supplied rawAnswer based on the options provided */
@@ -2510,117 +2728,13 @@ public class WorkMgr extends AbstractCoordinator {
   @VisibleForTesting
   @Nonnull
   TableAnswerElement processAnswerTable(TableAnswerElement rawTable, AnswerRowsOptions options) {
-    Map<String, ColumnMetadata> rawColumnMap = rawTable.getMetadata().toColumnMap();
-    List<Row> filteredRows =
-        rawTable.getRowsList().stream()
-            .filter(row -> options.getFilters().stream().allMatch(filter -> filter.matches(row)))
-            .collect(ImmutableList.toImmutableList());
-
-    Stream<Row> rowStream = filteredRows.stream();
-    if (!options.getSortOrder().isEmpty()) {
-      // sort using specified sort order
-      rowStream = rowStream.sorted(buildComparator(rawColumnMap, options.getSortOrder()));
-    }
-    TableAnswerElement table;
-    if (options.getColumns().isEmpty()) {
-      table = new TableAnswerElement(rawTable.getMetadata());
-    } else {
-      // project to desired columns
-      rowStream =
-          rowStream.map(rawRow -> Row.builder().putAll(rawRow, options.getColumns()).build());
-      Map<String, ColumnMetadata> columnMap = new LinkedHashMap<>(rawColumnMap);
-      columnMap.keySet().retainAll(options.getColumns());
-      List<ColumnMetadata> columnMetadata =
-          columnMap.values().stream().collect(ImmutableList.toImmutableList());
-      table =
-          new TableAnswerElement(
-              new TableMetadata(columnMetadata, rawTable.getMetadata().getTextDesc()));
-    }
-    if (options.getUniqueRows()) {
-      // uniquify if desired
-      rowStream = rowStream.distinct();
-    }
-    // offset, truncate, and add to table
-    rowStream.skip(options.getRowOffset()).limit(options.getMaxRows()).forEach(table::addRow);
-    table.setSummary(rawTable.getSummary() != null ? rawTable.getSummary() : new AnswerSummary());
-    table.getSummary().setNumResults(filteredRows.size());
-    return table;
+    return new IndexedTableAnswer(rawTable, this::columnComparator).getTable(options);
   }
 
   @VisibleForTesting
   @Nonnull
   TableView processAnswerTable2(TableAnswerElement rawTable, AnswerRowsOptions options) {
-    Map<Row, Integer> rowIds = Maps.newIdentityHashMap();
-    CommonUtil.forEachWithIndex(rawTable.getRowsList(), (i, row) -> rowIds.put(row, i));
-    Map<String, ColumnMetadata> rawColumnMap = rawTable.getMetadata().toColumnMap();
-    List<Row> filteredRows =
-        rawTable.getRowsList().stream()
-            .filter(row -> options.getFilters().stream().allMatch(filter -> filter.matches(row)))
-            .collect(ImmutableList.toImmutableList());
-
-    Stream<Row> rowStream = filteredRows.stream();
-    if (!options.getSortOrder().isEmpty()) {
-      // sort using specified sort order
-      rowStream = rowStream.sorted(buildComparator(rawColumnMap, options.getSortOrder()));
-    }
-    TableMetadata tableMetadata;
-    if (options.getColumns().isEmpty()) {
-      tableMetadata = rawTable.getMetadata();
-    } else {
-      // project to desired columns
-      rowStream =
-          rowStream.map(
-              rawRow -> {
-                Row row = Row.builder().putAll(rawRow, options.getColumns()).build();
-                rowIds.put(row, rowIds.get(rawRow));
-                return row;
-              });
-      Map<String, ColumnMetadata> columnMap = new LinkedHashMap<>(rawColumnMap);
-      columnMap.keySet().retainAll(options.getColumns());
-      List<ColumnMetadata> columnMetadata =
-          columnMap.values().stream().collect(ImmutableList.toImmutableList());
-      tableMetadata = new TableMetadata(columnMetadata, rawTable.getMetadata().getTextDesc());
-    }
-    if (options.getUniqueRows()) {
-      // uniquify if desired
-      rowStream = rowStream.distinct();
-    }
-    // offset, truncate, and add to table
-    TableView tableView =
-        new TableView(
-            options,
-            rowStream
-                .skip(options.getRowOffset())
-                .limit(options.getMaxRows())
-                .map(row -> new TableViewRow(rowIds.get(row), row))
-                .collect(ImmutableList.toImmutableList()),
-            tableMetadata);
-    tableView.setSummary(
-        rawTable.getSummary() != null ? rawTable.getSummary() : new AnswerSummary());
-    tableView.getSummary().setNumResults(filteredRows.size());
-    return tableView;
-  }
-
-  @VisibleForTesting
-  @Nonnull
-  Comparator<Row> buildComparator(
-      Map<String, ColumnMetadata> rawColumnMap, List<ColumnSortOption> sortOrder) {
-    ColumnSortOption firstColumnSortOption = sortOrder.get(0);
-    ColumnMetadata firstMetadata = rawColumnMap.get(firstColumnSortOption.getColumn());
-    Comparator<Row> comparator = columnComparator(firstMetadata);
-    if (firstColumnSortOption.getReversed()) {
-      comparator = comparator.reversed();
-    }
-    for (int i = 1; i < sortOrder.size(); i++) {
-      ColumnSortOption columnSortOption = sortOrder.get(i);
-      Comparator<Row> nextComparator =
-          columnComparator(rawColumnMap.get(columnSortOption.getColumn()));
-      if (columnSortOption.getReversed()) {
-        nextComparator = nextComparator.reversed();
-      }
-      comparator = comparator.thenComparing(nextComparator);
-    }
-    return comparator;
+    return new IndexedTableAnswer(rawTable, this::columnComparator).getTableView(options);
   }
 
   @SuppressWarnings({"rawtypes", "unchecked"})
@@ -813,17 +813,14 @@ public class WorkMgrService {
         }
       }
 
-      Map<String, String> rawAnswers =
+      Map<String, Answer> answers =
           Main.getWorkMgr()
-              .getAnalysisAnswers(
+              .getAnalysisAnswersRows(
                   networkName,
                   snapshotName,
                   referenceSnapshot,
                   analysisName,
-                  analysisAnswersOptions.keySet());
-
-      Map<String, Answer> answers =
-          Main.getWorkMgr().processAnalysisAnswers(rawAnswers, analysisAnswersOptions);
+                  analysisAnswersOptions);
 
       String answerStr = BatfishObjectMapper.writeString(answers);
 
@@ -982,12 +979,15 @@ public class WorkMgrService {
         }
       }
 
-      String rawAnswer =
+      Answer answer =
           Main.getWorkMgr()
-              .getAnswerString(
-                  networkName, snapshotName, questionName, referenceSnapshotName, analysisName);
-
-      Answer answer = Main.getWorkMgr().processAnswerRows(rawAnswer, answersRowsOptions);
+              .getAnswerRows(
+                  networkName,
+                  snapshotName,
+                  questionName,
+                  referenceSnapshotName,
+                  analysisName,
+                  answersRowsOptions);
 
       String answerStr = BatfishObjectMapper.writeString(answer);
 
@@ -1081,12 +1081,15 @@ public class WorkMgrService {
         }
       }
 
-      String rawAnswer =
+      Answer answer =
           Main.getWorkMgr()
-              .getAnswerString(
-                  networkName, snapshotName, questionName, referenceSnapshotName, analysisName);
-
-      Answer answer = Main.getWorkMgr().processAnswerRows2(rawAnswer, answersRowsOptions);
+              .getAnswerRows2(
+                  networkName,
+                  snapshotName,
+                  questionName,
+                  referenceSnapshotName,
+                  analysisName,
+                  answersRowsOptions);
 
       String answerStr = BatfishObjectMapper.writePrettyString(answer);
 
@@ -3,6 +3,7 @@ package org.batfish.coordinator.resources;
 import static org.batfish.common.CoordConstsV2.RSC_FILTER;
 
 import java.io.IOException;
+import java.io.InputStream;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.ws.rs.Consumes;
@@ -81,10 +82,12 @@ public final class AnswerResource {
 
   /**
    * Get the answer for the specified question, regarding the specified {@code snapshot} and
-   * optionally {@code referenceSnapshot}.
+   * optionally {@code referenceSnapshot}. The stored answer is streamed as-is, without being
+   * deserialized.
    */
   @GET
   @Produces(MediaType.APPLICATION_JSON)
+  @SuppressWarnings("MustBeClosedChecker") // Response eventually closes it.
   public Response getAnswer(
       @Nullable @QueryParam("snapshot") String snapshot,
       @Nullable @QueryParam("referenceSnapshot") String referenceSnapshot)
@@ -99,9 +102,9 @@ public final class AnswerResource {
           .entity(String.format("Snapshot %s not found in network %s", snapshot, _network))
           .build();
     }
-    Answer ans =
+    InputStream ans =
         Main.getWorkMgr()
-            .getAnswer(_network, snapshot, _questionName, referenceSnapshot, _analysis);
+            .getAnswerStream(_network, snapshot, _questionName, referenceSnapshot, _analysis);
     if (ans == null) {
       return Response.status(Status.NOT_FOUND)
           .entity(
@@ -63,6 +63,7 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.function.Function;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.batfish.common.AnswerRowsOptions;
@@ -94,6 +95,7 @@ import org.batfish.datamodel.answers.Answer;
 import org.batfish.datamodel.answers.AnswerMetadata;
 import org.batfish.datamodel.answers.AnswerMetadataUtil;
 import org.batfish.datamodel.answers.AnswerStatus;
+import org.batfish.datamodel.answers.AnswerSummary;
 import org.batfish.datamodel.answers.Issue;
 import org.batfish.datamodel.answers.MajorIssueConfig;
 import org.batfish.datamodel.answers.MinorIssueConfig;
@@ -2214,6 +2216,206 @@ public final class WorkMgrTest {
     assertThat(processedAnswer.getStatus(), equalTo(AnswerStatus.STALE));
   }
 
+  @Test
+  public void testProcessAnswerRowsPaging() throws IOException {
+    String nameColumn = "name";
+    String valColumn = "val";
+    TableAnswerElement table =
+        new TableAnswerElement(
+            new TableMetadata(
+                ImmutableList.of(
+                    new ColumnMetadata(nameColumn, Schema.STRING, "foobar"),
+                    new ColumnMetadata(valColumn, Schema.INTEGER, "foobar"))));
+    Row row1 = Row.of(nameColumn, "a", valColumn, 1);
+    Row row2 = Row.of(nameColumn, "b", valColumn, 2);
+    Row row3 = Row.of(nameColumn, "c", valColumn, 3);
+    Row row4 = Row.of(nameColumn, "d", valColumn, 14);
+    table.addRow(row4);
+    table.addRow(row3);
+    table.addRow(row2);
+    table.addRow(row1);
+    Answer answer = new Answer();
+    answer.addAnswerElement(table);
+    answer.setStatus(AnswerStatus.SUCCESS);
+    String answerStr = BatfishObjectMapper.writePrettyString(answer);
+    Function<Integer, AnswerRowsOptions> page =
+        offset ->
+            new AnswerRowsOptions(
+                ImmutableSet.of(),
+                ImmutableList.of(new ColumnFilter(valColumn, "1")),
+                1,
+                offset,
+                ImmutableList.of(new ColumnSortOption(valColumn, false)),
+                false);
+
+    TableAnswerElement page1 =
+        (TableAnswerElement)
+            _manager.processAnswerRows(answerStr, page.apply(0)).getAnswerElements().get(0);
+    TableAnswerElement page2 =
+        (TableAnswerElement)
+            _manager.processAnswerRows(answerStr, page.apply(1)).getAnswerElements().get(0);
+    TableView page2View =
+        (TableView)
+            _manager.processAnswerRows2(answerStr, page.apply(1)).getAnswerElements().get(0);
+
+    // 1 and 14 match the filter
+    assertThat(page1.getRowsList(), contains(row1));
+    assertThat(page1.getSummary().getNumResults(), equalTo(2));
+    assertThat(page2.getRowsList(), contains(row4));
+    assertThat(page2.getSummary().getNumResults(), equalTo(2));
+    assertThat(page2View.getInnerRows(), contains(row4));
+    assertThat(page2View.getRows().get(0).getId(), equalTo(0));
+  }
+
+  @Test
+  public void testGetAnswerRowsPaging() throws IOException {
+    String network = "network";
+    String snapshot = "snapshot";
+    String questionName = "question";
+    String nameColumn = "name";
+    TableMetadata metadata =
+        new TableMetadata(ImmutableList.of(new ColumnMetadata(nameColumn, Schema.STRING, "foo")));
+    TableAnswerElement table = new TableAnswerElement(metadata);
+    Row row1 = Row.of(nameColumn, "a");
+    Row row2 = Row.of(nameColumn, "b");
+    table.addRow(row2);
+    table.addRow(row1);
+    Answer answer = new Answer();
+    answer.addAnswerElement(table);
+    answer.setStatus(AnswerStatus.SUCCESS);
+    _manager.initNetwork(network, null);
+    uploadTestSnapshot(network, snapshot);
+    setupQuestionAndAnswer(network, snapshot, questionName, null, answer);
+    Function<Integer, AnswerRowsOptions> page =
+        offset ->
+            new AnswerRowsOptions(
+                ImmutableSet.of(),
+                ImmutableList.of(),
+                1,
+                offset,
+                ImmutableList.of(new ColumnSortOption(nameColumn, false)),
+                false);
+
+    TableAnswerElement page1 =
+        (TableAnswerElement)
+            _manager
+                .getAnswerRows(network, snapshot, questionName, null, null, page.apply(0))
+                .getAnswerElements()
+                .get(0);
+
+    // Further pages are served from the index rather than by reading the answer again
+    NetworkId networkId = _idManager.getNetworkId(network);
+    AnswerId finalAnswerId =
+        _idManager.getFinalAnswerId(
+            _idManager.getBaseAnswerId(
+                networkId,
+                _idManager.getSnapshotId(snapshot, networkId),
+                _idManager.getQuestionId(questionName, networkId, null),
+                DEFAULT_QUESTION_SETTINGS_ID,
+                DEFAULT_NETWORK_NODE_ROLES_ID,
+                null,
+                null),
+            ImmutableSet.of());
+    Answer emptyAnswer = new Answer();
+    emptyAnswer.addAnswerElement(new TableAnswerElement(metadata));
+    emptyAnswer.setStatus(AnswerStatus.SUCCESS);
+    _storage.storeAnswer(BatfishObjectMapper.writeString(emptyAnswer), finalAnswerId);
+
+    TableAnswerElement page2 =
+        (TableAnswerElement)
+            _manager
+                .getAnswerRows(network, snapshot, questionName, null, null, page.apply(1))
+                .getAnswerElements()
+                .get(0);
+    TableView page2View =
+        (TableView)
+            _manager
+                .getAnswerRows2(network, snapshot, questionName, null, null, page.apply(1))
+                .getAnswerElements()
+                .get(0);
+
+    assertThat(page1.getRowsList(), contains(row1));
+    assertThat(page2.getRowsList(), contains(row2));
+    assertThat(page2.getSummary().getNumResults(), equalTo(2));
+    assertThat(page2View.getInnerRows(), contains(row2));
+  }
+
+  @Test
+  public void testGetAnswerRowsNotFound() throws IOException {
+    String network = "network";
+    String snapshot = "snapshot";
+    String questionName = "question";
+    _manager.initNetwork(network, null);
+    uploadTestSnapshot(network, snapshot);
+    setupQuestionAndAnswer(network, snapshot, questionName, null, null);
+    AnswerRowsOptions options =
+        new AnswerRowsOptions(
+            ImmutableSet.of(), ImmutableList.of(), 1, 0, ImmutableList.of(), false);
+
+    assertThat(
+        _manager.getAnswerRows(network, snapshot, questionName, null, null, options).getStatus(),
+        equalTo(AnswerStatus.NOTFOUND));
+  }
+
+  @Test
+  public void testProcessAnswerTableSortingMultipleColumns() {
+    String nameColumn = "name";
+    String valColumn = "val";
+    TableAnswerElement table =
+        new TableAnswerElement(
+            new TableMetadata(
+                ImmutableList.of(
+                    new ColumnMetadata(nameColumn, Schema.STRING, "foobar"),
+                    new ColumnMetadata(valColumn, Schema.INTEGER, "foobar"))));
+    Row row1 = Row.of(nameColumn, "a", valColumn, 1);
+    Row row2 = Row.of(nameColumn, "a", valColumn, 2);
+    Row row3 = Row.of(nameColumn, "b", valColumn, 1);
+    Row row4 = Row.of(nameColumn, "b", valColumn, 2);
+    table.addRow(row3);
+    table.addRow(row1);
+    table.addRow(row4);
+    table.addRow(row2);
+    AnswerRowsOptions options =
+        new AnswerRowsOptions(
+            ImmutableSet.of(),
+            ImmutableList.of(),
+            Integer.MAX_VALUE,
+            0,
+            ImmutableList.of(
+                new ColumnSortOption(nameColumn, true), new ColumnSortOption(valColumn, false)),
+            false);
+
+    assertThat(
+        _manager.processAnswerTable(table, options).getRowsList(),
+        contains(row3, row4, row1, row2));
+  }
+
+  @Test
+  public void testProcessAnswerTableSummaryUnchanged() {
+    String columnName = "val";
+    TableAnswerElement table =
+        new TableAnswerElement(
+            new TableMetadata(
+                ImmutableList.of(new ColumnMetadata(columnName, Schema.INTEGER, "foobar"))));
+    table.addRow(Row.of(columnName, 1));
+    table.addRow(Row.of(columnName, 2));
+    table.setSummary(new AnswerSummary("notes", 0, 0, 2));
+    AnswerRowsOptions options =
+        new AnswerRowsOptions(
+            ImmutableSet.of(),
+            ImmutableList.of(new ColumnFilter(columnName, "2")),
+            Integer.MAX_VALUE,
+            0,
+            ImmutableList.of(),
+            false);
+
+    AnswerSummary summary = _manager.processAnswerTable(table, options).getSummary();
+
+    assertThat(summary.getNotes(), equalTo("notes"));
+    assertThat(summary.getNumResults(), equalTo(1));
+    assertThat(table.getSummary().getNumResults(), equalTo(2));
+  }
+
   @Test
   public void testProcessAnswerTableSorting() {
     String columnName = "val";
@@ -2485,81 +2687,6 @@ public final class WorkMgrTest {
         equalTo(ImmutableList.of(row1)));
   }
 
-  @Test
-  public void testBuildComparator() {
-    String col1 = "col1";
-    String col2 = "col2";
-    Map<String, ColumnMetadata> rawColumnMap =
-        ImmutableMap.of(
-            col1,
-            new ColumnMetadata(col1, Schema.INTEGER, "blah"),
-            col2,
-            new ColumnMetadata(col2, Schema.INTEGER, "bloop"));
-    Comparator<Row> comCol1 =
-        _manager.buildComparator(rawColumnMap, ImmutableList.of(new ColumnSortOption(col1, false)));
-    Comparator<Row> comCol1Reversed =
-        _manager.buildComparator(rawColumnMap, ImmutableList.of(new ColumnSortOption(col1, true)));
-    Comparator<Row> comCol2 =
-        _manager.buildComparator(rawColumnMap, ImmutableList.of(new ColumnSortOption(col2, false)));
-    Comparator<Row> comCol2Reversed =
-        _manager.buildComparator(rawColumnMap, ImmutableList.of(new ColumnSortOption(col2, true)));
-    Comparator<Row> comCol1Then2 =
-        _manager.buildComparator(
-            rawColumnMap,
-            ImmutableList.of(new ColumnSortOption(col1, false), new ColumnSortOption(col2, false)));
-    Comparator<Row> comCol2Then1 =
-        _manager.buildComparator(
-            rawColumnMap,
-            ImmutableList.of(new ColumnSortOption(col2, false), new ColumnSortOption(col1, false)));
-
-    Row row1 = Row.of(col1, 1, col2, 10);
-    Row row2 = Row.of(col1, 1, col2, 20);
-    Row row3 = Row.of(col1, 2, col2, 10);
-    Row row4 = Row.of(col1, 2, col2, 20);
-
-    assertThat(comCol1.compare(row1, row2), equalTo(0));
-    assertThat(comCol1.compare(row1, row3), equalTo(-1));
-    assertThat(comCol1.compare(row1, row4), equalTo(-1));
-    assertThat(comCol1.compare(row2, row3), equalTo(-1));
-    assertThat(comCol1.compare(row2, row4), equalTo(-1));
-    assertThat(comCol1.compare(row3, row4), equalTo(0));
-
-    assertThat(comCol1Reversed.compare(row1, row2), equalTo(0));
-    assertThat(comCol1Reversed.compare(row1, row3), equalTo(1));
-    assertThat(comCol1Reversed.compare(row1, row4), equalTo(1));
-    assertThat(comCol1Reversed.compare(row2, row3), equalTo(1));
-    assertThat(comCol1Reversed.compare(row2, row4), equalTo(1));
-    assertThat(comCol1Reversed.compare(row3, row4), equalTo(0));
-
-    assertThat(comCol2.compare(row1, row2), equalTo(-1));
-    assertThat(comCol2.compare(row1, row3), equalTo(0));
-    assertThat(comCol2.compare(row1, row4), equalTo(-1));
-    assertThat(comCol2.compare(row2, row3), equalTo(1));
-    assertThat(comCol2.compare(row2, row4), equalTo(0));
-    assertThat(comCol2.compare(row3, row4), equalTo(-1));
-
-    assertThat(comCol2Reversed.compare(row1, row2), equalTo(1));
-    assertThat(comCol2Reversed.compare(row1, row3), equalTo(0));
-    assertThat(comCol2Reversed.compare(row1, row4), equalTo(1));
-    assertThat(comCol2Reversed.compare(row2, row3), equalTo(-1));
-    assertThat(comCol2Reversed.compare(row2, row4), equalTo(0));
-    assertThat(comCol2Reversed.compare(row3, row4), equalTo(1));
-
-    assertThat(comCol1Then2.compare(row1, row2), equalTo(-1));
-    assertThat(comCol1Then2.compare(row1, row3), equalTo(-1));
-    assertThat(comCol1Then2.compare(row1, row4), equalTo(-1));
-    assertThat(comCol1Then2.compare(row2, row3), equalTo(-1));
-    assertThat(comCol1Then2.compare(row2, row4), equalTo(-1));
-    assertThat(comCol1Then2.compare(row3, row4), equalTo(-1));
-
-    assertThat(comCol2Then1.compare(row1, row2), equalTo(-1));
-    assertThat(comCol2Then1.compare(row1, row3), equalTo(-1));
-    assertThat(comCol2Then1.compare(row1, row4), equalTo(-1));
-    assertThat(comCol2Then1.compare(row2, row3), equalTo(1));
-    assertThat(comCol2Then1.compare(row2, row4), equalTo(-1));
-    assertThat(comCol2Then1.compare(row3, row4), equalTo(-1));
-  }
-
   @Test
   public void testColumnComparator() {
     String colInteger = "colInteger";
@@ -3,7 +3,7 @@ package org.batfish.question.differentialreachability;
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static org.batfish.datamodel.acl.AclLineMatchExprs.match;
 import static org.batfish.question.specifiers.PathConstraintsUtil.createPathConstraints;
-import static org.batfish.question.traceroute.TracerouteAnswerer.diffFlowTracesToRows;
+import static org.batfish.question.traceroute.TracerouteAnswerer.computeDiffFlowTracesToRows;
 import static org.batfish.question.traceroute.TracerouteAnswerer.metadata;
 import static org.batfish.specifier.SpecifierUtils.resolveActiveLocations;
 
@@ -12,8 +12,6 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.Sets;
-import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import org.batfish.common.Answerer;
 import org.batfish.common.BatfishException;
@@ -27,7 +25,6 @@ import org.batfish.datamodel.PacketHeaderConstraintsUtil;
 import org.batfish.datamodel.PathConstraints;
 import org.batfish.datamodel.UniverseIpSpace;
 import org.batfish.datamodel.acl.AclLineMatchExpr;
-import org.batfish.datamodel.flow.Trace;
 import org.batfish.datamodel.questions.Question;
 import org.batfish.datamodel.table.Row;
 import org.batfish.datamodel.table.TableAnswerElement;
@@ -133,13 +130,13 @@ public class DifferentialReachabilityAnswerer extends Answerer {
         Sets.union(result.getDecreasedReachabilityFlows(), result.getIncreasedReachabilityFlows());
     Multiset<Row> rows;
     TableAnswerElement table;
-    Map<Flow, List<Trace>> baseFlowTraces =
-        _batfish.buildFlows(snapshot, flows, parameters.getIgnoreFilters());
-
-    Map<Flow, List<Trace>> deltaFlowTraces =
-        _batfish.buildFlows(reference, flows, parameters.getIgnoreFilters());
-
-    rows = diffFlowTracesToRows(baseFlowTraces, deltaFlowTraces, parameters.getMaxTraces());
+    rows =
+        computeDiffFlowTracesToRows(
+            _batfish.getTracerouteEngine(snapshot),
+            _batfish.getTracerouteEngine(reference),
+            flows,
+            parameters.getIgnoreFilters(),
+            parameters.getMaxTraces());
     table = new TableAnswerElement(metadata(true));
     table.postProcessAnswer(_question, rows);
     return table;
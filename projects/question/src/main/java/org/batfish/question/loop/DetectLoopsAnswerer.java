@@ -2,17 +2,14 @@ package org.batfish.question.loop;
 
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Ordering;
-import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.SortedMap;
 import java.util.stream.Collectors;
 import org.batfish.common.Answerer;
 import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.plugin.IBatfish;
 import org.batfish.datamodel.Flow;
 import org.batfish.datamodel.answers.AnswerElement;
-import org.batfish.datamodel.flow.Trace;
 import org.batfish.datamodel.questions.Question;
 import org.batfish.datamodel.table.TableAnswerElement;
 import org.batfish.question.traceroute.TracerouteAnswerer;
@@ -39,9 +36,9 @@ public final class DetectLoopsAnswerer extends Answerer {
             .map(Optional::get) // safe: the min here cannot be empty by construction.
             .collect(ImmutableSortedSet.toImmutableSortedSet(Ordering.natural()));
 
-    SortedMap<Flow, List<Trace>> flowTraces = _batfish.buildFlows(snapshot, flows, false);
     TableAnswerElement tableAnswer = new TableAnswerElement(TracerouteAnswerer.metadata(false));
-    TracerouteAnswerer.flowTracesToRows(flowTraces, question.getMaxTraces())
+    TracerouteAnswerer.computeFlowTracesToRows(
+            _batfish.getTracerouteEngine(snapshot), flows, false, question.getMaxTraces())
         .forEach(tableAnswer::addRow);
     return tableAnswer;
   }
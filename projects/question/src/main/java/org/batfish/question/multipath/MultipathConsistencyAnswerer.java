@@ -6,9 +6,7 @@ import static org.batfish.question.specifiers.PathConstraintsUtil.createPathCons
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import java.util.List;
 import java.util.Set;
-import java.util.SortedMap;
 import org.batfish.common.Answerer;
 import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.plugin.IBatfish;
@@ -21,7 +19,6 @@ import org.batfish.datamodel.PathConstraints;
 import org.batfish.datamodel.UniverseIpSpace;
 import org.batfish.datamodel.acl.AclLineMatchExpr;
 import org.batfish.datamodel.answers.AnswerElement;
-import org.batfish.datamodel.flow.Trace;
 import org.batfish.datamodel.questions.Question;
 import org.batfish.datamodel.table.TableAnswerElement;
 import org.batfish.question.traceroute.TracerouteAnswerer;
@@ -41,9 +38,9 @@ public class MultipathConsistencyAnswerer extends Answerer {
   public AnswerElement answer(NetworkSnapshot snapshot) {
     MultipathConsistencyParameters parameters = parameters(snapshot);
     Set<Flow> flows = _batfish.bddMultipathConsistency(snapshot, parameters);
-    SortedMap<Flow, List<Trace>> flowTraces = _batfish.buildFlows(snapshot, flows, false);
     TableAnswerElement tableAnswer = new TableAnswerElement(TracerouteAnswerer.metadata(false));
-    TracerouteAnswerer.flowTracesToRows(flowTraces, parameters.getMaxTraces())
+    TracerouteAnswerer.computeFlowTracesToRows(
+            _batfish.getTracerouteEngine(snapshot), flows, false, parameters.getMaxTraces())
         .forEach(tableAnswer::addRow);
     return tableAnswer;
   }
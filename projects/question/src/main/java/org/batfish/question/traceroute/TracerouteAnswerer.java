@@ -9,9 +9,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.annotation.Nonnull;
 import org.batfish.common.Answerer;
 import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.plugin.IBatfish;
+import org.batfish.common.plugin.TracerouteEngine;
 import org.batfish.common.util.TracePruner;
 import org.batfish.datamodel.Flow;
 import org.batfish.datamodel.answers.AnswerElement;
@@ -39,21 +42,37 @@ public final class TracerouteAnswerer extends Answerer {
     super(question, batfish);
   }
 
-  private SortedMap<Flow, List<Trace>> getTraces(NetworkSnapshot snapshot, TracerouteQuestion q) {
+  /**
+   * The traces of a flow, pruned by {@link TracePruner}, and the number of traces before pruning
+   */
+  private static final class PrunedTraces {
+    private final @Nonnull List<Trace> _traces;
+    private final int _traceCount;
+
+    private PrunedTraces(List<Trace> traces, int maxTraces) {
+      _traces = TracePruner.prune(traces, maxTraces);
+      _traceCount = traces.size();
+    }
+  }
+
+  private Set<Flow> getFlows(NetworkSnapshot snapshot, TracerouteQuestion q) {
     TracerouteAnswererHelper helper =
         new TracerouteAnswererHelper(
             q.getHeaderConstraints(),
             q.getSourceLocationStr(),
             _batfish.specifierContext(snapshot));
-    Set<Flow> flows = helper.getFlows();
-    return _batfish.getTracerouteEngine(snapshot).computeTraces(flows, q.getIgnoreFilters());
+    return helper.getFlows();
   }
 
   @Override
   public AnswerElement answer(NetworkSnapshot snapshot) {
     TracerouteQuestion q = (TracerouteQuestion) _question;
-    SortedMap<Flow, List<Trace>> flowTraces = getTraces(snapshot, q);
-    Multiset<Row> rows = flowTracesToRows(flowTraces, q.getMaxTraces());
+    Multiset<Row> rows =
+        computeFlowTracesToRows(
+            _batfish.getTracerouteEngine(snapshot),
+            getFlows(snapshot, q),
+            q.getIgnoreFilters(),
+            q.getMaxTraces());
 
     TableAnswerElement table = new TableAnswerElement(metadata(false));
     table.postProcessAnswer(_question, rows);
@@ -63,11 +82,17 @@ public final class TracerouteAnswerer extends Answerer {
   @Override
   public AnswerElement answerDiff(NetworkSnapshot snapshot, NetworkSnapshot reference) {
     TracerouteQuestion q = ((TracerouteQuestion) _question);
-    Map<Flow, List<Trace>> baseFlowTraces = getTraces(snapshot, q);
-
-    Map<Flow, List<Trace>> deltaFlowTraces = getTraces(reference, q);
+    Set<Flow> flows = getFlows(snapshot, q);
+    checkArgument(
+        flows.equals(getFlows(reference, q)), "Base and delta flow traces should have same flows");
 
-    Multiset<Row> rows = diffFlowTracesToRows(baseFlowTraces, deltaFlowTraces, q.getMaxTraces());
+    Multiset<Row> rows =
+        computeDiffFlowTracesToRows(
+            _batfish.getTracerouteEngine(snapshot),
+            _batfish.getTracerouteEngine(reference),
+            flows,
+            q.getIgnoreFilters(),
+            q.getMaxTraces());
     TableAnswerElement table = new TableAnswerElement(metadata(true));
     table.postProcessAnswer(_question, rows);
     return table;
@@ -124,20 +149,76 @@ public final class TracerouteAnswerer extends Answerer {
       SortedMap<Flow, List<Trace>> flowTraces, int maxTraces) {
     Multiset<Row> rows = LinkedHashMultiset.create();
     for (Map.Entry<Flow, List<Trace>> flowTrace : flowTraces.entrySet()) {
-      List<Trace> traces = flowTrace.getValue();
-      List<Trace> prunedTraces = TracePruner.prune(traces, maxTraces);
-      rows.add(
-          Row.of(
-              COL_FLOW,
-              flowTrace.getKey(),
-              COL_TRACES,
-              prunedTraces,
-              COL_TRACE_COUNT,
-              traces.size()));
+      rows.add(toRow(flowTrace.getKey(), new PrunedTraces(flowTrace.getValue(), maxTraces)));
     }
     return rows;
   }
 
+  /**
+   * Computes the traces of {@code flows} and converts them to rows as {@link #flowTracesToRows}
+   * does. The traces of each flow are pruned as soon as they are computed, so that at most {@code
+   * maxTraces} traces per flow are held in memory.
+   */
+  public static Multiset<Row> computeFlowTracesToRows(
+      TracerouteEngine tracerouteEngine, Set<Flow> flows, boolean ignoreFilters, int maxTraces) {
+    SortedMap<Flow, PrunedTraces> flowTraces =
+        computePrunedTraces(tracerouteEngine, flows, ignoreFilters, maxTraces);
+    Multiset<Row> rows = LinkedHashMultiset.create();
+    flowTraces.forEach((flow, traces) -> rows.add(toRow(flow, traces)));
+    return rows;
+  }
+
+  /**
+   * Computes the traces of {@code flows} in two snapshots and converts them to rows as {@link
+   * #diffFlowTracesToRows} does, pruning the traces of each flow as soon as they are computed.
+   */
+  public static Multiset<Row> computeDiffFlowTracesToRows(
+      TracerouteEngine baseTracerouteEngine,
+      TracerouteEngine deltaTracerouteEngine,
+      Set<Flow> flows,
+      boolean ignoreFilters,
+      int maxTraces) {
+    SortedMap<Flow, PrunedTraces> baseFlowTraces =
+        computePrunedTraces(baseTracerouteEngine, flows, ignoreFilters, maxTraces);
+    SortedMap<Flow, PrunedTraces> deltaFlowTraces =
+        computePrunedTraces(deltaTracerouteEngine, flows, ignoreFilters, maxTraces);
+    checkArgument(
+        baseFlowTraces.keySet().equals(deltaFlowTraces.keySet()),
+        "Base and delta flow traces should have same flows");
+    Multiset<Row> rows = LinkedHashMultiset.create();
+    baseFlowTraces.forEach(
+        (flow, baseTraces) -> rows.add(toDiffRow(flow, baseTraces, deltaFlowTraces.get(flow))));
+    return rows;
+  }
+
+  private static SortedMap<Flow, PrunedTraces> computePrunedTraces(
+      TracerouteEngine tracerouteEngine, Set<Flow> flows, boolean ignoreFilters, int maxTraces) {
+    SortedMap<Flow, PrunedTraces> flowTraces = new ConcurrentSkipListMap<>();
+    tracerouteEngine.computeTraces(
+        flows,
+        ignoreFilters,
+        (flow, traces) -> flowTraces.put(flow, new PrunedTraces(traces, maxTraces)));
+    return flowTraces;
+  }
+
+  private static Row toRow(Flow flow, PrunedTraces traces) {
+    return Row.of(COL_FLOW, flow, COL_TRACES, traces._traces, COL_TRACE_COUNT, traces._traceCount);
+  }
+
+  private static Row toDiffRow(Flow flow, PrunedTraces baseTraces, PrunedTraces deltaTraces) {
+    return Row.of(
+        COL_FLOW,
+        flow,
+        TableDiff.baseColumnName(COL_TRACES),
+        baseTraces._traces,
+        TableDiff.baseColumnName(COL_TRACE_COUNT),
+        baseTraces._traceCount,
+        TableDiff.deltaColumnName(COL_TRACES),
+        deltaTraces._traces,
+        TableDiff.deltaColumnName(COL_TRACE_COUNT),
+        deltaTraces._traceCount);
+  }
+
   public static Multiset<Row> diffFlowTracesToRows(
       Map<Flow, List<Trace>> baseFlowTraces,
       Map<Flow, List<Trace>> deltaFlowTraces,
@@ -148,17 +229,10 @@ public final class TracerouteAnswerer extends Answerer {
         "Base and delta flow traces should have same flows");
     for (Flow flow : baseFlowTraces.keySet()) {
       rows.add(
-          Row.of(
-              COL_FLOW,
+          toDiffRow(
               flow,
-              TableDiff.baseColumnName(COL_TRACES),
-              TracePruner.prune(baseFlowTraces.get(flow), maxTraces),
-              TableDiff.baseColumnName(COL_TRACE_COUNT),
-              baseFlowTraces.get(flow).size(),
-              TableDiff.deltaColumnName(COL_TRACES),
-              TracePruner.prune(deltaFlowTraces.get(flow), maxTraces),
-              TableDiff.deltaColumnName(COL_TRACE_COUNT),
-              deltaFlowTraces.get(flow).size()));
+              new PrunedTraces(baseFlowTraces.get(flow), maxTraces),
+              new PrunedTraces(deltaFlowTraces.get(flow), maxTraces)));
     }
     return rows;
   }
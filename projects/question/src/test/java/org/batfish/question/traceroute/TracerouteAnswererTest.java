@@ -8,6 +8,8 @@ import static org.batfish.question.traceroute.TracerouteAnswerer.COL_DELTA_TRACE
 import static org.batfish.question.traceroute.TracerouteAnswerer.COL_FLOW;
 import static org.batfish.question.traceroute.TracerouteAnswerer.COL_TRACES;
 import static org.batfish.question.traceroute.TracerouteAnswerer.COL_TRACE_COUNT;
+import static org.batfish.question.traceroute.TracerouteAnswerer.computeDiffFlowTracesToRows;
+import static org.batfish.question.traceroute.TracerouteAnswerer.computeFlowTracesToRows;
 import static org.batfish.question.traceroute.TracerouteAnswerer.diffFlowTracesToRows;
 import static org.batfish.question.traceroute.TracerouteAnswerer.flowTracesToRows;
 import static org.batfish.question.traceroute.TracerouteAnswerer.metadata;
@@ -20,17 +22,23 @@ import static org.junit.Assert.assertThat;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Multiset;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
+import java.util.function.BiConsumer;
+import org.batfish.common.plugin.TracerouteEngine;
 import org.batfish.datamodel.Flow;
 import org.batfish.datamodel.FlowDisposition;
 import org.batfish.datamodel.Ip;
 import org.batfish.datamodel.answers.Schema;
+import org.batfish.datamodel.flow.FirewallSessionTraceInfo;
 import org.batfish.datamodel.flow.Hop;
 import org.batfish.datamodel.flow.Trace;
+import org.batfish.datamodel.flow.TraceAndReverseFlow;
 import org.batfish.datamodel.matchers.TraceMatchers;
 import org.batfish.datamodel.pojo.Node;
 import org.batfish.datamodel.table.ColumnMetadata;
@@ -98,6 +106,79 @@ public class TracerouteAnswererTest {
             hasColumn(TracerouteAnswerer.COL_TRACE_COUNT, equalTo(2), Schema.INTEGER)));
   }
 
+  @Test
+  public void testComputeFlowTracesToRows() {
+    Flow flow1 = Flow.builder().setIngressNode("node").setDstIp(Ip.parse("1.1.1.1")).build();
+    Flow flow2 = Flow.builder().setIngressNode("node").setDstIp(Ip.parse("2.2.2.2")).build();
+    List<Trace> traces =
+        ImmutableList.of(
+            new Trace(FlowDisposition.DENIED_OUT, ImmutableList.of()),
+            new Trace(FlowDisposition.DENIED_IN, ImmutableList.of()));
+    TracerouteEngine tracerouteEngine =
+        new TracerouteEngine() {
+          @Override
+          public void computeTraces(
+              Set<Flow> flows, boolean ignoreFilters, BiConsumer<Flow, List<Trace>> consumer) {
+            // stream flows out of order
+            consumer.accept(flow2, traces);
+            consumer.accept(flow1, traces);
+          }
+
+          @Override
+          public SortedMap<Flow, List<TraceAndReverseFlow>> computeTracesAndReverseFlows(
+              Set<Flow> flows, Set<FirewallSessionTraceInfo> sessions, boolean ignoreFilters) {
+            throw new UnsupportedOperationException();
+          }
+        };
+
+    Multiset<Row> rows =
+        computeFlowTracesToRows(tracerouteEngine, ImmutableSet.of(flow1, flow2), false, 1);
+    assertThat(
+        rows,
+        contains(
+            allOf(
+                hasColumn(COL_FLOW, equalTo(flow1), Schema.FLOW),
+                hasColumn(COL_TRACES, hasSize(1), Schema.set(Schema.TRACE)),
+                hasColumn(COL_TRACE_COUNT, equalTo(2), Schema.INTEGER)),
+            allOf(
+                hasColumn(COL_FLOW, equalTo(flow2), Schema.FLOW),
+                hasColumn(COL_TRACES, hasSize(1), Schema.set(Schema.TRACE)),
+                hasColumn(COL_TRACE_COUNT, equalTo(2), Schema.INTEGER))));
+  }
+
+  /** Returns a {@link TracerouteEngine} that computes {@code flowTraces} for any flows. */
+  private static TracerouteEngine tracerouteEngine(Map<Flow, List<Trace>> flowTraces) {
+    return new TracerouteEngine() {
+      @Override
+      public void computeTraces(
+          Set<Flow> flows, boolean ignoreFilters, BiConsumer<Flow, List<Trace>> consumer) {
+        flowTraces.forEach(consumer);
+      }
+
+      @Override
+      public SortedMap<Flow, List<TraceAndReverseFlow>> computeTracesAndReverseFlows(
+          Set<Flow> flows, Set<FirewallSessionTraceInfo> sessions, boolean ignoreFilters) {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  @Test
+  public void testComputeDiffFlowTracesToRowsDifferentFlows() {
+    Flow flow1 = Flow.builder().setIngressNode("node").setDstIp(Ip.parse("1.1.1.1")).build();
+    Flow flow2 = Flow.builder().setIngressNode("node").setDstIp(Ip.parse("2.2.2.2")).build();
+    List<Trace> traces = ImmutableList.of(new Trace(FlowDisposition.ACCEPTED, ImmutableList.of()));
+
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Base and delta flow traces should have same flows");
+    computeDiffFlowTracesToRows(
+        tracerouteEngine(ImmutableMap.of(flow1, traces, flow2, traces)),
+        tracerouteEngine(ImmutableMap.of(flow1, traces)),
+        ImmutableSet.of(flow1, flow2),
+        false,
+        1);
+  }
+
   @Test
   public void testDiffFlowTracesToRowsMaxTraces() {
     Flow flow = Flow.builder().setIngressNode("node").setDstIp(Ip.parse("1.1.1.1")).build();